@@ -0,0 +1,88 @@
+/*
+ * @(#)ApiResultSerializationBenchmark.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.benchmark;
+
+import com.dasd412.remake.api.controller.ApiResult;
+import com.dasd412.remake.api.controller.security.domain_rest.dto.chart.FindAllBloodSugarDTO;
+import com.dasd412.remake.api.domain.diary.EntityId;
+import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
+import com.dasd412.remake.api.domain.diary.diet.Diet;
+import com.dasd412.remake.api.domain.diary.diet.EatTime;
+import com.dasd412.remake.api.domain.diary.writer.Role;
+import com.dasd412.remake.api.domain.diary.writer.Writer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 혈당 차트 응답(ApiResult) JSON 직렬화 비용 측정.
+ * ObjectMapper 는 스프링 부트와 같은 방식(Jackson2ObjectMapperBuilder)으로 만든다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiResultSerializationBenchmark {
+
+    @Param({"30", "365"})
+    private int diaryCount;
+
+    private ObjectMapper objectMapper;
+
+    private ApiResult<List<FindAllBloodSugarDTO>> result;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        Writer writer = Writer.builder()
+                .writerEntityId(EntityId.of(Writer.class, 1L))
+                .name("benchmark")
+                .email("benchmark@test.com")
+                .password("password")
+                .role(Role.User)
+                .build();
+
+        List<DiabetesDiary> diaries = new ArrayList<>(diaryCount);
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        long dietId = 1L;
+        for (int i = 0; i < diaryCount; i++) {
+            DiabetesDiary diary = new DiabetesDiary(EntityId.of(DiabetesDiary.class, (long) i + 1), writer, 100, "", start.plusDays(i));
+            diary.addDiet(new Diet(EntityId.of(Diet.class, dietId++), diary, EatTime.BreakFast, 110));
+            diary.addDiet(new Diet(EntityId.of(Diet.class, dietId++), diary, EatTime.Lunch, 130));
+            diary.addDiet(new Diet(EntityId.of(Diet.class, dietId++), diary, EatTime.Dinner, 150));
+            diaries.add(diary);
+        }
+
+        result = ApiResult.OK(FindAllBloodSugarDTO.makeListAndSortByDate(diaries));
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(result);
+    }
+}
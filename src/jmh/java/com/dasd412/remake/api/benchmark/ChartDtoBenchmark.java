@@ -0,0 +1,110 @@
+/*
+ * @(#)ChartDtoBenchmark.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.benchmark;
+
+import com.dasd412.remake.api.controller.security.domain_rest.dto.chart.FindAllBloodSugarDTO;
+import com.dasd412.remake.api.controller.security.domain_rest.dto.chart.FindAverageAllDTO;
+import com.dasd412.remake.api.domain.diary.EntityId;
+import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
+import com.dasd412.remake.api.domain.diary.diet.Diet;
+import com.dasd412.remake.api.domain.diary.diet.EatTime;
+import com.dasd412.remake.api.domain.diary.diet.QDiet;
+import com.dasd412.remake.api.domain.diary.writer.Role;
+import com.dasd412.remake.api.domain.diary.writer.Writer;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.QTuple;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 혈당 차트 요청마다 실행되는 DTO 변환 비용 측정.
+ * 일지는 하루 한 건, 식단은 일지 당 세 건으로 만든다. (실제 데이터와 같은 비율)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChartDtoBenchmark {
+
+    /**
+     * 일지 개수. 한 달, 일 년, 오 년.
+     */
+    @Param({"30", "365", "1825"})
+    private int diaryCount;
+
+    private List<DiabetesDiary> diaries;
+
+    private List<Tuple> averageTuples;
+
+    @Setup
+    public void setUp() {
+        Writer writer = Writer.builder()
+                .writerEntityId(EntityId.of(Writer.class, 1L))
+                .name("benchmark")
+                .email("benchmark@test.com")
+                .password("password")
+                .role(Role.User)
+                .build();
+
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        EatTime[] eatTimes = {EatTime.BreakFast, EatTime.Lunch, EatTime.Dinner};
+
+        diaries = new ArrayList<>(diaryCount);
+        long dietId = 1L;
+        for (int i = 0; i < diaryCount; i++) {
+            DiabetesDiary diary = new DiabetesDiary(EntityId.of(DiabetesDiary.class, (long) i + 1), writer, 80 + random.nextInt(60), "", start.plusDays(i));
+            for (EatTime eatTime : eatTimes) {
+                diary.addDiet(new Diet(EntityId.of(Diet.class, dietId++), diary, eatTime, 90 + random.nextInt(120)));
+            }
+            diaries.add(diary);
+        }
+        /* 조회 결과가 작성 시간 순이 아닌 경우를 가정한다. */
+        Collections.shuffle(diaries, random);
+
+        QTuple projection = Projections.tuple(QDiet.diet.eatTime, QDiet.diet.bloodSugar.avg());
+        averageTuples = new ArrayList<>();
+        averageTuples.add(projection.newInstance(EatTime.BreakFast, 110.5));
+        averageTuples.add(projection.newInstance(EatTime.Lunch, 130.25));
+        averageTuples.add(projection.newInstance(EatTime.Dinner, 140.0));
+    }
+
+    @Benchmark
+    public List<FindAllBloodSugarDTO> makeAllBloodSugarDtoListAndSortByDate() {
+        return FindAllBloodSugarDTO.makeListAndSortByDate(diaries);
+    }
+
+    @Benchmark
+    public FindAverageAllDTO unpackAverageTuples() {
+        return FindAverageAllDTO.builder()
+                .averageFpg(110.0)
+                .tupleList(averageTuples)
+                .averageBloodSugar(126.9)
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * @(#)DateParsingBenchmark.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.benchmark;
+
+import com.dasd412.remake.api.util.DateStringConverter;
+import com.dasd412.remake.api.util.DateStringJoiner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 일지 작성 시간 파싱(DateStringJoiner)과 차트 기간 파라미터 파싱(DateStringConverter) 비용 측정.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateParsingBenchmark {
+
+    private Map<String, String> params;
+
+    @Setup
+    public void setUp() {
+        params = new HashMap<>();
+        params.put("startYear", "2022");
+        params.put("startMonth", "01");
+        params.put("startDay", "28");
+        params.put("endYear", "2022");
+        params.put("endMonth", "12");
+        params.put("endDay", "31");
+    }
+
+    @Benchmark
+    public LocalDateTime joinWrittenTime() {
+        return DateStringJoiner.builder()
+                .year("2022").month("01").day("29")
+                .hour("12").minute("30").second("00")
+                .build()
+                .convertLocalDateTime();
+    }
+
+    @Benchmark
+    public LocalDateTime convertMapParamsToStartDate() {
+        return DateStringConverter.convertMapParamsToStartDate(params);
+    }
+
+    @Benchmark
+    public Optional<LocalDateTime> convertLocalDateTime() {
+        return DateStringConverter.convertLocalDateTime("2022", "01", "29");
+    }
+}
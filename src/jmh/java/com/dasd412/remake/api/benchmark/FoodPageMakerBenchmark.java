@@ -0,0 +1,61 @@
+/*
+ * @(#)FoodPageMakerBenchmark.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.benchmark;
+
+import com.dasd412.remake.api.controller.security.domain_rest.dto.chart.FoodBoardDTO;
+import com.dasd412.remake.api.controller.security.domain_view.FoodPageMaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 음식 게시판 페이지 번호 계산(FoodPageMaker.calculatePages) 비용 측정.
+ * 현재 페이지가 뒤쪽일수록 previousOrFirst()를 많이 호출한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FoodPageMakerBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+
+    private static final long TOTAL_FOODS = 50_000;
+
+    @Param({"0", "9", "2499"})
+    private int pageNumber;
+
+    private Page<FoodBoardDTO> page;
+
+    @Setup
+    public void setUp() {
+        page = new PageImpl<>(new ArrayList<>(), PageRequest.of(pageNumber, PAGE_SIZE), TOTAL_FOODS);
+    }
+
+    @Benchmark
+    public FoodPageMaker<FoodBoardDTO> calculatePages() {
+        return new FoodPageMaker<>(page);
+    }
+}
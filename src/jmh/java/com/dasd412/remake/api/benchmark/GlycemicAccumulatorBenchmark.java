@@ -0,0 +1,93 @@
+/*
+ * @(#)GlycemicAccumulatorBenchmark.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.benchmark;
+
+import com.dasd412.remake.api.service.domain.GlycemicAccumulator;
+import com.dasd412.remake.api.service.domain.vo.GlycemicVariability;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 혈당 변동성 분석의 메모리 사용량 측정. -prof gc 로 실행해서 gc.alloc.rate.norm (연산 한 번 당 할당 바이트)을 본다.
+ * mvn -P benchmark test-compile exec:exec -Djmh.args="GlycemicAccumulatorBenchmark -prof gc"
+ * <p>
+ * 입력 값은 배열에 담지 않고 그 자리에서 만들어서 입력 자체의 할당이 섞이지 않게 한다.
+ * streamingPass 의 할당량은 readingCount 와 관계 없이 같아야 하고 (누적기와 결과 객체뿐),
+ * collectThenTwoPass (값을 리스트로 모은 뒤 평균, 분산을 따로 구하는 방식) 는 readingCount 에 비례해서 늘어야 한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GlycemicAccumulatorBenchmark {
+
+    /**
+     * 혈당 값 개수. 하루 네 번(공복, 아침, 점심, 저녁) 기록으로 일 년, 십 년, 그리고 아주 많은 경우.
+     */
+    @Param({"1460", "14600", "1000000"})
+    private int readingCount;
+
+    @Benchmark
+    public GlycemicVariability streamingPass() {
+        GlycemicAccumulator accumulator = new GlycemicAccumulator(70, 180);
+        int seed = 42;
+        for (int i = 0; i < readingCount; i++) {
+            seed = nextSeed(seed);
+            accumulator.accept(toBloodSugar(seed));
+        }
+        return accumulator.result();
+    }
+
+    @Benchmark
+    public double collectThenTwoPass() {
+        List<Integer> values = new ArrayList<>();
+        int seed = 42;
+        for (int i = 0; i < readingCount; i++) {
+            seed = nextSeed(seed);
+            values.add(toBloodSugar(seed));
+        }
+
+        double sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        double mean = sum / values.size();
+
+        double squaredDistance = 0;
+        for (int value : values) {
+            squaredDistance += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(squaredDistance / (values.size() - 1));
+    }
+
+    private static int nextSeed(int seed) {
+        return seed * 1103515245 + 12345;
+    }
+
+    /**
+     * 60 ~ 259 mg/dL
+     */
+    private static int toBloodSugar(int seed) {
+        return 60 + ((seed >>> 16) % 200);
+    }
+}
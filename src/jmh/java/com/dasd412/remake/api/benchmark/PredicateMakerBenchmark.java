@@ -0,0 +1,60 @@
+/*
+ * @(#)PredicateMakerBenchmark.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.benchmark;
+
+import com.dasd412.remake.api.domain.diary.InequalitySign;
+import com.dasd412.remake.api.domain.diary.PredicateMaker;
+import com.querydsl.core.types.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 조회 조건(Querydsl Predicate) 생성 비용 측정. 차트, 음식 게시판 요청마다 실행된다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PredicateMakerBenchmark {
+
+    @Param({"GREATER", "EQUAL", "LESSER_OR_EQUAL"})
+    private InequalitySign sign;
+
+    private final LocalDateTime startDate = LocalDateTime.of(2022, 1, 1, 0, 0);
+
+    private final LocalDateTime endDate = LocalDateTime.of(2022, 12, 31, 0, 0);
+
+    @Benchmark
+    public Predicate decideEqualitySignOfBloodSugar() {
+        return PredicateMaker.decideEqualitySignOfBloodSugar(sign, 120);
+    }
+
+    @Benchmark
+    public Predicate decideBetweenTimeInDiary() {
+        return PredicateMaker.decideBetweenTimeInDiary(startDate, endDate);
+    }
+
+    @Benchmark
+    public Predicate decideBetweenTimeInDiet() {
+        return PredicateMaker.decideBetweenTimeInDiet(startDate, endDate);
+    }
+}
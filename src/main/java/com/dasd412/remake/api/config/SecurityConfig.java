@@ -46,6 +46,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
      * 2. 기존 테스트 용도로 쓰인 url의 경우 관리자만 사용할 수 있게 적용.
      * 3. 기본 방식인 Form Login의 경우 로그인과 로그아웃 처리
      * 4. OAuth 로그인 방식의 경우의 작업 처리
+     * 5. actuator 의 경우 health 를 제외하면 관리자만 조회할 수 있게 적용.
      */
     @Override
     protected void configure(HttpSecurity http) throws Exception {
@@ -56,6 +57,8 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .antMatchers("/calendar/**").authenticated()
                 .antMatchers("/chart-menu/**").authenticated()
                 .antMatchers("/profile/**").authenticated()
+                .antMatchers("/actuator/health").permitAll()
+                .antMatchers("/actuator/**").hasAuthority(Role.Admin.name())
                 .anyRequest().permitAll()
                 .and()
                 .csrf()
@@ -0,0 +1,89 @@
+/*
+ * @(#)BinaryApiResultHttpMessageConverter.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.codec;
+
+import com.dasd412.remake.api.controller.ApiResult;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.TypeUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * ApiResult 응답을 바이너리 json (CBOR, Smile) 으로 쓰는 컨버터. 응답 전용이며 요청 본문은 읽지 않는다.
+ * 형식마다 인스턴스를 하나씩 만들고, 그 형식의 ObjectMapper 로 만든 ObjectWriter 를 응답 타입(ApiResult<List<FindAllFpgDTO>> 등)별로 한 번만 만들어 재사용한다.
+ * 응답 타입은 컨트롤러 메서드의 리턴 타입 개수만큼만 생기므로 캐시는 따로 비우지 않는다.
+ */
+public class BinaryApiResultHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentMap<Type, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public BinaryApiResultHttpMessageConverter(ObjectMapper objectMapper, MediaType mediaType) {
+        super(mediaType);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ApiResult.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("binary request body is not supported", inputMessage);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("binary request body is not supported", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream body = StreamUtils.nonClosing(outputMessage.getBody());
+        writerFor(object, type).writeValue(body, object);
+        body.flush();
+    }
+
+    /**
+     * 선언된 리턴 타입으로 직렬화해야 제네릭 안쪽 타입 정보가 살아 있다. 선언 타입을 알 수 없으면 실제 클래스로 찾는다.
+     */
+    private ObjectWriter writerFor(Object object, Type type) {
+        Type key = (type != null && TypeUtils.isAssignable(type, object.getClass())) ? type : object.getClass();
+        return writers.computeIfAbsent(key, this::createWriter);
+    }
+
+    private ObjectWriter createWriter(Type type) {
+        JavaType javaType = objectMapper.getTypeFactory().constructType(type);
+        return objectMapper.writerFor(javaType);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * @(#)BinaryCodecConfiguration.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * ApiResult 응답의 바이너리 인코딩 설정.
+ * Accept 헤더에 application/cbor 또는 application/x-jackson-smile 을 명시한 요청(모바일 동기화 클라이언트)만 바이너리로 받는다.
+ * 컨버터를 목록 맨 뒤에 두므로 Accept 가 없거나 와일드카드인 요청(브라우저)은 지금처럼 json 으로 응답한다.
+ * ObjectMapper 는 스프링 부트의 Jackson2ObjectMapperBuilder 로 만들어 spring.jackson.* 설정과 등록된 모듈을 json 과 똑같이 따른다.
+ */
+@Configuration
+public class BinaryCodecConfiguration implements WebMvcConfigurer {
+
+    public static final String CBOR_VALUE = "application/cbor";
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    public BinaryCodecConfiguration(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    /**
+     * 클래스패스에 jackson-dataformat 이 있으면 스프링이 기본 CBOR, Smile 컨버터를 넣는다.
+     * 그 컨버터는 부트 설정을 따르지 않고 ApiResult 가 아닌 응답까지 바이너리로 쓸 수 있으므로 빼고 대신 넣는다.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter || converter instanceof MappingJackson2SmileHttpMessageConverter);
+
+        converters.add(new BinaryApiResultHttpMessageConverter(createObjectMapper(new CBORFactory()), MediaType.parseMediaType(CBOR_VALUE)));
+        converters.add(new BinaryApiResultHttpMessageConverter(createObjectMapper(new SmileFactory()), MediaType.parseMediaType(SMILE_VALUE)));
+    }
+
+    /**
+     * 빌더는 다른 곳과 같이 쓰므로 factory() 로 바꾸지 않고, 새 ObjectMapper 에 설정만 입힌다.
+     */
+    private ObjectMapper createObjectMapper(JsonFactory factory) {
+        ObjectMapper objectMapper = new ObjectMapper(factory);
+        objectMapperBuilder.configure(objectMapper);
+        return objectMapper;
+    }
+}
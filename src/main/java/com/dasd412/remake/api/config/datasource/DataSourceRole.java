@@ -0,0 +1,25 @@
+/*
+ * @(#)DataSourceRole.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.datasource;
+
+/**
+ * ReplicationRoutingDataSource 의 lookup key.
+ */
+public enum DataSourceRole {
+
+    /**
+     * 쓰기와 트랜잭션 바깥의 모든 sql 을 받는 원본 db
+     */
+    PRIMARY,
+
+    /**
+     * readOnly 트랜잭션을 받는 복제본 db
+     */
+    REPLICA
+}
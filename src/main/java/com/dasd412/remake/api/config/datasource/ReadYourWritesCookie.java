@@ -0,0 +1,135 @@
+/*
+ * @(#)ReadYourWritesCookie.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.datasource;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * 방금 쓴 글이 복제 지연 때문에 안 보이는 일을 막는다. (read-your-writes)
+ * 쓰기 요청(POST, PUT, DELETE 등)의 트랜잭션이 커밋되면 "이 시각까지는 원본 db 에서 읽어라" 는 쿠키를 응답에 붙인다.
+ * 쿠키가 유효한 동안에는 그 사용자의 readOnly 트랜잭션도 원본 db 로 간다.
+ * 세션이 아닌 쿠키에 두는 이유는 다음 요청이 다른 인스턴스(real1, real2)로 가더라도 똑같이 판단하기 위해서다.
+ * 쿠키 값은 만료 시각(epoch millis)일 뿐이라서 사용자가 조작해도 원본 db 로 읽게 되는 것 외에는 영향이 없다.
+ */
+public class ReadYourWritesCookie {
+
+    public static final String COOKIE_NAME = "diary_primary_until";
+
+    /**
+     * 같은 요청 안에서 커밋 이후에 실행되는 readOnly 트랜잭션을 위한 표시. (쿠키는 다음 요청부터 따라온다.)
+     */
+    private static final String REQUEST_ATTRIBUTE = ReadYourWritesCookie.class.getName() + ".until";
+
+    private final long stickyMillis;
+
+    public ReadYourWritesCookie(long stickySeconds) {
+        checkArgument(stickySeconds > 0, "sticky seconds should be positive");
+        this.stickyMillis = stickySeconds * 1000L;
+    }
+
+    /**
+     * @return 현재 요청이 최근에 쓰기를 한 사용자의 것이면 true. 요청 스레드가 아니면 (비동기 내보내기 등) false
+     */
+    public boolean isPinnedToPrimary() {
+        ServletRequestAttributes attributes = currentAttributes();
+        if (attributes == null) {
+            return false;
+        }
+
+        HttpServletRequest request = attributes.getRequest();
+        long now = System.currentTimeMillis();
+
+        Object until = request.getAttribute(REQUEST_ATTRIBUTE);
+        if (until instanceof Long && (Long) until > now) {
+            return true;
+        }
+
+        Cookie cookie = WebUtils.getCookie(request, COOKIE_NAME);
+        if (cookie == null) {
+            return false;
+        }
+        try {
+            return Long.parseLong(cookie.getValue()) > now;
+        } catch (NumberFormatException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * 쓰기 트랜잭션이 원본 db 커넥션을 얻을 때 호출된다. 트랜잭션 하나 당 한 번만 등록하며, 롤백되면 쿠키를 붙이지 않는다.
+     */
+    public void rememberAfterCommit() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+
+        ServletRequestAttributes attributes = currentAttributes();
+        if (attributes == null || !isModifying(attributes.getRequest())) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                remember(attributes);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReadYourWritesCookie.this);
+            }
+        });
+    }
+
+    private void remember(ServletRequestAttributes attributes) {
+        HttpServletRequest request = attributes.getRequest();
+        boolean alreadyRemembered = request.getAttribute(REQUEST_ATTRIBUTE) != null;
+
+        long until = System.currentTimeMillis() + stickyMillis;
+        request.setAttribute(REQUEST_ATTRIBUTE, until);
+
+        HttpServletResponse response = attributes.getResponse();
+        if (alreadyRemembered || response == null || response.isCommitted()) {
+            return;
+        }
+
+        Cookie cookie = new Cookie(COOKIE_NAME, String.valueOf(until));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.ceil(stickyMillis / 1000.0));
+        response.addCookie(cookie);
+    }
+
+    /**
+     * GET 요청에서도 세션 갱신 같은 쓰기 트랜잭션이 생길 수 있다. 그런 것까지 고정하면 복제본을 거의 쓰지 못한다.
+     */
+    private boolean isModifying(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method) || "TRACE".equals(method));
+    }
+
+    private ServletRequestAttributes currentAttributes() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes ? (ServletRequestAttributes) attributes : null;
+    }
+}
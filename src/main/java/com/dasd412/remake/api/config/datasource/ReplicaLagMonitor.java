@@ -0,0 +1,127 @@
+/*
+ * @(#)ReplicaLagMonitor.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.datasource;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * 복제본의 복제 지연(초)을 주기적으로 확인한다.
+ * 지연이 허용치를 넘거나, 확인 자체가 실패하거나, 복제가 멈춰 있으면 (Seconds_Behind_Master 가 null) 복제본을 쓰지 않는다.
+ * 첫 확인이 끝나기 전까지도 복제본을 쓰지 않는다.
+ * (주의) 상태는 인스턴스마다 따로 확인한다. real1, real2 가 잠깐 서로 다른 판단을 할 수 있다.
+ */
+public class ReplicaLagMonitor {
+
+    /**
+     * MySQL 의 SHOW SLAVE STATUS 결과 중 복제 지연 컬럼. 이 컬럼이 없으면 첫 번째 컬럼을 지연(초)으로 읽는다.
+     */
+    private static final String MYSQL_LAG_COLUMN = "Seconds_Behind_Master";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final DataSource replicaDataSource;
+
+    private final String lagQuery;
+
+    private final long maxLagSeconds;
+
+    private final long checkIntervalSeconds;
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean replicaAvailable = false;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, String lagQuery, long maxLagSeconds, long checkIntervalSeconds) {
+        checkArgument(lagQuery != null && !lagQuery.trim().isEmpty(), "lag query must be provided");
+        checkArgument(maxLagSeconds >= 0, "max lag should be zero or positive");
+        checkArgument(checkIntervalSeconds > 0, "check interval should be positive");
+
+        this.replicaDataSource = checkNotNull(replicaDataSource, "replica data source must be provided");
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+        this.checkIntervalSeconds = checkIntervalSeconds;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("replica-lag-monitor-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    /**
+     * 시작하자마자 한 번 확인한 뒤 checkIntervalSeconds 마다 다시 확인한다.
+     */
+    public void start() {
+        checkLag();
+        scheduler.scheduleWithFixedDelay(this::checkLag, checkIntervalSeconds, checkIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    public void checkLag() {
+        Long lagSeconds;
+        try {
+            lagSeconds = queryLagSeconds();
+        } catch (SQLException | RuntimeException exception) {
+            logger.warn("failed to check replica lag : " + exception.getMessage());
+            lagSeconds = null;
+        }
+
+        boolean available = lagSeconds != null && lagSeconds <= maxLagSeconds;
+        if (available != replicaAvailable) {
+            logger.info("replica " + (available ? "enabled" : "disabled") + ". lag seconds : " + lagSeconds + ", max lag seconds : " + maxLagSeconds);
+        }
+        this.replicaAvailable = available;
+    }
+
+    /**
+     * @return 복제 지연(초). 결과가 없거나 null 이면 복제가 동작하지 않는 것으로 보고 null 을 리턴한다.
+     */
+    private Long queryLagSeconds() throws SQLException {
+        try (Connection connection = replicaDataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+
+            if (!resultSet.next()) {
+                return null;
+            }
+
+            long lagSeconds = hasColumn(resultSet.getMetaData(), MYSQL_LAG_COLUMN) ? resultSet.getLong(MYSQL_LAG_COLUMN) : resultSet.getLong(1);
+            return resultSet.wasNull() ? null : lagSeconds;
+        }
+    }
+
+    private boolean hasColumn(ResultSetMetaData metaData, String columnName) throws SQLException {
+        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+            if (columnName.equalsIgnoreCase(metaData.getColumnLabel(column))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
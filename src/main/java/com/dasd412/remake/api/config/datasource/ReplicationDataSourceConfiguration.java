@@ -0,0 +1,121 @@
+/*
+ * @(#)ReplicationDataSourceConfiguration.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.session.jdbc.config.annotation.SpringSessionDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 원본 db (spring.datasource.*) 와 복제본 (diary.datasource.replica.*) 을 나눠 쓰기 위한 설정.
+ * diary.datasource.replica.url 이 있을 때만 켜진다. 없으면 지금처럼 스프링 부트가 만든 단일 DataSource 를 쓴다.
+ * FindDiaryService, FindInfoService 처럼 readOnly 트랜잭션으로 도는 조회(차트 등)를 복제본으로 보내서 원본 db 의 쓰기와 경쟁하지 않게 한다.
+ * <p>
+ * diary.datasource.replica.lag-query : 복제 지연(초)을 구하는 sql. 기본값은 MySQL 의 SHOW SLAVE STATUS
+ * diary.datasource.replica.max-lag-seconds : 이 값을 넘으면 복제본 대신 원본 db 에서 읽는다.
+ * diary.datasource.replica.sticky-seconds : 쓰기 요청 이후 그 사용자의 조회를 원본 db 로 고정하는 시간
+ * diary.datasource.replica.hikari.* : 복제본 커넥션 풀 설정
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "diary.datasource.replica", name = "url")
+public class ReplicationDataSourceConfiguration {
+
+    /**
+     * 세션 저장소(jdbc)는 로그인 직후 다른 인스턴스에서 바로 읽어야 하므로 복제본을 거치지 않게 원본 db 를 직접 쓴다.
+     */
+    @Bean
+    @SpringSessionDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("diary.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${diary.datasource.replica.url}") String url,
+                                              @Value("${diary.datasource.replica.username:}") String username,
+                                              @Value("${diary.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        /* 잘못 라우팅된 쓰기가 복제본에 들어가지 않게 막는다. */
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                               @Value("${diary.datasource.replica.lag-query:SHOW SLAVE STATUS}") String lagQuery,
+                                               @Value("${diary.datasource.replica.max-lag-seconds:5}") long maxLagSeconds,
+                                               @Value("${diary.datasource.replica.lag-check-interval-seconds:5}") long checkIntervalSeconds) {
+        return new ReplicaLagMonitor(replicaDataSource, lagQuery, maxLagSeconds, checkIntervalSeconds);
+    }
+
+    @Bean
+    public ReadYourWritesCookie readYourWritesCookie(@Value("${diary.datasource.replica.sticky-seconds:10}") long stickySeconds) {
+        return new ReadYourWritesCookie(stickySeconds);
+    }
+
+    /**
+     * JPA, JdbcTemplate 등 나머지는 모두 이 DataSource 를 쓴다.
+     * LazyConnectionDataSourceProxy 는 실제 커넥션 획득을 첫 sql 실행 시점까지 미룬다. 그래야 라우팅 시점에 readOnly 여부가 정해져 있다.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor,
+                                 ReadYourWritesCookie readYourWritesCookie,
+                                 MeterRegistry meterRegistry) {
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(DataSourceRole.PRIMARY, primaryDataSource);
+        targetDataSources.put(DataSourceRole.REPLICA, replicaDataSource);
+
+        ReplicationRoutingDataSource routingDataSource = new ReplicationRoutingDataSource(replicaLagMonitor, readYourWritesCookie, meterRegistry);
+        routingDataSource.setTargetDataSources(targetDataSources);
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * 스프링은 기본으로 DELAYED_ACQUISITION_AND_HOLD 를 쓴다. 이러면 open-in-view 로 요청 내내 열려 있는 EntityManager 가
+     * 첫 트랜잭션에서 얻은 커넥션을 요청이 끝날 때까지 들고 있어서, 조회 뒤에 오는 쓰기 트랜잭션이 복제본 커넥션을 그대로 쓰게 된다.
+     * 트랜잭션이 끝날 때마다 커넥션을 돌려줘야 트랜잭션마다 다시 라우팅된다.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer replicationHibernateCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * @(#)ReplicationRoutingDataSource.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 커넥션을 얻는 시점의 트랜잭션 종류에 따라 원본 db 와 복제본 중 하나를 고른다.
+ * 1. readOnly 가 아니거나 트랜잭션 바깥이면 원본 db
+ * 2. readOnly 라도 최근에 쓰기를 한 사용자 (ReadYourWritesCookie) 이거나 복제 지연이 허용치를 넘었으면 (ReplicaLagMonitor) 원본 db
+ * 3. 나머지 readOnly 트랜잭션은 복제본
+ * readOnly 여부는 트랜잭션이 시작된 뒤에야 알 수 있으므로 반드시 LazyConnectionDataSourceProxy 로 감싸서 써야 한다.
+ * 라우팅 결과는 diary.datasource.route 카운터 (target, reason 태그) 로 남긴다.
+ */
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String ROUTE_METRIC = "diary.datasource.route";
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    private final ReadYourWritesCookie readYourWritesCookie;
+
+    private final MeterRegistry meterRegistry;
+
+    public ReplicationRoutingDataSource(ReplicaLagMonitor replicaLagMonitor, ReadYourWritesCookie readYourWritesCookie, MeterRegistry meterRegistry) {
+        this.replicaLagMonitor = replicaLagMonitor;
+        this.readYourWritesCookie = readYourWritesCookie;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            readYourWritesCookie.rememberAfterCommit();
+            return route(DataSourceRole.PRIMARY, "read-write");
+        }
+
+        if (readYourWritesCookie.isPinnedToPrimary()) {
+            return route(DataSourceRole.PRIMARY, "recent-write");
+        }
+
+        if (!replicaLagMonitor.isReplicaAvailable()) {
+            return route(DataSourceRole.PRIMARY, "replica-lag");
+        }
+
+        return route(DataSourceRole.REPLICA, "read-only");
+    }
+
+    private DataSourceRole route(DataSourceRole role, String reason) {
+        meterRegistry.counter(ROUTE_METRIC, "target", role.name().toLowerCase(), "reason", reason).increment();
+        return role;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * @(#)DataVersionETagConfiguration.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.etag;
+
+import com.dasd412.remake.api.service.domain.FindDiaryService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 작성자의 데이터만으로 응답이 정해지는 조회 url 에 DataVersionETagInterceptor 를 건다.
+ * 변경 내역(/api/diary/user/changes) 은 응답에 현재 시각이 들어가고, 내보내기는 파일 다운로드이므로 넣지 않는다.
+ */
+@Configuration
+public class DataVersionETagConfiguration implements WebMvcConfigurer {
+
+    private final FindDiaryService findDiaryService;
+
+    private final String representationVersion;
+
+    public DataVersionETagConfiguration(FindDiaryService findDiaryService,
+                                        @Value("${diary.etag.representation-version:2}") String representationVersion) {
+        this.findDiaryService = findDiaryService;
+        this.representationVersion = representationVersion;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new DataVersionETagInterceptor(findDiaryService, representationVersion))
+                .addPathPatterns(
+                        "/chart-menu/fasting-plasma-glucose/**",
+                        "/chart-menu/blood-sugar/**",
+                        "/chart-menu/average/**",
+                        "/chart-menu/analytics/**",
+                        "/chart-menu/hba1c/**",
+                        "/chart-menu/food-impact",
+                        "/chart-menu/percentile/**",
+                        "/chart-menu/chart/food-board/list",
+                        "/api/diary/user/diabetes-diary/list");
+    }
+}
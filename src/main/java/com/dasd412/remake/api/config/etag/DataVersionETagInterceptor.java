@@ -0,0 +1,97 @@
+/*
+ * @(#)DataVersionETagInterceptor.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.etag;
+
+import com.dasd412.remake.api.config.security.auth.PrincipalDetails;
+import com.dasd412.remake.api.domain.diary.EntityId;
+import com.dasd412.remake.api.domain.diary.writer.Writer;
+import com.dasd412.remake.api.service.domain.FindDiaryService;
+import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 작성자의 데이터 버전으로 조회 응답의 strong ETag 를 만들고, If-None-Match 가 같으면 컨트롤러를 부르지 않고 304 로 끝낸다.
+ * 304 인 요청은 데이터 버전 조회(기본 키로 컬럼 하나) 한 번만 실행한다.
+ * ETag 는 (작성자, 데이터 버전, 응답 형식 버전, url 과 쿼리 스트링, Accept, 이메일) 의 해시이다.
+ * Accept 를 넣는 이유는 같은 url 이라도 json, columnar, cbor 응답이 다르기 때문이고, 이메일은 음식 게시판 화면의 헤더에 찍히기 때문이다.
+ * 응답은 로그인한 작성자 것이므로 Cache-Control 은 private, no-cache (저장은 하되 매번 재검증) 로 둔다.
+ */
+public class DataVersionETagInterceptor implements HandlerInterceptor {
+
+    private final FindDiaryService findDiaryService;
+
+    /**
+     * 데이터가 그대로여도 응답 형식이 바뀌는 배포에서는 이 값을 바꿔서 예전 ETag 를 모두 무효로 만든다.
+     */
+    private final String representationVersion;
+
+    public DataVersionETagInterceptor(FindDiaryService findDiaryService, String representationVersion) {
+        this.findDiaryService = findDiaryService;
+        this.representationVersion = representationVersion;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        /* DeferredResult 의 결과를 쓰기 위한 재디스패치에서는 이미 ETag 를 달았다. */
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+
+        PrincipalDetails principalDetails = currentPrincipal();
+        if (principalDetails == null || principalDetails.getWriter() == null) {
+            return true;
+        }
+
+        Long writerId = principalDetails.getWriter().getId();
+        Long dataVersion = findDiaryService.getDataVersionOfWriter(EntityId.of(Writer.class, writerId));
+        if (dataVersion == null) {
+            return true;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+        String eTag = makeETag(request, writerId, dataVersion, principalDetails.getWriter().getEmail());
+
+        /* If-None-Match 와 맞으면 304 상태 코드를 넣는다. 맞지 않아도 ETag 헤더는 달아 준다. */
+        return !new ServletWebRequest(request, response).checkNotModified(eTag);
+    }
+
+    private PrincipalDetails currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof PrincipalDetails)) {
+            return null;
+        }
+        return (PrincipalDetails) authentication.getPrincipal();
+    }
+
+    private String makeETag(HttpServletRequest request, Long writerId, long dataVersion, String email) {
+        String representation = representationVersion + '\n'
+                + request.getRequestURI() + '?' + Strings.nullToEmpty(request.getQueryString()) + '\n'
+                + Strings.nullToEmpty(request.getHeader(HttpHeaders.ACCEPT)) + '\n'
+                + Strings.nullToEmpty(email);
+
+        String hash = Hashing.murmur3_128().newHasher()
+                .putLong(writerId)
+                .putLong(dataVersion)
+                .putString(representation, StandardCharsets.UTF_8)
+                .hash().toString();
+        return "\"" + hash + "\"";
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * @(#)CountingStatementInspector.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate 가 PreparedStatement 를 만들기 직전에 호출된다. sql 을 바꾸지 않고 횟수만 센다.
+ */
+public class CountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        RequestSqlStatistics statistics = SqlStatementRecorder.current();
+        if (statistics != null) {
+            statistics.record(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * @(#)JdbcTimingSessionEventListener.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * 세션마다 Hibernate 가 새로 생성하는 리스너. jdbc 실행 시간을 현재 요청의 통계에 더한다.
+ */
+public class JdbcTimingSessionEventListener extends BaseSessionEventListener {
+
+    private long executeStart;
+
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        addElapsed(executeStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        addElapsed(batchStart);
+    }
+
+    private void addElapsed(long start) {
+        RequestSqlStatistics statistics = SqlStatementRecorder.current();
+        if (statistics != null) {
+            statistics.addExecutionNanos(System.nanoTime() - start);
+        }
+    }
+}
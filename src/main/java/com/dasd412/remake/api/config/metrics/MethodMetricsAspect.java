@@ -0,0 +1,118 @@
+/*
+ * @(#)MethodMetricsAspect.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 서비스(service.domain, service.security 의 @Service 빈) 메서드와 리포지토리 커스텀 메서드(*RepositoryImpl)의 수행 시간을 Micrometer 타이머로 기록하는 Aspect.
+ * 메트릭 이름은 diary.service, diary.repository 이며 class, method, outcome, exception 태그가 붙는다.
+ * /actuator/metrics/diary.service.percentile?tag=method:getFoodByPagination 처럼 p50, p99를 인스턴스 별로 확인할 수 있다.
+ * 색인, 필터 같은 @Component 빈은 호출이 잦고 짧아서 재지 않는다.
+ */
+@Aspect
+@Component
+public class MethodMetricsAspect {
+
+    static final String SERVICE_METRIC = "diary.service";
+
+    static final String REPOSITORY_METRIC = "diary.repository";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 호출마다 Timer.builder()로 태그를 만들고 레지스트리에서 찾지 않도록, 메서드 별로 타이머를 한 번만 등록해 둔다.
+     */
+    private final Map<Method, MethodTimers> timers = new ConcurrentHashMap<>();
+
+    public MethodMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Pointcut("(within(com.dasd412.remake.api.service.domain..*) || within(com.dasd412.remake.api.service.security..*))"
+            + " && @within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public void serviceMethod() {
+    }
+
+    @Pointcut("within(com.dasd412.remake.api.domain..*RepositoryImpl) && execution(public * *(..))")
+    public void repositoryCustomMethod() {
+    }
+
+    @Around("serviceMethod()")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return record(SERVICE_METRIC, joinPoint);
+    }
+
+    @Around("repositoryCustomMethod()")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return record(REPOSITORY_METRIC, joinPoint);
+    }
+
+    private Object record(String metricName, ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodTimers methodTimers = timers.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                method -> new MethodTimers(metricName, joinPoint));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Object result = joinPoint.proceed();
+            sample.stop(methodTimers.success);
+            return result;
+        } catch (Throwable throwable) {
+            sample.stop(methodTimers.errorOf(throwable.getClass()));
+            throw throwable;
+        }
+    }
+
+    /**
+     * 한 메서드의 타이머들. 성공은 하나, 실패는 예외 종류마다 하나씩 처음 던져졌을 때 등록한다.
+     */
+    private final class MethodTimers {
+
+        private final String metricName;
+
+        private final String className;
+
+        private final String methodName;
+
+        private final Timer success;
+
+        private final Map<Class<?>, Timer> errors = new ConcurrentHashMap<>();
+
+        private MethodTimers(String metricName, ProceedingJoinPoint joinPoint) {
+            this.metricName = metricName;
+            this.className = joinPoint.getSignature().getDeclaringType().getSimpleName();
+            this.methodName = joinPoint.getSignature().getName();
+            this.success = register("success", "none");
+        }
+
+        private Timer errorOf(Class<?> exceptionType) {
+            return errors.computeIfAbsent(exceptionType, type -> register("error", type.getSimpleName()));
+        }
+
+        private Timer register(String outcome, String exception) {
+            return Timer.builder(metricName)
+                    .tag("class", className)
+                    .tag("method", methodName)
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+        }
+    }
+}
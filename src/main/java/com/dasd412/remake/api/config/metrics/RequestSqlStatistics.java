@@ -0,0 +1,58 @@
+/*
+ * @(#)RequestSqlStatistics.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 요청 하나 동안 실행된 sql 의 통계. 한 스레드에서만 쓰이므로 동기화하지 않는다.
+ */
+public class RequestSqlStatistics {
+
+    /**
+     * 같은 sql 별 횟수를 세는 맵의 최대 크기. 그 이상의 서로 다른 sql 은 횟수만 센다.
+     */
+    private static final int MAX_DISTINCT_STATEMENTS = 200;
+
+    private int statementCount;
+
+    private long executionNanos;
+
+    private final Map<String, Integer> countsByStatement = new HashMap<>();
+
+    void record(String sql) {
+        statementCount++;
+        if (countsByStatement.containsKey(sql) || countsByStatement.size() < MAX_DISTINCT_STATEMENTS) {
+            countsByStatement.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    void addExecutionNanos(long nanos) {
+        executionNanos += nanos;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getExecutionMillis() {
+        return executionNanos / 1_000_000;
+    }
+
+    /**
+     * 바인딩 파라미터만 다른 같은 sql 이 threshold 번 이상 실행됐다면 N+1 을 의심할 수 있다.
+     */
+    public Map<String, Integer> findRepeatedStatements(int threshold) {
+        return countsByStatement.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+}
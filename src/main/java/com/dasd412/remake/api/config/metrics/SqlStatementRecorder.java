@@ -0,0 +1,42 @@
+/*
+ * @(#)SqlStatementRecorder.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.metrics;
+
+/**
+ * 현재 스레드(요청)의 sql 통계를 담아 두는 홀더.
+ * Hibernate 가 직접 생성하는 StatementInspector, SessionEventListener 는 빈이 아니므로 ThreadLocal 로 연결한다.
+ */
+public final class SqlStatementRecorder {
+
+    private static final ThreadLocal<RequestSqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementRecorder() {
+    }
+
+    public static RequestSqlStatistics start() {
+        RequestSqlStatistics statistics = new RequestSqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static boolean isRecording() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * @return 기록 중이 아니면 null
+     */
+    static RequestSqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+}
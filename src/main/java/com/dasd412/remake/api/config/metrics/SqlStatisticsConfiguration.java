@@ -0,0 +1,29 @@
+/*
+ * @(#)SqlStatisticsConfiguration.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * sql 개수를 세기 위한 Hibernate 설정. 실제 집계는 SqlStatisticsFilter 가 요청 단위로 한다.
+ */
+@Configuration
+public class SqlStatisticsConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatisticsHibernateCustomizer() {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new CountingStatementInspector());
+            hibernateProperties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JdbcTimingSessionEventListener.class.getName());
+        };
+    }
+}
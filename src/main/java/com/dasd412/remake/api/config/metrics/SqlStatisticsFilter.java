@@ -0,0 +1,104 @@
+/*
+ * @(#)SqlStatisticsFilter.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 요청마다 실행된 sql 의 개수와 실행 시간을 집계한다.
+ * 1. 개수가 diary.sql.warn-count 이상이거나 같은 sql 이 diary.sql.repeat-threshold 번 이상 반복되면 (N+1 의심) 경고 로그를 남긴다.
+ * 2. diary.sql.expose-headers=true 면 X-Sql-Count, X-Sql-Time-Ms 응답 헤더를 붙인다. 헤더는 본문보다 먼저 나가야 하므로 본문을 버퍼링한다. (real 프로파일에서는 끈다.)
+ */
+@Component
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    public static final String SQL_COUNT_HEADER = "X-Sql-Count";
+
+    public static final String SQL_TIME_HEADER = "X-Sql-Time-Ms";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final int warnCount;
+
+    private final int repeatThreshold;
+
+    private final boolean exposeHeaders;
+
+    /**
+     * 응답을 버퍼에 모으면 안 되는 경로 (StreamingResponseBody, DeferredResult 등 비동기로 응답을 쓰는 곳).
+     * 헤더를 붙이려고 응답 본문을 ContentCachingResponseWrapper 에 모으면, 요청 스레드가 끝난 뒤 쓰이는 본문은 버퍼에 갇혀서 전송되지 않는다.
+     */
+    private final String[] streamingPaths;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public SqlStatisticsFilter(@Value("${diary.sql.warn-count:30}") int warnCount,
+                               @Value("${diary.sql.repeat-threshold:10}") int repeatThreshold,
+                               @Value("${diary.sql.expose-headers:false}") boolean exposeHeaders,
+                               @Value("${diary.sql.streaming-paths:/api/diary/user/export/**,/chart-menu/average/**,/chart-menu/updates}") String[] streamingPaths) {
+        this.warnCount = warnCount;
+        this.repeatThreshold = repeatThreshold;
+        this.exposeHeaders = exposeHeaders;
+        this.streamingPaths = streamingPaths;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        /* 테스트 헬퍼처럼 바깥에서 이미 기록 중이면 그 쪽에 맡긴다. */
+        if (SqlStatementRecorder.isRecording()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RequestSqlStatistics statistics = SqlStatementRecorder.start();
+        ContentCachingResponseWrapper bufferedResponse = exposeHeaders && !isStreaming(request) ? new ContentCachingResponseWrapper(response) : null;
+        try {
+            filterChain.doFilter(request, bufferedResponse != null ? bufferedResponse : response);
+        } finally {
+            SqlStatementRecorder.stop();
+            report(request, statistics);
+            if (bufferedResponse != null) {
+                bufferedResponse.setHeader(SQL_COUNT_HEADER, String.valueOf(statistics.getStatementCount()));
+                bufferedResponse.setHeader(SQL_TIME_HEADER, String.valueOf(statistics.getExecutionMillis()));
+                bufferedResponse.copyBodyToResponse();
+            }
+        }
+    }
+
+    private boolean isStreaming(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String pattern : streamingPaths) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void report(HttpServletRequest request, RequestSqlStatistics statistics) {
+        Map<String, Integer> repeated = statistics.findRepeatedStatements(repeatThreshold);
+        if (statistics.getStatementCount() >= warnCount || !repeated.isEmpty()) {
+            logger.warn("too many sql in " + request.getMethod() + " " + request.getRequestURI()
+                    + " : count " + statistics.getStatementCount() + ", time " + statistics.getExecutionMillis() + "ms, repeated " + repeated);
+        }
+    }
+}
@@ -9,35 +9,53 @@
 package com.dasd412.remake.api.config.security.auth;
 
 import com.dasd412.remake.api.domain.diary.writer.Writer;
+import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 
-import java.util.ArrayList;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
 /**
  * Authentication 객체에 넣기 위한 래퍼 객체.
  * 사용자 정의 UserDetails 와 OAuth 로그인용 OAuth2User 를 모두 implements 하였기 때문에, Authentication 객체에 두 타입 모두로 인식가능해졌다.
+ * 세션에는 작성자 엔티티 대신 불변 스냅샷(WriterPrincipal)만 저장된다.
  */
-public class PrincipalDetails implements UserDetails, OAuth2User {
+public class PrincipalDetails implements UserDetails, OAuth2User, CredentialsContainer {
+
+    private static final long serialVersionUID = 1L;
 
     /**
-     * 실제 작성자 엔티티를 참조해야 한다. 기본 로그인 방식과 OAuth 로그인 방식 모두에 쓰인다.
+     * 작성자 스냅샷. 기본 로그인 방식과 OAuth 로그인 방식 모두에 쓰인다.
      */
-    private final Writer writer;
+    private final WriterPrincipal writer;
+
+    /**
+     * 인코딩된 비밀번호. 인증이 끝나면 eraseCredentials()로 지워지므로 세션에는 남지 않는다.
+     */
+    private String password;
 
     /**
      * OAuth와 관련된 속성을 담고 있는 해시맵. OAuth 로그인시에만 쓰인다.
+     * 로그인 과정에서만 필요하므로 세션 직렬화 대상에서 제외한다.
      */
-    private Map<String, Object> oauthAttributes;
+    private transient Map<String, Object> oauthAttributes;
 
     /**
      * 기본 로그인 방식인 Form Login 시 사용되는 생성자
      */
     public PrincipalDetails(Writer writer) {
-        this.writer = writer;
+        this.writer = WriterPrincipal.from(writer);
+        this.password = writer.getPassword();
     }
 
     /**
@@ -47,18 +65,36 @@ public class PrincipalDetails implements UserDetails, OAuth2User {
      * @param oauthAttributes OAuth와 관련된 속성을 담고 있는 해시맵.
      */
     public PrincipalDetails(Writer writer, Map<String, Object> oauthAttributes) {
+        this.writer = WriterPrincipal.from(writer);
+        this.password = writer.getPassword();
+        this.oauthAttributes = oauthAttributes;
+    }
+
+    /**
+     * 캐시된 작성자 스냅샷으로 OAuth 인증할 때 사용되는 생성자. OAuth 로그인에는 비밀번호가 쓰이지 않는다.
+     */
+    public PrincipalDetails(WriterPrincipal writer, Map<String, Object> oauthAttributes) {
         this.writer = writer;
         this.oauthAttributes = oauthAttributes;
     }
 
+    /**
+     * 세션에서 역직렬화할 때만 사용되는 생성자. 비밀번호와 OAuth 속성은 복원하지 않는다.
+     */
+    private PrincipalDetails(WriterPrincipal writer) {
+        this.writer = writer;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        Collection<GrantedAuthority> collection = new ArrayList<>();
-        collection.add((GrantedAuthority) () -> writer.getRole().name());
-        return collection;
+        /* 람다로 만든 GrantedAuthority 는 직렬화가 안되므로 세션에 저장할 수 없다. */
+        return Collections.singletonList(new SimpleGrantedAuthority(writer.getRole().name()));
     }
 
-    public Writer getWriter() {
+    /**
+     * 엔티티가 아니므로 영속성 컨텍스트와 무관하다. 엔티티가 필요하면 id로 조회하거나 getReference 를 사용할 것.
+     */
+    public WriterPrincipal getWriter() {
         return writer;
     }
 
@@ -67,7 +103,15 @@ public class PrincipalDetails implements UserDetails, OAuth2User {
      */
     @Override
     public String getPassword() {
-        return writer.getPassword();
+        return password;
+    }
+
+    /**
+     * 인증이 끝난 직후 ProviderManager 가 호출한다.
+     */
+    @Override
+    public void eraseCredentials() {
+        this.password = null;
     }
 
     @Override
@@ -97,6 +141,9 @@ public class PrincipalDetails implements UserDetails, OAuth2User {
 
     @Override
     public Map<String, Object> getAttributes() {
+        if (this.oauthAttributes == null) {
+            return Collections.emptyMap();
+        }
         return this.oauthAttributes;
     }
 
@@ -104,4 +151,49 @@ public class PrincipalDetails implements UserDetails, OAuth2User {
     public String getName() {
         return null;
     }
+
+    /**
+     * 세션 저장소(spring-session)에 기록될 때는 작성자 스냅샷만 남기도록 프록시로 바꿔치기 한다.
+     */
+    private Object writeReplace() {
+        return new SerializationProxy(this.writer);
+    }
+
+    private void readObject(ObjectInputStream stream) throws InvalidObjectException {
+        throw new InvalidObjectException("proxy required");
+    }
+
+    /**
+     * 직렬화 프록시. WriterPrincipal.writeTo() 포맷 그대로 기록한다.
+     */
+    private static final class SerializationProxy implements Externalizable {
+
+        private static final long serialVersionUID = 1L;
+
+        private WriterPrincipal writer;
+
+        /**
+         * Externalizable 은 public 기본 생성자가 반드시 있어야 한다.
+         */
+        public SerializationProxy() {
+        }
+
+        SerializationProxy(WriterPrincipal writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            writer.writeTo(out);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException {
+            this.writer = WriterPrincipal.readFrom(in);
+        }
+
+        private Object readResolve() {
+            return new PrincipalDetails(writer);
+        }
+    }
 }
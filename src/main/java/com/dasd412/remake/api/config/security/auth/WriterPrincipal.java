@@ -0,0 +1,199 @@
+/*
+ * @(#)WriterPrincipal.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.security.auth;
+
+import com.dasd412.remake.api.domain.diary.writer.Role;
+import com.dasd412.remake.api.domain.diary.writer.Writer;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * 세션에 담기는 작성자 정보의 스냅샷. 불변 객체이다.
+ * 작성자 엔티티 전체(연관 관계 포함)를 세션에 들고 있지 않기 위해 만들었다.
+ * 엔티티가 필요하면 이 객체의 id 로 다시 조회하거나, id 만 필요하면 getReference 를 사용한다.
+ */
+public final class WriterPrincipal implements Serializable {
+
+    /**
+     * 직렬화 포맷 버전. writeTo()의 필드 구성이 바뀌면 올려야 한다.
+     */
+    private static final byte FORMAT_VERSION = 1;
+
+    private final Long id;
+
+    private final String name;
+
+    /**
+     * 작성자 이메일. github의 경우 null일 수 있다.
+     */
+    private final String email;
+
+    private final Role role;
+
+    /**
+     * OAuth 로그인일 경우 provider. Form Login의 경우 null
+     */
+    private final String provider;
+
+    private WriterPrincipal(Long id, String name, String email, Role role, String provider) {
+        this.id = checkNotNull(id, "writer id must be provided");
+        this.name = name;
+        this.email = email;
+        this.role = role;
+        this.provider = provider;
+    }
+
+    public static WriterPrincipal from(Writer writer) {
+        checkNotNull(writer, "writer must be provided");
+        return new WriterPrincipal(writer.getId(), writer.getName(), writer.getEmail(), writer.getRole(), writer.getProvider());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    /**
+     * 세션 저장용 바이너리 포맷. (버전, id, 이름, 이메일, 역할, provider) 순서이며 null 가능한 필드는 앞에 존재 여부를 기록한다.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeLong(id);
+        writeNullableString(out, name);
+        writeNullableString(out, email);
+        writeNullableString(out, role == null ? null : role.name());
+        writeNullableString(out, provider);
+    }
+
+    public static WriterPrincipal readFrom(DataInput in) throws IOException {
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new InvalidObjectException("unsupported writer principal format version : " + version);
+        }
+        Long id = in.readLong();
+        String name = readNullableString(in);
+        String email = readNullableString(in);
+        String roleName = readNullableString(in);
+        Role role = roleName == null ? null : Role.valueOf(roleName);
+        String provider = readNullableString(in);
+        return new WriterPrincipal(id, name, email, role, provider);
+    }
+
+    private static void writeNullableString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * 자바 직렬화 시에는 필드 구조 대신 writeTo() 포맷을 사용하도록 프록시로 바꿔치기 한다.
+     */
+    private Object writeReplace() {
+        return new SerializationProxy(this);
+    }
+
+    private void readObject(ObjectInputStream stream) throws InvalidObjectException {
+        throw new InvalidObjectException("proxy required");
+    }
+
+    /**
+     * 직렬화 프록시. 불변 객체를 유지하면서 Externalizable 의 간결한 포맷을 쓰기 위함이다.
+     */
+    private static final class SerializationProxy implements Externalizable {
+
+        private static final long serialVersionUID = 1L;
+
+        private WriterPrincipal principal;
+
+        /**
+         * Externalizable 은 public 기본 생성자가 반드시 있어야 한다.
+         */
+        public SerializationProxy() {
+        }
+
+        SerializationProxy(WriterPrincipal principal) {
+            this.principal = principal;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            principal.writeTo(out);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException {
+            this.principal = WriterPrincipal.readFrom(in);
+        }
+
+        private Object readResolve() {
+            return principal;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("id", id)
+                .append("name", name)
+                .append("email", email)
+                .append("role", role)
+                .append("provider", provider)
+                .toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        WriterPrincipal target = (WriterPrincipal) obj;
+        return Objects.equals(this.id, target.id);
+    }
+}
@@ -9,6 +9,7 @@
 package com.dasd412.remake.api.config.security.oauth;
 
 import com.dasd412.remake.api.config.security.auth.PrincipalDetails;
+import com.dasd412.remake.api.config.security.auth.WriterPrincipal;
 import com.dasd412.remake.api.config.security.oauth.provider.OAuth2UserInfo;
 import com.dasd412.remake.api.config.security.oauth.provider.OAuth2UserInfoFactory;
 import com.dasd412.remake.api.domain.diary.writer.Role;
@@ -16,20 +17,23 @@ import com.dasd412.remake.api.domain.diary.writer.Writer;
 import com.dasd412.remake.api.domain.diary.writer.WriterRepository;
 import com.dasd412.remake.api.service.security.WriterService;
 import com.dasd412.remake.api.service.security.vo.OAuth2UserVO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
-
 /**
  * "/login" 요청 시 인터셉트했는데 OAuth 로그인인 경우, OAuth2User 를 Authentication 객체에 넣어주는 서비스 클래스.
  */
 @Service
 public class PrincipalOAuth2UserService extends DefaultOAuth2UserService {
 
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
     private final WriterService writerService;
 
     private final WriterRepository writerRepository;
@@ -49,28 +53,40 @@ public class PrincipalOAuth2UserService extends DefaultOAuth2UserService {
         /* OAuth 로그인의 경우 OAuth Provider 정보가 필요하다. */
         OAuth2UserInfo oAuth2UserInfo = oAuth2UserInfoFactory.selectOAuth2UserInfo(oAuth2User, oAuth2UserRequest).orElseThrow(() -> new IllegalStateException("등록된 provider 가 아닙니다."));
 
-        String username = oAuth2UserInfo.getProvider() + "_" + oAuth2UserInfo.getProviderId();
-
-        /* OAuth 로그인의 경우 비밀번호는 사용되지 않는다. */
-        String password = "diabetesdiaryapi";
-
-        Role role = Role.User;
-
-
-        /* 만약 회원가입된 적 없으면, writerService 한테 회원 가입을 요청한다. 비밀 번호 인코딩도 해준다. */
-
-        OAuth2UserVO oAuth2UserVO = OAuth2UserVO.builder()
-                .name(username).email(oAuth2UserInfo.getEmail())
-                .password(password).role(role)
-                .provider(oAuth2UserInfo.getProvider())
-                .providerId(oAuth2UserInfo.getProviderId())
-                .build();
-
-        Writer writer = writerRepository.findWriterByName(username)
-                .orElseGet(() ->
-                        writerService.saveWriterWithSecurity(oAuth2UserVO));
+        /*
+        (provider, providerId) 유니크 인덱스로 한 번 조회하고, 최초 로그인이면 회원 가입한다.
+        로그인마다 조회하므로 다른 인스턴스에서 탈퇴했거나 id 가 다른 작성자에게 다시 쓰였어도 오래된 작성자를 쓰지 않는다.
+         */
+        WriterPrincipal writer = WriterPrincipal.from(findOrSaveWriter(oAuth2UserInfo));
 
         return new PrincipalDetails(writer, oAuth2User.getAttributes());
     }
 
+    private Writer findOrSaveWriter(OAuth2UserInfo oAuth2UserInfo) {
+        String provider = oAuth2UserInfo.getProvider();
+        String providerId = oAuth2UserInfo.getProviderId();
+
+        return writerRepository.findWriterByProvider(provider, providerId)
+                .orElseGet(() -> {
+                    /* OAuth 로그인의 경우 비밀번호는 사용되지 않는다. */
+                    OAuth2UserVO oAuth2UserVO = OAuth2UserVO.builder()
+                            .name(provider + "_" + providerId).email(oAuth2UserInfo.getEmail())
+                            .password("diabetesdiaryapi").role(Role.User)
+                            .provider(provider)
+                            .providerId(providerId)
+                            .build();
+                    try {
+                        return writerService.saveOAuthWriter(oAuth2UserVO);
+                    } catch (DataIntegrityViolationException e) {
+                        /*
+                        동시에 최초 로그인한 다른 요청이 먼저 가입시킨 경우면 저장된 작성자를 그대로 사용한다.
+                        다른 작성자와 id 가 겹친 경우면 조회 결과가 없으므로 한 번 더 가입을 시도한다.
+                         */
+                        logger.info("oauth writer join conflicted : " + provider);
+                        return writerRepository.findWriterByProvider(provider, providerId)
+                                .orElseGet(() -> writerService.saveOAuthWriter(oAuth2UserVO));
+                    }
+                });
+    }
+
 }
@@ -0,0 +1,94 @@
+/*
+ * @(#)CompactSessionAttributeSerializer.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.session;
+
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.core.serializer.support.SerializationFailedException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 세션 속성을 db에 저장하기 위한 직렬화기.
+ * 자바 직렬화 결과의 대부분은 클래스 이름 같은 반복되는 문자열이므로, 일정 크기 이상이면 압축해서 저장한다.
+ * 첫 바이트는 포맷 표시이다. (0 : 압축 안 함, 1 : deflate 압축)
+ */
+public class CompactSessionAttributeSerializer {
+
+    private static final byte RAW = 0;
+
+    private static final byte DEFLATED = 1;
+
+    /**
+     * 이보다 작은 값은 압축해도 이득이 거의 없다.
+     */
+    private static final int COMPRESSION_THRESHOLD = 256;
+
+    /**
+     * devtools 재시작 클래스 로더에서도 역직렬화가 되도록 어플리케이션의 클래스 로더를 사용한다.
+     */
+    private final ClassLoader classLoader;
+
+    public CompactSessionAttributeSerializer(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    public byte[] serialize(Object attribute) {
+        try {
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream(512);
+            try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+                out.writeObject(attribute);
+            }
+
+            ByteArrayOutputStream result = new ByteArrayOutputStream(serialized.size() + 1);
+            if (serialized.size() < COMPRESSION_THRESHOLD) {
+                result.write(RAW);
+                serialized.writeTo(result);
+                return result.toByteArray();
+            }
+
+            result.write(DEFLATED);
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DeflaterOutputStream out = new DeflaterOutputStream(result, deflater)) {
+                serialized.writeTo(out);
+            } finally {
+                deflater.end();
+            }
+            return result.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationFailedException("failed to serialize session attribute : " + attribute.getClass().getName(), e);
+        }
+    }
+
+    public Object deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        InputStream body = new ByteArrayInputStream(bytes, 1, bytes.length - 1);
+        if (bytes[0] == DEFLATED) {
+            body = new InflaterInputStream(body);
+        } else if (bytes[0] != RAW) {
+            throw new SerializationFailedException("unknown session attribute format : " + bytes[0]);
+        }
+
+        try (ObjectInputStream in = new ConfigurableObjectInputStream(body, classLoader)) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new SerializationFailedException("failed to deserialize session attribute", e);
+        }
+    }
+}
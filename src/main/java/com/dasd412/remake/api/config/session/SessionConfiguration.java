@@ -0,0 +1,46 @@
+/*
+ * @(#)SessionConfiguration.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.session;
+
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+
+/**
+ * 세션 저장소 설정.
+ * 저장소 종류는 spring.session.store-type 으로 고른다. (none : JVM 메모리, jdbc : db 테이블)
+ * real1, real2 는 같은 db 를 바라보므로 jdbc 로 두면 무중단 배포(switch_proxy) 후에도 로그인이 유지된다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.session.store-type", havingValue = "jdbc")
+public class SessionConfiguration implements BeanClassLoaderAware {
+
+    private ClassLoader classLoader;
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * JdbcOperationsSessionRepository 는 이 이름의 빈이 있으면 세션 속성 직렬화에 사용한다.
+     */
+    @Bean("springSessionConversionService")
+    public ConversionService springSessionConversionService() {
+        CompactSessionAttributeSerializer serializer = new CompactSessionAttributeSerializer(classLoader);
+
+        GenericConversionService conversionService = new GenericConversionService();
+        conversionService.addConverter(Object.class, byte[].class, serializer::serialize);
+        conversionService.addConverter(byte[].class, Object.class, serializer::deserialize);
+        return conversionService;
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * @(#)Coalesced.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.singleflight;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 같은 메서드가 같은 인자(작성자 id, 기간 등)로 동시에 여러 번 불리면 한 번만 실행하고 결과를 나눠 갖는다. (SingleFlightAspect)
+ * 인자는 equals, hashCode 가 구현되어 있어야 한다. (EntityId, FromStartUntilEnd 등)
+ * 결과가 여러 요청에서 공유되므로, 호출한 쪽은 결과를 수정하면 안 되고 결과 엔티티의 지연 로딩에 기대서도 안 된다.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Coalesced {
+}
@@ -0,0 +1,108 @@
+/*
+ * @(#)SingleFlightAspect.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.config.singleflight;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * @Coalesced 메서드의 single-flight 처리.
+ * 차트 화면은 여러 개의 XHR 을 동시에 보내고, 사용자가 기간 버튼을 연달아 누르기도 해서 똑같은 조회가 동시에 여러 번 실행된다.
+ * (메서드, 인자) 가 같은 호출이 이미 실행 중이면 db 에 다시 가지 않고 먼저 온 호출의 결과(또는 예외)를 기다렸다가 그대로 돌려준다.
+ * 실행 중인 호출만 합칠 뿐 결과를 저장해 두지는 않는다. 먼저 온 호출이 끝나면 다음 호출은 다시 db 를 조회한다.
+ * 트랜잭션보다 바깥에서 동작해야 기다리는 쪽이 커넥션을 잡지 않으므로 가장 높은 우선 순위를 준다.
+ * 메트릭 이름은 diary.singleflight 이며 method, result(executed, coalesced) 태그가 붙는다.
+ * (주의) 실행 중인 호출은 인스턴스마다 따로 관리한다. real1, real2 로 나뉜 요청끼리는 합쳐지지 않는다.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SingleFlightAspect {
+
+    static final String METRIC = "diary.singleflight";
+
+    private final ConcurrentMap<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlightAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(com.dasd412.remake.api.config.singleflight.Coalesced)")
+    public Object coalesce(ProceedingJoinPoint joinPoint) throws Throwable {
+        List<Object> key = makeKey(joinPoint);
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+
+        if (existing != null) {
+            count(joinPoint, "coalesced");
+            return await(existing);
+        }
+
+        count(joinPoint, "executed");
+        try {
+            Object result = joinPoint.proceed();
+            flight.complete(result);
+            return result;
+        } catch (Throwable throwable) {
+            flight.completeExceptionally(throwable);
+            throw throwable;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * 지금 실행 중인 호출의 개수
+     */
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private List<Object> makeKey(ProceedingJoinPoint joinPoint) {
+        List<Object> key = new ArrayList<>();
+        key.add(((MethodSignature) joinPoint.getSignature()).getMethod());
+        key.addAll(Arrays.asList(joinPoint.getArgs()));
+        return key;
+    }
+
+    /**
+     * 먼저 온 호출이 던진 예외는 감싸지 않고 그대로 던진다. (GlobalExceptionHandler 가 같은 상태 코드로 응답하도록)
+     */
+    private Object await(CompletableFuture<Object> flight) throws Throwable {
+        try {
+            return flight.get();
+        } catch (ExecutionException exception) {
+            throw exception.getCause();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw exception;
+        }
+    }
+
+    private void count(ProceedingJoinPoint joinPoint, String result) {
+        meterRegistry.counter(METRIC, "method", joinPoint.getSignature().getName(), "result", result).increment();
+    }
+}
@@ -9,7 +9,7 @@
 package com.dasd412.remake.api.controller;
 
 import com.dasd412.remake.api.config.security.auth.PrincipalDetails;
-import com.dasd412.remake.api.domain.diary.writer.Writer;
+import com.dasd412.remake.api.config.security.auth.WriterPrincipal;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -29,7 +29,7 @@ public class GlobalControllerAdvice {
     @ModelAttribute
     public void modelAddSessionInfo(Model model, @AuthenticationPrincipal PrincipalDetails principalDetails) {
         if (principalDetails != null && principalDetails.getWriter() != null) {
-            Writer user = principalDetails.getWriter();
+            WriterPrincipal user = principalDetails.getWriter();
             model.addAttribute("userEmail", user.getEmail());
         }
     }
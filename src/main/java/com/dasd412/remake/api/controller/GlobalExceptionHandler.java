@@ -20,6 +20,7 @@ import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 import org.springframework.boot.configurationprocessor.json.JSONException;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.NoHandlerFoundException;
@@ -71,6 +72,16 @@ public class GlobalExceptionHandler {
         return new ModelAndView("415");
     }
 
+    /**
+     * DeferredResult 로 응답하는 요청(평균 차트 등)이 제한 시간 안에 끝나지 않은 경우
+     */
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    public ModelAndView handle503() {
+        logger.warn("Async request timeout");
+        return new ModelAndView("503");
+    }
+
     /**
      * @param throwable 다른 예외 캐치에서 잡히지 못한 예외들
      */
@@ -0,0 +1,17 @@
+/*
+ * @(#)DiaryBatchSize.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+package com.dasd412.remake.api.controller.security;
+
+/**
+ * 일지 일괄 작성, 수정, 삭제 요청 하나에 담을 수 있는 최대 일지 수 지정용 인터페이스
+ */
+public interface DiaryBatchSize {
+
+    int DIARY_BATCH_SIZE = 100;
+
+}
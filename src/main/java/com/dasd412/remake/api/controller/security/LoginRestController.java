@@ -17,8 +17,10 @@ import com.dasd412.remake.api.service.security.vo.UserDetailsVO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
@@ -55,4 +57,24 @@ public class LoginRestController {
 
         return ApiResult.OK("회원 가입 완료하였습니다.");
     }
+
+    /**
+     * 회원 가입 폼 입력 중에 이름, 이메일 중복 여부를 미리 확인하기 위한 메서드.
+     * 대부분의 요청은 블룸 필터에서 끝나므로 db 조회가 일어나지 않는다.
+     */
+    @GetMapping("/signup/user/duplicate")
+    public ApiResult<?> checkDuplicate(@RequestParam(value = "name", required = false) String name,
+                                       @RequestParam(value = "email", required = false) String email) {
+        logger.info("check duplicate name or email");
+
+        if (name != null && writerService.existsNameForPreCheck(name)) {
+            return ApiResult.ERROR("duplicateName", HttpStatus.BAD_REQUEST);
+        }
+
+        if (email != null && writerService.existsEmailForPreCheck(email, null)) {
+            return ApiResult.ERROR("duplicateEmail", HttpStatus.BAD_REQUEST);
+        }
+
+        return ApiResult.OK("사용 가능합니다.");
+    }
 }
@@ -15,19 +15,34 @@ import com.dasd412.remake.api.domain.diary.EntityId;
 import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
 import com.dasd412.remake.api.domain.diary.diet.Diet;
 import com.dasd412.remake.api.domain.diary.writer.Writer;
+import com.dasd412.remake.api.service.domain.AsyncChartService;
+import com.dasd412.remake.api.service.domain.ChartUpdateBroadcaster;
 import com.dasd412.remake.api.service.domain.FindDiaryService;
+import com.dasd412.remake.api.service.domain.FoodImpactService;
+import com.dasd412.remake.api.service.domain.GlycemicAnalyticsService;
+import com.dasd412.remake.api.service.domain.vo.BloodSugarAverages;
+import com.dasd412.remake.api.service.domain.vo.FoodImpact;
 import com.dasd412.remake.api.service.domain.vo.FromStartUntilEnd;
 import com.dasd412.remake.api.util.DateStringConverter;
-import com.querydsl.core.Tuple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.servlet.http.HttpServletResponse;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -36,12 +51,38 @@ import java.util.stream.Collectors;
 @RestController
 public class SecurityChartRestController {
 
+    /**
+     * 시계열 차트를 열 단위 배열(ColumnarChartDTO)로 받고 싶을 때 Accept 헤더에 넣는 미디어 타입.
+     * 이 헤더가 없거나 와일드카드로만 받겠다고 하면 기존 형식(점 객체 배열)으로 응답한다.
+     */
+    public static final String COLUMNAR_JSON_VALUE = "application/vnd.diary.columnar+json";
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private final FindDiaryService findDiaryService;
 
-    public SecurityChartRestController(FindDiaryService findDiaryService) {
+    private final AsyncChartService asyncChartService;
+
+    private final ChartUpdateBroadcaster chartUpdateBroadcaster;
+
+    private final GlycemicAnalyticsService glycemicAnalyticsService;
+
+    private final FoodImpactService foodImpactService;
+
+    /**
+     * 평균 차트 요청 하나에 허용하는 시간
+     */
+    private final long timeoutMillis;
+
+    public SecurityChartRestController(FindDiaryService findDiaryService, AsyncChartService asyncChartService, ChartUpdateBroadcaster chartUpdateBroadcaster,
+                                       GlycemicAnalyticsService glycemicAnalyticsService, FoodImpactService foodImpactService,
+                                       @Value("${diary.chart.timeout-millis:5000}") long timeoutMillis) {
         this.findDiaryService = findDiaryService;
+        this.asyncChartService = asyncChartService;
+        this.chartUpdateBroadcaster = chartUpdateBroadcaster;
+        this.glycemicAnalyticsService = glycemicAnalyticsService;
+        this.foodImpactService = foodImpactService;
+        this.timeoutMillis = timeoutMillis;
     }
 
     /**
@@ -83,23 +124,11 @@ public class SecurityChartRestController {
         logger.info("find all blood sugar");
         List<DiabetesDiary> diaries = findDiaryService.getDiabetesDiariesWithSubEntitiesOfWriter(EntityId.of(Writer.class, principalDetails.getWriter().getId()));
 
-        List<FindAllBloodSugarDTO> dtoList = makeAllBloodSugarDtoListAndSortByDate(diaries);
+        List<FindAllBloodSugarDTO> dtoList = FindAllBloodSugarDTO.makeListAndSortByDate(diaries);
 
         return ApiResult.OK(dtoList);
     }
 
-    private List<FindAllBloodSugarDTO> makeAllBloodSugarDtoListAndSortByDate(List<DiabetesDiary> diaries) {
-        List<FindAllBloodSugarDTO> dtoList = new ArrayList<>();
-        for (DiabetesDiary diary : diaries) {
-            for (Diet diet : diary.getDietList()) {
-                dtoList.add(new FindAllBloodSugarDTO(diary, diet));
-            }
-        }
-        dtoList.sort(Comparator.comparing(FindAllBloodSugarDTO::getDateTime));
-
-        return dtoList;
-    }
-
     /**
      * @return 해당 기간 내 혈당 일지 및 식단 정보
      */
@@ -134,35 +163,176 @@ public class SecurityChartRestController {
     }
 
     /**
+     * 전체 기간 내 공복 혈당 (열 단위). 일지 엔티티 대신 (작성 시간, 공복 혈당) 만 읽는다.
+     */
+    @GetMapping(value = "/chart-menu/fasting-plasma-glucose/all", produces = COLUMNAR_JSON_VALUE)
+    public ApiResult<ColumnarChartDTO> findAllFpgColumnar(@AuthenticationPrincipal PrincipalDetails principalDetails) {
+        logger.info("find all fasting-plasma-glucose as columns");
+        return ApiResult.OK(new ColumnarChartDTO(findDiaryService.getFpgSeriesOfWriter(EntityId.of(Writer.class, principalDetails.getWriter().getId()))));
+    }
+
+    @GetMapping(value = "/chart-menu/fasting-plasma-glucose/between", produces = COLUMNAR_JSON_VALUE)
+    public ApiResult<ColumnarChartDTO> findFpgBetweenTimeColumnar(@AuthenticationPrincipal PrincipalDetails principalDetails, @RequestParam Map<String, String> startYearMonthDayEndYearMonthDay) {
+        LocalDateTime startDate = DateStringConverter.convertMapParamsToStartDate(startYearMonthDayEndYearMonthDay);
+        LocalDateTime endDate = DateStringConverter.convertMapParamsToEndDate(startYearMonthDayEndYearMonthDay);
+
+        logger.info("find fpg between" + startDate + " and " + endDate + " as columns");
+
+        return ApiResult.OK(new ColumnarChartDTO(findDiaryService.getFpgSeriesBetweenTime(EntityId.of(Writer.class, principalDetails.getWriter().getId()),
+                FromStartUntilEnd.builder().startDate(startDate).endDate(endDate).build())));
+    }
+
+    /**
+     * 전체 기간 내 식사 혈당 (열 단위). 일지, 식단 엔티티 대신 (작성 시간, 식사 시간, 식사 혈당) 만 읽는다.
+     */
+    @GetMapping(value = "/chart-menu/blood-sugar/all", produces = COLUMNAR_JSON_VALUE)
+    public ApiResult<ColumnarChartDTO> findAllBloodSugarColumnar(@AuthenticationPrincipal PrincipalDetails principalDetails) {
+        logger.info("find all blood sugar as columns");
+        return ApiResult.OK(new ColumnarChartDTO(findDiaryService.getBloodSugarSeriesOfWriter(EntityId.of(Writer.class, principalDetails.getWriter().getId()))));
+    }
+
+    @GetMapping(value = "/chart-menu/blood-sugar/between", produces = COLUMNAR_JSON_VALUE)
+    public ApiResult<ColumnarChartDTO> findBloodSugarBetweenColumnar(@AuthenticationPrincipal PrincipalDetails principalDetails, @RequestParam Map<String, String> startYearMonthDayEndYearMonthDay) {
+        LocalDateTime startDate = DateStringConverter.convertMapParamsToStartDate(startYearMonthDayEndYearMonthDay);
+        LocalDateTime endDate = DateStringConverter.convertMapParamsToEndDate(startYearMonthDayEndYearMonthDay);
+
+        logger.info("find blood sugar between" + startDate + " and " + endDate + " as columns");
+
+        return ApiResult.OK(new ColumnarChartDTO(findDiaryService.getBloodSugarSeriesBetweenTime(EntityId.of(Writer.class, principalDetails.getWriter().getId()),
+                FromStartUntilEnd.builder().startDate(startDate).endDate(endDate).build())));
+    }
+
+    /**
+     * 세 가지 평균은 AsyncChartService 가 동시에 구한다. diary.chart.timeout-millis 안에 끝나지 않으면 503 으로 응답한다.
+     *
      * @return 사용자의 평균 공복 혈당 정보 + 사용자의 식사 시간 별 평균 혈당 정보 + 사용자의 전체 식사 평균 혈당 정보
      */
     @GetMapping("/chart-menu/average/all")
-    public ApiResult<FindAverageAllDTO> findAverageAll(@AuthenticationPrincipal PrincipalDetails principalDetails) {
+    public DeferredResult<ApiResult<FindAverageAllDTO>> findAverageAll(@AuthenticationPrincipal PrincipalDetails principalDetails) {
         logger.info("find average all");
-        Double averageFpg = findDiaryService.getAverageFpg(EntityId.of(Writer.class, principalDetails.getWriter().getId()));
-        List<Tuple> averageBloodSugarTuples = findDiaryService.getAverageBloodSugarWithWhereClauseGroupByEatTime(EntityId.of(Writer.class, principalDetails.getWriter().getId()));
-        Double averageBloodSugar = findDiaryService.getAverageBloodSugarOfDietWithWhereClause(EntityId.of(Writer.class, principalDetails.getWriter().getId()));
+        CompletableFuture<BloodSugarAverages> averages = asyncChartService.getAverages(EntityId.of(Writer.class, principalDetails.getWriter().getId()));
 
-        return ApiResult.OK(FindAverageAllDTO.builder().averageFpg(averageFpg).tupleList(averageBloodSugarTuples).averageBloodSugar(averageBloodSugar).build());
+        return toDeferredResult(averages, found -> ApiResult.OK(FindAverageAllDTO.builder()
+                .averageFpg(found.getAverageFpg())
+                .tupleList(found.getAverageGroupByEatTime())
+                .averageBloodSugar(found.getAverageBloodSugar())
+                .build()));
     }
 
     @GetMapping("/chart-menu/average/between")
-    public ApiResult<FindAverageBetweenDTO> findAverageBetween(@AuthenticationPrincipal PrincipalDetails principalDetails, @RequestParam Map<String, String> startYearMonthDayEndYearMonthDay) {
+    public DeferredResult<ApiResult<FindAverageBetweenDTO>> findAverageBetween(@AuthenticationPrincipal PrincipalDetails principalDetails, @RequestParam Map<String, String> startYearMonthDayEndYearMonthDay) {
         LocalDateTime startDate = DateStringConverter.convertMapParamsToStartDate(startYearMonthDayEndYearMonthDay);
         LocalDateTime endDate = DateStringConverter.convertMapParamsToEndDate(startYearMonthDayEndYearMonthDay);
 
         logger.info("find average blood sugar between" + startDate + " and " + endDate);
 
-        Double averageFpgBetween = findDiaryService.getAverageFpgBetween(EntityId.of(Writer.class,
-                        principalDetails.getWriter().getId()),
+        CompletableFuture<BloodSugarAverages> averages = asyncChartService.getAveragesBetween(EntityId.of(Writer.class, principalDetails.getWriter().getId()),
                 FromStartUntilEnd.builder().startDate(startDate).endDate(endDate).build());
 
-        List<Tuple> averageBloodSugarTuplesBetween = findDiaryService.getAverageBloodSugarGroupByEatTimeBetweenTime(EntityId.of(Writer.class, principalDetails.getWriter().getId())
-                , FromStartUntilEnd.builder().startDate(startDate).endDate(endDate).build());
+        return toDeferredResult(averages, found -> ApiResult.OK(FindAverageBetweenDTO.builder()
+                .averageFpgBetween(found.getAverageFpg())
+                .tupleListBetween(found.getAverageGroupByEatTime())
+                .averageBloodSugarBetween(found.getAverageBloodSugar())
+                .build()));
+    }
 
-        Double averageBloodSugarBetween = findDiaryService.getAverageBloodSugarOfDietBetweenTime(EntityId.of(Writer.class, principalDetails.getWriter().getId())
-                , FromStartUntilEnd.builder().startDate(startDate).endDate(endDate).build());
+    /**
+     * @return 전체 기간 혈당 변동성 (표준 편차, 변동 계수, 목표 범위 비율, MAGE). 전체, 공복, 식후, 식사 시간 별
+     */
+    @GetMapping("/chart-menu/analytics/all")
+    public ApiResult<FindGlycemicAnalyticsDTO> findGlycemicAnalyticsAll(@AuthenticationPrincipal PrincipalDetails principalDetails) {
+        logger.info("find glycemic analytics all");
+        return ApiResult.OK(new FindGlycemicAnalyticsDTO(glycemicAnalyticsService.analyze(EntityId.of(Writer.class, principalDetails.getWriter().getId()))));
+    }
+
+    @GetMapping("/chart-menu/analytics/between")
+    public ApiResult<FindGlycemicAnalyticsDTO> findGlycemicAnalyticsBetween(@AuthenticationPrincipal PrincipalDetails principalDetails, @RequestParam Map<String, String> startYearMonthDayEndYearMonthDay) {
+        LocalDateTime startDate = DateStringConverter.convertMapParamsToStartDate(startYearMonthDayEndYearMonthDay);
+        LocalDateTime endDate = DateStringConverter.convertMapParamsToEndDate(startYearMonthDayEndYearMonthDay);
+
+        logger.info("find glycemic analytics between" + startDate + " and " + endDate);
+
+        return ApiResult.OK(new FindGlycemicAnalyticsDTO(glycemicAnalyticsService.analyzeBetween(EntityId.of(Writer.class, principalDetails.getWriter().getId()),
+                FromStartUntilEnd.builder().startDate(startDate).endDate(endDate).build())));
+    }
+
+    /**
+     * @return 전체 기간 식사 혈당의 중앙값, 90 번째 백분위수. 식후 전체와 식사 시간 별
+     */
+    @GetMapping("/chart-menu/percentile/all")
+    public ApiResult<FindBloodSugarPercentileDTO> findBloodSugarPercentileAll(@AuthenticationPrincipal PrincipalDetails principalDetails) {
+        logger.info("find blood sugar percentile all");
+        return ApiResult.OK(new FindBloodSugarPercentileDTO(glycemicAnalyticsService.getBloodSugarSketches(EntityId.of(Writer.class, principalDetails.getWriter().getId()))));
+    }
+
+    @GetMapping("/chart-menu/percentile/between")
+    public ApiResult<FindBloodSugarPercentileDTO> findBloodSugarPercentileBetween(@AuthenticationPrincipal PrincipalDetails principalDetails, @RequestParam Map<String, String> startYearMonthDayEndYearMonthDay) {
+        LocalDateTime startDate = DateStringConverter.convertMapParamsToStartDate(startYearMonthDayEndYearMonthDay);
+        LocalDateTime endDate = DateStringConverter.convertMapParamsToEndDate(startYearMonthDayEndYearMonthDay);
+
+        logger.info("find blood sugar percentile between" + startDate + " and " + endDate);
+
+        return ApiResult.OK(new FindBloodSugarPercentileDTO(glycemicAnalyticsService.getBloodSugarSketchesBetween(EntityId.of(Writer.class, principalDetails.getWriter().getId()),
+                FromStartUntilEnd.builder().startDate(startDate).endDate(endDate).build())));
+    }
+
+    /**
+     * @return 기간의 날마다 그 날까지 최근 30, 60, 90 일 평균 혈당(eAG)과 추정 당화혈색소
+     */
+    @GetMapping("/chart-menu/hba1c/between")
+    public ApiResult<FindEstimatedHbA1cDTO> findEstimatedHbA1cBetween(@AuthenticationPrincipal PrincipalDetails principalDetails, @RequestParam Map<String, String> startYearMonthDayEndYearMonthDay) {
+        LocalDateTime startDate = DateStringConverter.convertMapParamsToStartDate(startYearMonthDayEndYearMonthDay);
+        LocalDateTime endDate = DateStringConverter.convertMapParamsToEndDate(startYearMonthDayEndYearMonthDay);
+
+        logger.info("find estimated HbA1c between" + startDate + " and " + endDate);
+
+        return ApiResult.OK(new FindEstimatedHbA1cDTO(glycemicAnalyticsService.estimateHbA1cBetween(EntityId.of(Writer.class, principalDetails.getWriter().getId()),
+                FromStartUntilEnd.builder().startDate(startDate).endDate(endDate).build())));
+    }
+
+    /**
+     * @return 혈당을 많이 올린 음식 순으로, 그 음식을 먹은 식단과 먹지 않은 식단의 평균 식사 혈당 비교
+     */
+    @GetMapping("/chart-menu/food-impact")
+    public ApiResult<List<FoodImpact>> findFoodImpacts(@AuthenticationPrincipal PrincipalDetails principalDetails,
+                                                       @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        logger.info("find food impacts");
+        return ApiResult.OK(foodImpactService.getFoodImpacts(EntityId.of(Writer.class, principalDetails.getWriter().getId()), limit));
+    }
+
+    /**
+     * 차트 화면이 열려 있는 동안 자신의 일지 변경분(DiaryChangedEvent)을 diary-changed 이벤트로 받는 SSE 연결.
+     * 화면은 받은 값으로 점을 더하거나 고치거나 지우고, reload 가 오면 다시 조회한다.
+     */
+    @GetMapping(value = "/chart-menu/updates", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeChartUpdates(@AuthenticationPrincipal PrincipalDetails principalDetails, HttpServletResponse response) {
+        logger.info("subscribe chart updates");
+
+        /* nginx 가 이벤트를 버퍼에 모았다가 보내지 않도록 한다. */
+        response.setHeader("X-Accel-Buffering", "no");
+        return chartUpdateBroadcaster.subscribe(principalDetails.getWriter().getId());
+    }
+
+    /**
+     * 작업 스레드에서 난 예외는 CompletionException 으로 감싸져 오므로 원래 예외로 풀어서 GlobalExceptionHandler 가 처리하게 한다.
+     * 타임아웃이 나면 아직 시작하지 않은 쿼리를 취소하고 AsyncRequestTimeoutException 으로 응답한다.
+     */
+    private <T, R> DeferredResult<R> toDeferredResult(CompletableFuture<T> future, Function<T, R> mapper) {
+        DeferredResult<R> deferredResult = new DeferredResult<>(timeoutMillis);
+
+        deferredResult.onTimeout(() -> {
+            future.cancel(false);
+            deferredResult.setErrorResult(new AsyncRequestTimeoutException());
+        });
+
+        future.thenApply(mapper).whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                deferredResult.setResult(result);
+            } else {
+                deferredResult.setErrorResult(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+            }
+        });
 
-        return ApiResult.OK(FindAverageBetweenDTO.builder().averageFpgBetween(averageFpgBetween).tupleListBetween(averageBloodSugarTuplesBetween).averageBloodSugarBetween(averageBloodSugarBetween).build());
+        return deferredResult;
     }
 }
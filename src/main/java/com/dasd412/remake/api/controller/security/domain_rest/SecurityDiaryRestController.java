@@ -9,23 +9,41 @@ package com.dasd412.remake.api.controller.security.domain_rest;
 
 import com.dasd412.remake.api.config.security.auth.PrincipalDetails;
 import com.dasd412.remake.api.controller.ApiResult;
+import com.dasd412.remake.api.controller.security.DiaryBatchSize;
 import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.*;
 import com.dasd412.remake.api.domain.diary.EntityId;
 import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
 import com.dasd412.remake.api.domain.diary.writer.Writer;
+import com.dasd412.remake.api.service.domain.DiaryChangeService;
+import com.dasd412.remake.api.service.domain.DiaryExportService;
+import com.dasd412.remake.api.service.domain.DiaryImportService;
 import com.dasd412.remake.api.service.domain.FindDiaryService;
 import com.dasd412.remake.api.service.domain.SaveDiaryService;
 import com.dasd412.remake.api.service.domain.UpdateDeleteDiaryService;
+import com.dasd412.remake.api.service.domain.vo.DiaryBatchResult;
+import com.dasd412.remake.api.service.domain.vo.DiaryFileFormat;
+import com.dasd412.remake.api.service.domain.vo.DiaryImportProgress;
 import com.dasd412.remake.api.service.domain.vo.FromStartUntilEnd;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.persistence.NoResultException;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 @RestController
 public class SecurityDiaryRestController {
@@ -38,10 +56,20 @@ public class SecurityDiaryRestController {
 
     private final FindDiaryService findDiaryService;
 
-    public SecurityDiaryRestController(SaveDiaryService saveDiaryService, UpdateDeleteDiaryService updateDeleteDiaryService, FindDiaryService findDiaryService) {
+    private final DiaryImportService diaryImportService;
+
+    private final DiaryExportService diaryExportService;
+
+    private final DiaryChangeService diaryChangeService;
+
+    public SecurityDiaryRestController(SaveDiaryService saveDiaryService, UpdateDeleteDiaryService updateDeleteDiaryService, FindDiaryService findDiaryService,
+                                       DiaryImportService diaryImportService, DiaryExportService diaryExportService, DiaryChangeService diaryChangeService) {
         this.saveDiaryService = saveDiaryService;
         this.updateDeleteDiaryService = updateDeleteDiaryService;
         this.findDiaryService = findDiaryService;
+        this.diaryImportService = diaryImportService;
+        this.diaryExportService = diaryExportService;
+        this.diaryChangeService = diaryChangeService;
     }
 
     @PostMapping("/api/diary/user/diabetes-diary")
@@ -53,6 +81,104 @@ public class SecurityDiaryRestController {
         return ApiResult.OK(new SecurityDiaryPostResponseDTO(diaryId));
     }
 
+    /**
+     * 여러 날의 일지를 요청 하나로 작성한다. 항목 별 결과는 요청 순서를 따른다.
+     */
+    @PostMapping("/api/diary/user/diabetes-diary/batch")
+    public ApiResult<List<DiaryBatchResult>> postDiaries(@AuthenticationPrincipal PrincipalDetails principalDetails, @RequestBody @Valid SecurityDiaryBatchPostRequestDTO dto) {
+        logger.info("post diaries with authenticated user");
+
+        return ApiResult.OK(saveDiaryService.postDiaries(principalDetails, dto.getDiaries()));
+    }
+
+    @PutMapping("/api/diary/user/diabetes-diary/batch")
+    public ApiResult<List<DiaryBatchResult>> updateDiaries(@AuthenticationPrincipal PrincipalDetails principalDetails, @RequestBody @Valid SecurityDiaryBatchUpdateDTO dto) {
+        logger.info("update diabetes diaries from browser");
+
+        return ApiResult.OK(updateDeleteDiaryService.updateDiaries(principalDetails, dto.getDiaries()));
+    }
+
+    @DeleteMapping("/api/diary/user/diabetes-diary/batch")
+    public ApiResult<List<DiaryBatchResult>> deleteDiaries(@AuthenticationPrincipal PrincipalDetails principalDetails, @RequestParam("diaryIds") List<Long> diaryIds) {
+        logger.info("bulk delete Diabetes Diaries from browser");
+
+        checkArgument(!diaryIds.isEmpty() && diaryIds.size() <= DiaryBatchSize.DIARY_BATCH_SIZE, "diaryIds size must be between 1 and " + DiaryBatchSize.DIARY_BATCH_SIZE);
+
+        return ApiResult.OK(updateDeleteDiaryService.deleteDiaries(EntityId.of(Writer.class, principalDetails.getWriter().getId()), diaryIds));
+    }
+
+    /**
+     * CSV 또는 NDJSON 파일로 과거 일지를 한 번에 가져온다. 파일 형식은 DiaryImportReader 참고.
+     *
+     * @param format csv 또는 ndjson. 생략하면 파일 확장자로 판단한다.
+     */
+    @PostMapping("/api/diary/user/diabetes-diary/import")
+    public ApiResult<DiaryImportProgress> importDiaries(@AuthenticationPrincipal PrincipalDetails principalDetails, @RequestParam("file") MultipartFile file,
+                                                        @RequestParam(value = "format", required = false) String format) throws IOException {
+        logger.info("import diaries from file");
+
+        DiaryFileFormat importFormat = format == null ? DiaryFileFormat.fromFileName(file.getOriginalFilename())
+                : DiaryFileFormat.valueOf(format.toUpperCase());
+
+        try (InputStream inputStream = file.getInputStream()) {
+            return ApiResult.OK(diaryImportService.importDiaries(principalDetails.getWriter().getId(), inputStream, importFormat));
+        }
+    }
+
+    @GetMapping("/api/diary/user/diabetes-diary/import/progress")
+    public ApiResult<DiaryImportProgress> getImportProgress(@AuthenticationPrincipal PrincipalDetails principalDetails) {
+        logger.info("get progress of import");
+
+        return ApiResult.OK(diaryImportService.getProgress(principalDetails.getWriter().getId())
+                .orElseThrow(() -> new NoResultException("가져오기 기록이 없습니다.")));
+    }
+
+    /**
+     * 작성자의 전체 기록을 CSV 또는 NDJSON 으로 내려준다. 내려받은 파일은 가져오기에 그대로 쓸 수 있다.
+     * 응답은 별도 스레드에서 스트리밍되며, 클라이언트가 gzip 을 받을 수 있으면 압축해서 보낸다.
+     */
+    @GetMapping("/api/diary/user/export")
+    public ResponseEntity<StreamingResponseBody> exportDiaries(@AuthenticationPrincipal PrincipalDetails principalDetails,
+                                                               @RequestParam(value = "format", defaultValue = "csv") String format,
+                                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        logger.info("export diaries");
+
+        Long writerId = principalDetails.getWriter().getId();
+        DiaryFileFormat exportFormat = DiaryFileFormat.valueOf(format.toUpperCase());
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, 8192);
+                diaryExportService.exportDiaries(writerId, exportFormat, gzipOutputStream);
+                gzipOutputStream.finish();
+            } else {
+                diaryExportService.exportDiaries(writerId, exportFormat, outputStream);
+            }
+        };
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, exportFormat.getContentType() + ";charset=UTF-8")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"diabetes-diary." + exportFormat.getExtension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(body);
+    }
+
+    /**
+     * 증분 동기화. since 이후 바뀐 일지(식단, 음식 포함)와 지워진 일지 id 를 돌려준다.
+     * 응답의 until 을 다음 요청의 since 로 보내면 된다.
+     */
+    @GetMapping("/api/diary/user/changes")
+    public ApiResult<DiaryChangeFeedDTO> getChanges(@AuthenticationPrincipal PrincipalDetails principalDetails,
+                                                    @RequestParam("since") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        logger.info("get diary changes");
+
+        return ApiResult.OK(new DiaryChangeFeedDTO(diaryChangeService.getChangesSince(EntityId.of(Writer.class, principalDetails.getWriter().getId()), since)));
+    }
+
     @PutMapping("/api/diary/user/diabetes-diary")
     public ApiResult<SecurityDiaryUpdateResponseDTO> updateDiary(@AuthenticationPrincipal PrincipalDetails principalDetails, @RequestBody SecurityDiaryUpdateDTO dto) {
         logger.info("update diabetes diary from browser");
@@ -69,6 +195,13 @@ public class SecurityDiaryRestController {
         updateDeleteDiaryService.deleteDiary(EntityId.of(Writer.class, principalDetails.getWriter().getId()), EntityId.of(DiabetesDiary.class, diaryId));
     }
 
+    @GetMapping("/api/diary/user/food-names")
+    public ApiResult<List<String>> suggestFoodNames(@AuthenticationPrincipal PrincipalDetails principalDetails, @RequestParam("prefix") String prefix,
+                                                    @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        logger.info("suggest food names");
+        return ApiResult.OK(findDiaryService.suggestFoodNames(EntityId.of(Writer.class, principalDetails.getWriter().getId()), prefix, limit));
+    }
+
     @GetMapping("/api/diary/user/diabetes-diary/list")
     public ApiResult<List<DiaryListBetweenTimeDTO>> getDiariesBetweenStartAndEnd(@AuthenticationPrincipal PrincipalDetails principalDetails,
                                                                                  @RequestParam(value = "year") int year, @RequestParam(value = "month") int month,
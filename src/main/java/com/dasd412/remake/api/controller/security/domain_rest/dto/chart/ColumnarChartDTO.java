@@ -0,0 +1,64 @@
+package com.dasd412.remake.api.controller.security.domain_rest.dto.chart;
+
+import com.dasd412.remake.api.domain.diary.diet.EatTime;
+import com.dasd412.remake.api.service.domain.vo.ChartSeries;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Accept: application/vnd.diary.columnar+json 으로 요청한 차트 응답.
+ * 점 배열 대신 같은 길이의 배열을 나란히 보낸다. i 번째 점은 (diaryIds[i], timestamps[i], values[i], eatTimes[i]) 이다.
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ColumnarChartDTO {
+
+    /**
+     * eatTimes 의 코드 -> 이름. 코드는 이 목록의 인덱스이다.
+     */
+    private static final List<String> EAT_TIME_NAMES = Collections.unmodifiableList(Arrays.stream(EatTime.values()).map(Enum::name).collect(Collectors.toList()));
+
+    /**
+     * 점이 속한 일지의 id. 차트 갱신 알림(/chart-menu/updates)을 받아 점을 고치거나 지울 때 쓴다.
+     */
+    private final long[] diaryIds;
+
+    /**
+     * x - 축 (epoch millis)
+     */
+    private final long[] timestamps;
+
+    /**
+     * y - 축
+     */
+    private final int[] values;
+
+    /**
+     * 식사 시간 코드. 공복 혈당 차트에는 없다.
+     */
+    private final int[] eatTimes;
+
+    private final List<String> eatTimeNames;
+
+    public ColumnarChartDTO(ChartSeries series) {
+        this.diaryIds = series.getDiaryIds();
+        this.timestamps = series.getTimestamps();
+        this.values = series.getValues();
+        this.eatTimes = series.getEatTimes();
+        this.eatTimeNames = eatTimes == null ? null : EAT_TIME_NAMES;
+    }
+
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("size", values.length)
+                .append("eatTimeNames", eatTimeNames)
+                .toString();
+    }
+}
@@ -8,6 +8,9 @@ import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
 @Getter
 public class FindAllBloodSugarDTO {
@@ -33,6 +36,21 @@ public class FindAllBloodSugarDTO {
         this.eatTime = diet.getEatTime();
     }
 
+    /**
+     * 일지들의 식단을 펼쳐서 작성 시간 순으로 정렬한다. 혈당 차트 요청마다 호출된다.
+     */
+    public static List<FindAllBloodSugarDTO> makeListAndSortByDate(List<DiabetesDiary> diaries) {
+        List<FindAllBloodSugarDTO> dtoList = new ArrayList<>();
+        for (DiabetesDiary diary : diaries) {
+            for (Diet diet : diary.getDietList()) {
+                dtoList.add(new FindAllBloodSugarDTO(diary, diet));
+            }
+        }
+        dtoList.sort(Comparator.comparing(FindAllBloodSugarDTO::getDateTime));
+
+        return dtoList;
+    }
+
     public String toString() {
         return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
                 .append("blood sugar", bloodSugar)
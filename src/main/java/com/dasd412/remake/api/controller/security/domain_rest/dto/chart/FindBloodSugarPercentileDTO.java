@@ -0,0 +1,57 @@
+package com.dasd412.remake.api.controller.security.domain_rest.dto.chart;
+
+import com.dasd412.remake.api.domain.diary.diet.EatTime;
+import com.dasd412.remake.api.service.domain.QuantileSketch;
+import com.dasd412.remake.api.service.domain.vo.QuantileSummary;
+import lombok.Getter;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.Map;
+
+/**
+ * 식사 혈당의 중앙값, 90 번째 백분위수. 식후 전체와 식사 시간 별로 나눈다.
+ */
+@Getter
+public class FindBloodSugarPercentileDTO {
+
+    /**
+     * 식후 혈당 전체
+     */
+    private final QuantileSummary postMeal;
+
+    /**
+     * 아침 식사 혈당
+     */
+    private final QuantileSummary breakFast;
+
+    /**
+     * 점심 식사 혈당
+     */
+    private final QuantileSummary lunch;
+
+    /**
+     * 저녁 식사 혈당
+     */
+    private final QuantileSummary dinner;
+
+    /**
+     * @param sketches 식사 시간 별 히스토그램. 기록이 없는 식사 시간은 빠져 있어도 된다.
+     */
+    public FindBloodSugarPercentileDTO(Map<EatTime, QuantileSketch> sketches) {
+        this.postMeal = QuantileSummary.of(sketches.values().stream().reduce(QuantileSketch.empty(), QuantileSketch::merge));
+        this.breakFast = QuantileSummary.of(sketches.getOrDefault(EatTime.BreakFast, QuantileSketch.empty()));
+        this.lunch = QuantileSummary.of(sketches.getOrDefault(EatTime.Lunch, QuantileSketch.empty()));
+        this.dinner = QuantileSummary.of(sketches.getOrDefault(EatTime.Dinner, QuantileSketch.empty()));
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("postMeal", postMeal)
+                .append("breakFast", breakFast)
+                .append("lunch", lunch)
+                .append("dinner", dinner)
+                .toString();
+    }
+}
@@ -0,0 +1,78 @@
+package com.dasd412.remake.api.controller.security.domain_rest.dto.chart;
+
+import com.dasd412.remake.api.service.domain.vo.EstimatedHbA1cSeries;
+import lombok.Getter;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 날짜 별 최근 n 일 평균 혈당과 추정 당화혈색소.
+ * i 번째 날은 timestamps[i] 이고, 기간마다 averageGlucose[i], estimatedHbA1c[i] 가 그 날의 값이다. 기간 안에 기록이 없으면 null 이다.
+ */
+@Getter
+public class FindEstimatedHbA1cDTO {
+
+    /**
+     * x - 축. 날짜의 0 시 (epoch millis)
+     */
+    private final long[] timestamps;
+
+    /**
+     * 기간(30, 60, 90 일 등) 별 계열
+     */
+    private final List<Window> windows;
+
+    public FindEstimatedHbA1cDTO(EstimatedHbA1cSeries series) {
+        this.timestamps = series.getTimestamps();
+
+        List<Window> windows = new ArrayList<>(series.getWindowDays().length);
+        for (int i = 0; i < series.getWindowDays().length; i++) {
+            windows.add(new Window(series.getWindowDays()[i], series.getAverageGlucose(i)));
+        }
+        this.windows = Collections.unmodifiableList(windows);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("days", timestamps.length)
+                .append("windows", windows)
+                .toString();
+    }
+
+    @Getter
+    public static class Window {
+
+        private final int days;
+
+        /**
+         * 평균 혈당 (eAG, mg/dL)
+         */
+        private final Double[] averageGlucose;
+
+        /**
+         * 추정 당화혈색소 (%)
+         */
+        private final Double[] estimatedHbA1c;
+
+        private Window(int days, Double[] averageGlucose) {
+            this.days = days;
+            this.averageGlucose = averageGlucose;
+            this.estimatedHbA1c = new Double[averageGlucose.length];
+            for (int i = 0; i < averageGlucose.length; i++) {
+                estimatedHbA1c[i] = averageGlucose[i] == null ? null : EstimatedHbA1cSeries.toHbA1c(averageGlucose[i]);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                    .append("days", days)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.dasd412.remake.api.controller.security.domain_rest.dto.chart;
+
+import com.dasd412.remake.api.domain.diary.diet.EatTime;
+import com.dasd412.remake.api.service.domain.vo.GlycemicAnalytics;
+import com.dasd412.remake.api.service.domain.vo.GlycemicVariability;
+import lombok.Getter;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 혈당 변동성 분석 응답. 각 항목은 개수, 평균, 표준 편차, 변동 계수, 목표 범위 아래/안/위 비율, MAGE 를 담는다.
+ */
+@Getter
+public class FindGlycemicAnalyticsDTO {
+
+    /**
+     * 공복과 식후 혈당을 시간 순으로 이은 전체
+     */
+    private final GlycemicVariability overall;
+
+    /**
+     * 공복 혈당
+     */
+    private final GlycemicVariability fasting;
+
+    /**
+     * 식후 혈당 전체
+     */
+    private final GlycemicVariability postMeal;
+
+    /**
+     * 아침 식사 혈당
+     */
+    private final GlycemicVariability breakFast;
+
+    /**
+     * 점심 식사 혈당
+     */
+    private final GlycemicVariability lunch;
+
+    /**
+     * 저녁 식사 혈당
+     */
+    private final GlycemicVariability dinner;
+
+    public FindGlycemicAnalyticsDTO(GlycemicAnalytics analytics) {
+        this.overall = analytics.getOverall();
+        this.fasting = analytics.getFasting();
+        this.postMeal = analytics.getPostMeal();
+        this.breakFast = analytics.ofEatTime(EatTime.BreakFast);
+        this.lunch = analytics.ofEatTime(EatTime.Lunch);
+        this.dinner = analytics.ofEatTime(EatTime.Dinner);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("overall", overall)
+                .append("fasting", fasting)
+                .append("postMeal", postMeal)
+                .append("breakFast", breakFast)
+                .append("lunch", lunch)
+                .append("dinner", dinner)
+                .toString();
+    }
+}
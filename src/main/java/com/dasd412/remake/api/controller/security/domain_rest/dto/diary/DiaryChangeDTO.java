@@ -0,0 +1,48 @@
+package com.dasd412.remake.api.controller.security.domain_rest.dto.diary;
+
+import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
+import lombok.Getter;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Getter
+public class DiaryChangeDTO {
+
+    private final Long diaryId;
+
+    private final LocalDateTime writtenTime;
+
+    private final int fastingPlasmaGlucose;
+
+    private final String remark;
+
+    private final LocalDateTime updatedAt;
+
+    private final List<DietChangeDTO> diets;
+
+    public DiaryChangeDTO(DiabetesDiary diary) {
+        this.diaryId = diary.getId();
+        this.writtenTime = diary.getWrittenTime();
+        this.fastingPlasmaGlucose = diary.getFastingPlasmaGlucose();
+        this.remark = diary.getRemark();
+        this.updatedAt = diary.getUpdatedAt();
+        this.diets = diary.getDietList().stream()
+                .sorted(Comparator.comparing(diet -> diet.getEatTime().ordinal()))
+                .map(DietChangeDTO::new)
+                .collect(Collectors.toList());
+    }
+
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("diaryId", diaryId)
+                .append("writtenTime", writtenTime)
+                .append("updatedAt", updatedAt)
+                .append("diets", diets)
+                .toString();
+    }
+}
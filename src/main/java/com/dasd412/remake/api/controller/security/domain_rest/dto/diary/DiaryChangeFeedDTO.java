@@ -0,0 +1,47 @@
+package com.dasd412.remake.api.controller.security.domain_rest.dto.diary;
+
+import com.dasd412.remake.api.service.domain.vo.DiaryChanges;
+import lombok.Getter;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 변경 내역 조회 응답. 클라이언트는 deletedDiaryIds 를 먼저 지운 뒤 diaries 를 덮어써야 한다. (지워진 일지의 id 가 새 일지에 다시 쓰일 수 있다.)
+ */
+@Getter
+public class DiaryChangeFeedDTO {
+
+    /**
+     * 다음 요청의 since. 앞 요청과 조금 겹치므로 같은 일지가 다시 올 수 있다.
+     */
+    private final LocalDateTime until;
+
+    private final List<DiaryChangeDTO> diaries;
+
+    private final List<Long> deletedDiaryIds;
+
+    /**
+     * true 이면 diaries 가 일부뿐이므로 /api/diary/user/export 로 전체를 받은 뒤 until 부터 다시 동기화해야 한다.
+     */
+    private final boolean truncated;
+
+    public DiaryChangeFeedDTO(DiaryChanges changes) {
+        this.until = changes.getUntil();
+        this.diaries = changes.getChangedDiaries().stream().map(DiaryChangeDTO::new).collect(Collectors.toList());
+        this.deletedDiaryIds = changes.getDeletedDiaryIds();
+        this.truncated = changes.isTruncated();
+    }
+
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("until", until)
+                .append("diaries", diaries.size())
+                .append("deletedDiaryIds", deletedDiaryIds)
+                .append("truncated", truncated)
+                .toString();
+    }
+}
@@ -0,0 +1,40 @@
+package com.dasd412.remake.api.controller.security.domain_rest.dto.diary;
+
+import com.dasd412.remake.api.domain.diary.diet.Diet;
+import com.dasd412.remake.api.domain.diary.diet.EatTime;
+import lombok.Getter;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Getter
+public class DietChangeDTO {
+
+    private final Long dietId;
+
+    private final EatTime eatTime;
+
+    private final int bloodSugar;
+
+    private final List<SecurityFoodForUpdateDTO> foods;
+
+    public DietChangeDTO(Diet diet) {
+        this.dietId = diet.getDietId();
+        this.eatTime = diet.getEatTime();
+        this.bloodSugar = diet.getBloodSugar();
+        this.foods = diet.getFoodList().stream()
+                .map(food -> new SecurityFoodForUpdateDTO(food.getId(), food.getFoodName(), food.getAmount(), food.getAmountUnit()))
+                .collect(Collectors.toList());
+    }
+
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("dietId", dietId)
+                .append("eatTime", eatTime)
+                .append("bloodSugar", bloodSugar)
+                .append("foods", foods)
+                .toString();
+    }
+}
@@ -0,0 +1,32 @@
+package com.dasd412.remake.api.controller.security.domain_rest.dto.diary;
+
+import com.dasd412.remake.api.controller.security.DiaryBatchSize;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Getter
+@NoArgsConstructor /* <- 필드 하나짜리 생성자는 jackson 이 delegating creator 로 오인할 수 있어서 기본 생성자로 역직렬화한다. */
+public class SecurityDiaryBatchUpdateDTO {
+
+    @NotEmpty
+    @Size(max = DiaryBatchSize.DIARY_BATCH_SIZE)
+    @Valid
+    private List<SecurityDiaryUpdateDTO> diaries;
+
+    public SecurityDiaryBatchUpdateDTO(List<SecurityDiaryUpdateDTO> diaries) {
+        this.diaries = diaries;
+    }
+
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("diaries", diaries)
+                .toString();
+    }
+}
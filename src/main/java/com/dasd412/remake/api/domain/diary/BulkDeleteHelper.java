@@ -15,6 +15,7 @@ import com.dasd412.remake.api.domain.diary.diet.QDiet;
 import com.dasd412.remake.api.domain.diary.food.Food;
 import com.dasd412.remake.api.domain.diary.food.QFood;
 import com.dasd412.remake.api.domain.diary.profile.QProfile;
+import com.dasd412.remake.api.domain.diary.tombstone.QTombstone;
 import com.dasd412.remake.api.domain.diary.writer.QWriter;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.slf4j.Logger;
@@ -60,6 +61,11 @@ public class BulkDeleteHelper {
         /* bulk delete diary*/
         deleteDiaryInIds(diaryIdList);
 
+        /* delete tombstones */
+        jpaQueryFactory.delete(QTombstone.tombstone)
+                .where(QTombstone.tombstone.writerId.eq(writerId))
+                .execute();
+
         /* delete writer */
         jpaQueryFactory.delete(QWriter.writer)
                 .where(QWriter.writer.writerId.eq(writerId))
@@ -97,6 +103,24 @@ public class BulkDeleteHelper {
                 .execute();
     }
 
+    public void bulkDeleteDiaries(List<Long> diaryIdList) {
+        logger.info("bulk delete diaries and related sub entities");
+        /* select diet ids */
+        List<Long> dietIdList = getDietIds(diaryIdList);
+
+        /* select food ids */
+        List<Long> foodIdList = getFoodIds(dietIdList);
+
+        /* bulk delete food */
+        deleteFoodsInIds(foodIdList);
+
+        /* bulk delete diet */
+        deleteDietInIds(dietIdList);
+
+        /* bulk delete diary */
+        deleteDiaryInIds(diaryIdList);
+    }
+
     public void bulkDeleteDiet(Long dietId) {
         logger.info("bulk delete diet and related sub entities");
         /* select food id */
@@ -63,9 +63,27 @@ public class PredicateMaker {
         return booleanBuilder;
     }
 
+    /**
+     * 끝 시간은 포함하지 않는다. 날짜 단위로 자를 때 끝 날의 다음 날 0 시를 넘긴다.
+     */
+    public static Predicate decideFromUntilTimeInDiary(LocalDateTime startDate, LocalDateTime untilDate) {
+        BooleanBuilder booleanBuilder = new BooleanBuilder();
+        booleanBuilder.and(QDiabetesDiary.diabetesDiary.writtenTime.goe(startDate).and(QDiabetesDiary.diabetesDiary.writtenTime.lt(untilDate)));
+        return booleanBuilder;
+    }
+
     public static Predicate decideBetweenTimeInDiet(LocalDateTime startDate, LocalDateTime endDate) {
         BooleanBuilder booleanBuilder = new BooleanBuilder();
         booleanBuilder.and(QDiet.diet.diary.writtenTime.between(startDate, endDate));
         return booleanBuilder;
     }
+
+    /**
+     * 끝 시간은 포함하지 않는다. 붙어 있는 기간을 겹치지 않게 나눌 때 쓴다.
+     */
+    public static Predicate decideFromUntilTimeInDiet(LocalDateTime startDate, LocalDateTime untilDate) {
+        BooleanBuilder booleanBuilder = new BooleanBuilder();
+        booleanBuilder.and(QDiet.diet.diary.writtenTime.goe(startDate).and(QDiet.diet.diary.writtenTime.lt(untilDate)));
+        return booleanBuilder;
+    }
 }
@@ -22,7 +22,8 @@ import java.util.*;
 import static com.google.common.base.Preconditions.checkArgument;
 
 @Entity
-@Table(name = "DiabetesDiary", uniqueConstraints = @UniqueConstraint(columnNames = {"diary_id"}))
+@Table(name = "DiabetesDiary", uniqueConstraints = @UniqueConstraint(columnNames = {"diary_id"}),
+        indexes = @Index(name = "idx_diary_writer_updated", columnList = "writer_id, updatedAt"))
 @IdClass(DiabetesDiaryId.class)
 public class DiabetesDiary extends BaseTimeEntity {
 
@@ -9,8 +9,11 @@
 package com.dasd412.remake.api.domain.diary.diabetesDiary;
 
 import com.dasd412.remake.api.domain.diary.writer.Writer;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Predicate;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,6 +38,55 @@ public interface DiaryRepositoryCustom {
 
     void bulkDeleteDiary(Long diaryId);
 
+    /**
+     * 일괄 수정용. 식단까지 fetch join 하여 일지 수와 상관없이 쿼리 한 번으로 가져온다.
+     */
+    List<DiabetesDiary> findDiariesWithDietsOfWriter(Long writerId, List<Long> diaryIds);
+
+    /**
+     * @return diaryIds 중 해당 작성자의 일지인 것의 id
+     */
+    List<Long> findDiaryIdsOfWriter(Long writerId, List<Long> diaryIds);
+
+    /**
+     * 일괄 삭제용. 일지 수와 상관없이 select 두 번, delete 세 번으로 끝난다.
+     */
+    void bulkDeleteDiaries(List<Long> diaryIds);
+
+    /**
+     * 식단, 음식만 바뀌어도 변경 내역 조회에 잡히도록 일지의 updatedAt 을 갱신한다. 소유권은 호출하는 쪽에서 확인해야 한다.
+     */
+    void touchDiaries(List<Long> diaryIds, LocalDateTime updatedAt);
+
+    /**
+     * 변경 내역 조회용. (writer_id, updatedAt) 인덱스를 탄다.
+     *
+     * @return since 이후(미포함) until 까지(포함) 작성, 수정된 일지 id 를 updatedAt 순으로 최대 limit 개
+     */
+    List<Long> findDiaryIdsUpdatedBetween(Long writerId, LocalDateTime since, LocalDateTime until, int limit);
+
     Optional<Double> findAverageFpg(Long writerId, List<Predicate> predicates);
 
+    /**
+     * 차트용. 엔티티 대신 필요한 컬럼만 작성 시간 순으로 가져온다.
+     *
+     * @return (일지 id, 작성 시간, 공복 혈당) 튜플
+     */
+    List<Tuple> findFpgSeriesOfWriter(Long writerId, List<Predicate> predicates);
+
+    /**
+     * 내보내기용. (일지, 식단, 음식)을 펼친 행을 작성 시간 순으로 하나씩 읽는다. 반드시 트랜잭션 안에서 호출하고 다 읽은 뒤 닫아야 한다.
+     *
+     * @return (일지 id, 작성 시간, 공복 혈당, 비고, 식사 시간, 식사 혈당, 음식 이름, 수량, 단위) 튜플. 식단, 음식이 없으면 해당 값은 null
+     */
+    CloseableIterator<Tuple> iterateDiaryRowsOfWriter(Long writerId);
+
+    /**
+     * 혈당 분석용. 일지와 식단을 펼친 행을 작성 시간 순으로 하나씩 읽는다. 같은 일지 안에서는 식단이 만들어진 순서(아침, 점심, 저녁)로 나온다.
+     * 반드시 트랜잭션 안에서 호출하고 다 읽은 뒤 닫아야 한다.
+     *
+     * @return (일지 id, 작성 시간, 공복 혈당, 식사 시간, 식사 혈당) 튜플. 식단이 없으면 식사 시간, 식사 혈당은 null
+     */
+    CloseableIterator<Tuple> iterateReadingsOfWriter(Long writerId, List<Predicate> predicates);
+
 }
@@ -12,16 +12,27 @@ import com.dasd412.remake.api.domain.diary.BulkDeleteHelper;
 import com.dasd412.remake.api.domain.diary.diet.QDiet;
 import com.dasd412.remake.api.domain.diary.food.QFood;
 import com.dasd412.remake.api.domain.diary.writer.QWriter;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import com.dasd412.remake.api.domain.diary.writer.Writer;
+import org.hibernate.annotations.QueryHints;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class DiaryRepositoryImpl implements DiaryRepositoryCustom {
+
+    /**
+     * 내보내기, 분석 커서가 db 에서 한 번에 가져오는 행 수. 힙에는 이 만큼만 올라온다.
+     * (주의) MySQL 드라이버는 url 에 useCursorFetch=true 가 있어야 fetch size 를 지킨다. 없으면 결과 전체를 받아온다.
+     */
+    private static final int CURSOR_FETCH_SIZE = 500;
+
     private final JPAQueryFactory jpaQueryFactory;
 
     public DiaryRepositoryImpl(JPAQueryFactory jpaQueryFactory) {
@@ -108,6 +119,52 @@ public class DiaryRepositoryImpl implements DiaryRepositoryCustom {
         deleteHelper.bulkDeleteDiary(diaryId);
     }
 
+    @Override
+    public List<DiabetesDiary> findDiariesWithDietsOfWriter(Long writerId, List<Long> diaryIds) {
+        return jpaQueryFactory.selectFrom(QDiabetesDiary.diabetesDiary)
+                .leftJoin(QDiabetesDiary.diabetesDiary.dietList, QDiet.diet)
+                .fetchJoin()
+                .where(QDiabetesDiary.diabetesDiary.writer.writerId.eq(writerId)
+                        .and(QDiabetesDiary.diabetesDiary.diaryId.in(diaryIds)))
+                .distinct()
+                .fetch();
+    }
+
+    @Override
+    public List<Long> findDiaryIdsOfWriter(Long writerId, List<Long> diaryIds) {
+        return jpaQueryFactory.select(QDiabetesDiary.diabetesDiary.diaryId)
+                .from(QDiabetesDiary.diabetesDiary)
+                .where(QDiabetesDiary.diabetesDiary.writer.writerId.eq(writerId)
+                        .and(QDiabetesDiary.diabetesDiary.diaryId.in(diaryIds)))
+                .fetch();
+    }
+
+    @Override
+    public void bulkDeleteDiaries(List<Long> diaryIds) {
+        BulkDeleteHelper deleteHelper = new BulkDeleteHelper(jpaQueryFactory);
+        deleteHelper.bulkDeleteDiaries(diaryIds);
+    }
+
+    @Override
+    public void touchDiaries(List<Long> diaryIds, LocalDateTime updatedAt) {
+        jpaQueryFactory.update(QDiabetesDiary.diabetesDiary)
+                .set(QDiabetesDiary.diabetesDiary.updatedAt, updatedAt)
+                .where(QDiabetesDiary.diabetesDiary.diaryId.in(diaryIds))
+                .execute();
+    }
+
+    @Override
+    public List<Long> findDiaryIdsUpdatedBetween(Long writerId, LocalDateTime since, LocalDateTime until, int limit) {
+        return jpaQueryFactory.select(QDiabetesDiary.diabetesDiary.diaryId)
+                .from(QDiabetesDiary.diabetesDiary)
+                .where(QDiabetesDiary.diabetesDiary.writer.writerId.eq(writerId)
+                        .and(QDiabetesDiary.diabetesDiary.updatedAt.gt(since))
+                        .and(QDiabetesDiary.diabetesDiary.updatedAt.loe(until)))
+                .orderBy(QDiabetesDiary.diabetesDiary.updatedAt.asc(), QDiabetesDiary.diabetesDiary.diaryId.asc())
+                .limit(limit)
+                .fetch();
+    }
+
     @Override
     public Optional<Double> findAverageFpg(Long writerId, List<Predicate> predicates) {
         return Optional.ofNullable(jpaQueryFactory.from(QDiabetesDiary.diabetesDiary)
@@ -118,4 +175,52 @@ public class DiaryRepositoryImpl implements DiaryRepositoryCustom {
                 .fetchOne());
     }
 
+    /*
+     * 차트의 열 단위 응답용. 엔티티 대신 필요한 컬럼만 select 하고, 작성 시간이 같으면 일지 id 순으로 순서를 고정한다.
+     */
+    @Override
+    public List<Tuple> findFpgSeriesOfWriter(Long writerId, List<Predicate> predicates) {
+        return jpaQueryFactory.select(QDiabetesDiary.diabetesDiary.diaryId, QDiabetesDiary.diabetesDiary.writtenTime, QDiabetesDiary.diabetesDiary.fastingPlasmaGlucose)
+                .from(QDiabetesDiary.diabetesDiary)
+                .where(QDiabetesDiary.diabetesDiary.writer.writerId.eq(writerId), ExpressionUtils.allOf(predicates))
+                .orderBy(QDiabetesDiary.diabetesDiary.writtenTime.asc(), QDiabetesDiary.diabetesDiary.diaryId.asc())
+                .fetch();
+    }
+
+    /*
+     * 엔티티가 아니라 컬럼만 select 하므로 영속성 컨텍스트에 쌓이지 않는다.
+     * 같은 일지의 행이 연속으로 나오도록 일지 id 까지 정렬한다.
+     */
+    @Override
+    public CloseableIterator<Tuple> iterateDiaryRowsOfWriter(Long writerId) {
+        return jpaQueryFactory.select(QDiabetesDiary.diabetesDiary.diaryId, QDiabetesDiary.diabetesDiary.writtenTime,
+                        QDiabetesDiary.diabetesDiary.fastingPlasmaGlucose, QDiabetesDiary.diabetesDiary.remark,
+                        QDiet.diet.eatTime, QDiet.diet.bloodSugar,
+                        QFood.food.foodName, QFood.food.amount, QFood.food.amountUnit)
+                .from(QDiabetesDiary.diabetesDiary)
+                .leftJoin(QDiabetesDiary.diabetesDiary.dietList, QDiet.diet)
+                .leftJoin(QDiet.diet.foodList, QFood.food)
+                .where(QDiabetesDiary.diabetesDiary.writer.writerId.eq(writerId))
+                .orderBy(QDiabetesDiary.diabetesDiary.writtenTime.asc(), QDiabetesDiary.diabetesDiary.diaryId.asc(),
+                        QDiet.diet.eatTime.asc(), QFood.food.foodId.asc())
+                .setHint(QueryHints.FETCH_SIZE, CURSOR_FETCH_SIZE)
+                .setHint(QueryHints.READ_ONLY, true)
+                .iterate();
+    }
+
+    /*
+     * 식사 시간은 문자열로 저장되어 있어 정렬하면 알파벳 순이 된다. 하루 안의 순서는 식단 id(아침, 점심, 저녁 순으로 만들어진다)로 맞춘다.
+     */
+    @Override
+    public CloseableIterator<Tuple> iterateReadingsOfWriter(Long writerId, List<Predicate> predicates) {
+        return jpaQueryFactory.select(QDiabetesDiary.diabetesDiary.diaryId, QDiabetesDiary.diabetesDiary.writtenTime,
+                        QDiabetesDiary.diabetesDiary.fastingPlasmaGlucose, QDiet.diet.eatTime, QDiet.diet.bloodSugar)
+                .from(QDiabetesDiary.diabetesDiary)
+                .leftJoin(QDiabetesDiary.diabetesDiary.dietList, QDiet.diet)
+                .where(QDiabetesDiary.diabetesDiary.writer.writerId.eq(writerId), ExpressionUtils.allOf(predicates))
+                .orderBy(QDiabetesDiary.diabetesDiary.writtenTime.asc(), QDiabetesDiary.diabetesDiary.diaryId.asc(), QDiet.diet.dietId.asc())
+                .setHint(QueryHints.FETCH_SIZE, CURSOR_FETCH_SIZE)
+                .setHint(QueryHints.READ_ONLY, true)
+                .iterate();
+    }
 }
@@ -8,6 +8,7 @@
 
 package com.dasd412.remake.api.domain.diary.diet;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Predicate;
 
@@ -32,5 +33,27 @@ public interface DietRepositoryCustom {
 
     List<Tuple> findAverageBloodSugarWithWhereClauseGroupByEatTime(Long writerId, List<Predicate> predicates);
 
+    /**
+     * 차트용. 엔티티 대신 필요한 컬럼만 일지 작성 시간 순으로 가져온다.
+     *
+     * @return (일지 id, 일지 작성 시간, 식사 시간, 식사 혈당) 튜플
+     */
+    List<Tuple> findBloodSugarSeriesOfWriter(Long writerId, List<Predicate> predicates);
+
+    /**
+     * 분위수 히스토그램용. 같은 (월, 식사 시간, 식사 혈당) 의 식단 수를 센다. 행 수는 식단 수가 아니라 서로 다른 값의 수만큼이다.
+     *
+     * @return (작성 연도, 작성 월, 식사 시간, 식사 혈당, 개수) 튜플
+     */
+    List<Tuple> findBloodSugarHistogramOfWriter(Long writerId, List<Predicate> predicates);
+
+    /**
+     * 음식 영향 분석용. 식단과 음식을 펼친 행을 식단 id 순으로 하나씩 읽는다. 같은 식단 안에서는 같은 음식이 붙어서 나온다.
+     * 반드시 트랜잭션 안에서 호출하고 다 읽은 뒤 닫아야 한다.
+     *
+     * @return (식단 id, 식사 혈당, 음식 이름) 튜플. 음식이 없는 식단은 음식 이름이 null 인 행 하나
+     */
+    CloseableIterator<Tuple> iterateBloodSugarFoodsOfWriter(Long writerId);
+
     void bulkDeleteDiet(Long dietId);
 }
@@ -10,18 +10,26 @@ package com.dasd412.remake.api.domain.diary.diet;
 
 
 import com.dasd412.remake.api.domain.diary.BulkDeleteHelper;
+import com.dasd412.remake.api.domain.diary.food.QFood;
 import com.dasd412.remake.api.domain.diary.writer.QWriter;
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.Tuple;
 import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import com.dasd412.remake.api.domain.diary.diabetesDiary.QDiabetesDiary;
+import org.hibernate.annotations.QueryHints;
 
 import java.util.List;
 import java.util.Optional;
 
 public class DietRepositoryImpl implements DietRepositoryCustom {
 
+    /**
+     * 분석 커서가 db 에서 한 번에 가져오는 행 수. (DiaryRepositoryImpl 과 같다.)
+     */
+    private static final int CURSOR_FETCH_SIZE = 500;
+
     private final JPAQueryFactory jpaQueryFactory;
 
     public DietRepositoryImpl(JPAQueryFactory jpaQueryFactory) {
@@ -86,6 +94,42 @@ public class DietRepositoryImpl implements DietRepositoryCustom {
                 .fetch();
     }
 
+    @Override
+    public List<Tuple> findBloodSugarSeriesOfWriter(Long writerId, List<Predicate> predicates) {
+        return jpaQueryFactory
+                .select(QDiet.diet.diary.diaryId, QDiet.diet.diary.writtenTime, QDiet.diet.eatTime, QDiet.diet.bloodSugar)
+                .from(QDiet.diet)
+                .where(QDiet.diet.diary.writer.writerId.eq(writerId), ExpressionUtils.allOf(predicates))
+                .orderBy(QDiet.diet.diary.writtenTime.asc(), QDiet.diet.dietId.asc())
+                .fetch();
+    }
+
+    @Override
+    public List<Tuple> findBloodSugarHistogramOfWriter(Long writerId, List<Predicate> predicates) {
+        return jpaQueryFactory
+                .select(QDiet.diet.diary.writtenTime.year(), QDiet.diet.diary.writtenTime.month(), QDiet.diet.eatTime, QDiet.diet.bloodSugar, QDiet.diet.count())
+                .from(QDiet.diet)
+                .where(QDiet.diet.diary.writer.writerId.eq(writerId), ExpressionUtils.allOf(predicates))
+                .groupBy(QDiet.diet.diary.writtenTime.year(), QDiet.diet.diary.writtenTime.month(), QDiet.diet.eatTime, QDiet.diet.bloodSugar)
+                .fetch();
+    }
+
+    /*
+     * 음식 이름은 변환기(FoodNameConverter)를 거쳐 사전의 String 인스턴스로 오므로, 같은 이름이 여러 행에 나와도 힙에는 한 번만 올라간다.
+     * 음식 이름 컬럼에는 사전 id 가 저장되어 있어서, 이름으로 정렬하면 id 순이 되어 같은 음식이 붙어서 나온다.
+     */
+    @Override
+    public CloseableIterator<Tuple> iterateBloodSugarFoodsOfWriter(Long writerId) {
+        return jpaQueryFactory.select(QDiet.diet.dietId, QDiet.diet.bloodSugar, QFood.food.foodName)
+                .from(QDiet.diet)
+                .leftJoin(QDiet.diet.foodList, QFood.food)
+                .where(QDiet.diet.diary.writer.writerId.eq(writerId))
+                .orderBy(QDiet.diet.dietId.asc(), QFood.food.foodName.asc())
+                .setHint(QueryHints.FETCH_SIZE, CURSOR_FETCH_SIZE)
+                .setHint(QueryHints.READ_ONLY, true)
+                .iterate();
+    }
+
     @Override
     public void bulkDeleteDiet(Long dietId) {
         BulkDeleteHelper deleteHelper = new BulkDeleteHelper(jpaQueryFactory);
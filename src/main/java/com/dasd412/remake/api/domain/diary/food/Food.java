@@ -18,6 +18,7 @@ import javax.persistence.*;
 import java.util.Objects;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 @Entity
 @Table(name = "Food", uniqueConstraints = @UniqueConstraint(columnNames = {"food_id"}))
@@ -40,6 +41,18 @@ public class Food {
     })
     private Diet diet;
 
+    /**
+     * 음식 이름 사전(FoodName)의 id. db 에는 이 값이 저장된다.
+     * 사전 id 가 정해진 FoodName 으로만 음식을 만들거나 고칠 수 있으므로, 이름을 사전에 넣지 않은 채로 저장하는 일은 컴파일되지 않는다.
+     */
+    @Column(name = "food_name_id")
+    private Integer foodNameId;
+
+    /**
+     * 같은 컬럼을 읽기 전용으로 한 번 더 매핑한 것. 조회할 때 변환기(FoodNameConverter)가 사전의 String 인스턴스로 바꿔 주므로, 같은 이름은 같은 인스턴스를 공유한다.
+     */
+    @Convert(converter = FoodNameConverter.class)
+    @Column(name = "food_name_id", insertable = false, updatable = false)
     private String foodName;
 
     private double amount;
@@ -51,20 +64,21 @@ public class Food {
     public Food() {
     }
 
-    public Food(EntityId<Food, Long> foodEntityId, Diet diet, String foodName) {
+    public Food(EntityId<Food, Long> foodEntityId, Diet diet, FoodName foodName) {
         this(foodEntityId, diet, foodName, 0);
     }
 
-    public Food(EntityId<Food, Long> foodEntityId, Diet diet, String foodName, double amount) {
+    public Food(EntityId<Food, Long> foodEntityId, Diet diet, FoodName foodName, double amount) {
         this(foodEntityId, diet, foodName, amount, AmountUnit.NONE);
     }
 
-    public Food(EntityId<Food, Long> foodEntityId, Diet diet, String foodName, double amount, AmountUnit amountUnit) {
-        checkArgument(foodName.length() > 0 && foodName.length() <= 50, "food name length should be between 1 and 50");
+    public Food(EntityId<Food, Long> foodEntityId, Diet diet, FoodName foodName, double amount, AmountUnit amountUnit) {
+        checkNotNull(foodName.getId(), "food name must be in the dictionary");
         checkArgument(amount >= 0, "amount must be positive.");
         this.foodId = foodEntityId.getId();
         this.diet = diet;
-        this.foodName = foodName;
+        this.foodNameId = foodName.getId();
+        this.foodName = foodName.getName();
         this.amount = amount;
         if (amountUnit == null) {
             this.amountUnit = AmountUnit.NONE;
@@ -89,9 +103,10 @@ public class Food {
         return amountUnit;
     }
 
-    private void modifyFoodName(String foodName) {
-        checkArgument(foodName.length() > 0 && foodName.length() <= 50, "food name length should be between 1 and 50");
-        this.foodName = foodName;
+    private void modifyFoodName(FoodName foodName) {
+        checkNotNull(foodName.getId(), "food name must be in the dictionary");
+        this.foodNameId = foodName.getId();
+        this.foodName = foodName.getName();
     }
 
     private void modifyAmount(double amount) {
@@ -152,11 +167,11 @@ public class Food {
         return Objects.equals(this.foodId, target.foodId) && Objects.equals(this.diet, target.diet);
     }
 
-    public void update(String foodName) {
+    public void update(FoodName foodName) {
         modifyFoodName(foodName);
     }
 
-    public void update(String foodName, double amount, AmountUnit amountUnit) {
+    public void update(FoodName foodName, double amount, AmountUnit amountUnit) {
         modifyFoodName(foodName);
         modifyAmount(amount);
         modifyAmountUnit(amountUnit);
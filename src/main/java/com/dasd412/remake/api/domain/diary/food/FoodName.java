@@ -0,0 +1,98 @@
+/*
+ * @(#)FoodName.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.domain.diary.food;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import javax.persistence.*;
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * 음식 이름 사전. 음식(Food) 테이블은 이름 대신 이 테이블의 id 를 저장한다. (FoodNameConverter)
+ * 한 번 만들어진 이름은 바뀌거나 지워지지 않는다.
+ */
+@Entity
+@Table(name = "FoodName", uniqueConstraints = @UniqueConstraint(name = "uk_food_name_name", columnNames = {"name"}))
+public class FoodName {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "food_name_id")
+    private Integer foodNameId;
+
+    @Column(name = "name", nullable = false, length = 50)
+    private String name;
+
+    public FoodName() {
+    }
+
+    /**
+     * 사전에 새로 넣을 이름. id 는 persist 할 때 정해진다. 사전(FoodNameDictionary)만 쓴다.
+     */
+    FoodName(String name) {
+        checkName(name);
+        this.name = name;
+    }
+
+    /**
+     * 이미 사전에 있는 이름. 음식(Food)은 이렇게 id 가 정해진 이름으로만 만들 수 있다.
+     * 서비스는 FoodNameDictionary.resolve()가 돌려준 것을 쓴다.
+     */
+    public FoodName(Integer foodNameId, String name) {
+        checkNotNull(foodNameId, "food name id must be provided");
+        checkName(name);
+        this.foodNameId = foodNameId;
+        this.name = name;
+    }
+
+    static void checkName(String name) {
+        checkArgument(name.length() > 0 && name.length() <= 50, "food name length should be between 1 and 50");
+    }
+
+    static boolean isValidName(String name) {
+        return name != null && name.length() > 0 && name.length() <= 50;
+    }
+
+    public Integer getId() {
+        return foodNameId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("id", foodNameId)
+                .append("name", name)
+                .toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        FoodName target = (FoodName) obj;
+        return Objects.equals(this.name, target.name);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * @(#)FoodNameConverter.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.domain.diary.food;
+
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.AttributeConverter;
+
+/**
+ * 음식 이름 <-> 음식 이름 사전 id 변환기. 엔티티와 쿼리에서는 지금처럼 문자열로 다루고, db 에는 정수 id 만 저장한다.
+ * Hibernate 5.3 부터는 변환기도 스프링 빈으로 만들어지므로 사전을 주입받을 수 있다.
+ * 변환기는 EntityManagerFactory 를 만드는 도중에 생성되므로, EntityManagerFactory 가 필요한 사전은 지연(@Lazy) 주입한다.
+ * 음식 엔티티는 사전 id 컬럼(foodNameId)으로 저장하고 이 변환기는 읽기 전용 매핑에만 붙어 있으므로, 결과를 읽을 때와 쿼리 파라미터에만 불리고 사전을 조회만 한다.
+ */
+@Component
+public class FoodNameConverter implements AttributeConverter<String, Integer> {
+
+    private final FoodNameDictionary foodNameDictionary;
+
+    public FoodNameConverter(@Lazy FoodNameDictionary foodNameDictionary) {
+        this.foodNameDictionary = foodNameDictionary;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String foodName) {
+        return foodName == null ? null : foodNameDictionary.idOf(foodName);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer foodNameId) {
+        return foodNameId == null ? null : foodNameDictionary.nameOf(foodNameId);
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * @(#)FoodNameDictionary.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.domain.diary.food;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.FlushModeType;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 음식 이름 사전의 인스턴스 내 캐시. (이름 => id), (id => 이름) 양방향으로 들고 있다.
+ * id => 이름 쪽 값은 이름 당 하나의 String 인스턴스만 쓰이므로(intern), 음식 엔티티나 게시판 dto 가 같은 이름을 여러 번 들고 있어도 힙에는 한 번만 올라간다.
+ * <p>
+ * 음식 엔티티는 id 가 정해진 FoodName 으로만 만들 수 있으므로, 음식을 저장하는 쪽은 resolve()가 돌려준 ResolvedFoodNames 에서 FoodName 을 꺼내 쓴다.
+ * 사전에 없는 이름은 한 번의 select 로 찾고, 그래도 없으면 호출한 쪽의 트랜잭션 안에서 넣는다.
+ * 새로 넣은 이름은 커밋된 뒤에야 캐시에 올린다. 그 전까지는 트랜잭션에 묶인 맵에서만 보이므로, 롤백되어도 캐시의 id 가 db 와 어긋나지 않는다.
+ * 다른 트랜잭션이 같은 이름을 먼저 넣었다면 유니크 제약에 걸려 트랜잭션 전체가 롤백된다. (식별자가 겹칠 때와 같다.)
+ * 변환기(FoodNameConverter)는 결과를 읽을 때(와 쿼리 파라미터에)만 쓰이고 조회만 한다. 이번 트랜잭션에서 넣은 이름도 읽을 수 있도록 트랜잭션의 맵을 같이 본다.
+ */
+@Component
+public class FoodNameDictionary {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * 캐시에 들고 있는 최대 이름 수. 이름 하나 당 100 바이트 정도다.
+     */
+    private static final int MAXIMUM_SIZE = 200_000;
+
+    /**
+     * in 절 하나에 넣는 최대 이름 수
+     */
+    private static final int MAX_IN_CLAUSE = 1_000;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * resolve()가 호출한 쪽의 트랜잭션에 참여하기 위해 쓴다.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Cache<String, Integer> idOfName = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .build();
+
+    private final Cache<Integer, String> nameOfId = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .build();
+
+    public FoodNameDictionary(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * 어플리케이션 시작 직후 사전을 한 번 읽어 두어서, 요청 처리 중에 캐시를 놓치는 일이 거의 없게 한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            List<FoodName> names = new JPAQueryFactory(entityManager).selectFrom(QFoodName.foodName)
+                    .limit(MAXIMUM_SIZE)
+                    .fetch();
+            names.forEach(this::put);
+            logger.info("food name dictionary loaded. size : " + names.size());
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /**
+     * 이름들의 사전 id 를 이 트랜잭션 안에서 정해서 FoodName 으로 돌려준다. 음식 엔티티는 여기서 꺼낸 FoodName 으로 만든다.
+     * 캐시에 없는 이름은 한 번에 select 하고(in 절), 그래도 없는 이름만 insert 한다. 호출한 쪽의 트랜잭션이 없으면 새로 시작한다.
+     * null 이거나 길이가 맞지 않는 이름은 건너뛴다. 그런 이름은 ResolvedFoodNames.get()이 FoodName 을 만들 때와 같은 예외를 던진다.
+     * (주의) id 를 바로 얻기 위해 insert 가 곧바로 나가므로, 이미 persist 한 음식이 있으면 그 insert 도 같이 나간다.
+     */
+    @Transactional
+    public ResolvedFoodNames resolve(Collection<String> names) {
+        Resolved resolved = resolvedOfTransaction();
+
+        Map<String, FoodName> result = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String name : names) {
+            if (!FoodName.isValidName(name) || result.containsKey(name)) {
+                continue;
+            }
+            Integer id = resolved.idOfName.get(name);
+            if (id == null) {
+                id = idOfName.getIfPresent(name);
+            }
+            if (id != null) {
+                /* 읽는 도중에 캐시에서 밀려나도 찾을 수 있게 트랜잭션의 맵에도 넣는다. */
+                resolved.put(name, id);
+                result.put(name, new FoodName(id, name));
+            } else {
+                missing.add(name);
+            }
+        }
+        if (missing.isEmpty()) {
+            return new ResolvedFoodNames(result);
+        }
+
+        for (List<String> partition : Lists.partition(new ArrayList<>(missing), MAX_IN_CLAUSE)) {
+            /* 음식 엔티티의 flush 를 일으키지 않도록 이 조회에서는 자동 flush 하지 않는다. */
+            List<FoodName> found = new JPAQueryFactory(entityManager).selectFrom(QFoodName.foodName)
+                    .where(QFoodName.foodName.name.in(partition))
+                    .setFlushMode(FlushModeType.COMMIT)
+                    .fetch();
+            for (FoodName foodName : found) {
+                /* 이미 커밋된 이름이므로 캐시에 바로 올린다. */
+                put(foodName);
+                resolved.put(foodName.getName(), foodName.getId());
+                result.put(foodName.getName(), foodName);
+                missing.remove(foodName.getName());
+            }
+        }
+
+        for (String name : missing) {
+            FoodName created = new FoodName(name);
+            entityManager.persist(created);
+            resolved.put(name, created.getId());
+            resolved.created.add(created);
+            result.put(name, created);
+        }
+        if (!missing.isEmpty()) {
+            logger.info("food names created : " + missing.size());
+        }
+        return new ResolvedFoodNames(result);
+    }
+
+    /**
+     * 쿼리 파라미터로 음식 이름을 넘길 때 변환기가 부른다.
+     *
+     * @return 이름의 사전 id. 사전에 없는 이름이면 IllegalStateException
+     */
+    public Integer idOf(String name) {
+        Integer id = idOfName.getIfPresent(name);
+        if (id != null) {
+            return id;
+        }
+        Resolved resolved = resolvedOfTransactionIfPresent();
+        if (resolved != null && resolved.idOfName.containsKey(name)) {
+            return resolved.idOfName.get(name);
+        }
+        throw new IllegalStateException("food name is not resolved. name : " + name);
+    }
+
+    /**
+     * @return id 에 해당하는 이름. 같은 이름이면 항상 같은 String 인스턴스를 돌려준다.
+     * 다른 인스턴스에서 넣은 이름이라 캐시에 없으면 별도의 EntityManager 로 읽는다. (조회만 하고 트랜잭션은 열지 않는다.)
+     */
+    public String nameOf(Integer id) {
+        String name = nameOfId.getIfPresent(id);
+        if (name != null) {
+            return name;
+        }
+        Resolved resolved = resolvedOfTransactionIfPresent();
+        if (resolved != null && resolved.nameOfId.containsKey(id)) {
+            return resolved.nameOfId.get(id);
+        }
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            FoodName found = entityManager.find(FoodName.class, id);
+            if (found == null) {
+                throw new IllegalStateException("food name does not exist. id : " + id);
+            }
+            put(found);
+        } finally {
+            entityManager.close();
+        }
+        return nameOfId.getIfPresent(id);
+    }
+
+    private FoodName put(FoodName foodName) {
+        String canonical = nameOfId.asMap().putIfAbsent(foodName.getId(), foodName.getName());
+        idOfName.put(canonical == null ? foodName.getName() : canonical, foodName.getId());
+        return foodName;
+    }
+
+    /**
+     * 트랜잭션에 묶인 맵을 얻는다. 처음 부를 때 만들어서 묶고, 커밋되면 새로 넣은 이름을 캐시에 올린 뒤 풀어준다.
+     */
+    private Resolved resolvedOfTransaction() {
+        Resolved resolved = resolvedOfTransactionIfPresent();
+        if (resolved != null) {
+            return resolved;
+        }
+
+        Resolved created = new Resolved();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                created.created.forEach(FoodNameDictionary.this::put);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(FoodNameDictionary.this);
+            }
+        });
+        return created;
+    }
+
+    private Resolved resolvedOfTransactionIfPresent() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        return (Resolved) TransactionSynchronizationManager.getResource(this);
+    }
+
+    /**
+     * 한 트랜잭션에서 resolve()로 정한 (이름, id). 새로 넣은 이름은 커밋 전까지 여기에만 있다.
+     */
+    private static final class Resolved {
+
+        private final Map<String, Integer> idOfName = new HashMap<>();
+
+        private final Map<Integer, String> nameOfId = new HashMap<>();
+
+        private final List<FoodName> created = new ArrayList<>();
+
+        private void put(String name, Integer id) {
+            idOfName.put(name, id);
+            nameOfId.put(id, name);
+        }
+    }
+}
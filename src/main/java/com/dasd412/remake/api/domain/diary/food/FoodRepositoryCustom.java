@@ -9,6 +9,7 @@
 package com.dasd412.remake.api.domain.diary.food;
 
 import com.dasd412.remake.api.controller.security.domain_rest.dto.chart.FoodBoardDTO;
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Predicate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -29,6 +30,20 @@ public interface FoodRepositoryCustom {
 
     List<String> findFoodNamesInDietWithWhereClause(Long writerId, List<Predicate> predicates);
 
+    /**
+     * 음식 이름 자동 완성 색인용.
+     *
+     * @return (음식 이름, 해당 이름으로 기록된 횟수) 튜플
+     */
+    List<Tuple> findFoodNameCountsOfWriter(Long writerId);
+
+    /**
+     * 클라이언트가 보낸 음식 id 를 지우기 전에 소유권을 확인하기 위해 쓴다.
+     *
+     * @return foodIds 중 작성자의 diaryIds 일지에 있는 식단의 음식 id
+     */
+    List<Long> findFoodIdsInDiariesOfWriter(Long writerId, List<Long> diaryIds, List<Long> foodIds);
+
     void bulkDeleteFood(List<Long> foodIds);
 
     Page<FoodBoardDTO> findFoodsWithPaginationAndWhereClause(Long writerId, List<Predicate> predicates, Pageable pageable);
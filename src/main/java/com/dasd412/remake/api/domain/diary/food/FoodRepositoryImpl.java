@@ -75,6 +75,28 @@ public class FoodRepositoryImpl implements FoodRepositoryCustom {
                 .fetch();
     }
 
+    @Override
+    public List<Tuple> findFoodNameCountsOfWriter(Long writerId) {
+        return jpaQueryFactory.select(QFood.food.foodName, QFood.food.foodName.count())
+                .from(QFood.food)
+                .innerJoin(QFood.food.diet, QDiet.diet)
+                .on(QDiet.diet.diary.writer.writerId.eq(writerId))
+                .groupBy(QFood.food.foodName)
+                .fetch();
+    }
+
+    @Override
+    public List<Long> findFoodIdsInDiariesOfWriter(Long writerId, List<Long> diaryIds, List<Long> foodIds) {
+        return jpaQueryFactory.select(QFood.food.foodId)
+                .from(QFood.food)
+                .innerJoin(QFood.food.diet, QDiet.diet)
+                .innerJoin(QDiet.diet.diary, QDiabetesDiary.diabetesDiary)
+                .where(QDiabetesDiary.diabetesDiary.writer.writerId.eq(writerId)
+                        .and(QDiabetesDiary.diabetesDiary.diaryId.in(diaryIds))
+                        .and(QFood.food.foodId.in(foodIds)))
+                .fetch();
+    }
+
     @Override
     public void bulkDeleteFood(List<Long> foodIds) {
         jpaQueryFactory.delete(QFood.food)
@@ -99,8 +121,10 @@ public class FoodRepositoryImpl implements FoodRepositoryCustom {
                 .innerJoin(QFood.food.diet, QDiet.diet)
                 .innerJoin(QFood.food.diet.diary, QDiabetesDiary.diabetesDiary)
                 .on(QDiet.diet.diary.writer.writerId.eq(writerId))
+                /* 음식 컬럼에는 사전 id 가 저장되므로, 이름 순으로 정렬하려면 사전을 조인해야 한다. */
+                .innerJoin(QFoodName.foodName).on(QFoodName.foodName.foodNameId.eq(QFood.food.foodNameId))
                 .where(ExpressionUtils.allOf(predicates))
-                .orderBy(QDiet.diet.bloodSugar.desc(), QDiabetesDiary.diabetesDiary.writtenTime.desc(), QFood.food.foodName.asc())
+                .orderBy(QDiet.diet.bloodSugar.desc(), QDiabetesDiary.diabetesDiary.writtenTime.desc(), QFoodName.foodName.name.asc())
                 .offset(pageable.getOffset()) /* offset = page * size */
                 .limit(pageable.getPageSize())
                 .fetch();
@@ -0,0 +1,37 @@
+/*
+ * @(#)ResolvedFoodNames.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.domain.diary.food;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * FoodNameDictionary.resolve()가 돌려주는 (이름, 사전 id 가 정해진 FoodName). 음식 엔티티는 여기서 꺼낸 FoodName 으로만 만들 수 있다.
+ */
+public final class ResolvedFoodNames {
+
+    private final Map<String, FoodName> foodNames;
+
+    ResolvedFoodNames(Map<String, FoodName> foodNames) {
+        this.foodNames = Collections.unmodifiableMap(foodNames);
+    }
+
+    /**
+     * @return 이름에 해당하는 FoodName.
+     * 이름이 null 이거나 길이가 맞지 않으면 FoodName 을 만들 때와 같은 예외를, resolve()에 넘기지 않은 이름이면 IllegalStateException 을 던진다.
+     */
+    public FoodName get(String name) {
+        FoodName foodName = foodNames.get(name);
+        if (foodName != null) {
+            return foodName;
+        }
+        FoodName.checkName(name);
+        throw new IllegalStateException("food name is not resolved. name : " + name);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * @(#)IdCounter.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.domain.diary.idCounter;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import javax.persistence.*;
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * 복합키 엔티티(일지, 식단, 음식)의 식별자 카운터. 테이블 당 한 행이며, 아직 배정하지 않은 가장 작은 식별자를 들고 있다.
+ * 복합키에는 @GeneratedValue 를 쓸 수 없어서 max + 1 로 식별자를 정해 왔는데, 그 방식은 동시에 저장하는 트랜잭션끼리 같은 값을 얻는다.
+ * 행을 잠근 채로 값을 늘리고 바로 커밋하므로, 한 번 배정된 구간은 다른 트랜잭션에 다시 나가지 않는다.
+ */
+@Entity
+@Table(name = "IdCounter")
+public class IdCounter {
+
+    @Id
+    @Column(name = "name", length = 32)
+    private String name;
+
+    @Column(name = "next_id", nullable = false)
+    private long nextId;
+
+    public IdCounter() {
+    }
+
+    public IdCounter(String name) {
+        this.name = checkNotNull(name, "name must be provided");
+        this.nextId = 1L;
+    }
+
+    /**
+     * count 개의 연속된 식별자를 배정한다.
+     * 카운터를 쓰기 전에 max + 1 로 저장된 행이 있을 수 있으므로, 테이블의 최댓값보다 뒤에서부터 배정한다.
+     *
+     * @param maxIdOfTable 테이블의 식별자 최댓값. 비어 있으면 null
+     * @return 배정한 구간의 첫 식별자
+     */
+    public long reserve(Long maxIdOfTable, int count) {
+        checkArgument(count > 0, "count must be positive");
+        long first = Math.max(nextId, (maxIdOfTable == null ? 0L : maxIdOfTable) + 1);
+        this.nextId = first + count;
+        return first;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getNextId() {
+        return nextId;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("name", name)
+                .append("nextId", nextId)
+                .toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        IdCounter target = (IdCounter) obj;
+        return Objects.equals(this.name, target.name);
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * @(#)IdCounterRepository.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.domain.diary.idCounter;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface IdCounterRepository extends JpaRepository<IdCounter, String> {
+
+    /**
+     * select ... for update. 트랜잭션이 끝날 때까지 다른 트랜잭션은 같은 카운터를 읽지 못하고 기다린다.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<IdCounter> findByName(String name);
+}
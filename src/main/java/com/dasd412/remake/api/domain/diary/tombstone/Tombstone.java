@@ -0,0 +1,78 @@
+/*
+ * @(#)Tombstone.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.domain.diary.tombstone;
+
+import lombok.Getter;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 일지 삭제 기록. 벌크 삭제는 행을 흔적 없이 지우므로, 변경 내역 조회(/api/diary/user/changes)가 삭제를 알려줄 수 있도록 남긴다.
+ * 식단, 음식의 변경과 삭제는 일지의 updatedAt 을 갱신하는 것으로 대신하므로 일지 단위로만 남긴다.
+ * 작성자, 일지와 연관 관계를 맺지 않는다. (가리키는 대상이 이미 지워졌으므로 id 값만 보관한다.)
+ */
+@Entity
+@Getter
+@Table(name = "Tombstone", indexes = @Index(name = "idx_tombstone_writer_deleted", columnList = "writer_id, deleted_at"))
+public class Tombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "tombstone_id")
+    private Long tombstoneId;
+
+    @Column(name = "writer_id", nullable = false)
+    private Long writerId;
+
+    @Column(name = "diary_id", nullable = false)
+    private Long diaryId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    public Tombstone() {
+    }
+
+    public Tombstone(Long writerId, Long diaryId, LocalDateTime deletedAt) {
+        this.writerId = writerId;
+        this.diaryId = diaryId;
+        this.deletedAt = deletedAt;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("tombstoneId", tombstoneId)
+                .append("writerId", writerId)
+                .append("diaryId", diaryId)
+                .append("deletedAt", deletedAt)
+                .toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tombstoneId);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        Tombstone target = (Tombstone) obj;
+        return Objects.equals(this.tombstoneId, target.tombstoneId);
+    }
+}
@@ -0,0 +1,16 @@
+/*
+ * @(#)TombstoneRepository.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.domain.diary.tombstone;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long>, TombstoneRepositoryCustom {
+}
@@ -0,0 +1,20 @@
+/*
+ * @(#)TombstoneRepositoryCustom.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.domain.diary.tombstone;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TombstoneRepositoryCustom {
+
+    /**
+     * @return since 이후(미포함) until 까지(포함) 지워진 일지 id (중복 제거)
+     */
+    List<Long> findDiaryIdsDeletedBetween(Long writerId, LocalDateTime since, LocalDateTime until);
+}
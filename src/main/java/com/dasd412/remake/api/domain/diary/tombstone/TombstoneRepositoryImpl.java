@@ -0,0 +1,37 @@
+/*
+ * @(#)TombstoneRepositoryImpl.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.domain.diary.tombstone;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class TombstoneRepositoryImpl implements TombstoneRepositoryCustom {
+
+    private final JPAQueryFactory jpaQueryFactory;
+
+    public TombstoneRepositoryImpl(JPAQueryFactory jpaQueryFactory) {
+        this.jpaQueryFactory = jpaQueryFactory;
+    }
+
+    /**
+     * (writer_id, deleted_at) 인덱스를 탄다.
+     */
+    @Override
+    public List<Long> findDiaryIdsDeletedBetween(Long writerId, LocalDateTime since, LocalDateTime until) {
+        return jpaQueryFactory.select(QTombstone.tombstone.diaryId)
+                .from(QTombstone.tombstone)
+                .where(QTombstone.tombstone.writerId.eq(writerId)
+                        .and(QTombstone.tombstone.deletedAt.gt(since))
+                        .and(QTombstone.tombstone.deletedAt.loe(until)))
+                .distinct()
+                .fetch();
+    }
+}
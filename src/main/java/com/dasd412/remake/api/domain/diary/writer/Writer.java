@@ -23,7 +23,11 @@ import org.apache.commons.lang3.builder.ToStringStyle;
 import static com.google.common.base.Preconditions.checkArgument;
 
 @Entity
-@Table(name = "Writer", uniqueConstraints = @UniqueConstraint(columnNames = {"writer_id", "name"}))
+@Table(name = "Writer", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"writer_id", "name"}),
+        /* OAuth 로그인 시 provider 식별자로 작성자를 찾는다. Form Login 작성자는 둘 다 null 이므로 제약에 걸리지 않는다. */
+        @UniqueConstraint(name = "uk_writer_provider", columnNames = {"provider", "provider_id"})
+})
 public class Writer extends BaseTimeEntity {
 
     @Id
@@ -56,8 +60,16 @@ public class Writer extends BaseTimeEntity {
     /**
      * OAuth provider의 id
      */
+    @Column(name = "provider_id")
     private String providerId;
 
+    /**
+     * 작성자의 일지, 식단, 음식이 바뀔 때마다 1씩 커지는 값. 조회 응답의 ETag 를 만드는 데 쓰인다.
+     * 벌크 update(WriterRepository.increaseDataVersion())로만 올리므로, 엔티티 변경 감지로 예전 값을 덮어쓰지 않도록 updatable = false 로 둔다.
+     */
+    @Column(name = "data_version", columnDefinition = "bigint default 0", nullable = false, updatable = false)
+    private long dataVersion;
+
     @OneToMany(mappedBy = "writer", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private final Set<DiabetesDiary> diaries = new HashSet<>();
 
@@ -132,6 +144,10 @@ public class Writer extends BaseTimeEntity {
         return providerId;
     }
 
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
     public void setProfile(Profile profile) {
         this.profile = profile;
     }
@@ -9,6 +9,7 @@
 package com.dasd412.remake.api.domain.diary.writer;
 
 import com.dasd412.remake.api.domain.diary.profile.Profile;
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.Tuple;
 
 import java.util.Optional;
@@ -24,10 +25,20 @@ public interface WriterRepositoryCustom {
 
     Optional<Writer> findWriterByName(String name);
 
+    /**
+     * (provider, providerId) 유니크 인덱스를 타는 OAuth 작성자 조회.
+     */
+    Optional<Writer> findWriterByProvider(String provider, String providerId);
+
     Boolean existsName(String name);
 
     Boolean existsEmail(String email, String provider);
 
+    /**
+     * @return (이름, 이메일, provider) 튜플을 앞에서부터 한 건씩 읽는 커서. 사용 후 반드시 close() 해야 한다.
+     */
+    CloseableIterator<Tuple> iterateNameAndEmail();
+
     Optional<Profile> findProfile(Long writerId);
 
     Tuple findUserInfoByEmail(String email);
@@ -41,4 +52,16 @@ public interface WriterRepositoryCustom {
      */
     void updatePassword(Long writerId, String encodePassword);
 
+    /**
+     * 작성자의 데이터 버전을 1 올린다. 일지, 식단, 음식을 바꾸는 트랜잭션 안에서 호출해야 한다.
+     *
+     * @return 올린 뒤의 버전. 이 트랜잭션이 작성자 행을 잠그고 있으므로 다른 변경의 버전과 겹치지 않는다.
+     */
+    long increaseDataVersion(Long writerId);
+
+    /**
+     * @return 작성자의 데이터 버전. 작성자가 없으면 null
+     */
+    Long findDataVersion(Long writerId);
+
 }
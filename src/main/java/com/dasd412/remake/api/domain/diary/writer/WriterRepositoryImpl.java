@@ -10,9 +10,11 @@ package com.dasd412.remake.api.domain.diary.writer;
 
 import com.dasd412.remake.api.domain.diary.BulkDeleteHelper;
 import com.dasd412.remake.api.domain.diary.profile.Profile;
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.Tuple;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 
+import java.util.Objects;
 import java.util.Optional;
 
 public class WriterRepositoryImpl implements WriterRepositoryCustom {
@@ -42,6 +44,13 @@ public class WriterRepositoryImpl implements WriterRepositoryCustom {
         return Optional.ofNullable(jpaQueryFactory.selectFrom(QWriter.writer).where(QWriter.writer.name.eq(name)).fetchOne());
     }
 
+    @Override
+    public Optional<Writer> findWriterByProvider(String provider, String providerId) {
+        return Optional.ofNullable(jpaQueryFactory.selectFrom(QWriter.writer)
+                .where(QWriter.writer.provider.eq(provider).and(QWriter.writer.providerId.eq(providerId)))
+                .fetchOne());
+    }
+
     /*
      * querydsl 에선 exists 사용시 count()를 사용하므로 총 몇건인 지 확인하기 위해 전체를 확인하는 추가 작업이 필요하다.
      * 따라서 Querydsl 이 기본적으로 제공하는 exists 는 성능 상 좋지 않다.
@@ -82,6 +91,17 @@ public class WriterRepositoryImpl implements WriterRepositoryCustom {
         return fetchFirst != null;
     }
 
+    /*
+     * fetch()는 결과 전체를 리스트로 만들지만, iterate()는 hibernate 의 ScrollableResults(FORWARD_ONLY)를 사용하므로
+     * 작성자 수가 많아져도 한 번에 한 행만 힙에 올라온다. 엔티티가 아니라 컬럼만 select 하므로 영속성 컨텍스트에도 쌓이지 않는다.
+     */
+    @Override
+    public CloseableIterator<Tuple> iterateNameAndEmail() {
+        return jpaQueryFactory.select(QWriter.writer.name, QWriter.writer.email, QWriter.writer.provider)
+                .from(QWriter.writer)
+                .iterate();
+    }
+
     /**
      * 이 메서드의 sql을 분석해보면, 알아서 inner join 해준다.
      */
@@ -134,4 +154,24 @@ public class WriterRepositoryImpl implements WriterRepositoryCustom {
                 .where(QWriter.writer.writerId.eq(writerId))
                 .execute();
     }
+
+    @Override
+    public long increaseDataVersion(Long writerId) {
+        jpaQueryFactory.update(QWriter.writer)
+                .set(QWriter.writer.dataVersion, QWriter.writer.dataVersion.add(1L))
+                .where(QWriter.writer.writerId.eq(writerId))
+                .execute();
+        return Objects.requireNonNull(findDataVersion(writerId), "writer must exist");
+    }
+
+    /**
+     * 기본 키로 컬럼 하나만 읽으므로 엔티티를 영속성 컨텍스트에 올리지 않는다.
+     */
+    @Override
+    public Long findDataVersion(Long writerId) {
+        return jpaQueryFactory.select(QWriter.writer.dataVersion)
+                .from(QWriter.writer)
+                .where(QWriter.writer.writerId.eq(writerId))
+                .fetchOne();
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * @(#)AsyncChartService.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.domain.diary.EntityId;
+import com.dasd412.remake.api.domain.diary.writer.Writer;
+import com.dasd412.remake.api.service.domain.vo.BloodSugarAverages;
+import com.dasd412.remake.api.service.domain.vo.FromStartUntilEnd;
+import com.querydsl.core.Tuple;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * 서로 독립적인 차트 조회 쿼리를 전용 스레드 풀에서 동시에 실행한다. 응답 시간이 세 쿼리의 합이 아니라 가장 느린 쿼리 하나에 가까워진다.
+ * 각 쿼리는 FindDiaryService 의 프록시를 거치므로 스레드마다 별도의 readOnly 트랜잭션(복제본이 있으면 복제본 커넥션)에서 실행된다.
+ * 스레드 하나가 커넥션 하나를 잡으므로 diary.chart.executor.pool-size 는 커넥션 풀 크기보다 작게 잡아야 쓰기 요청이 커넥션을 기다리지 않는다.
+ * (주의) 작업 스레드에서 실행된 sql 은 SqlStatisticsFilter 의 요청 단위 집계에 들어가지 않는다.
+ */
+@Service
+public class AsyncChartService {
+
+    private final FindDiaryService findDiaryService;
+
+    private final ThreadPoolTaskExecutor executor;
+
+    /**
+     * 풀과 큐가 가득 차면 요청 스레드가 직접 실행한다. (CallerRunsPolicy) 거절하는 대신 예전처럼 순차 실행으로 느려질 뿐이다.
+     * 스프링 부트의 applicationTaskExecutor 를 대신하지 않도록 빈으로 등록하지 않고 이 서비스가 직접 들고 있는다.
+     */
+    public AsyncChartService(FindDiaryService findDiaryService,
+                             @Value("${diary.chart.executor.pool-size:8}") int poolSize,
+                             @Value("${diary.chart.executor.queue-capacity:100}") int queueCapacity) {
+        this.findDiaryService = findDiaryService;
+
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("chart-query-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(this::propagateRequestAttributes);
+        executor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * @return 평균 공복 혈당, 식사 시간 별 평균 혈당, 전체 식사 평균 혈당
+     */
+    public CompletableFuture<BloodSugarAverages> getAverages(EntityId<Writer, Long> writerEntityId) {
+        checkNotNull(writerEntityId, "writerId must be provided");
+
+        CompletableFuture<Double> averageFpg = supply(() -> findDiaryService.getAverageFpg(writerEntityId));
+        CompletableFuture<List<Tuple>> averageGroupByEatTime = supply(() -> findDiaryService.getAverageBloodSugarWithWhereClauseGroupByEatTime(writerEntityId));
+        CompletableFuture<Double> averageBloodSugar = supply(() -> findDiaryService.getAverageBloodSugarOfDietWithWhereClause(writerEntityId));
+
+        return combine(averageFpg, averageGroupByEatTime, averageBloodSugar);
+    }
+
+    /**
+     * @return 기간 내 평균 공복 혈당, 식사 시간 별 평균 혈당, 전체 식사 평균 혈당
+     */
+    public CompletableFuture<BloodSugarAverages> getAveragesBetween(EntityId<Writer, Long> writerEntityId, FromStartUntilEnd startUntilEnd) {
+        checkNotNull(writerEntityId, "writerId must be provided");
+        checkNotNull(startUntilEnd, "startUntilEnd must be provided");
+
+        CompletableFuture<Double> averageFpg = supply(() -> findDiaryService.getAverageFpgBetween(writerEntityId, startUntilEnd));
+        CompletableFuture<List<Tuple>> averageGroupByEatTime = supply(() -> findDiaryService.getAverageBloodSugarGroupByEatTimeBetweenTime(writerEntityId, startUntilEnd));
+        CompletableFuture<Double> averageBloodSugar = supply(() -> findDiaryService.getAverageBloodSugarOfDietBetweenTime(writerEntityId, startUntilEnd));
+
+        return combine(averageFpg, averageGroupByEatTime, averageBloodSugar);
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, executor);
+    }
+
+    /**
+     * 하나라도 실패하면 결과도 실패한다. 결과를 cancel 하면 (타임아웃 등) 아직 시작하지 않은 쿼리는 실행되지 않는다.
+     */
+    private CompletableFuture<BloodSugarAverages> combine(CompletableFuture<Double> averageFpg,
+                                                          CompletableFuture<List<Tuple>> averageGroupByEatTime,
+                                                          CompletableFuture<Double> averageBloodSugar) {
+        CompletableFuture<BloodSugarAverages> result = CompletableFuture.allOf(averageFpg, averageGroupByEatTime, averageBloodSugar)
+                .thenApply(ignored -> new BloodSugarAverages(averageFpg.join(), averageGroupByEatTime.join(), averageBloodSugar.join()));
+
+        result.whenComplete((averages, throwable) -> {
+            if (result.isCancelled()) {
+                averageFpg.cancel(false);
+                averageGroupByEatTime.cancel(false);
+                averageBloodSugar.cancel(false);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * 요청 정보(쿠키 등)를 작업 스레드에서도 볼 수 있게 넘겨준다. ReadYourWritesCookie 가 방금 쓴 사용자인지 판단할 때 필요하다.
+     */
+    private Runnable propagateRequestAttributes(Runnable task) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return () -> {
+            RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+            RequestContextHolder.setRequestAttributes(attributes);
+            try {
+                task.run();
+            } finally {
+                RequestContextHolder.setRequestAttributes(previous);
+            }
+        };
+    }
+}
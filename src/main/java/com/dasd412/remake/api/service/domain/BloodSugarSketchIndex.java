@@ -0,0 +1,187 @@
+/*
+ * @(#)BloodSugarSketchIndex.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.domain.diary.diet.DietRepository;
+import com.dasd412.remake.api.domain.diary.diet.EatTime;
+import com.dasd412.remake.api.domain.diary.diet.QDiet;
+import com.dasd412.remake.api.domain.diary.writer.WriterRepository;
+import com.dasd412.remake.api.service.domain.vo.DiaryChangedEvent;
+import com.dasd412.remake.api.service.domain.vo.DiaryReading;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.querydsl.core.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 작성자 별, 월 별, 식사 시간 별 식사 혈당 히스토그램(QuantileSketch). 분위수 조회는 기간에 맞는 월의 히스토그램만 합친다.
+ * 처음 조회할 때 db 에서 (월, 식사 시간, 값) 별 개수를 한 번 세어서 만든다.
+ * 각 작성자의 히스토그램은 만들 때의 데이터 버전을 들고 있고, 조회할 때마다 현재 버전(기본 키로 컬럼 하나)과 비교해서 다르면 다시 만든다.
+ * 그래서 다른 인스턴스에서 처리된 쓰기도 다음 조회에 반영된다.
+ * 일지가 새로 저장되면 커밋된 뒤에 바로 직전 버전의 히스토그램에 값을 더하고 버전을 올린다. 수정, 삭제는 예전 값을 모르므로 버린다.
+ */
+@Component
+public class BloodSugarSketchIndex {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final int MAXIMUM_SIZE = 10_000;
+
+    private static final long EXPIRE_MINUTES = 30;
+
+    private final WriterRepository writerRepository;
+
+    private final DietRepository dietRepository;
+
+    private final Cache<Long, WriterSketches> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterAccess(EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    public BloodSugarSketchIndex(WriterRepository writerRepository, DietRepository dietRepository) {
+        this.writerRepository = writerRepository;
+        this.dietRepository = dietRepository;
+    }
+
+    /**
+     * 호출하는 쪽의 트랜잭션 안에서 불러야 한다.
+     *
+     * @param from  포함하는 첫 월. null 이면 처음부터
+     * @param until 포함하지 않는 끝 월. null 이면 끝까지
+     * @return 식사 시간 별로 합친 히스토그램. 기록이 없는 식사 시간은 들어 있지 않다.
+     */
+    public Map<EatTime, QuantileSketch> merged(Long writerId, YearMonth from, YearMonth until) {
+        return sketchesOf(writerId).merged(from, until);
+    }
+
+    /**
+     * 작성자가 탈퇴했을 때 호출한다. (작성자 id 가 다시 쓰일 수 있다.)
+     */
+    public void invalidate(Long writerId) {
+        cache.invalidate(writerId);
+    }
+
+    @TransactionalEventListener
+    public void onDiaryChanged(DiaryChangedEvent event) {
+        if (event.isReload() || !event.getUpdated().isEmpty() || !event.getDeleted().isEmpty()) {
+            cache.invalidate(event.getWriterId());
+            return;
+        }
+
+        /* 이 변경 바로 전 버전이 아니면 사이의 변경을 놓친 것이므로 버린다. */
+        cache.asMap().computeIfPresent(event.getWriterId(), (writerId, sketches) ->
+                sketches.dataVersion == event.getDataVersion() - 1 ? sketches.withAdded(event.getSaved(), event.getDataVersion()) : null);
+    }
+
+    private WriterSketches sketchesOf(Long writerId) {
+        Long dataVersion = writerRepository.findDataVersion(writerId);
+        if (dataVersion == null) {
+            return WriterSketches.EMPTY;
+        }
+
+        WriterSketches cached = cache.getIfPresent(writerId);
+        if (cached != null && cached.dataVersion == dataVersion) {
+            return cached;
+        }
+
+        WriterSketches loaded = WriterSketches.of(dataVersion, dietRepository.findBloodSugarHistogramOfWriter(writerId, new ArrayList<>()));
+        /* 격리 수준이 READ COMMITTED 이면 읽는 사이에 커밋된 변경이 히스토그램에 섞였을 수 있다. 그런 경우 이번 조회에만 쓰고 넣지 않는다. */
+        if (Objects.equals(writerRepository.findDataVersion(writerId), dataVersion)) {
+            cache.put(writerId, loaded);
+        }
+        logger.info("blood sugar sketches loaded. writer : " + writerId + ", months : " + loaded.months.size());
+        return loaded;
+    }
+
+    /**
+     * 한 작성자의 월 별 히스토그램. 불변 객체이며, 값이 더해지면 바뀐 월만 새로 만든다.
+     */
+    static final class WriterSketches {
+
+        private static final WriterSketches EMPTY = new WriterSketches(-1, Collections.emptyMap());
+
+        private final long dataVersion;
+
+        private final Map<YearMonth, Map<EatTime, QuantileSketch>> months;
+
+        private WriterSketches(long dataVersion, Map<YearMonth, Map<EatTime, QuantileSketch>> months) {
+            this.dataVersion = dataVersion;
+            this.months = months;
+        }
+
+        /**
+         * @param histogram DietRepository.findBloodSugarHistogramOfWriter() 의 결과
+         */
+        static WriterSketches of(long dataVersion, List<Tuple> histogram) {
+            Map<YearMonth, Map<EatTime, QuantileSketch.Builder>> builders = new HashMap<>();
+            for (Tuple tuple : histogram) {
+                YearMonth month = YearMonth.of(Objects.requireNonNull(tuple.get(QDiet.diet.diary.writtenTime.year())),
+                        Objects.requireNonNull(tuple.get(QDiet.diet.diary.writtenTime.month())));
+                builders.computeIfAbsent(month, key -> new EnumMap<>(EatTime.class))
+                        .computeIfAbsent(Objects.requireNonNull(tuple.get(QDiet.diet.eatTime)), key -> QuantileSketch.builder())
+                        .add(Objects.requireNonNull(tuple.get(QDiet.diet.bloodSugar)), Objects.requireNonNull(tuple.get(QDiet.diet.count())));
+            }
+
+            Map<YearMonth, Map<EatTime, QuantileSketch>> months = new HashMap<>(builders.size());
+            builders.forEach((month, builderOfEatTime) -> {
+                Map<EatTime, QuantileSketch> sketches = new EnumMap<>(EatTime.class);
+                builderOfEatTime.forEach((eatTime, builder) -> sketches.put(eatTime, builder.build()));
+                months.put(month, Collections.unmodifiableMap(sketches));
+            });
+            return new WriterSketches(dataVersion, Collections.unmodifiableMap(months));
+        }
+
+        WriterSketches withAdded(List<DiaryReading> readings, long dataVersion) {
+            Map<YearMonth, Map<EatTime, QuantileSketch>> copied = new HashMap<>(months);
+            ZoneId zone = ZoneId.systemDefault();
+            for (DiaryReading reading : readings) {
+                YearMonth month = YearMonth.from(Instant.ofEpochMilli(reading.getTimestamp()).atZone(zone));
+
+                Map<EatTime, QuantileSketch> sketches = new EnumMap<>(EatTime.class);
+                sketches.putAll(copied.getOrDefault(month, Collections.emptyMap()));
+                addValue(sketches, EatTime.BreakFast, reading.getBreakFastSugar());
+                addValue(sketches, EatTime.Lunch, reading.getLunchSugar());
+                addValue(sketches, EatTime.Dinner, reading.getDinnerSugar());
+                copied.put(month, Collections.unmodifiableMap(sketches));
+            }
+            return new WriterSketches(dataVersion, Collections.unmodifiableMap(copied));
+        }
+
+        Map<EatTime, QuantileSketch> merged(YearMonth from, YearMonth until) {
+            Map<EatTime, QuantileSketch> result = new EnumMap<>(EatTime.class);
+            months.forEach((month, sketches) -> {
+                if ((from == null || !month.isBefore(from)) && (until == null || month.isBefore(until))) {
+                    sketches.forEach((eatTime, sketch) -> result.merge(eatTime, sketch, QuantileSketch::merge));
+                }
+            });
+            return result;
+        }
+
+        private static void addValue(Map<EatTime, QuantileSketch> sketches, EatTime eatTime, Integer bloodSugar) {
+            if (bloodSugar != null) {
+                sketches.merge(eatTime, QuantileSketch.of(bloodSugar), QuantileSketch::merge);
+            }
+        }
+    }
+}
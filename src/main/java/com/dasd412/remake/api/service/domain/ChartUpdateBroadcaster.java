@@ -0,0 +1,163 @@
+/*
+ * @(#)ChartUpdateBroadcaster.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.service.domain.vo.DiaryChangedEvent;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * 차트 화면의 SSE 연결을 작성자 별로 들고 있다가, 일지가 바뀌면 (DiaryChangedEvent) 그 작성자의 연결에만 변경분을 보낸다.
+ * 알림은 트랜잭션이 커밋된 뒤에만 보내므로, 받은 화면이 다시 조회해도 바뀐 값이 보인다. 롤백된 변경은 보내지 않는다.
+ * 보내기는 전용 스레드 하나에서 하므로 느린 연결이 일지를 쓴 요청을 붙잡지 않는다.
+ * 프록시의 유휴 연결 종료를 막기 위해 diary.chart.sse.heartbeat-seconds 마다 주석 한 줄을 보낸다. 보내기에 실패한 연결은 이 때 정리된다.
+ * (주의) 연결은 인스턴스마다 따로 관리한다. real1 에 열린 차트 화면은 real2 에서 처리된 쓰기의 알림을 받지 못한다.
+ */
+@Service
+public class ChartUpdateBroadcaster {
+
+    static final String EVENT_NAME = "diary-changed";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final ConcurrentMap<Long, Deque<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    private final long timeoutMillis;
+
+    /**
+     * 작성자 한 명이 동시에 열 수 있는 연결 수. 넘으면 가장 오래된 연결을 닫는다. (탭을 계속 여는 경우)
+     */
+    private final int maxConnectionsPerWriter;
+
+    private final ScheduledExecutorService sender;
+
+    public ChartUpdateBroadcaster(@Value("${diary.chart.sse.timeout-millis:1800000}") long timeoutMillis,
+                                  @Value("${diary.chart.sse.max-connections-per-writer:5}") int maxConnectionsPerWriter,
+                                  @Value("${diary.chart.sse.heartbeat-seconds:25}") long heartbeatSeconds) {
+        checkArgument(timeoutMillis > 0, "timeout should be positive");
+        checkArgument(maxConnectionsPerWriter > 0, "max connections should be positive");
+        checkArgument(heartbeatSeconds > 0, "heartbeat interval should be positive");
+
+        this.timeoutMillis = timeoutMillis;
+        this.maxConnectionsPerWriter = maxConnectionsPerWriter;
+        this.sender = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("chart-update-sender")
+                .setDaemon(true)
+                .build());
+        sender.scheduleWithFixedDelay(this::sendHeartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        emitters.values().forEach(connections -> connections.forEach(SseEmitter::complete));
+        emitters.clear();
+    }
+
+    /**
+     * @return 작성자의 새 연결. 컨트롤러가 그대로 리턴하면 된다.
+     */
+    public SseEmitter subscribe(Long writerId) {
+        checkNotNull(writerId, "writerId must be provided");
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        /* 마지막 연결이 끊겨 목록이 지워지는 중에 추가되는 경우가 없도록 compute 안에서 넣는다. */
+        Deque<SseEmitter> connections = emitters.compute(writerId, (key, existing) -> {
+            Deque<SseEmitter> deque = existing == null ? new ConcurrentLinkedDeque<>() : existing;
+            deque.addLast(emitter);
+            return deque;
+        });
+
+        emitter.onCompletion(() -> remove(writerId, emitter));
+        /* 끝내 주지 않으면 AsyncRequestTimeoutException 이 이미 스트림으로 나간 응답에 503 을 쓰려고 한다. 브라우저의 EventSource 는 알아서 다시 연결한다. */
+        emitter.onTimeout(() -> {
+            remove(writerId, emitter);
+            emitter.complete();
+        });
+        emitter.onError(throwable -> remove(writerId, emitter));
+
+        while (connections.size() > maxConnectionsPerWriter) {
+            SseEmitter oldest = connections.pollFirst();
+            if (oldest != null) {
+                oldest.complete();
+            }
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener
+    public void onDiaryChanged(DiaryChangedEvent event) {
+        Deque<SseEmitter> connections = emitters.get(event.getWriterId());
+        if (connections == null || connections.isEmpty()) {
+            return;
+        }
+
+        try {
+            sender.execute(() -> connections.forEach(emitter -> send(event.getWriterId(), emitter, event)));
+        } catch (RejectedExecutionException e) {
+            logger.warn("chart update sender is shut down. drop " + event);
+        }
+    }
+
+    /**
+     * @return 지금 열려 있는 작성자의 연결 수
+     */
+    int connectionCount(Long writerId) {
+        Deque<SseEmitter> connections = emitters.get(writerId);
+        return connections == null ? 0 : connections.size();
+    }
+
+    private void sendHeartbeat() {
+        emitters.forEach((writerId, connections) -> connections.forEach(emitter -> send(writerId, emitter, null)));
+    }
+
+    /**
+     * @param event null 이면 heartbeat 주석을 보낸다.
+     */
+    private void send(Long writerId, SseEmitter emitter, DiaryChangedEvent event) {
+        try {
+            if (event == null) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else {
+                emitter.send(SseEmitter.event().name(EVENT_NAME).data(event, MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException | IllegalStateException e) {
+            /* 브라우저가 탭을 닫았거나 이미 끝난 연결 */
+            remove(writerId, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void remove(Long writerId, SseEmitter emitter) {
+        emitters.computeIfPresent(writerId, (key, connections) -> {
+            connections.remove(emitter);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+}
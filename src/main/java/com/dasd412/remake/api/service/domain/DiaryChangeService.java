@@ -0,0 +1,91 @@
+/*
+ * @(#)DiaryChangeService.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.domain.diary.EntityId;
+import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
+import com.dasd412.remake.api.domain.diary.diabetesDiary.DiaryRepository;
+import com.dasd412.remake.api.domain.diary.diabetesDiary.QDiabetesDiary;
+import com.dasd412.remake.api.domain.diary.tombstone.TombstoneRepository;
+import com.dasd412.remake.api.domain.diary.writer.Writer;
+import com.dasd412.remake.api.service.domain.vo.DiaryChanges;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * 오프라인 클라이언트의 증분 동기화용 변경 내역 조회.
+ * 일지의 updatedAt 과 삭제 기록(Tombstone)만 보면 되도록, 식단과 음식이 바뀌면 일지의 updatedAt 도 함께 갱신한다. (UpdateDeleteDiaryService 참고)
+ */
+@Service
+public class DiaryChangeService {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * 한 번에 돌려주는 변경된 일지의 최대 개수. 넘으면 전체 내보내기로 다시 맞추도록 한다.
+     */
+    static final int CHANGE_LIMIT = 1000;
+
+    /**
+     * 다음 조회 시작점을 이만큼 앞당긴다.
+     * updatedAt 은 커밋 전에 찍히므로, 조회 시점에 아직 커밋되지 않은 트랜잭션의 변경을 다음 조회에서 놓치지 않기 위함이다.
+     */
+    static final Duration SYNC_OVERLAP = Duration.ofSeconds(30);
+
+    private final DiaryRepository diaryRepository;
+
+    private final TombstoneRepository tombstoneRepository;
+
+    public DiaryChangeService(DiaryRepository diaryRepository, TombstoneRepository tombstoneRepository) {
+        this.diaryRepository = diaryRepository;
+        this.tombstoneRepository = tombstoneRepository;
+    }
+
+    /**
+     * @param since 앞선 조회 결과의 until. 처음 동기화라면 전체 내보내기 후 그 응답 직전 시각을 쓴다.
+     * @return since 이후 작성, 수정된 일지와 지워진 일지 id. 일지는 updatedAt 순이다.
+     */
+    @Transactional(readOnly = true)
+    public DiaryChanges getChangesSince(EntityId<Writer, Long> writerEntityId, LocalDateTime since) {
+        logger.info("get diary changes since " + since);
+        checkNotNull(writerEntityId, "writerId must be provided");
+        checkNotNull(since, "since must be provided");
+
+        Long writerId = writerEntityId.getId();
+        LocalDateTime until = LocalDateTime.now();
+
+        List<Long> changedIds = diaryRepository.findDiaryIdsUpdatedBetween(writerId, since, until, CHANGE_LIMIT + 1);
+        boolean truncated = changedIds.size() > CHANGE_LIMIT;
+        if (truncated) {
+            changedIds = changedIds.subList(0, CHANGE_LIMIT);
+        }
+
+        List<DiabetesDiary> changedDiaries = new ArrayList<>();
+        if (!changedIds.isEmpty()) {
+            changedDiaries = diaryRepository.findDiabetesDiariesWithSubEntitiesOfWriter(writerId,
+                    Collections.singletonList(QDiabetesDiary.diabetesDiary.diaryId.in(changedIds)));
+            changedDiaries.sort(Comparator.comparing(DiabetesDiary::getUpdatedAt).thenComparing(DiabetesDiary::getId));
+        }
+
+        List<Long> deletedIds = tombstoneRepository.findDiaryIdsDeletedBetween(writerId, since, until);
+
+        return new DiaryChanges(until.minus(SYNC_OVERLAP), changedDiaries, deletedIds, truncated);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * @(#)DiaryExportService.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityFoodDTO;
+import com.dasd412.remake.api.domain.diary.diabetesDiary.DiaryRepository;
+import com.dasd412.remake.api.domain.diary.diabetesDiary.QDiabetesDiary;
+import com.dasd412.remake.api.domain.diary.diet.EatTime;
+import com.dasd412.remake.api.domain.diary.diet.QDiet;
+import com.dasd412.remake.api.domain.diary.food.QFood;
+import com.dasd412.remake.api.service.domain.vo.DiaryFileFormat;
+import com.dasd412.remake.api.service.domain.vo.DiaryImportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * 작성자의 전체 기록을 내보낸다.
+ * findDiabetesDiariesWithSubEntitiesOfWriter()처럼 엔티티 그래프 전체를 올리지 않고, 펼친 행을 커서로 하나씩 읽어 일지 단위로 묶은 뒤 곧바로 쓴다.
+ * 따라서 힙에는 커서의 fetch size 만큼의 행과 일지 하나만 올라온다.
+ */
+@Service
+public class DiaryExportService {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final DateTimeFormatter EXPORT_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final DiaryRepository diaryRepository;
+
+    private final ObjectMapper objectMapper;
+
+    public DiaryExportService(DiaryRepository diaryRepository, ObjectMapper objectMapper) {
+        this.diaryRepository = diaryRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 출력 스트림은 닫지 않는다. (gzip 처럼 감싼 스트림의 마무리는 호출한 쪽에서 한다.)
+     * StreamingResponseBody 처럼 요청 스레드가 아닌 곳에서 호출되어도 여기서 트랜잭션을 연다.
+     *
+     * @return 내보낸 일지 수
+     */
+    @Transactional(readOnly = true)
+    public int exportDiaries(Long writerId, DiaryFileFormat format, OutputStream outputStream) throws IOException {
+        checkNotNull(writerId, "writerId must be provided");
+        logger.info("export diaries. format : " + format);
+
+        DiaryExportWriter writer = new DiaryExportWriter(new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)), format, objectMapper);
+        writer.writeHeader();
+
+        int count = 0;
+        try (CloseableIterator<Tuple> iterator = diaryRepository.iterateDiaryRowsOfWriter(writerId)) {
+            RowAccumulator current = null;
+
+            while (iterator.hasNext()) {
+                Tuple tuple = iterator.next();
+                Long diaryId = tuple.get(QDiabetesDiary.diabetesDiary.diaryId);
+
+                if (current == null || !Objects.equals(current.diaryId, diaryId)) {
+                    if (current != null) {
+                        writer.write(current.toRow());
+                        count++;
+                    }
+                    current = new RowAccumulator(tuple);
+                }
+                current.accept(tuple);
+            }
+
+            if (current != null) {
+                writer.write(current.toRow());
+                count++;
+            }
+        }
+        writer.flush();
+
+        logger.info("export finished. diary count : " + count);
+        return count;
+    }
+
+    /**
+     * 같은 일지에 속한 행들을 모아 DiaryImportRow 하나로 만든다.
+     * 아침, 점심, 저녁 외의 식단(EatTime.Else)은 가져오기 형식에 자리가 없으므로 내보내지 않는다.
+     */
+    private static class RowAccumulator {
+
+        private final Long diaryId;
+
+        private final String writtenTime;
+
+        private final int fastingPlasmaGlucose;
+
+        private final String remark;
+
+        private int breakFastSugar;
+
+        private int lunchSugar;
+
+        private int dinnerSugar;
+
+        private final List<SecurityFoodDTO> breakFastFoods = new ArrayList<>();
+
+        private final List<SecurityFoodDTO> lunchFoods = new ArrayList<>();
+
+        private final List<SecurityFoodDTO> dinnerFoods = new ArrayList<>();
+
+        RowAccumulator(Tuple tuple) {
+            this.diaryId = tuple.get(QDiabetesDiary.diabetesDiary.diaryId);
+            this.writtenTime = EXPORT_TIME_FORMAT.format(checkNotNull(tuple.get(QDiabetesDiary.diabetesDiary.writtenTime)));
+            Integer fpg = tuple.get(QDiabetesDiary.diabetesDiary.fastingPlasmaGlucose);
+            this.fastingPlasmaGlucose = fpg == null ? 0 : fpg;
+            this.remark = tuple.get(QDiabetesDiary.diabetesDiary.remark);
+        }
+
+        void accept(Tuple tuple) {
+            EatTime eatTime = tuple.get(QDiet.diet.eatTime);
+            if (eatTime == null) {
+                return;
+            }
+
+            Integer bloodSugar = tuple.get(QDiet.diet.bloodSugar);
+            int sugar = bloodSugar == null ? 0 : bloodSugar;
+
+            String foodName = tuple.get(QFood.food.foodName);
+            SecurityFoodDTO food = foodName == null ? null : new SecurityFoodDTO(foodName, checkNotNull(tuple.get(QFood.food.amount)), tuple.get(QFood.food.amountUnit));
+
+            switch (eatTime) {
+                case BreakFast:
+                    breakFastSugar = sugar;
+                    addIfPresent(breakFastFoods, food);
+                    break;
+                case Lunch:
+                    lunchSugar = sugar;
+                    addIfPresent(lunchFoods, food);
+                    break;
+                case Dinner:
+                    dinnerSugar = sugar;
+                    addIfPresent(dinnerFoods, food);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void addIfPresent(List<SecurityFoodDTO> foods, SecurityFoodDTO food) {
+            if (food != null) {
+                foods.add(food);
+            }
+        }
+
+        DiaryImportRow toRow() {
+            return new DiaryImportRow(0, writtenTime, fastingPlasmaGlucose, remark == null ? "" : remark,
+                    breakFastSugar, lunchSugar, dinnerSugar, breakFastFoods, lunchFoods, dinnerFoods);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * @(#)DiaryExportWriter.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityFoodDTO;
+import com.dasd412.remake.api.service.domain.vo.DiaryFileFormat;
+import com.dasd412.remake.api.service.domain.vo.DiaryImportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * DiaryImportRow 를 DiaryImportReader 가 읽을 수 있는 형식 그대로 쓴다. 즉, 내보낸 파일은 다시 가져올 수 있다.
+ * CSV 의 경우 가져오기가 따옴표 안의 줄바꿈을 지원하지 않으므로 비고의 줄바꿈은 공백으로 바꾼다.
+ */
+public class DiaryExportWriter {
+
+    static final String CSV_HEADER = "writtenTime,fastingPlasmaGlucose,remark,breakFastSugar,lunchSugar,dinnerSugar,breakFastFoods,lunchFoods,dinnerFoods";
+
+    private final Writer writer;
+
+    private final DiaryFileFormat format;
+
+    private final ObjectMapper objectMapper;
+
+    public DiaryExportWriter(Writer writer, DiaryFileFormat format, ObjectMapper objectMapper) {
+        this.writer = writer;
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    public void writeHeader() throws IOException {
+        if (format == DiaryFileFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+    }
+
+    public void write(DiaryImportRow row) throws IOException {
+        if (format == DiaryFileFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(row));
+            writer.write('\n');
+            return;
+        }
+
+        writer.write(row.getWrittenTime());
+        writer.write(',');
+        writer.write(String.valueOf(row.getFastingPlasmaGlucose()));
+        writer.write(',');
+        writer.write(escape(row.getRemark() == null ? "" : row.getRemark().replaceAll("[\\r\\n]+", " ")));
+        writer.write(',');
+        writer.write(String.valueOf(row.getBreakFastSugar()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getLunchSugar()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getDinnerSugar()));
+        writer.write(',');
+        writer.write(escape(joinFoods(row.getBreakFastFoods())));
+        writer.write(',');
+        writer.write(escape(joinFoods(row.getLunchFoods())));
+        writer.write(',');
+        writer.write(escape(joinFoods(row.getDinnerFoods())));
+        writer.write('\n');
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private String joinFoods(List<SecurityFoodDTO> foods) {
+        StringBuilder builder = new StringBuilder();
+        for (SecurityFoodDTO food : foods) {
+            if (builder.length() > 0) {
+                builder.append(DiaryImportReader.FOOD_SEPARATOR);
+            }
+            builder.append(food.getFoodName())
+                    .append(DiaryImportReader.FOOD_FIELD_SEPARATOR).append(food.getAmount())
+                    .append(DiaryImportReader.FOOD_FIELD_SEPARATOR).append(food.getAmountUnit());
+        }
+        return builder.toString();
+    }
+
+    private String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * @(#)DiaryIdAllocator.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.domain.diary.diabetesDiary.DiaryRepository;
+import com.dasd412.remake.api.domain.diary.diet.DietRepository;
+import com.dasd412.remake.api.domain.diary.food.FoodRepository;
+import com.dasd412.remake.api.domain.diary.idCounter.IdCounter;
+import com.dasd412.remake.api.domain.diary.idCounter.IdCounterRepository;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * 일지, 식단, 음식 식별자의 구간을 배정한다. (IdCounter)
+ * 배정은 호출한 쪽과 별도의 짧은 트랜잭션(REQUIRES_NEW)에서 하고 바로 커밋한다. 카운터 행의 잠금은 그 동안만 잡히므로,
+ * 가져오기처럼 긴 트랜잭션이 있어도 다른 작성자의 저장은 배정을 기다리지 않는다. 호출한 쪽이 롤백되면 배정받은 구간은 비어 있게 된다.
+ */
+@Component
+class DiaryIdAllocator {
+
+    private static final String DIARY = "diary";
+
+    private static final String DIET = "diet";
+
+    private static final String FOOD = "food";
+
+    private final IdCounterRepository idCounterRepository;
+
+    private final DiaryRepository diaryRepository;
+
+    private final DietRepository dietRepository;
+
+    private final FoodRepository foodRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 카운터 행을 새로 만들 때 쓴다.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    DiaryIdAllocator(IdCounterRepository idCounterRepository, DiaryRepository diaryRepository, DietRepository dietRepository, FoodRepository foodRepository,
+                     PlatformTransactionManager transactionManager) {
+        this.idCounterRepository = idCounterRepository;
+        this.diaryRepository = diaryRepository;
+        this.dietRepository = dietRepository;
+        this.foodRepository = foodRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 개수가 0 인 종류는 카운터를 건드리지 않는다. 카운터는 항상 일지, 식단, 음식 순으로 잠가서 서로 기다리다 멈추지 않게 한다.
+     *
+     * @return 배정받은 구간 안에서 식별자를 내어주는 배정기
+     */
+    DiaryIdSequence reserve(int diaryCount, int dietCount, int foodCount) {
+        checkArgument(diaryCount >= 0 && dietCount >= 0 && foodCount >= 0, "count must not be negative");
+        long[] firstIds;
+        try {
+            firstIds = reserveInNewTransaction(diaryCount, dietCount, foodCount);
+        } catch (DataAccessException | PersistenceException exception) {
+            /* 없던 카운터 행을 다른 트랜잭션과 동시에 만들면 한 쪽이 기본 키에 걸린다. 이제는 행이 있으므로 한 번 더 하면 된다. */
+            firstIds = reserveInNewTransaction(diaryCount, dietCount, foodCount);
+        }
+        return new DiaryIdSequence(firstIds[0], diaryCount, firstIds[1], dietCount, firstIds[2], foodCount);
+    }
+
+    private long[] reserveInNewTransaction(int diaryCount, int dietCount, int foodCount) {
+        return transactionTemplate.execute(status -> new long[]{
+                reserve(DIARY, diaryCount, diaryRepository::findMaxOfId),
+                reserve(DIET, dietCount, dietRepository::findMaxOfId),
+                reserve(FOOD, foodCount, foodRepository::findMaxOfId)
+        });
+    }
+
+    /**
+     * 카운터 행을 잠근 뒤에 테이블의 최댓값을 읽는다. 잠금을 기다리는 동안 커밋된 행까지 보고 배정한다.
+     * 행이 없으면(마이그레이션을 거치지 않은 db 나 테스트 db) 만든다. 새로 만든 카운터도 테이블의 최댓값 뒤에서부터 배정한다.
+     */
+    private long reserve(String name, int count, Supplier<Long> maxIdOfTable) {
+        if (count == 0) {
+            return 0L;
+        }
+        IdCounter counter = idCounterRepository.findByName(name).orElseGet(() -> {
+            IdCounter created = new IdCounter(name);
+            entityManager.persist(created);
+            return created;
+        });
+        return counter.reserve(maxIdOfTable.get(), count);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * @(#)DiaryIdSequence.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.domain.diary.EntityId;
+import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
+import com.dasd412.remake.api.domain.diary.diet.Diet;
+import com.dasd412.remake.api.domain.diary.food.Food;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * 복합키 엔티티(일지, 식단, 음식)의 식별자 배정기. DiaryIdAllocator 가 카운터에서 배정받은 구간 안에서 메모리로 1씩 늘린다.
+ * 구간은 다른 트랜잭션에 다시 나가지 않으므로, 다른 작성자가 동시에 저장해도 식별자가 겹치지 않는다.
+ * 트랜잭션 하나에서만 사용해야 한다. 검증에 실패한 엔티티가 소모한 식별자는 비어 있게 된다.
+ */
+class DiaryIdSequence {
+
+    private long nextDiaryId;
+
+    private final long endOfDiaryId;
+
+    private long nextDietId;
+
+    private final long endOfDietId;
+
+    private long nextFoodId;
+
+    private final long endOfFoodId;
+
+    DiaryIdSequence(long firstDiaryId, int diaryCount, long firstDietId, int dietCount, long firstFoodId, int foodCount) {
+        this.nextDiaryId = firstDiaryId;
+        this.endOfDiaryId = firstDiaryId + diaryCount;
+        this.nextDietId = firstDietId;
+        this.endOfDietId = firstDietId + dietCount;
+        this.nextFoodId = firstFoodId;
+        this.endOfFoodId = firstFoodId + foodCount;
+    }
+
+    EntityId<DiabetesDiary, Long> nextDiaryId() {
+        checkState(nextDiaryId < endOfDiaryId, "reserved diary ids are exhausted");
+        return EntityId.of(DiabetesDiary.class, nextDiaryId++);
+    }
+
+    EntityId<Diet, Long> nextDietId() {
+        checkState(nextDietId < endOfDietId, "reserved diet ids are exhausted");
+        return EntityId.of(Diet.class, nextDietId++);
+    }
+
+    EntityId<Food, Long> nextFoodId() {
+        checkState(nextFoodId < endOfFoodId, "reserved food ids are exhausted");
+        return EntityId.of(Food.class, nextFoodId++);
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * @(#)DiaryImportReader.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityFoodDTO;
+import com.dasd412.remake.api.domain.diary.food.AmountUnit;
+import com.dasd412.remake.api.service.domain.vo.DiaryFileFormat;
+import com.dasd412.remake.api.service.domain.vo.DiaryImportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * 가져오기 파일을 한 줄씩 읽어서 DiaryImportRow 로 바꾼다. 파일 전체를 메모리에 올리지 않는다.
+ * <p>
+ * CSV : 첫 줄은 헤더이며 열 순서는 자유롭다. 필수 열은 writtenTime, fastingPlasmaGlucose, breakFastSugar, lunchSugar, dinnerSugar 이다.
+ * remark, breakFastFoods, lunchFoods, dinnerFoods 는 생략할 수 있다.
+ * 음식 열은 "음식 이름:수량:단위" 를 ';' 로 이어 붙인다. (예 : 밥:200:g;김치:30:g;사과) 수량과 단위는 생략할 수 있다.
+ * <p>
+ * NDJSON : 한 줄에 DiaryImportRow 와 같은 모양의 JSON 객체 하나. 음식 목록은 SecurityFoodDTO 배열이다.
+ */
+public class DiaryImportReader implements Closeable {
+
+    static final String FOOD_SEPARATOR = ";";
+
+    static final String FOOD_FIELD_SEPARATOR = ":";
+
+    private final BufferedReader reader;
+
+    private final DiaryFileFormat format;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * CSV 헤더의 (열 이름, 열 위치)
+     */
+    private Map<String, Integer> columns = Collections.emptyMap();
+
+    private int lineNumber = 0;
+
+    /**
+     * hasNext()가 읽어 두었지만 아직 next()로 파싱하지 않은 줄
+     */
+    private String pendingLine;
+
+    public DiaryImportReader(Reader reader, DiaryFileFormat format, ObjectMapper objectMapper) throws IOException {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        this.format = checkNotNull(format, "format must be provided");
+        this.objectMapper = objectMapper;
+
+        if (format == DiaryFileFormat.CSV) {
+            readHeader();
+        }
+    }
+
+    /**
+     * 빈 줄을 건너뛰고 남은 줄이 있는지 확인한다. 파싱은 next()에서 하므로 형식이 잘못된 줄이어도 예외가 나지 않는다.
+     */
+    public boolean hasNext() throws IOException {
+        if (pendingLine != null) {
+            return true;
+        }
+
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return false;
+            }
+            lineNumber++;
+        } while (line.trim().isEmpty());
+
+        pendingLine = line;
+        return true;
+    }
+
+    /**
+     * @return 다음 행. 파일 끝이면 null
+     * @throws IllegalArgumentException 해당 줄의 형식이 잘못된 경우. 이 경우에도 읽기 위치는 다음 줄로 넘어가므로 계속 호출할 수 있다.
+     */
+    public DiaryImportRow next() throws IOException {
+        if (!hasNext()) {
+            return null;
+        }
+        String line = pendingLine;
+        pendingLine = null;
+
+        DiaryImportRow row = format == DiaryFileFormat.CSV ? parseCsvRow(line) : parseJsonRow(line);
+        row.setLineNumber(lineNumber);
+        return row;
+    }
+
+    /**
+     * @return 마지막으로 읽은 줄 번호
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    private void readHeader() throws IOException {
+        String header = reader.readLine();
+        checkArgument(header != null, "csv header is missing");
+        lineNumber++;
+
+        /* 엑셀에서 저장한 UTF-8 CSV 는 BOM 으로 시작한다. */
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+
+        Map<String, Integer> headerColumns = new HashMap<>();
+        List<String> names = splitCsvLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            headerColumns.put(names.get(i).trim(), i);
+        }
+
+        for (String required : new String[]{"writtenTime", "fastingPlasmaGlucose", "breakFastSugar", "lunchSugar", "dinnerSugar"}) {
+            checkArgument(headerColumns.containsKey(required), "csv header must contain " + required);
+        }
+        this.columns = headerColumns;
+    }
+
+    private DiaryImportRow parseJsonRow(String line) {
+        try {
+            return objectMapper.readValue(line, DiaryImportRow.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("malformed json : " + e.getMessage());
+        }
+    }
+
+    private DiaryImportRow parseCsvRow(String line) {
+        List<String> values = splitCsvLine(line);
+
+        return new DiaryImportRow(lineNumber,
+                requiredValue(values, "writtenTime"),
+                parseInt(values, "fastingPlasmaGlucose"),
+                optionalValue(values, "remark"),
+                parseInt(values, "breakFastSugar"),
+                parseInt(values, "lunchSugar"),
+                parseInt(values, "dinnerSugar"),
+                parseFoods(optionalValue(values, "breakFastFoods")),
+                parseFoods(optionalValue(values, "lunchFoods")),
+                parseFoods(optionalValue(values, "dinnerFoods")));
+    }
+
+    private String requiredValue(List<String> values, String column) {
+        String value = optionalValue(values, column);
+        checkArgument(!value.isEmpty(), column + " is empty");
+        return value;
+    }
+
+    private String optionalValue(List<String> values, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= values.size()) {
+            return "";
+        }
+        return values.get(index).trim();
+    }
+
+    private int parseInt(List<String> values, String column) {
+        String value = requiredValue(values, column);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number : " + value);
+        }
+    }
+
+    private List<SecurityFoodDTO> parseFoods(String value) {
+        List<SecurityFoodDTO> foods = new ArrayList<>();
+        if (value.isEmpty()) {
+            return foods;
+        }
+
+        for (String token : value.split(FOOD_SEPARATOR)) {
+            if (token.trim().isEmpty()) {
+                continue;
+            }
+            String[] fields = token.split(FOOD_FIELD_SEPARATOR);
+            String foodName = fields[0].trim();
+            double amount = 0;
+            AmountUnit amountUnit = AmountUnit.NONE;
+            try {
+                if (fields.length > 1 && !fields[1].trim().isEmpty()) {
+                    amount = Double.parseDouble(fields[1].trim());
+                }
+                if (fields.length > 2 && !fields[2].trim().isEmpty()) {
+                    amountUnit = AmountUnit.valueOf(fields[2].trim());
+                }
+            } catch (IllegalArgumentException e) {
+                /* NumberFormatException 도 여기서 잡힌다. */
+                throw new IllegalArgumentException("malformed food : " + token);
+            }
+            foods.add(new SecurityFoodDTO(foodName, amount, amountUnit));
+        }
+        return foods;
+    }
+
+    /**
+     * RFC 4180 의 따옴표 규칙을 따르되, 따옴표 안의 줄바꿈은 지원하지 않는다.
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        checkArgument(!quoted, "unterminated quote");
+        values.add(current.toString());
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
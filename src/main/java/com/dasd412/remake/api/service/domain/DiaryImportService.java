@@ -0,0 +1,140 @@
+/*
+ * @(#)DiaryImportService.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.service.domain.vo.DiaryFileFormat;
+import com.dasd412.remake.api.service.domain.vo.DiaryImportProgress;
+import com.dasd412.remake.api.service.domain.vo.DiaryImportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.PersistenceException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * 혈당 측정기 등에서 내보낸 과거 기록을 한 번에 가져온다.
+ * 파일은 한 줄씩 읽고(DiaryImportReader), CHUNK_SIZE 행마다 트랜잭션 하나로 저장한다(SaveDiaryService.saveImportedDiaries).
+ * 이미 커밋된 묶음은 뒤의 묶음이 실패해도 유지된다.
+ * 진행 상황은 작성자 별로 보관하며 다음 가져오기를 시작할 때 교체된다.
+ * (주의) 진행 상황은 인스턴스마다 따로 존재한다.
+ */
+@Service
+public class DiaryImportService {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * 트랜잭션 하나에 저장할 행 수. 행 하나가 일지 1개, 식단 3개, 음식 여러 개이다.
+     */
+    static final int CHUNK_SIZE = 500;
+
+    /**
+     * 파일 하나에서 가져올 수 있는 최대 행 수 (약 100년치 하루 3번 기록)
+     */
+    static final int MAX_ROWS = 100_000;
+
+    private final SaveDiaryService saveDiaryService;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, DiaryImportProgress> progressOfWriter = new ConcurrentHashMap<>();
+
+    public DiaryImportService(SaveDiaryService saveDiaryService, ObjectMapper objectMapper) {
+        this.saveDiaryService = saveDiaryService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return 끝난 뒤의 진행 상황 (가져온 수, 실패한 수, 실패 사유)
+     * @throws IllegalStateException    같은 작성자의 가져오기가 이미 진행 중인 경우
+     * @throws IllegalArgumentException CSV 헤더가 잘못된 경우
+     */
+    public DiaryImportProgress importDiaries(Long writerId, InputStream inputStream, DiaryFileFormat format) throws IOException {
+        checkNotNull(writerId, "writerId must be provided");
+        logger.info("import diaries. format : " + format);
+
+        DiaryImportProgress progress = new DiaryImportProgress();
+        progressOfWriter.compute(writerId, (id, previous) -> {
+            if (previous != null && !previous.isDone()) {
+                throw new IllegalStateException("import is already in progress");
+            }
+            return progress;
+        });
+
+        try (DiaryImportReader reader = new DiaryImportReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), format, objectMapper)) {
+            List<DiaryImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            int rowCount = 0;
+
+            while (rowCount < MAX_ROWS) {
+                DiaryImportRow row;
+                try {
+                    row = reader.next();
+                } catch (IllegalArgumentException e) {
+                    progress.addFailure(reader.getLineNumber(), e.getMessage());
+                    rowCount++;
+                    continue;
+                }
+                if (row == null) {
+                    break;
+                }
+
+                chunk.add(row);
+                rowCount++;
+
+                if (chunk.size() == CHUNK_SIZE) {
+                    saveChunk(writerId, chunk, progress);
+                    chunk.clear();
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                saveChunk(writerId, chunk, progress);
+            }
+
+            /* 남은 줄은 가져오지 않으므로 파싱하지 않고 있는지만 본다. */
+            if (rowCount >= MAX_ROWS && reader.hasNext()) {
+                progress.addFailure(reader.getLineNumber(), "too many rows. only first " + MAX_ROWS + " rows are imported");
+            }
+        } finally {
+            progress.finish();
+        }
+
+        logger.info("import finished : " + progress);
+        return progress;
+    }
+
+    private void saveChunk(Long writerId, List<DiaryImportRow> chunk, DiaryImportProgress progress) {
+        try {
+            Map<Integer, String> rejected = saveDiaryService.saveImportedDiaries(writerId, chunk);
+            rejected.forEach(progress::addFailure);
+            progress.addImported(chunk.size() - rejected.size());
+        } catch (DataAccessException | PersistenceException e) {
+            logger.error("import chunk rolled back : " + e.getMessage());
+            chunk.forEach(row -> progress.addFailure(row.getLineNumber(), "rolled back with its chunk"));
+        }
+        logger.info("import progress : " + progress);
+    }
+
+    public Optional<DiaryImportProgress> getProgress(Long writerId) {
+        return Optional.ofNullable(progressOfWriter.get(writerId));
+    }
+}
@@ -11,6 +11,7 @@ package com.dasd412.remake.api.service.domain;
 import com.dasd412.remake.api.controller.exception.ConvertLocalDateException;
 import com.dasd412.remake.api.controller.security.domain_rest.dto.chart.FoodBoardDTO;
 import com.dasd412.remake.api.controller.security.domain_view.FoodPageVO;
+import com.dasd412.remake.api.config.singleflight.Coalesced;
 import com.dasd412.remake.api.domain.diary.EntityId;
 import com.dasd412.remake.api.domain.diary.InequalitySign;
 import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
@@ -21,6 +22,7 @@ import com.dasd412.remake.api.domain.diary.profile.Profile;
 import com.dasd412.remake.api.domain.diary.writer.Writer;
 
 import com.dasd412.remake.api.domain.diary.writer.WriterRepository;
+import com.dasd412.remake.api.service.domain.vo.ChartSeries;
 import com.dasd412.remake.api.service.domain.vo.FromStartUntilEnd;
 import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Predicate;
@@ -51,13 +53,44 @@ public class FindDiaryService {
     private final FoodRepository foodRepository;
     private final WriterRepository writerRepository;
 
-    public FindDiaryService(DiaryRepository diaryRepository, DietRepository dietRepository, FoodRepository foodRepository, WriterRepository writerRepository) {
+    private final FoodNameIndex foodNameIndex;
+
+    /**
+     * 자동 완성 결과의 최대 개수
+     */
+    public static final int MAX_FOOD_NAME_SUGGESTIONS = 50;
+
+    public FindDiaryService(DiaryRepository diaryRepository, DietRepository dietRepository, FoodRepository foodRepository, WriterRepository writerRepository,
+                            FoodNameIndex foodNameIndex) {
         this.diaryRepository = diaryRepository;
         this.dietRepository = dietRepository;
         this.foodRepository = foodRepository;
         this.writerRepository = writerRepository;
+        this.foodNameIndex = foodNameIndex;
+    }
+
+    /**
+     * 음식 이름 자동 완성. 작성자가 먹었던 음식 중 prefix 로 시작하는 이름을 많이 먹은 순으로 돌려준다.
+     * 한글은 자모 단위로 비교하므로 입력 중인 글자("김치ㅉ")로도 찾을 수 있다.
+     * 키 입력마다 불리므로 트랜잭션을 열지 않는다. 색인이 이미 있으면 db 커넥션도 쓰지 않는다.
+     */
+    public List<String> suggestFoodNames(EntityId<Writer, Long> writerEntityId, String prefix, int limit) {
+        checkNotNull(writerEntityId, "writerId must be provided");
+        checkArgument(prefix != null && !prefix.trim().isEmpty(), "prefix must be provided");
+        checkArgument(limit > 0 && limit <= MAX_FOOD_NAME_SUGGESTIONS, "limit must be between 1 and " + MAX_FOOD_NAME_SUGGESTIONS);
+        return foodNameIndex.suggest(writerEntityId.getId(), prefix, limit);
+    }
+
+    /**
+     * @return 작성자의 데이터 버전. 일지, 식단, 음식이 바뀔 때마다 커진다. 조회 응답의 ETag 를 만드는 데 쓰인다.
+     */
+    @Transactional(readOnly = true)
+    public Long getDataVersionOfWriter(EntityId<Writer, Long> writerEntityId) {
+        checkNotNull(writerEntityId, "writerId must be provided");
+        return writerRepository.findDataVersion(writerEntityId.getId());
     }
 
+    @Coalesced
     @Transactional(readOnly = true)
     public List<DiabetesDiary> getDiabetesDiariesOfWriter(EntityId<Writer, Long> writerEntityId) {
         logger.info("getDiabetesDiariesOfWriter");
@@ -73,6 +106,7 @@ public class FindDiaryService {
         return diaryRepository.findDiabetesDiaryWithSubEntitiesOfWriter(writerEntityId.getId(), diabetesDiaryEntityId.getId()).orElseThrow(() -> new NoResultException("작성자의 일지 중, id에 해당하는 일지가 없습니다."));
     }
 
+    @Coalesced
     @Transactional(readOnly = true)
     public List<DiabetesDiary> getDiabetesDiariesWithSubEntitiesOfWriter(EntityId<Writer, Long> writerEntityId) {
         logger.info("getDiabetesDiariesOfWriterWithRelation");
@@ -80,6 +114,7 @@ public class FindDiaryService {
         return diaryRepository.findDiabetesDiariesWithSubEntitiesOfWriter(writerEntityId.getId(), new ArrayList<>());
     }
 
+    @Coalesced
     @Transactional(readOnly = true)
     public List<DiabetesDiary> getDiariesWithRelationBetweenTime(EntityId<Writer, Long> writerEntityId, FromStartUntilEnd startUntilEnd) {
         logger.info("getDiariesWithRelationBetweenTime");
@@ -91,6 +126,7 @@ public class FindDiaryService {
         return diaryRepository.findDiabetesDiariesWithSubEntitiesOfWriter(writerEntityId.getId(), predicates);
     }
 
+    @Coalesced
     @Transactional(readOnly = true)
     public List<DiabetesDiary> getDiariesBetweenLocalDateTime(EntityId<Writer, Long> writerEntityId, FromStartUntilEnd startUntilEnd) {
         logger.info("get Diaries Between LocalDateTime");
@@ -102,6 +138,7 @@ public class FindDiaryService {
         return diaryRepository.findDiariesWithWhereClause(writerEntityId.getId(), predicates);
     }
 
+    @Coalesced
     @Transactional(readOnly = true)
     public Double getAverageFpg(EntityId<Writer, Long> writerEntityId) {
         logger.info("getAverageFpg");
@@ -109,6 +146,7 @@ public class FindDiaryService {
         return diaryRepository.findAverageFpg(writerEntityId.getId(), new ArrayList<>()).orElseThrow(NoResultException::new);
     }
 
+    @Coalesced
     @Transactional(readOnly = true)
     public Double getAverageFpgBetween(EntityId<Writer, Long> writerEntityId, FromStartUntilEnd startUntilEnd) {
         logger.info("getAverageFpgBetween");
@@ -120,6 +158,7 @@ public class FindDiaryService {
     }
 
 
+    @Coalesced
     @Transactional(readOnly = true)
     public double getAverageBloodSugarOfDietWithWhereClause(EntityId<Writer, Long> writerEntityId) {
         logger.info("getAverageBloodSugarOfDiet");
@@ -127,6 +166,7 @@ public class FindDiaryService {
         return dietRepository.findAverageBloodSugarOfDietWithWhereClause(writerEntityId.getId(), new ArrayList<>()).orElseThrow(() -> new IllegalStateException("아직 혈당을 기록한 식단이 없습니다."));
     }
 
+    @Coalesced
     @Transactional(readOnly = true)
     public double getAverageBloodSugarOfDietBetweenTime(EntityId<Writer, Long> writerEntityId, FromStartUntilEnd startUntilEnd) {
         logger.info("getAverageBloodSugarOfDietBetweenTime");
@@ -139,6 +179,7 @@ public class FindDiaryService {
         return dietRepository.findAverageBloodSugarOfDietWithWhereClause(writerEntityId.getId(), predicates).orElseThrow(NoResultException::new);
     }
 
+    @Coalesced
     @Transactional(readOnly = true)
     public List<Tuple> getAverageBloodSugarWithWhereClauseGroupByEatTime(EntityId<Writer, Long> writerEntityId) {
         logger.info("getAverageBloodSugarGroupByEatTime");
@@ -146,6 +187,7 @@ public class FindDiaryService {
         return dietRepository.findAverageBloodSugarWithWhereClauseGroupByEatTime(writerEntityId.getId(), new ArrayList<>());
     }
 
+    @Coalesced
     @Transactional(readOnly = true)
     public List<Tuple> getAverageBloodSugarGroupByEatTimeBetweenTime(EntityId<Writer, Long> writerEntityId, FromStartUntilEnd startUntilEnd) {
         logger.info("getAverageBloodSugarGroupByEatTimeBetweenTime");
@@ -157,6 +199,52 @@ public class FindDiaryService {
         return dietRepository.findAverageBloodSugarWithWhereClauseGroupByEatTime(writerEntityId.getId(), predicates);
     }
 
+    /**
+     * 차트용 열 단위 데이터. 엔티티를 만들지 않고 (작성 시간, 공복 혈당) 두 컬럼만 읽는다.
+     */
+    @Coalesced
+    @Transactional(readOnly = true)
+    public ChartSeries getFpgSeriesOfWriter(EntityId<Writer, Long> writerEntityId) {
+        logger.info("getFpgSeriesOfWriter");
+        checkNotNull(writerEntityId, "writerId must be provided");
+        return ChartSeries.fromFpgRows(diaryRepository.findFpgSeriesOfWriter(writerEntityId.getId(), new ArrayList<>()));
+    }
+
+    @Coalesced
+    @Transactional(readOnly = true)
+    public ChartSeries getFpgSeriesBetweenTime(EntityId<Writer, Long> writerEntityId, FromStartUntilEnd startUntilEnd) {
+        logger.info("getFpgSeriesBetweenTime");
+        checkNotNull(writerEntityId, "writerId must be provided");
+        checkArgument(isStartDateEqualOrBeforeEndDate(startUntilEnd.getStartDate(), startUntilEnd.getEndDate()), "startDate must be equal or before than endDate");
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(decideBetweenTimeInDiary(startUntilEnd.getStartDate(), startUntilEnd.getEndDate()));
+        return ChartSeries.fromFpgRows(diaryRepository.findFpgSeriesOfWriter(writerEntityId.getId(), predicates));
+    }
+
+    /**
+     * 차트용 열 단위 데이터. 엔티티를 만들지 않고 (작성 시간, 식사 시간, 식사 혈당) 세 컬럼만 읽는다.
+     */
+    @Coalesced
+    @Transactional(readOnly = true)
+    public ChartSeries getBloodSugarSeriesOfWriter(EntityId<Writer, Long> writerEntityId) {
+        logger.info("getBloodSugarSeriesOfWriter");
+        checkNotNull(writerEntityId, "writerId must be provided");
+        return ChartSeries.fromBloodSugarRows(dietRepository.findBloodSugarSeriesOfWriter(writerEntityId.getId(), new ArrayList<>()));
+    }
+
+    @Coalesced
+    @Transactional(readOnly = true)
+    public ChartSeries getBloodSugarSeriesBetweenTime(EntityId<Writer, Long> writerEntityId, FromStartUntilEnd startUntilEnd) {
+        logger.info("getBloodSugarSeriesBetweenTime");
+        checkNotNull(writerEntityId, "writerId must be provided");
+        checkArgument(isStartDateEqualOrBeforeEndDate(startUntilEnd.getStartDate(), startUntilEnd.getEndDate()), "startDate must be equal or before than endDate");
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(decideBetweenTimeInDiet(startUntilEnd.getStartDate(), startUntilEnd.getEndDate()));
+        return ChartSeries.fromBloodSugarRows(dietRepository.findBloodSugarSeriesOfWriter(writerEntityId.getId(), predicates));
+    }
+
     @Transactional(readOnly = true)
     public Page<FoodBoardDTO> getFoodByPagination(EntityId<Writer, Long> writerEntityId, FoodPageVO foodPageVO) {
         logger.info("getFoodByPagination");
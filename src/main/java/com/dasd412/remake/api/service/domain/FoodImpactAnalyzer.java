@@ -0,0 +1,292 @@
+/*
+ * @(#)FoodImpactAnalyzer.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.service.domain.vo.FoodImpact;
+import com.google.common.primitives.ImmutableIntArray;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * 작성자의 (식단, 식사 혈당, 음식)을 열 단위 배열로 들고, 음식마다 그 음식이 들어간 식단과 아닌 식단의 평균 식사 혈당을 비교한다.
+ * 음식 이름은 만들 때 0 부터의 번호로 바꾸므로, 집계는 (식단 번호, 음식 번호) 정수 쌍 배열만 훑는다.
+ * 음식 별 (개수, 합, 제곱 합)은 쌍 배열을 나눠 ForkJoinPool 에서 따로 더한 뒤 합친다. 나머지 식단은 전체 합에서 빼서 구하므로 음식마다 식단을 다시 훑지 않는다.
+ * <p>
+ * 만든 뒤에는 바뀌지 않으므로 여러 스레드가 읽어도 된다.
+ */
+public final class FoodImpactAnalyzer {
+
+    /**
+     * 작업 하나가 맡는 쌍의 최소 개수. 이보다 잘게 나누면 나누고 합치는 비용이 더 크다.
+     */
+    private static final int MINIMUM_SPLIT = 8_192;
+
+    /**
+     * 정규 분포의 97.5 번째 백분위수
+     */
+    private static final double Z_975 = 1.959963984540054;
+
+    /**
+     * 자유도 1 인 t 분포의 97.5 번째 백분위수. 자유도가 2 보다 작으면 근사식 대신 이 값을 쓴다. (구간이 넓어지는 쪽)
+     */
+    private static final double T_975_ONE_DEGREE = 12.706204736174698;
+
+    /**
+     * 식단 번호 -> 식사 혈당
+     */
+    private final int[] bloodSugarOfDiet;
+
+    /**
+     * i 번째 (식단, 음식) 쌍. 같은 쌍은 한 번만 들어 있다.
+     */
+    private final int[] dietOfPair;
+
+    private final int[] foodOfPair;
+
+    /**
+     * 음식 번호 -> 음식 이름
+     */
+    private final List<String> foodNames;
+
+    private FoodImpactAnalyzer(int[] bloodSugarOfDiet, int[] dietOfPair, int[] foodOfPair, List<String> foodNames) {
+        this.bloodSugarOfDiet = bloodSugarOfDiet;
+        this.dietOfPair = dietOfPair;
+        this.foodOfPair = foodOfPair;
+        this.foodNames = foodNames;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getDietCount() {
+        return bloodSugarOfDiet.length;
+    }
+
+    /**
+     * @param minOccurrence 이 수 이상의 식단에 들어간 음식만 결과에 넣는다. (2 이상)
+     * @return 혈당을 많이 올린 순(difference 내림차순, 같으면 이름 순). 비교할 나머지 식단이 두 개보다 적은 음식은 빠진다.
+     */
+    public List<FoodImpact> analyze(ForkJoinPool pool, int minOccurrence) {
+        checkArgument(minOccurrence >= 2, "minOccurrence must be 2 or more to estimate variance");
+
+        long dietCount = bloodSugarOfDiet.length;
+        long totalSum = 0;
+        long totalSquaredSum = 0;
+        for (int bloodSugar : bloodSugarOfDiet) {
+            totalSum += bloodSugar;
+            totalSquaredSum += (long) bloodSugar * bloodSugar;
+        }
+
+        int splitSize = Math.max(MINIMUM_SPLIT, dietOfPair.length / (pool.getParallelism() * 4));
+        FoodSums sums = pool.invoke(new FoodSumsTask(0, dietOfPair.length, splitSize));
+
+        List<FoodImpact> impacts = new ArrayList<>();
+        for (int food = 0; food < foodNames.size(); food++) {
+            long countWith = sums.count[food];
+            long countWithout = dietCount - countWith;
+            if (countWith < minOccurrence || countWithout < 2) {
+                continue;
+            }
+            impacts.add(compare(foodNames.get(food), countWith, sums.sum[food], sums.squaredSum[food],
+                    countWithout, totalSum - sums.sum[food], totalSquaredSum - sums.squaredSum[food]));
+        }
+
+        impacts.sort(Comparator.comparingDouble(FoodImpact::getDifference).reversed().thenComparing(FoodImpact::getFoodName));
+        return Collections.unmodifiableList(impacts);
+    }
+
+    /**
+     * 두 묶음의 평균 차이와 Welch 신뢰 구간. 분산이 같다고 가정하지 않는다.
+     */
+    private static FoodImpact compare(String foodName, long countWith, long sumWith, long squaredSumWith,
+                                      long countWithout, long sumWithout, long squaredSumWithout) {
+        double meanWith = (double) sumWith / countWith;
+        double meanWithout = (double) sumWithout / countWithout;
+
+        double errorWith = variance(countWith, sumWith, squaredSumWith) / countWith;
+        double errorWithout = variance(countWithout, sumWithout, squaredSumWithout) / countWithout;
+        double standardError = Math.sqrt(errorWith + errorWithout);
+
+        double margin = 0;
+        if (standardError > 0) {
+            double degreesOfFreedom = Math.pow(errorWith + errorWithout, 2)
+                    / (errorWith * errorWith / (countWith - 1) + errorWithout * errorWithout / (countWithout - 1));
+            margin = tQuantile975(degreesOfFreedom) * standardError;
+        }
+
+        double difference = meanWith - meanWithout;
+        return FoodImpact.builder()
+                .foodName(foodName)
+                .occurrence(countWith)
+                .meanWith(meanWith)
+                .meanWithout(meanWithout)
+                .lowerBound(difference - margin)
+                .upperBound(difference + margin)
+                .build();
+    }
+
+    /**
+     * 표본 분산. 합과 제곱 합은 정수로 정확하게 모았으므로 큰 수끼리 빼는 오차가 작다. (혈당은 1000 이하)
+     */
+    private static double variance(long count, long sum, long squaredSum) {
+        return Math.max(0, (count * (double) squaredSum - (double) sum * sum) / (count * (count - 1.0)));
+    }
+
+    /**
+     * t 분포 97.5 번째 백분위수의 Cornish-Fisher 근사. 자유도 2 이상에서 소수 둘째 자리까지 맞는다.
+     */
+    static double tQuantile975(double degreesOfFreedom) {
+        if (degreesOfFreedom < 2) {
+            return T_975_ONE_DEGREE;
+        }
+        double z = Z_975;
+        double z3 = z * z * z;
+        double z5 = z3 * z * z;
+        double z7 = z5 * z * z;
+        double z9 = z7 * z * z;
+
+        double g1 = (z3 + z) / 4;
+        double g2 = (5 * z5 + 16 * z3 + 3 * z) / 96;
+        double g3 = (3 * z7 + 19 * z5 + 17 * z3 - 15 * z) / 384;
+        double g4 = (79 * z9 + 776 * z7 + 1482 * z5 - 1920 * z3 - 945 * z) / 92160;
+
+        double v = degreesOfFreedom;
+        return z + g1 / v + g2 / (v * v) + g3 / (v * v * v) + g4 / (v * v * v * v);
+    }
+
+    /**
+     * 음식 번호 별 (식단 수, 혈당 합, 혈당 제곱 합)
+     */
+    private static final class FoodSums {
+
+        private final long[] count;
+
+        private final long[] sum;
+
+        private final long[] squaredSum;
+
+        private FoodSums(int foodCount) {
+            this.count = new long[foodCount];
+            this.sum = new long[foodCount];
+            this.squaredSum = new long[foodCount];
+        }
+
+        private FoodSums add(FoodSums other) {
+            for (int food = 0; food < count.length; food++) {
+                count[food] += other.count[food];
+                sum[food] += other.sum[food];
+                squaredSum[food] += other.squaredSum[food];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * 쌍 배열의 [from, until) 구간을 반씩 나눠 더한다. 나눈 한쪽은 fork 하고 다른 쪽은 지금 스레드가 직접 계산한다.
+     */
+    private final class FoodSumsTask extends RecursiveTask<FoodSums> {
+
+        private final int from;
+
+        private final int until;
+
+        private final int splitSize;
+
+        private FoodSumsTask(int from, int until, int splitSize) {
+            this.from = from;
+            this.until = until;
+            this.splitSize = splitSize;
+        }
+
+        @Override
+        protected FoodSums compute() {
+            if (until - from <= splitSize) {
+                FoodSums sums = new FoodSums(foodNames.size());
+                for (int pair = from; pair < until; pair++) {
+                    int food = foodOfPair[pair];
+                    long bloodSugar = bloodSugarOfDiet[dietOfPair[pair]];
+                    sums.count[food]++;
+                    sums.sum[food] += bloodSugar;
+                    sums.squaredSum[food] += bloodSugar * bloodSugar;
+                }
+                return sums;
+            }
+
+            int middle = (from + until) >>> 1;
+            FoodSumsTask left = new FoodSumsTask(from, middle, splitSize);
+            left.fork();
+            FoodSums right = new FoodSumsTask(middle, until, splitSize).compute();
+            return right.add(left.join());
+        }
+    }
+
+    /**
+     * DietRepository.iterateBloodSugarFoodsOfWriter() 의 행을 순서대로 받는다. 같은 식단의 행은 붙어서, 같은 식단 안의 같은 음식도 붙어서 와야 한다.
+     */
+    public static final class Builder {
+
+        private final ImmutableIntArray.Builder bloodSugarOfDiet = ImmutableIntArray.builder();
+
+        private final ImmutableIntArray.Builder dietOfPair = ImmutableIntArray.builder();
+
+        private final ImmutableIntArray.Builder foodOfPair = ImmutableIntArray.builder();
+
+        private final Map<String, Integer> indexOfFood = new HashMap<>();
+
+        private final List<String> foodNames = new ArrayList<>();
+
+        private int dietCount;
+
+        private Long lastDietId;
+
+        private String lastFoodName;
+
+        private Builder() {
+        }
+
+        /**
+         * @param foodName 음식이 없는 식단이면 null
+         */
+        public Builder add(long dietId, int bloodSugar, String foodName) {
+            if (lastDietId == null || lastDietId != dietId) {
+                bloodSugarOfDiet.add(bloodSugar);
+                dietCount++;
+                lastDietId = dietId;
+                lastFoodName = null;
+            }
+
+            /* 한 식단에 같은 음식을 두 번 적었으면 한 번으로 센다. */
+            if (foodName != null && !Objects.equals(foodName, lastFoodName)) {
+                dietOfPair.add(dietCount - 1);
+                foodOfPair.add(indexOfFood.computeIfAbsent(foodName, name -> {
+                    foodNames.add(name);
+                    return foodNames.size() - 1;
+                }));
+                lastFoodName = foodName;
+            }
+            return this;
+        }
+
+        public FoodImpactAnalyzer build() {
+            return new FoodImpactAnalyzer(bloodSugarOfDiet.build().toArray(), dietOfPair.build().toArray(), foodOfPair.build().toArray(),
+                    Collections.unmodifiableList(new ArrayList<>(foodNames)));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * @(#)FoodImpactService.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.config.singleflight.Coalesced;
+import com.dasd412.remake.api.domain.diary.EntityId;
+import com.dasd412.remake.api.domain.diary.diet.DietRepository;
+import com.dasd412.remake.api.domain.diary.diet.QDiet;
+import com.dasd412.remake.api.domain.diary.food.QFood;
+import com.dasd412.remake.api.domain.diary.writer.Writer;
+import com.dasd412.remake.api.domain.diary.writer.WriterRepository;
+import com.dasd412.remake.api.service.domain.vo.FoodImpact;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * 음식 별로 그 음식을 먹은 식단과 먹지 않은 식단의 평균 식사 혈당을 비교해서, 혈당을 많이 올린 음식 순으로 돌려준다.
+ * (식단 id, 식사 혈당, 음식 이름)을 커서로 한 번 읽어 FoodImpactAnalyzer 에 담고, 음식 별 집계는 전용 ForkJoinPool 에서 나눠서 한다.
+ * 음식마다 sql 을 날리지 않는다.
+ * <p>
+ * 결과는 작성자 별로 만들 때의 데이터 버전과 함께 들고 있다가, 조회할 때 현재 버전과 같으면 그대로 쓴다. (BloodSugarSketchIndex 와 같은 방식)
+ * 일지가 바뀌면 버전이 올라가므로 다음 조회에서 다시 만든다.
+ * diary.food-impact.min-occurrence 보다 적은 식단에 들어간 음식은 평균이 흔들리므로 빼고, diary.food-impact.parallelism 이 0 이면 cpu 수만큼 쓴다.
+ */
+@Service
+public class FoodImpactService {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final int MAXIMUM_SIZE = 10_000;
+
+    private static final long EXPIRE_MINUTES = 30;
+
+    public static final int MAX_FOOD_IMPACTS = 100;
+
+    private final WriterRepository writerRepository;
+
+    private final DietRepository dietRepository;
+
+    private final int minOccurrence;
+
+    /**
+     * cpu 만 쓰는 집계이므로 공용 풀(ForkJoinPool.commonPool) 대신 크기를 정할 수 있는 전용 풀을 쓴다. 병렬 스트림 등 다른 곳의 작업과 섞이지 않는다.
+     */
+    private final ForkJoinPool pool;
+
+    private final Cache<Long, WriterFoodImpacts> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterAccess(EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    public FoodImpactService(WriterRepository writerRepository, DietRepository dietRepository,
+                             @Value("${diary.food-impact.min-occurrence:5}") int minOccurrence,
+                             @Value("${diary.food-impact.parallelism:0}") int parallelism) {
+        checkArgument(minOccurrence >= 2, "min-occurrence must be 2 or more");
+        checkArgument(parallelism >= 0, "parallelism must be zero or positive");
+        this.writerRepository = writerRepository;
+        this.dietRepository = dietRepository;
+        this.minOccurrence = minOccurrence;
+        this.pool = new ForkJoinPool(parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * @return 혈당을 많이 올린 순으로 정렬한 음식 별 영향 중 앞의 limit 개. 기준 횟수 이상 먹은 음식만 들어 있다.
+     */
+    @Coalesced
+    @Transactional(readOnly = true)
+    public List<FoodImpact> getFoodImpacts(EntityId<Writer, Long> writerEntityId, int limit) {
+        logger.info("getFoodImpacts");
+        checkNotNull(writerEntityId, "writerId must be provided");
+        checkArgument(limit > 0 && limit <= MAX_FOOD_IMPACTS, "limit must be between 1 and " + MAX_FOOD_IMPACTS);
+
+        List<FoodImpact> impacts = rankedImpactsOf(writerEntityId.getId());
+        return impacts.subList(0, Math.min(limit, impacts.size()));
+    }
+
+    /**
+     * 작성자가 탈퇴했을 때 호출한다. (작성자 id 가 다시 쓰일 수 있다.)
+     */
+    public void invalidate(Long writerId) {
+        cache.invalidate(writerId);
+    }
+
+    private List<FoodImpact> rankedImpactsOf(Long writerId) {
+        Long dataVersion = writerRepository.findDataVersion(writerId);
+        if (dataVersion == null) {
+            return Collections.emptyList();
+        }
+
+        WriterFoodImpacts cached = cache.getIfPresent(writerId);
+        if (cached != null && cached.dataVersion == dataVersion) {
+            return cached.impacts;
+        }
+
+        FoodImpactAnalyzer.Builder builder = FoodImpactAnalyzer.builder();
+        try (CloseableIterator<Tuple> iterator = dietRepository.iterateBloodSugarFoodsOfWriter(writerId)) {
+            while (iterator.hasNext()) {
+                Tuple tuple = iterator.next();
+                builder.add(Objects.requireNonNull(tuple.get(QDiet.diet.dietId)), Objects.requireNonNull(tuple.get(QDiet.diet.bloodSugar)),
+                        tuple.get(QFood.food.foodName));
+            }
+        }
+        FoodImpactAnalyzer analyzer = builder.build();
+        List<FoodImpact> impacts = analyzer.analyze(pool, minOccurrence);
+
+        /* 읽는 사이에 커밋된 변경이 섞였을 수 있으면 이번 조회에만 쓰고 넣지 않는다. */
+        if (Objects.equals(writerRepository.findDataVersion(writerId), dataVersion)) {
+            cache.put(writerId, new WriterFoodImpacts(dataVersion, impacts));
+        }
+        logger.info("food impacts analyzed. diets : " + analyzer.getDietCount() + ", ranked foods : " + impacts.size());
+        return impacts;
+    }
+
+    private static final class WriterFoodImpacts {
+
+        private final long dataVersion;
+
+        private final List<FoodImpact> impacts;
+
+        private WriterFoodImpacts(long dataVersion, List<FoodImpact> impacts) {
+            this.dataVersion = dataVersion;
+            this.impacts = impacts;
+        }
+    }
+}
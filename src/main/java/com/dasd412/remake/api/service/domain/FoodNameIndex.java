@@ -0,0 +1,216 @@
+/*
+ * @(#)FoodNameIndex.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.domain.diary.food.FoodRepository;
+import com.dasd412.remake.api.domain.diary.food.QFood;
+import com.dasd412.remake.api.service.domain.vo.FoodNamesChangedEvent;
+import com.dasd412.remake.api.util.HangulJamo;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.querydsl.core.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 작성자 별 음식 이름 접두사 색인. 자동 완성에 쓰인다.
+ * 처음 조회할 때 작성자의 음식 이름을 한 번 읽어서 자모 키 순으로 정렬된 배열을 만들고, 이후에는 이진 탐색으로 찾는다.
+ * 음식이 추가되면 색인에 더하고, 음식이나 일지가 지워지면 색인을 버렸다가 다음 조회 때 다시 만든다.
+ * 둘 다 서비스가 발행한 FoodNamesChangedEvent 를 커밋된 뒤에 받아서 한다. 롤백된 이름이 색인에 남거나, 커밋 전에 버린 색인이 옛 값으로 다시 만들어지지 않는다.
+ * (주의) 색인은 인스턴스마다 따로 존재한다. 다른 인스턴스에서 추가한 이름은 색인을 만든 지 EXPIRE_MINUTES 가 지나 다시 읽을 때까지 보이지 않는다.
+ * 자주 조회되거나 이름이 계속 더해지는 색인도 만든 시각을 기준으로 다시 읽는다.
+ */
+@Component
+public class FoodNameIndex {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final int MAXIMUM_SIZE = 10_000;
+
+    /**
+     * 색인을 만든 뒤 다시 읽기까지의 시간. 이름을 더해도 늘어나지 않는다.
+     */
+    private static final long EXPIRE_MINUTES = 30;
+
+    private static final long EXPIRE_MILLIS = TimeUnit.MINUTES.toMillis(EXPIRE_MINUTES);
+
+    private final FoodRepository foodRepository;
+
+    private final Cache<Long, WriterFoodNames> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterWrite(EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    public FoodNameIndex(FoodRepository foodRepository) {
+        this.foodRepository = foodRepository;
+    }
+
+    /**
+     * @return prefix 로 시작하는 음식 이름을 많이 먹은 순으로 최대 limit 개
+     */
+    public List<String> suggest(Long writerId, String prefix, int limit) {
+        WriterFoodNames names = getOrLoad(writerId);
+        /* 이름을 더하면 캐시에 다시 쓰이므로 expireAfterWrite 만으로는 만료되지 않는다. 만든 시각으로 한 번 더 확인한다. */
+        if (names.isExpired(System.currentTimeMillis())) {
+            cache.asMap().remove(writerId, names);
+            names = getOrLoad(writerId);
+        }
+        return names.suggest(HangulJamo.decompose(prefix), limit);
+    }
+
+    /**
+     * 같은 작성자의 동시 조회는 한 번만 읽는다. db 조회는 캐시의 잠금 밖에서 Guava 의 로딩 대기로 처리된다.
+     */
+    private WriterFoodNames getOrLoad(Long writerId) {
+        try {
+            return cache.get(writerId, () -> load(writerId));
+        } catch (ExecutionException | UncheckedExecutionException exception) {
+            Throwables.throwIfUnchecked(exception.getCause());
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onFoodNamesChanged(FoodNamesChangedEvent event) {
+        if (event.isRemoved()) {
+            invalidate(event.getWriterId());
+        } else {
+            add(event.getWriterId(), event.getAdded());
+        }
+    }
+
+    /**
+     * 음식이 커밋된 뒤 호출한다. 아직 색인이 없는 작성자라면 아무것도 하지 않는다. (다음 조회 때 db 에서 읽는다.)
+     */
+    public void add(Long writerId, Collection<String> foodNames) {
+        if (foodNames.isEmpty()) {
+            return;
+        }
+        cache.asMap().computeIfPresent(writerId, (id, names) -> names.withAdded(foodNames));
+    }
+
+    /**
+     * 음식, 일지가 지워졌거나 작성자가 탈퇴했을 때 호출한다. 지워진 이름의 횟수를 알 수 없으므로 색인을 버린다.
+     */
+    public void invalidate(Long writerId) {
+        cache.invalidate(writerId);
+    }
+
+    private WriterFoodNames load(Long writerId) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Tuple tuple : foodRepository.findFoodNameCountsOfWriter(writerId)) {
+            counts.put(tuple.get(QFood.food.foodName), tuple.get(QFood.food.foodName.count()));
+        }
+        logger.info("food name index loaded. writer : " + writerId + ", names : " + counts.size());
+        return WriterFoodNames.of(counts);
+    }
+
+    /**
+     * 한 작성자의 음식 이름 색인. 불변 객체이며, 이름이 추가되면 새로 만든다. (작성자 당 이름 수는 많아야 수천 개다.)
+     */
+    static final class WriterFoodNames {
+
+        /**
+         * 접두사 하나에 대해 훑어보는 최대 개수. "ㄱ" 처럼 짧은 접두사에서 배열 전체를 훑지 않기 위함이다.
+         */
+        private static final int MAX_SCAN = 1_000;
+
+        /**
+         * db 에서 읽어 색인을 만든 시각. 이름을 더해도 바뀌지 않는다.
+         */
+        private final long loadedAt;
+
+        /**
+         * 자모 키. 오름차순 정렬되어 있다.
+         */
+        private final String[] keys;
+
+        private final String[] names;
+
+        private final long[] counts;
+
+        private WriterFoodNames(long loadedAt, String[] keys, String[] names, long[] counts) {
+            this.loadedAt = loadedAt;
+            this.keys = keys;
+            this.names = names;
+            this.counts = counts;
+        }
+
+        static WriterFoodNames of(Map<String, Long> countOfName) {
+            return of(countOfName, System.currentTimeMillis());
+        }
+
+        private static WriterFoodNames of(Map<String, Long> countOfName, long loadedAt) {
+            List<String> sortedNames = new ArrayList<>(countOfName.keySet());
+            Map<String, String> keyOfName = new HashMap<>(sortedNames.size());
+            sortedNames.forEach(name -> keyOfName.put(name, HangulJamo.decompose(name)));
+            sortedNames.sort(Comparator.comparing((String name) -> keyOfName.get(name)).thenComparing(Comparator.naturalOrder()));
+
+            String[] keys = new String[sortedNames.size()];
+            String[] names = new String[sortedNames.size()];
+            long[] counts = new long[sortedNames.size()];
+            for (int i = 0; i < sortedNames.size(); i++) {
+                names[i] = sortedNames.get(i);
+                keys[i] = keyOfName.get(names[i]);
+                counts[i] = countOfName.get(names[i]);
+            }
+            return new WriterFoodNames(loadedAt, keys, names, counts);
+        }
+
+        WriterFoodNames withAdded(Collection<String> foodNames) {
+            Map<String, Long> countOfName = new HashMap<>(names.length + foodNames.size());
+            for (int i = 0; i < names.length; i++) {
+                countOfName.put(names[i], counts[i]);
+            }
+            foodNames.forEach(name -> countOfName.merge(name, 1L, Long::sum));
+            return of(countOfName, loadedAt);
+        }
+
+        boolean isExpired(long now) {
+            return now - loadedAt >= EXPIRE_MILLIS;
+        }
+
+        List<String> suggest(String decomposedPrefix, int limit) {
+            int from = Arrays.binarySearch(keys, decomposedPrefix);
+            if (from < 0) {
+                from = -from - 1;
+            }
+            /* 자모 키가 같은 이름이 여럿일 수 있으므로 같은 키의 앞쪽으로 되돌아간다. */
+            while (from > 0 && keys[from - 1].equals(decomposedPrefix)) {
+                from--;
+            }
+
+            List<Integer> matched = new ArrayList<>();
+            for (int i = from; i < keys.length && matched.size() < MAX_SCAN && keys[i].startsWith(decomposedPrefix); i++) {
+                matched.add(i);
+            }
+
+            return matched.stream()
+                    .sorted(Comparator.<Integer>comparingLong(i -> counts[i]).reversed().thenComparing(i -> names[i]))
+                    .limit(limit)
+                    .map(i -> names[i])
+                    .collect(Collectors.toList());
+        }
+    }
+}
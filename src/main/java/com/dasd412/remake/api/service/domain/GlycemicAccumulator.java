@@ -0,0 +1,180 @@
+/*
+ * @(#)GlycemicAccumulator.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.service.domain.vo.GlycemicVariability;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * 시간 순으로 들어오는 혈당 값을 한 번만 보고 표준 편차, 변동 계수, 목표 범위 비율, MAGE 를 구한다.
+ * 값을 모아 두지 않으므로 값이 몇 개든 메모리는 필드 몇 개뿐이다. (GlycemicAccumulatorBenchmark)
+ * 평균과 분산은 Welford 방식으로 갱신해서 값이 많아져도 큰 수끼리 빼는 오차가 쌓이지 않는다.
+ * <p>
+ * MAGE 는 원래 전체 표준 편차를 먼저 구하고 그보다 큰 오르내림만 평균 낸다. 한 번에 읽으려면 표준 편차를 미리 알 수 없으므로,
+ * 꺾이는 점을 확정하는 시점까지의 표준 편차를 기준으로 쓴다. 값이 쌓일수록 전체 표준 편차에 가까워지지만, 기록 초반의 작은 오르내림이
+ * 원래 정의보다 더 들어갈 수 있다.
+ * 기준보다 작은 반대 방향 움직임은 꺾임으로 보지 않는다. (큰 상승 중간의 작은 하락 때문에 상승 하나가 둘로 쪼개지지 않게)
+ * 오르내림은 처음 기준을 넘은 방향(상승 또는 하강)만 센다.
+ * <p>
+ * 스레드 안전하지 않다. 요청 하나가 만들어 쓰고 버린다.
+ */
+public class GlycemicAccumulator {
+
+    /**
+     * 목표 범위 [lowerBound, upperBound] (mg/dL)
+     */
+    private final int lowerBound;
+
+    private final int upperBound;
+
+    private long count;
+
+    private double mean;
+
+    /**
+     * 평균과의 차이 제곱 합 (Welford)
+     */
+    private double squaredDistance;
+
+    private long belowRange;
+
+    private long aboveRange;
+
+    /**
+     * 마지막으로 확정된 꺾이는 점의 값. 처음에는 첫 값이다.
+     */
+    private double lastTurn;
+
+    /**
+     * 지금 방향으로 가장 멀리 간 값. 반대로 기준 이상 움직이면 꺾이는 점으로 확정된다.
+     */
+    private double extreme;
+
+    /**
+     * 1 : 오르는 중, -1 : 내려가는 중, 0 : 아직 모름
+     */
+    private int direction;
+
+    /**
+     * MAGE 에 넣는 방향. 처음 기준을 넘은 오르내림의 방향으로 정해진다.
+     */
+    private int excursionDirection;
+
+    private double excursionSum;
+
+    private long excursionCount;
+
+    public GlycemicAccumulator(int lowerBound, int upperBound) {
+        checkArgument(lowerBound <= upperBound, "lowerBound must be equal or less than upperBound");
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+    }
+
+    public void accept(int value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        squaredDistance += delta * (value - mean);
+
+        if (value < lowerBound) {
+            belowRange++;
+        } else if (value > upperBound) {
+            aboveRange++;
+        }
+
+        trackExcursion(value);
+    }
+
+    /**
+     * @return 지금까지 들어온 값의 요약. 누적은 계속할 수 있다.
+     */
+    public GlycemicVariability result() {
+        if (count == 0) {
+            return GlycemicVariability.empty();
+        }
+
+        double standardDeviation = standardDeviation();
+
+        /* 끝까지 한 방향으로 간 마지막 오르내림도 기준을 넘으면 넣는다. */
+        double sum = excursionSum;
+        long excursions = excursionCount;
+        double pending = extreme - lastTurn;
+        if (direction != 0 && Math.abs(pending) > standardDeviation && (excursionDirection == 0 || (pending > 0 ? 1 : -1) == excursionDirection)) {
+            sum += Math.abs(pending);
+            excursions++;
+        }
+
+        return GlycemicVariability.builder()
+                .count(count)
+                .mean(mean)
+                .standardDeviation(standardDeviation)
+                .coefficientOfVariation(mean == 0 ? null : standardDeviation / mean * 100)
+                .percentBelowRange(percentOf(belowRange))
+                .percentInRange(percentOf(count - belowRange - aboveRange))
+                .percentAboveRange(percentOf(aboveRange))
+                .mage(excursions == 0 ? null : sum / excursions)
+                .build();
+    }
+
+    private void trackExcursion(int value) {
+        if (count == 1) {
+            lastTurn = value;
+            extreme = value;
+            return;
+        }
+
+        if (direction == 0) {
+            if (value != extreme) {
+                direction = value > extreme ? 1 : -1;
+                extreme = value;
+            }
+            return;
+        }
+
+        if (direction > 0 ? value >= extreme : value <= extreme) {
+            extreme = value;
+            return;
+        }
+
+        double threshold = standardDeviation();
+        if (Math.abs(extreme - value) > threshold) {
+            addExcursion(extreme - lastTurn, threshold);
+            lastTurn = extreme;
+            extreme = value;
+            direction = -direction;
+        }
+    }
+
+    private void addExcursion(double amplitude, double threshold) {
+        if (Math.abs(amplitude) <= threshold) {
+            return;
+        }
+
+        int sign = amplitude > 0 ? 1 : -1;
+        if (excursionDirection == 0) {
+            excursionDirection = sign;
+        }
+        if (sign == excursionDirection) {
+            excursionSum += Math.abs(amplitude);
+            excursionCount++;
+        }
+    }
+
+    /**
+     * 표본 표준 편차. 값이 하나면 0 이다.
+     */
+    private double standardDeviation() {
+        return count < 2 ? 0 : Math.sqrt(squaredDistance / (count - 1));
+    }
+
+    private double percentOf(long part) {
+        return (double) part / count * 100;
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * @(#)GlycemicAnalyticsService.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.config.singleflight.Coalesced;
+import com.dasd412.remake.api.domain.diary.EntityId;
+import com.dasd412.remake.api.domain.diary.diabetesDiary.DiaryRepository;
+import com.dasd412.remake.api.domain.diary.diabetesDiary.QDiabetesDiary;
+import com.dasd412.remake.api.domain.diary.diet.DietRepository;
+import com.dasd412.remake.api.domain.diary.diet.EatTime;
+import com.dasd412.remake.api.domain.diary.diet.QDiet;
+import com.dasd412.remake.api.domain.diary.writer.Writer;
+import com.dasd412.remake.api.service.domain.vo.EstimatedHbA1cSeries;
+import com.dasd412.remake.api.service.domain.vo.FromStartUntilEnd;
+import com.dasd412.remake.api.service.domain.vo.GlycemicAnalytics;
+import com.dasd412.remake.api.service.domain.vo.GlycemicVariability;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.dasd412.remake.api.domain.diary.PredicateMaker.decideBetweenTimeInDiary;
+import static com.dasd412.remake.api.domain.diary.PredicateMaker.decideBetweenTimeInDiet;
+import static com.dasd412.remake.api.domain.diary.PredicateMaker.decideFromUntilTimeInDiary;
+import static com.dasd412.remake.api.domain.diary.PredicateMaker.decideFromUntilTimeInDiet;
+import static com.dasd412.remake.api.util.DateStringConverter.isStartDateEqualOrBeforeEndDate;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * 작성자의 혈당 기록으로 변동성(표준 편차, 변동 계수, 목표 범위 비율, MAGE)을 구한다.
+ * 일지와 식단을 펼친 행을 커서로 한 번만 읽으면서 묶음마다 GlycemicAccumulator 에 넣는다. 행을 리스트로 모으지 않으므로 힙에는 커서의 fetch size 만큼만 올라온다.
+ * 목표 범위는 diary.analytics.range-low, diary.analytics.range-high (기본 70 ~ 180 mg/dL) 이고 공복, 식후에 똑같이 쓴다.
+ * 식사 혈당의 분위수는 BloodSugarSketchIndex 의 월 별 히스토그램을 합쳐서 구한다.
+ * 추정 당화혈색소는 공복, 식사 혈당을 모두 넣은 최근 n 일 평균(diary.hba1c.window-days, 기본 30, 60, 90 일)으로 구한다.
+ */
+@Service
+public class GlycemicAnalyticsService {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * 추정 당화혈색소를 한 번에 구하는 최대 일 수 (3년). 일 수 x 기간 수 만큼 배열을 만들어 응답하므로 제한한다.
+     */
+    public static final int MAX_HBA1C_DAYS = 1_096;
+
+    private final DiaryRepository diaryRepository;
+
+    private final DietRepository dietRepository;
+
+    private final BloodSugarSketchIndex bloodSugarSketchIndex;
+
+    private final int rangeLow;
+
+    private final int rangeHigh;
+
+    private final int[] windowDays;
+
+    public GlycemicAnalyticsService(DiaryRepository diaryRepository, DietRepository dietRepository, BloodSugarSketchIndex bloodSugarSketchIndex,
+                                    @Value("${diary.analytics.range-low:70}") int rangeLow,
+                                    @Value("${diary.analytics.range-high:180}") int rangeHigh,
+                                    @Value("${diary.hba1c.window-days:30,60,90}") int[] windowDays) {
+        checkArgument(0 <= rangeLow && rangeLow <= rangeHigh, "range should be 0 <= low <= high");
+        checkArgument(windowDays.length > 0 && Arrays.stream(windowDays).allMatch(days -> days > 0), "window days must be positive");
+        this.diaryRepository = diaryRepository;
+        this.dietRepository = dietRepository;
+        this.bloodSugarSketchIndex = bloodSugarSketchIndex;
+        this.rangeLow = rangeLow;
+        this.rangeHigh = rangeHigh;
+        this.windowDays = windowDays.clone();
+    }
+
+    @Coalesced
+    @Transactional(readOnly = true)
+    public GlycemicAnalytics analyze(EntityId<Writer, Long> writerEntityId) {
+        logger.info("analyze glycemic variability");
+        checkNotNull(writerEntityId, "writerId must be provided");
+        return analyze(writerEntityId.getId(), new ArrayList<>());
+    }
+
+    @Coalesced
+    @Transactional(readOnly = true)
+    public GlycemicAnalytics analyzeBetween(EntityId<Writer, Long> writerEntityId, FromStartUntilEnd startUntilEnd) {
+        logger.info("analyze glycemic variability between");
+        checkNotNull(writerEntityId, "writerId must be provided");
+        checkNotNull(startUntilEnd, "startUntilEnd must be provided");
+        checkArgument(isStartDateEqualOrBeforeEndDate(startUntilEnd.getStartDate(), startUntilEnd.getEndDate()), "startDate must be equal or before than endDate");
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(decideBetweenTimeInDiary(startUntilEnd.getStartDate(), startUntilEnd.getEndDate()));
+        return analyze(writerEntityId.getId(), predicates);
+    }
+
+    /**
+     * @return 식사 시간 별 식사 혈당 히스토그램. 기록이 없는 식사 시간은 들어 있지 않다.
+     */
+    @Coalesced
+    @Transactional(readOnly = true)
+    public Map<EatTime, QuantileSketch> getBloodSugarSketches(EntityId<Writer, Long> writerEntityId) {
+        logger.info("getBloodSugarSketches");
+        checkNotNull(writerEntityId, "writerId must be provided");
+        return bloodSugarSketchIndex.merged(writerEntityId.getId(), null, null);
+    }
+
+    /**
+     * 기간 안에 온전히 들어가는 월은 BloodSugarSketchIndex 에서 합치고, 걸쳐 있는 앞뒤 월의 일부만 db 에서 센다.
+     * 따라서 기간이 길어져도 db 에서 세는 식단은 많아야 두 달 치이다.
+     */
+    @Coalesced
+    @Transactional(readOnly = true)
+    public Map<EatTime, QuantileSketch> getBloodSugarSketchesBetween(EntityId<Writer, Long> writerEntityId, FromStartUntilEnd startUntilEnd) {
+        logger.info("getBloodSugarSketchesBetween");
+        checkNotNull(writerEntityId, "writerId must be provided");
+        checkNotNull(startUntilEnd, "startUntilEnd must be provided");
+        checkArgument(isStartDateEqualOrBeforeEndDate(startUntilEnd.getStartDate(), startUntilEnd.getEndDate()), "startDate must be equal or before than endDate");
+
+        Long writerId = writerEntityId.getId();
+        LocalDateTime startDate = startUntilEnd.getStartDate();
+        LocalDateTime endDate = startUntilEnd.getEndDate();
+
+        YearMonth startMonth = YearMonth.from(startDate);
+        YearMonth firstWholeMonth = startDate.equals(startMonth.atDay(1).atStartOfDay()) ? startMonth : startMonth.plusMonths(1);
+        YearMonth endMonth = YearMonth.from(endDate);
+
+        if (!firstWholeMonth.isBefore(endMonth)) {
+            return countBloodSugars(writerId, decideBetweenTimeInDiet(startDate, endDate));
+        }
+
+        /* [startDate, firstWholeMonth) + [firstWholeMonth, endMonth) + [endMonth, endDate] */
+        Map<EatTime, QuantileSketch> merged = new EnumMap<>(EatTime.class);
+        merged.putAll(bloodSugarSketchIndex.merged(writerId, firstWholeMonth, endMonth));
+        if (startDate.isBefore(firstWholeMonth.atDay(1).atStartOfDay())) {
+            countBloodSugars(writerId, decideFromUntilTimeInDiet(startDate, firstWholeMonth.atDay(1).atStartOfDay()))
+                    .forEach((eatTime, sketch) -> merged.merge(eatTime, sketch, QuantileSketch::merge));
+        }
+        countBloodSugars(writerId, decideBetweenTimeInDiet(endMonth.atDay(1).atStartOfDay(), endDate))
+                .forEach((eatTime, sketch) -> merged.merge(eatTime, sketch, QuantileSketch::merge));
+        return merged;
+    }
+
+    /**
+     * 기간의 날마다 그 날까지 최근 n 일의 평균 혈당을 구한다.
+     * 첫 날의 가장 긴 기간이 시작하는 날부터 끝 날까지 혈당을 한 번의 쿼리로 날짜 순으로 읽으면서, RollingGlucoseWindows 로 하루씩 밀어 간다.
+     * 날 단위이므로 끝 날은 하루 전체를 넣는다.
+     */
+    @Coalesced
+    @Transactional(readOnly = true)
+    public EstimatedHbA1cSeries estimateHbA1cBetween(EntityId<Writer, Long> writerEntityId, FromStartUntilEnd startUntilEnd) {
+        logger.info("estimate HbA1c between");
+        checkNotNull(writerEntityId, "writerId must be provided");
+        checkNotNull(startUntilEnd, "startUntilEnd must be provided");
+        checkArgument(isStartDateEqualOrBeforeEndDate(startUntilEnd.getStartDate(), startUntilEnd.getEndDate()), "startDate must be equal or before than endDate");
+
+        LocalDate firstDay = startUntilEnd.getStartDate().toLocalDate();
+        LocalDate lastDay = startUntilEnd.getEndDate().toLocalDate();
+        checkArgument(ChronoUnit.DAYS.between(firstDay, lastDay) < MAX_HBA1C_DAYS, "period must be " + MAX_HBA1C_DAYS + " days or less");
+        LocalDate readFrom = firstDay.minusDays(Arrays.stream(windowDays).max().getAsInt() - 1);
+
+        int dayCount = (int) ChronoUnit.DAYS.between(firstDay, lastDay) + 1;
+        long[] timestamps = new long[dayCount];
+        Double[][] averageGlucose = new Double[windowDays.length][dayCount];
+        RollingGlucoseWindows windows = new RollingGlucoseWindows(windowDays);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(decideFromUntilTimeInDiary(readFrom.atStartOfDay(), lastDay.plusDays(1).atStartOfDay()));
+
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate day = readFrom;
+        try (CloseableIterator<Tuple> iterator = diaryRepository.iterateReadingsOfWriter(writerEntityId.getId(), predicates)) {
+            Long previousDiaryId = null;
+
+            while (iterator.hasNext()) {
+                Tuple tuple = iterator.next();
+
+                LocalDate writtenDay = Objects.requireNonNull(tuple.get(QDiabetesDiary.diabetesDiary.writtenTime)).toLocalDate();
+                for (; day.isBefore(writtenDay); day = day.plusDays(1)) {
+                    recordDay(day, firstDay, zone, windows, timestamps, averageGlucose);
+                    windows.nextDay();
+                }
+
+                Long diaryId = tuple.get(QDiabetesDiary.diabetesDiary.diaryId);
+                if (!Objects.equals(previousDiaryId, diaryId)) {
+                    windows.accept(Objects.requireNonNull(tuple.get(QDiabetesDiary.diabetesDiary.fastingPlasmaGlucose)));
+                    previousDiaryId = diaryId;
+                }
+
+                Integer bloodSugar = tuple.get(QDiet.diet.bloodSugar);
+                if (bloodSugar != null) {
+                    windows.accept(bloodSugar);
+                }
+            }
+        }
+
+        /* 마지막 기록 뒤로 남은 날에도 값이 있어야 하므로 끝 날까지 민다. */
+        for (; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            recordDay(day, firstDay, zone, windows, timestamps, averageGlucose);
+            windows.nextDay();
+        }
+
+        return new EstimatedHbA1cSeries(windowDays.clone(), timestamps, averageGlucose);
+    }
+
+    /**
+     * 기간의 첫 날 전이면 평균을 쌓기만 하고 기록하지 않는다.
+     */
+    private static void recordDay(LocalDate day, LocalDate firstDay, ZoneId zone, RollingGlucoseWindows windows, long[] timestamps, Double[][] averageGlucose) {
+        if (day.isBefore(firstDay)) {
+            return;
+        }
+        int index = (int) ChronoUnit.DAYS.between(firstDay, day);
+        timestamps[index] = day.atStartOfDay(zone).toInstant().toEpochMilli();
+        for (int window = 0; window < windows.getWindowCount(); window++) {
+            averageGlucose[window][index] = windows.average(window);
+        }
+    }
+
+    private Map<EatTime, QuantileSketch> countBloodSugars(Long writerId, Predicate predicate) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(predicate);
+
+        Map<EatTime, QuantileSketch.Builder> builders = new EnumMap<>(EatTime.class);
+        for (Tuple tuple : dietRepository.findBloodSugarHistogramOfWriter(writerId, predicates)) {
+            builders.computeIfAbsent(Objects.requireNonNull(tuple.get(QDiet.diet.eatTime)), key -> QuantileSketch.builder())
+                    .add(Objects.requireNonNull(tuple.get(QDiet.diet.bloodSugar)), Objects.requireNonNull(tuple.get(QDiet.diet.count())));
+        }
+
+        Map<EatTime, QuantileSketch> sketches = new EnumMap<>(EatTime.class);
+        builders.forEach((eatTime, builder) -> sketches.put(eatTime, builder.build()));
+        return sketches;
+    }
+
+    private GlycemicAnalytics analyze(Long writerId, List<Predicate> predicates) {
+        Accumulators accumulators = new Accumulators(rangeLow, rangeHigh);
+
+        try (CloseableIterator<Tuple> iterator = diaryRepository.iterateReadingsOfWriter(writerId, predicates)) {
+            Long previousDiaryId = null;
+
+            while (iterator.hasNext()) {
+                Tuple tuple = iterator.next();
+
+                /* 식단 수 만큼 같은 일지가 반복되므로 공복 혈당은 일지가 바뀔 때 한 번만 넣는다. */
+                Long diaryId = tuple.get(QDiabetesDiary.diabetesDiary.diaryId);
+                if (!Objects.equals(previousDiaryId, diaryId)) {
+                    accumulators.acceptFasting(Objects.requireNonNull(tuple.get(QDiabetesDiary.diabetesDiary.fastingPlasmaGlucose)));
+                    previousDiaryId = diaryId;
+                }
+
+                EatTime eatTime = tuple.get(QDiet.diet.eatTime);
+                Integer bloodSugar = tuple.get(QDiet.diet.bloodSugar);
+                if (eatTime != null && bloodSugar != null) {
+                    accumulators.acceptPostMeal(eatTime, bloodSugar);
+                }
+            }
+        }
+
+        GlycemicAnalytics analytics = accumulators.toAnalytics();
+        logger.info("analyzed readings : " + analytics.getOverall().getCount());
+        return analytics;
+    }
+
+    /**
+     * 묶음 별 GlycemicAccumulator. 식사 시간 수는 정해져 있으므로 기록이 늘어도 크기가 그대로다.
+     */
+    private static class Accumulators {
+
+        private final GlycemicAccumulator overall;
+
+        private final GlycemicAccumulator fasting;
+
+        private final GlycemicAccumulator postMeal;
+
+        private final Map<EatTime, GlycemicAccumulator> byEatTime = new EnumMap<>(EatTime.class);
+
+        private Accumulators(int rangeLow, int rangeHigh) {
+            this.overall = new GlycemicAccumulator(rangeLow, rangeHigh);
+            this.fasting = new GlycemicAccumulator(rangeLow, rangeHigh);
+            this.postMeal = new GlycemicAccumulator(rangeLow, rangeHigh);
+            for (EatTime eatTime : EatTime.values()) {
+                byEatTime.put(eatTime, new GlycemicAccumulator(rangeLow, rangeHigh));
+            }
+        }
+
+        private void acceptFasting(int fastingPlasmaGlucose) {
+            overall.accept(fastingPlasmaGlucose);
+            fasting.accept(fastingPlasmaGlucose);
+        }
+
+        private void acceptPostMeal(EatTime eatTime, int bloodSugar) {
+            overall.accept(bloodSugar);
+            postMeal.accept(bloodSugar);
+            byEatTime.get(eatTime).accept(bloodSugar);
+        }
+
+        private GlycemicAnalytics toAnalytics() {
+            Map<EatTime, GlycemicVariability> results = new EnumMap<>(EatTime.class);
+            byEatTime.forEach((eatTime, accumulator) -> results.put(eatTime, accumulator.result()));
+            return new GlycemicAnalytics(overall.result(), fasting.result(), postMeal.result(), results);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * @(#)QuantileSketch.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * 정수 혈당 값의 분위수를 구하기 위한 히스토그램. (값, 개수)를 값 순으로 들고 있다.
+ * 혈당은 0 ~ 1000 의 정수이므로 값이 아무리 많아도 크기는 서로 다른 값의 수(최대 1001)를 넘지 않고, t-digest 나 KLL 과 달리 오차가 없다.
+ * 두 히스토그램은 정렬된 배열을 한 번 훑어서 합친다. 따라서 월 별로 만들어 둔 것을 기간에 맞게 합치면 값을 정렬하지 않고도 분위수를 구할 수 있다.
+ * 불변 객체이다.
+ */
+public final class QuantileSketch {
+
+    private static final QuantileSketch EMPTY = new QuantileSketch(new int[0], new long[0], 0);
+
+    /**
+     * 오름차순, 중복 없음
+     */
+    private final int[] values;
+
+    private final long[] counts;
+
+    private final long total;
+
+    private QuantileSketch(int[] values, long[] counts, long total) {
+        this.values = values;
+        this.counts = counts;
+        this.total = total;
+    }
+
+    public static QuantileSketch empty() {
+        return EMPTY;
+    }
+
+    public static QuantileSketch of(int... values) {
+        Builder builder = builder();
+        for (int value : values) {
+            builder.add(value, 1);
+        }
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public long getCount() {
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (this.isEmpty()) {
+            return other;
+        }
+
+        int[] mergedValues = new int[values.length + other.values.length];
+        long[] mergedCounts = new long[mergedValues.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < values.length || j < other.values.length) {
+            if (j == other.values.length || (i < values.length && values[i] < other.values[j])) {
+                mergedValues[size] = values[i];
+                mergedCounts[size++] = counts[i++];
+            } else if (i == values.length || other.values[j] < values[i]) {
+                mergedValues[size] = other.values[j];
+                mergedCounts[size++] = other.counts[j++];
+            } else {
+                mergedValues[size] = values[i];
+                mergedCounts[size++] = counts[i++] + other.counts[j++];
+            }
+        }
+        return new QuantileSketch(Arrays.copyOf(mergedValues, size), Arrays.copyOf(mergedCounts, size), total + other.total);
+    }
+
+    /**
+     * 값을 정렬했을 때의 q 분위수. 두 순위 사이에 걸리면 선형 보간한다. (엑셀 PERCENTILE.INC 와 같은 방식)
+     *
+     * @param q 0 이상 1 이하. 0.5 이면 중앙값
+     */
+    public double quantile(double q) {
+        checkArgument(0 <= q && q <= 1, "q must be between 0 and 1");
+        checkState(!isEmpty(), "sketch is empty");
+
+        double rank = (total - 1) * q;
+        long lowerRank = (long) Math.floor(rank);
+
+        long cumulative = 0;
+        for (int i = 0; i < values.length; i++) {
+            cumulative += counts[i];
+            if (cumulative > lowerRank) {
+                /* 바로 다음 순위가 같은 값에 속하면 보간할 필요가 없다. */
+                if (cumulative > lowerRank + 1 || i == values.length - 1) {
+                    return values[i];
+                }
+                return values[i] + (rank - lowerRank) * (values[i + 1] - values[i]);
+            }
+        }
+        throw new IllegalStateException("rank is out of sketch");
+    }
+
+    /**
+     * 순서 없이 들어오는 (값, 개수)를 모아 QuantileSketch 를 만든다.
+     */
+    public static final class Builder {
+
+        private final TreeMap<Integer, Long> countOfValue = new TreeMap<>();
+
+        private Builder() {
+        }
+
+        public Builder add(int value, long count) {
+            checkArgument(count >= 0, "count must be zero or positive");
+            if (count > 0) {
+                countOfValue.merge(value, count, Long::sum);
+            }
+            return this;
+        }
+
+        public QuantileSketch build() {
+            if (countOfValue.isEmpty()) {
+                return EMPTY;
+            }
+
+            int[] values = new int[countOfValue.size()];
+            long[] counts = new long[values.length];
+            long total = 0;
+            int i = 0;
+            for (Map.Entry<Integer, Long> entry : countOfValue.entrySet()) {
+                values[i] = entry.getKey();
+                counts[i++] = entry.getValue();
+                total += entry.getValue();
+            }
+            return new QuantileSketch(values, counts, total);
+        }
+    }
+}
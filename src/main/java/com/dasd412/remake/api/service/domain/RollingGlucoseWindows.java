@@ -0,0 +1,96 @@
+/*
+ * @(#)RollingGlucoseWindows.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * 날짜 순으로 들어오는 혈당 값으로 "오늘까지 최근 n 일" 평균을 여러 n 에 대해 동시에 구한다.
+ * 가장 긴 기간만큼의 일 별 (합, 개수)를 원형 버퍼에 두고, 기간마다 합과 개수를 하나씩 유지한다.
+ * 하루가 지나면 기간마다 빠지는 날 하나만 빼므로 날짜가 몇 일이든 하루에 기간 수만큼만 계산한다. (기간을 매일 다시 더하지 않는다.)
+ * <p>
+ * 스레드 안전하지 않다. 요청 하나가 만들어 쓰고 버린다.
+ */
+public class RollingGlucoseWindows {
+
+    private final int[] windowDays;
+
+    /**
+     * 일 별 혈당 합. 인덱스 today 가 오늘이고, 그 앞으로 갈수록 지난 날이다.
+     */
+    private final long[] sumOfDay;
+
+    private final int[] countOfDay;
+
+    private final long[] sumOfWindow;
+
+    private final long[] countOfWindow;
+
+    private int today;
+
+    /**
+     * @param windowDays 평균 낼 기간(일). 오늘을 포함한다.
+     */
+    public RollingGlucoseWindows(int... windowDays) {
+        checkArgument(windowDays.length > 0, "at least one window is needed");
+        checkArgument(Arrays.stream(windowDays).allMatch(days -> days > 0), "window must be positive days");
+
+        this.windowDays = windowDays.clone();
+        int capacity = Arrays.stream(windowDays).max().getAsInt();
+        this.sumOfDay = new long[capacity];
+        this.countOfDay = new int[capacity];
+        this.sumOfWindow = new long[windowDays.length];
+        this.countOfWindow = new long[windowDays.length];
+    }
+
+    /**
+     * 오늘 기록된 혈당 값을 더한다.
+     */
+    public void accept(int bloodSugar) {
+        sumOfDay[today] += bloodSugar;
+        countOfDay[today]++;
+        for (int i = 0; i < windowDays.length; i++) {
+            sumOfWindow[i] += bloodSugar;
+            countOfWindow[i]++;
+        }
+    }
+
+    /**
+     * 다음 날로 넘어간다. 기간마다 맨 앞의 하루가 빠진다.
+     */
+    public void nextDay() {
+        for (int i = 0; i < windowDays.length; i++) {
+            int leaving = Math.floorMod(today - windowDays[i] + 1, sumOfDay.length);
+            sumOfWindow[i] -= sumOfDay[leaving];
+            countOfWindow[i] -= countOfDay[leaving];
+        }
+
+        /* 새 날의 칸은 가장 긴 기간에서 방금 빠진 날의 칸이다. */
+        today = (today + 1) % sumOfDay.length;
+        sumOfDay[today] = 0;
+        countOfDay[today] = 0;
+    }
+
+    public int getWindowCount() {
+        return windowDays.length;
+    }
+
+    /**
+     * @param window 생성자에 넘긴 기간의 순서
+     * @return 오늘까지 그 기간의 평균 혈당. 기간 안에 기록이 없으면 null
+     */
+    public Double average(int window) {
+        if (countOfWindow[window] == 0) {
+            return null;
+        }
+        return (double) sumOfWindow[window] / countOfWindow[window];
+    }
+}
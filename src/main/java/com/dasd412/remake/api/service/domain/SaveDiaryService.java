@@ -10,27 +10,46 @@ package com.dasd412.remake.api.service.domain;
 
 import com.dasd412.remake.api.config.security.auth.PrincipalDetails;
 import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityDiaryPostRequestDTO;
+import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityFoodDTO;
 import com.dasd412.remake.api.domain.diary.EntityId;
 import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
-import com.dasd412.remake.api.domain.diary.diabetesDiary.DiaryRepository;
 import com.dasd412.remake.api.domain.diary.diet.Diet;
-import com.dasd412.remake.api.domain.diary.diet.DietRepository;
 import com.dasd412.remake.api.domain.diary.diet.EatTime;
+import com.dasd412.remake.api.domain.diary.food.AmountUnit;
 import com.dasd412.remake.api.domain.diary.food.Food;
-import com.dasd412.remake.api.domain.diary.food.FoodRepository;
+import com.dasd412.remake.api.domain.diary.food.FoodNameDictionary;
+import com.dasd412.remake.api.domain.diary.food.ResolvedFoodNames;
 import com.dasd412.remake.api.domain.diary.profile.DiabetesPhase;
 import com.dasd412.remake.api.domain.diary.profile.Profile;
 import com.dasd412.remake.api.domain.diary.profile.ProfileRepository;
 import com.dasd412.remake.api.domain.diary.writer.Writer;
 import com.dasd412.remake.api.domain.diary.writer.WriterRepository;
+import com.dasd412.remake.api.service.domain.vo.DiaryBatchResult;
+import com.dasd412.remake.api.service.domain.vo.DiaryChangedEvent;
+import com.dasd412.remake.api.service.domain.vo.DiaryImportRow;
+import com.dasd412.remake.api.service.domain.vo.DiaryReading;
+import com.dasd412.remake.api.service.domain.vo.FoodNamesChangedEvent;
 import com.dasd412.remake.api.util.DateStringJoiner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
+import javax.persistence.PersistenceContext;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -39,17 +58,45 @@ public class SaveDiaryService {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private final WriterRepository writerRepository;
-    private final DiaryRepository diaryRepository;
-    private final DietRepository dietRepository;
-    private final FoodRepository foodRepository;
     private final ProfileRepository profileRepository;
 
-    public SaveDiaryService(WriterRepository writerRepository, DiaryRepository diaryRepository, DietRepository dietRepository, FoodRepository foodRepository, ProfileRepository profileRepository) {
+    /**
+     * 음식 엔티티에 넣을 FoodName 을 얻는다. 이름들의 사전 id 는 이 트랜잭션 안에서 정해진다.
+     */
+    private final FoodNameDictionary foodNameDictionary;
+
+    /**
+     * 일지, 식단, 음식의 식별자 구간을 카운터에서 배정받는다.
+     */
+    private final DiaryIdAllocator diaryIdAllocator;
+
+    /**
+     * 커밋된 뒤 열려 있는 차트 화면에 알리기 위해 DiaryChangedEvent 를 발행한다. (ChartUpdateBroadcaster)
+     * 음식 이름 색인(FoodNameIndex)도 커밋된 뒤에 바뀌도록 FoodNamesChangedEvent 로 알린다.
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 가져오기는 repository.save()(merge) 대신 persist 로 저장한다.
+     * 식별자를 직접 넣는 엔티티를 save() 하면 엔티티마다 select 가 먼저 나가서 배치 insert 가 되지 않는다.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 일지 하나에 딸린 식단 수 (아침, 점심, 저녁)
+     */
+    private static final int DIETS_PER_DIARY = 3;
+
+    private static final DateTimeFormatter IMPORT_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public SaveDiaryService(WriterRepository writerRepository, ProfileRepository profileRepository,
+                            FoodNameDictionary foodNameDictionary, DiaryIdAllocator diaryIdAllocator, ApplicationEventPublisher eventPublisher) {
         this.writerRepository = writerRepository;
-        this.diaryRepository = diaryRepository;
-        this.dietRepository = dietRepository;
-        this.foodRepository = foodRepository;
         this.profileRepository = profileRepository;
+        this.foodNameDictionary = foodNameDictionary;
+        this.diaryIdAllocator = diaryIdAllocator;
+        this.eventPublisher = eventPublisher;
     }
 
 
@@ -61,24 +108,174 @@ public class SaveDiaryService {
         logger.info("post diary in service logic");
         checkNotNull(principalDetails, "principalDetails must be provided");
 
-        Writer writer = writerRepository.findById(principalDetails.getWriter().getId()).orElseThrow(() -> new NoResultException("작성자가 없습니다."));
+        /* 작성자 엔티티는 외래 키로만 쓰이므로 조회하지 않고 프록시(getReference)만 얻는다. */
+        Writer writer = writerRepository.getOne(principalDetails.getWriter().getId());
+
+        List<String> requestedFoodNames = foodNamesOf(dto.getBreakFastFoods(), dto.getLunchFoods(), dto.getDinnerFoods());
+        ResolvedFoodNames foodNames = foodNameDictionary.resolve(requestedFoodNames);
+        DiaryIdSequence ids = reserveIds(1, DIETS_PER_DIARY, requestedFoodNames.size());
+        DiabetesDiary diary = makeDiaryWithEntities(writer, dto, ids, foodNames);
 
+        /* writer.addDiary()를 거치면 프록시 초기화와 함께 작성자의 일지 컬렉션 전체가 로딩된다. 일지부터 저장하여 식단, 음식까지 cascade 한다. */
+        entityManager.persist(diary);
+        eventPublisher.publishEvent(FoodNamesChangedEvent.added(principalDetails.getWriter().getId(), collectFoodNames(diary)));
+        long dataVersion = writerRepository.increaseDataVersion(principalDetails.getWriter().getId());
+        eventPublisher.publishEvent(DiaryChangedEvent.saved(principalDetails.getWriter().getId(), dataVersion, Collections.singletonList(DiaryReading.of(diary))));
+
+        return diary.getId();
+    }
+
+    /**
+     * 여러 일지를 트랜잭션 하나로 저장한다. (오프라인 동기화용)
+     * 작성자 프록시 조회와 식별자 구간 배정은 한 번만 하고, insert 는 flush 시점에 배치로 나간다.
+     * 엔티티 생성자의 검증에 실패한 항목은 건너뛰고 결과에 사유를 남긴다. 나머지 항목은 저장된다.
+     *
+     * @return 요청 순서와 같은 순서의 항목 별 결과
+     */
+    @Transactional
+    public List<DiaryBatchResult> postDiaries(PrincipalDetails principalDetails, List<SecurityDiaryPostRequestDTO> dtoList) {
+        logger.info("post diaries in service logic. size : " + dtoList.size());
+        checkNotNull(principalDetails, "principalDetails must be provided");
+
+        Writer writer = writerRepository.getOne(principalDetails.getWriter().getId());
+
+        /* 음식 이름의 사전 id 를 한 번에 정해 둔다. */
+        List<String> requestedFoodNames = new ArrayList<>();
+        dtoList.forEach(dto -> requestedFoodNames.addAll(foodNamesOf(dto.getBreakFastFoods(), dto.getLunchFoods(), dto.getDinnerFoods())));
+        ResolvedFoodNames resolvedFoodNames = foodNameDictionary.resolve(requestedFoodNames);
+        DiaryIdSequence ids = reserveIds(dtoList.size(), dtoList.size() * DIETS_PER_DIARY, requestedFoodNames.size());
+
+        List<DiaryBatchResult> results = new ArrayList<>(dtoList.size());
+        List<String> foodNames = new ArrayList<>();
+        List<DiaryReading> readings = new ArrayList<>();
+        for (int i = 0; i < dtoList.size(); i++) {
+            DiabetesDiary diary;
+            try {
+                diary = makeDiaryWithEntities(writer, dtoList.get(i), ids, resolvedFoodNames);
+            } catch (IllegalArgumentException | NullPointerException | DateTimeException e) {
+                results.add(DiaryBatchResult.failure(i, e.getMessage()));
+                continue;
+            }
+            entityManager.persist(diary);
+            foodNames.addAll(collectFoodNames(diary));
+            readings.add(DiaryReading.of(diary));
+            results.add(DiaryBatchResult.success(i, diary.getId()));
+        }
+
+        eventPublisher.publishEvent(FoodNamesChangedEvent.added(principalDetails.getWriter().getId(), foodNames));
+        if (!readings.isEmpty()) {
+            long dataVersion = writerRepository.increaseDataVersion(principalDetails.getWriter().getId());
+            eventPublisher.publishEvent(DiaryChangedEvent.saved(principalDetails.getWriter().getId(), dataVersion, readings));
+        }
+        return results;
+    }
+
+    /**
+     * 엔티티를 모두 만든 뒤에야 영속화하므로, 생성자 검증에 실패하면 아무것도 저장되지 않는다.
+     */
+    private DiabetesDiary makeDiaryWithEntities(Writer writer, SecurityDiaryPostRequestDTO dto, DiaryIdSequence ids, ResolvedFoodNames foodNames) {
         /* 2-1. LocalDateTime JSON 직렬화 */
         LocalDateTime writtenTime = convertStringToLocalDateTime(dto);
 
-        DiabetesDiary diary = makeDiary(writer, dto, writtenTime);
+        DiabetesDiary diary = makeDiary(writer, dto, writtenTime, ids);
 
-        Diet breakFast = makeBreakFast(diary, dto);
-        Diet lunch = makeLunch(diary, dto);
-        Diet dinner = makeDinner(diary, dto);
+        Diet breakFast = makeBreakFast(diary, dto, ids);
+        Diet lunch = makeLunch(diary, dto, ids);
+        Diet dinner = makeDinner(diary, dto, ids);
 
-        makeBreakFastFoods(dto, breakFast);
-        makeLunchFoods(dto, lunch);
-        makeDinnerFoods(dto, dinner);
+        makeBreakFastFoods(dto, breakFast, ids, foodNames);
+        makeLunchFoods(dto, lunch, ids, foodNames);
+        makeDinnerFoods(dto, dinner, ids, foodNames);
 
-        writerRepository.save(writer);
+        return diary;
+    }
 
-        return diary.getId();
+    /**
+     * 가져오기 파일의 행 묶음(chunk)을 트랜잭션 하나로 저장한다.
+     * 식별자는 묶음 시작 시 행 수만큼의 구간을 카운터에서 한 번에 배정받아 차례로 쓴다. (DiaryIdAllocator)
+     *
+     * @return 엔티티 생성자의 검증을 통과하지 못해 건너뛴 행의 (줄 번호, 사유). 나머지 행은 모두 저장된다.
+     */
+    @Transactional
+    public Map<Integer, String> saveImportedDiaries(Long writerId, List<DiaryImportRow> rows) {
+        checkNotNull(writerId, "writerId must be provided");
+
+        Writer writer = writerRepository.getOne(writerId);
+
+        /* 묶음의 음식 이름을 select 한 번으로 찾고, 없는 이름만 넣는다. */
+        List<String> foodNames = new ArrayList<>();
+        rows.forEach(row -> foodNames.addAll(foodNamesOf(row.getBreakFastFoods(), row.getLunchFoods(), row.getDinnerFoods())));
+        ResolvedFoodNames resolvedFoodNames = foodNameDictionary.resolve(foodNames);
+        DiaryIdSequence ids = reserveIds(rows.size(), rows.size() * DIETS_PER_DIARY, foodNames.size());
+
+        Map<Integer, String> rejected = new LinkedHashMap<>();
+
+        for (DiaryImportRow row : rows) {
+            DiabetesDiary diary;
+            try {
+                diary = new DiabetesDiary(ids.nextDiaryId(), writer, row.getFastingPlasmaGlucose(),
+                        row.getRemark() == null ? "" : row.getRemark(), LocalDateTime.parse(checkNotNull(row.getWrittenTime(), "writtenTime is empty"), IMPORT_TIME_FORMAT));
+
+                Diet breakFast = new Diet(ids.nextDietId(), diary, EatTime.BreakFast, row.getBreakFastSugar());
+                Diet lunch = new Diet(ids.nextDietId(), diary, EatTime.Lunch, row.getLunchSugar());
+                Diet dinner = new Diet(ids.nextDietId(), diary, EatTime.Dinner, row.getDinnerSugar());
+
+                addImportedFoods(breakFast, row.getBreakFastFoods(), ids, resolvedFoodNames);
+                addImportedFoods(lunch, row.getLunchFoods(), ids, resolvedFoodNames);
+                addImportedFoods(dinner, row.getDinnerFoods(), ids, resolvedFoodNames);
+
+                diary.addDiet(breakFast);
+                diary.addDiet(lunch);
+                diary.addDiet(dinner);
+            } catch (IllegalArgumentException | NullPointerException | DateTimeException e) {
+                rejected.put(row.getLineNumber(), e.getMessage());
+                continue;
+            }
+            entityManager.persist(diary);
+        }
+
+        /* 영속성 컨텍스트가 요청 끝까지 살아있으므로(open-in-view) 묶음마다 비워야 메모리 사용량이 일정하다. */
+        entityManager.flush();
+        entityManager.clear();
+
+        /* 가져오기는 이름이 한꺼번에 많이 들어오므로 색인에 더하지 않고 버렸다가 다음 조회 때 다시 만든다. */
+        eventPublisher.publishEvent(FoodNamesChangedEvent.removed(writerId));
+        if (rejected.size() < rows.size()) {
+            long dataVersion = writerRepository.increaseDataVersion(writerId);
+            /* 묶음 하나에도 일지가 많으므로 변경분 대신 다시 조회하라고만 알린다. */
+            eventPublisher.publishEvent(DiaryChangedEvent.reload(writerId, dataVersion));
+        }
+
+        return rejected;
+    }
+
+    private List<String> collectFoodNames(DiabetesDiary diary) {
+        return diary.getDietList().stream()
+                .flatMap(diet -> diet.getFoodList().stream())
+                .map(Food::getFoodName)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 요청의 음식 목록들에서 이름만 모은다. 목록이 null 이면 건너뛴다.
+     */
+    @SafeVarargs
+    static List<String> foodNamesOf(List<SecurityFoodDTO>... foodLists) {
+        return Stream.of(foodLists)
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .map(SecurityFoodDTO::getFoodName)
+                .collect(Collectors.toList());
+    }
+
+    private void addImportedFoods(Diet diet, List<SecurityFoodDTO> foods, DiaryIdSequence ids, ResolvedFoodNames foodNames) {
+        if (foods == null) {
+            return;
+        }
+        for (SecurityFoodDTO elem : foods) {
+            AmountUnit amountUnit = elem.getAmountUnit() == null ? AmountUnit.NONE : elem.getAmountUnit();
+            diet.addFood(new Food(ids.nextFoodId(), diet, foodNames.get(checkNotNull(elem.getFoodName(), "food name is empty")), elem.getAmount(), amountUnit));
+        }
     }
 
     /**
@@ -95,76 +292,55 @@ public class SaveDiaryService {
         return dateStringJoiner.convertLocalDateTime();
     }
 
-    private DiabetesDiary makeDiary(Writer writer, SecurityDiaryPostRequestDTO dto, LocalDateTime writtenTime) {
-        DiabetesDiary diary = new DiabetesDiary(getNextIdOfDiary(), writer, dto.getFastingPlasmaGlucose(), dto.getRemark(), writtenTime);
-        writer.addDiary(diary);
-        return diary;
+    private DiabetesDiary makeDiary(Writer writer, SecurityDiaryPostRequestDTO dto, LocalDateTime writtenTime, DiaryIdSequence ids) {
+        return new DiabetesDiary(ids.nextDiaryId(), writer, dto.getFastingPlasmaGlucose(), dto.getRemark(), writtenTime);
     }
 
-    private Diet makeBreakFast(DiabetesDiary diary, SecurityDiaryPostRequestDTO dto) {
-        Diet diet = new Diet(getNextIdOfDiet(), diary, EatTime.BreakFast, dto.getBreakFastSugar());
+    private Diet makeBreakFast(DiabetesDiary diary, SecurityDiaryPostRequestDTO dto, DiaryIdSequence ids) {
+        Diet diet = new Diet(ids.nextDietId(), diary, EatTime.BreakFast, dto.getBreakFastSugar());
         diary.addDiet(diet);
         return diet;
     }
 
-    private Diet makeLunch(DiabetesDiary diary, SecurityDiaryPostRequestDTO dto) {
-        Diet diet = new Diet(getNextIdOfDiet(), diary, EatTime.Lunch, dto.getLunchSugar());
+    private Diet makeLunch(DiabetesDiary diary, SecurityDiaryPostRequestDTO dto, DiaryIdSequence ids) {
+        Diet diet = new Diet(ids.nextDietId(), diary, EatTime.Lunch, dto.getLunchSugar());
         diary.addDiet(diet);
         return diet;
     }
 
-    private Diet makeDinner(DiabetesDiary diary, SecurityDiaryPostRequestDTO dto) {
-        Diet diet = new Diet(getNextIdOfDiet(), diary, EatTime.Dinner, dto.getDinnerSugar());
+    private Diet makeDinner(DiabetesDiary diary, SecurityDiaryPostRequestDTO dto, DiaryIdSequence ids) {
+        Diet diet = new Diet(ids.nextDietId(), diary, EatTime.Dinner, dto.getDinnerSugar());
         diary.addDiet(diet);
         return diet;
     }
 
-    private void makeBreakFastFoods(SecurityDiaryPostRequestDTO dto, Diet breakFast) {
+    private void makeBreakFastFoods(SecurityDiaryPostRequestDTO dto, Diet breakFast, DiaryIdSequence ids, ResolvedFoodNames foodNames) {
         dto.getBreakFastFoods().forEach(elem -> {
-            Food food = new Food(getNextIdOfFood(), breakFast, elem.getFoodName(), elem.getAmount(), elem.getAmountUnit());
+            Food food = new Food(ids.nextFoodId(), breakFast, foodNames.get(elem.getFoodName()), elem.getAmount(), elem.getAmountUnit());
             breakFast.addFood(food);
         });
     }
 
-    private void makeLunchFoods(SecurityDiaryPostRequestDTO dto, Diet lunch) {
+    private void makeLunchFoods(SecurityDiaryPostRequestDTO dto, Diet lunch, DiaryIdSequence ids, ResolvedFoodNames foodNames) {
         dto.getLunchFoods().forEach(elem -> {
-            Food food = new Food(getNextIdOfFood(), lunch, elem.getFoodName(), elem.getAmount(), elem.getAmountUnit());
+            Food food = new Food(ids.nextFoodId(), lunch, foodNames.get(elem.getFoodName()), elem.getAmount(), elem.getAmountUnit());
             lunch.addFood(food);
         });
     }
 
-    private void makeDinnerFoods(SecurityDiaryPostRequestDTO dto, Diet dinner) {
+    private void makeDinnerFoods(SecurityDiaryPostRequestDTO dto, Diet dinner, DiaryIdSequence ids, ResolvedFoodNames foodNames) {
         dto.getDinnerFoods().forEach(elem -> {
-            Food food = new Food(getNextIdOfFood(), dinner, elem.getFoodName(), elem.getAmount(), elem.getAmountUnit());
+            Food food = new Food(ids.nextFoodId(), dinner, foodNames.get(elem.getFoodName()), elem.getAmount(), elem.getAmountUnit());
             dinner.addFood(food);
         });
     }
 
-    /*
-    getIdOfXXX()의 경우 트랜잭션 처리 안하면 다른 스레드가 껴들어 올 경우 id 값이 중복될 수 있어 기본키 조건을 위배할 수도 있다. 레이스 컨디션 반드시 예방해야 함.
+    /**
+     * 저장할 개수만큼 식별자 구간을 배정받는다. 이후 식별자는 반환된 객체에서 받는다.
+     * 검증에 실패해 저장하지 않는 엔티티가 있어도 되도록 요청된 개수 전부를 배정받는다.
      */
-    public EntityId<DiabetesDiary, Long> getNextIdOfDiary() {
-        Long diaryId = diaryRepository.findMaxOfId();
-        if (diaryId == null) {
-            diaryId = 0L;
-        }
-        return EntityId.of(DiabetesDiary.class, diaryId + 1);
-    }
-
-    public EntityId<Diet, Long> getNextIdOfDiet() {
-        Long dietId = dietRepository.findMaxOfId();
-        if (dietId == null) {
-            dietId = 0L;
-        }
-        return EntityId.of(Diet.class, dietId + 1);
-    }
-
-    public EntityId<Food, Long> getNextIdOfFood() {
-        Long foodId = foodRepository.findMaxOfId();
-        if (foodId == null) {
-            foodId = 0L;
-        }
-        return EntityId.of(Food.class, foodId + 1);
+    DiaryIdSequence reserveIds(int diaryCount, int dietCount, int foodCount) {
+        return diaryIdAllocator.reserve(diaryCount, dietCount, foodCount);
     }
 
     @Transactional
@@ -10,7 +10,7 @@ package com.dasd412.remake.api.service.domain;
 
 import com.dasd412.remake.api.config.security.auth.PrincipalDetails;
 import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityDiaryUpdateDTO;
-import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityFoodForUpdateDTO;
+import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityFoodDTO;
 import com.dasd412.remake.api.domain.diary.EntityId;
 import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
 import com.dasd412.remake.api.domain.diary.diabetesDiary.DiaryRepository;
@@ -18,21 +18,40 @@ import com.dasd412.remake.api.domain.diary.diet.Diet;
 import com.dasd412.remake.api.domain.diary.diet.DietRepository;
 import com.dasd412.remake.api.domain.diary.diet.EatTime;
 import com.dasd412.remake.api.domain.diary.food.Food;
+import com.dasd412.remake.api.domain.diary.food.FoodNameDictionary;
 import com.dasd412.remake.api.domain.diary.food.FoodRepository;
+import com.dasd412.remake.api.domain.diary.food.ResolvedFoodNames;
 import com.dasd412.remake.api.domain.diary.profile.DiabetesPhase;
 import com.dasd412.remake.api.domain.diary.profile.Profile;
+import com.dasd412.remake.api.domain.diary.tombstone.Tombstone;
+import com.dasd412.remake.api.domain.diary.tombstone.TombstoneRepository;
 import com.dasd412.remake.api.domain.diary.writer.Writer;
 import com.dasd412.remake.api.domain.diary.writer.WriterRepository;
+import com.dasd412.remake.api.service.domain.vo.DiaryBatchResult;
+import com.dasd412.remake.api.service.domain.vo.DiaryChangedEvent;
+import com.dasd412.remake.api.service.domain.vo.DiaryReading;
+import com.dasd412.remake.api.service.domain.vo.FoodNamesChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 
+import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
+import javax.persistence.PersistenceContext;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -46,15 +65,36 @@ public class UpdateDeleteDiaryService {
     private final DietRepository dietRepository;
     private final DiaryRepository diaryRepository;
     private final WriterRepository writerRepository;
+    private final TombstoneRepository tombstoneRepository;
 
     private final SaveDiaryService saveDiaryService;
 
-    public UpdateDeleteDiaryService(FoodRepository foodRepository, DietRepository dietRepository, DiaryRepository diaryRepository, WriterRepository writerRepository, SaveDiaryService saveDiaryService) {
+    /**
+     * 새 음식에 넣을 FoodName 을 얻는다. 이름들의 사전 id 는 이 트랜잭션 안에서 정해진다.
+     */
+    private final FoodNameDictionary foodNameDictionary;
+
+    /**
+     * DiaryChangedEvent, FoodNamesChangedEvent 를 발행한다. 받는 쪽은 커밋된 뒤에 반영한다.
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 일괄 수정 중 검증에 실패한 항목의 변경을 되돌릴 때(refresh) 쓰인다.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public UpdateDeleteDiaryService(FoodRepository foodRepository, DietRepository dietRepository, DiaryRepository diaryRepository, WriterRepository writerRepository, TombstoneRepository tombstoneRepository, SaveDiaryService saveDiaryService,
+                                    FoodNameDictionary foodNameDictionary, ApplicationEventPublisher eventPublisher) {
         this.foodRepository = foodRepository;
         this.dietRepository = dietRepository;
         this.diaryRepository = diaryRepository;
         this.writerRepository = writerRepository;
+        this.tombstoneRepository = tombstoneRepository;
         this.saveDiaryService = saveDiaryService;
+        this.foodNameDictionary = foodNameDictionary;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -62,9 +102,7 @@ public class UpdateDeleteDiaryService {
         logger.info("update diary in service logic");
         checkNotNull(principalDetails, "principalDetails must be provided");
 
-        /* 0. 현재 세션에 담긴 사용자 정보 판별 */
-        Writer writer = writerRepository.findById(principalDetails.getWriter().getId()).orElseThrow(() -> new NoResultException("작성자가 없습니다."));
-
+        /* 작성자 엔티티는 필요 없다. 아래 조회들이 모두 세션의 작성자 id 로 범위를 한정하므로 소유권 검증도 겸한다. */
         Long diabetesDiaryId = dto.getDiaryId();
 
         ifDirtyThenUpdateDiary(principalDetails, dto);
@@ -73,13 +111,24 @@ public class UpdateDeleteDiaryService {
         Diet targetLunch = ifDirtyThenUpdateLunch(principalDetails, dto, diabetesDiaryId);
         Diet targetDinner = ifDirtyThenUpdateDinner(principalDetails, dto, diabetesDiaryId);
 
-        bulkDeleteOldFoods(dto);
+        bulkDeleteOldFoods(principalDetails.getWriter().getId(), dto);
+
+        /* 음식은 사전 id 가 정해진 이름으로만 만들 수 있으므로 이름부터 정한다. */
+        List<String> newFoodNames = new ArrayList<>();
+        collectNewFoodNames(dto, newFoodNames);
+        ResolvedFoodNames foodNames = foodNameDictionary.resolve(newFoodNames);
+        DiaryIdSequence ids = saveDiaryService.reserveIds(0, 0, newFoodNames.size());
 
-        makeNewBreakFastFoods(dto, targetBreakFast);
-        makeNewLunchFoods(dto, targetLunch);
-        makeNewDinnerFoods(dto, targetDinner);
+        makeNewBreakFastFoods(dto, targetBreakFast, ids, foodNames);
+        makeNewLunchFoods(dto, targetLunch, ids, foodNames);
+        /* 새 음식들은 영속 상태인 식단의 cascade 에 의해 flush 시점에 저장된다. */
+        makeNewDinnerFoods(dto, targetDinner, ids, foodNames);
 
-        writerRepository.save(writer);
+        /* 식단, 음식만 바뀐 경우에도 변경 내역 조회에 잡혀야 한다. (소유권은 위의 식단 조회에서 이미 확인되었다.) */
+        diaryRepository.touchDiaries(Collections.singletonList(diabetesDiaryId), LocalDateTime.now());
+        refreshFoodNameIndex(principalDetails.getWriter().getId(), dto);
+        long dataVersion = writerRepository.increaseDataVersion(principalDetails.getWriter().getId());
+        eventPublisher.publishEvent(DiaryChangedEvent.updated(principalDetails.getWriter().getId(), dataVersion, Collections.singletonList(makeChangedReading(dto))));
 
         return diabetesDiaryId;
     }
@@ -128,43 +177,197 @@ public class UpdateDeleteDiaryService {
         return targetDinner;
     }
 
-    private void bulkDeleteOldFoods(SecurityDiaryUpdateDTO dto) {
-        List<SecurityFoodForUpdateDTO> allOldFoods = new ArrayList<>();
-        allOldFoods.addAll(dto.getOldBreakFastFoods());
-        allOldFoods.addAll(dto.getOldLunchFoods());
-        allOldFoods.addAll(dto.getOldDinnerFoods());
-
-        if (allOldFoods.size() > 0) {
-            List<EntityId<Food, Long>> foodEntityIds = allOldFoods.stream().map(elem -> EntityId.of(Food.class, elem.getId())).collect(Collectors.toList());
-            bulkDeleteFoods(foodEntityIds);
+    /**
+     * 음식 id 는 클라이언트가 보낸 값이므로, 이 작성자의 해당 일지에 있는 음식만 골라서 지운다.
+     */
+    private void bulkDeleteOldFoods(Long writerId, SecurityDiaryUpdateDTO dto) {
+        List<Long> oldFoodIds = new ArrayList<>();
+        collectOldFoodIds(dto, oldFoodIds);
+
+        if (oldFoodIds.size() > 0) {
+            List<Long> ownedFoodIds = foodRepository.findFoodIdsInDiariesOfWriter(writerId, Collections.singletonList(dto.getDiaryId()), oldFoodIds);
+            if (!ownedFoodIds.isEmpty()) {
+                foodRepository.bulkDeleteFood(ownedFoodIds);
+            }
         }
     }
 
-    private void makeNewBreakFastFoods(SecurityDiaryUpdateDTO dto, Diet targetBreakFast) {
+    private void makeNewBreakFastFoods(SecurityDiaryUpdateDTO dto, Diet targetBreakFast, DiaryIdSequence ids, ResolvedFoodNames foodNames) {
         dto.getNewBreakFastFoods()
                 .forEach(elem -> {
-                    Food food = new Food(saveDiaryService.getNextIdOfFood(), targetBreakFast, elem.getFoodName(), elem.getAmount(), elem.getAmountUnit());
+                    Food food = new Food(ids.nextFoodId(), targetBreakFast, foodNames.get(elem.getFoodName()), elem.getAmount(), elem.getAmountUnit());
                     targetBreakFast.addFood(food);
                 });
     }
 
-    private void makeNewLunchFoods(SecurityDiaryUpdateDTO dto, Diet targetLunch) {
+    private void makeNewLunchFoods(SecurityDiaryUpdateDTO dto, Diet targetLunch, DiaryIdSequence ids, ResolvedFoodNames foodNames) {
         dto.getNewLunchFoods()
                 .forEach(elem -> {
-                    Food food = new Food(saveDiaryService.getNextIdOfFood(), targetLunch, elem.getFoodName(), elem.getAmount(), elem.getAmountUnit());
+                    Food food = new Food(ids.nextFoodId(), targetLunch, foodNames.get(elem.getFoodName()), elem.getAmount(), elem.getAmountUnit());
                     targetLunch.addFood(food);
                 });
     }
 
-    private void makeNewDinnerFoods(SecurityDiaryUpdateDTO dto, Diet targetDinner) {
+    private void makeNewDinnerFoods(SecurityDiaryUpdateDTO dto, Diet targetDinner, DiaryIdSequence ids, ResolvedFoodNames foodNames) {
         dto.getNewDinnerFoods()
                 .forEach(elem -> {
-                    Food food = new Food(saveDiaryService.getNextIdOfFood(), targetDinner, elem.getFoodName(), elem.getAmount(), elem.getAmountUnit());
+                    Food food = new Food(ids.nextFoodId(), targetDinner, foodNames.get(elem.getFoodName()), elem.getAmount(), elem.getAmountUnit());
                     targetDinner.addFood(food);
                 });
     }
 
 
+    /**
+     * 여러 일지를 트랜잭션 하나로 수정한다. (오프라인 동기화용)
+     * 일지와 식단은 쿼리 한 번으로 미리 가져오고, 새 음식의 식별자는 요청된 개수만큼 한 번에 배정받으며, 예전 음식은 마지막에 한 번에 지운다.
+     * 일지나 식단이 없거나 값 검증에 실패한 항목은 변경을 되돌리고 결과에 사유를 남긴다. 나머지 항목은 반영된다.
+     *
+     * @return 요청 순서와 같은 순서의 항목 별 결과
+     */
+    @Transactional
+    public List<DiaryBatchResult> updateDiaries(PrincipalDetails principalDetails, List<SecurityDiaryUpdateDTO> dtoList) {
+        logger.info("update diaries in service logic. size : " + dtoList.size());
+        checkNotNull(principalDetails, "principalDetails must be provided");
+
+        List<Long> diaryIds = dtoList.stream().map(SecurityDiaryUpdateDTO::getDiaryId).filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        Map<Long, DiabetesDiary> diaries = diaryIds.isEmpty() ? new HashMap<>()
+                : diaryRepository.findDiariesWithDietsOfWriter(principalDetails.getWriter().getId(), diaryIds)
+                .stream().collect(Collectors.toMap(DiabetesDiary::getId, Function.identity()));
+
+        /* 새 음식의 이름을 한 번에 정해 둔다. 목록이 없는 항목은 아래에서 실패로 남는다. */
+        List<String> requestedFoodNames = new ArrayList<>();
+        dtoList.forEach(dto -> requestedFoodNames.addAll(SaveDiaryService.foodNamesOf(dto.getNewBreakFastFoods(), dto.getNewLunchFoods(), dto.getNewDinnerFoods())));
+        ResolvedFoodNames resolvedFoodNames = foodNameDictionary.resolve(requestedFoodNames);
+        DiaryIdSequence ids = saveDiaryService.reserveIds(0, 0, requestedFoodNames.size());
+        List<Long> oldFoodIds = new ArrayList<>();
+        List<Long> updatedDiaryIds = new ArrayList<>();
+        List<DiaryReading> readings = new ArrayList<>();
+        List<String> newFoodNames = new ArrayList<>();
+
+        List<DiaryBatchResult> results = new ArrayList<>(dtoList.size());
+        for (int i = 0; i < dtoList.size(); i++) {
+            SecurityDiaryUpdateDTO dto = dtoList.get(i);
+            DiabetesDiary diary = diaries.get(dto.getDiaryId());
+            if (diary == null) {
+                results.add(DiaryBatchResult.failure(i, dto.getDiaryId(), "해당 혈당일지가 존재하지 않습니다."));
+                continue;
+            }
+
+            Diet breakFast = findDietInDiary(diary, dto.getBreakFastId());
+            Diet lunch = findDietInDiary(diary, dto.getLunchId());
+            Diet dinner = findDietInDiary(diary, dto.getDinnerId());
+            if (breakFast == null || lunch == null || dinner == null) {
+                results.add(DiaryBatchResult.failure(i, dto.getDiaryId(), "해당 식단이 존재하지 않습니다."));
+                continue;
+            }
+
+            try {
+                /* 새 음식부터 만들어서 검증한 뒤에 기존 엔티티를 바꾼다. */
+                List<Food> newBreakFastFoods = makeFoods(dto.getNewBreakFastFoods(), breakFast, ids, resolvedFoodNames);
+                List<Food> newLunchFoods = makeFoods(dto.getNewLunchFoods(), lunch, ids, resolvedFoodNames);
+                List<Food> newDinnerFoods = makeFoods(dto.getNewDinnerFoods(), dinner, ids, resolvedFoodNames);
+
+                if (dto.isDiaryDirty()) {
+                    diary.update(dto.getFastingPlasmaGlucose(), dto.getRemark());
+                }
+                if (dto.isBreakFastDirty()) {
+                    breakFast.update(EatTime.BreakFast, dto.getBreakFastSugar());
+                }
+                if (dto.isLunchDirty()) {
+                    lunch.update(EatTime.Lunch, dto.getLunchSugar());
+                }
+                if (dto.isDinnerDirty()) {
+                    dinner.update(EatTime.Dinner, dto.getDinnerSugar());
+                }
+
+                newBreakFastFoods.forEach(breakFast::addFood);
+                newLunchFoods.forEach(lunch::addFood);
+                newDinnerFoods.forEach(dinner::addFood);
+            } catch (IllegalArgumentException | NullPointerException e) {
+                /* 일부만 바뀐 상태일 수 있으므로 db 의 값으로 되돌린다. (식단까지 cascade) */
+                entityManager.refresh(diary);
+                results.add(DiaryBatchResult.failure(i, dto.getDiaryId(), e.getMessage()));
+                continue;
+            }
+
+            collectOldFoodIds(dto, oldFoodIds);
+            collectNewFoodNames(dto, newFoodNames);
+            updatedDiaryIds.add(diary.getId());
+            readings.add(makeChangedReading(dto));
+            results.add(DiaryBatchResult.success(i, dto.getDiaryId()));
+        }
+
+        if (updatedDiaryIds.isEmpty()) {
+            return results;
+        }
+
+        /* 음식 id 는 클라이언트가 보낸 값이므로, 이번 묶음에서 수정된 작성자의 일지에 있는 음식만 지운다. */
+        List<Long> ownedFoodIds = oldFoodIds.isEmpty() ? Collections.emptyList()
+                : foodRepository.findFoodIdsInDiariesOfWriter(principalDetails.getWriter().getId(), updatedDiaryIds, oldFoodIds);
+        if (!ownedFoodIds.isEmpty()) {
+            foodRepository.bulkDeleteFood(ownedFoodIds);
+        }
+
+        diaryRepository.touchDiaries(updatedDiaryIds, LocalDateTime.now());
+        long dataVersion = writerRepository.increaseDataVersion(principalDetails.getWriter().getId());
+        eventPublisher.publishEvent(DiaryChangedEvent.updated(principalDetails.getWriter().getId(), dataVersion, readings));
+        if (!ownedFoodIds.isEmpty()) {
+            eventPublisher.publishEvent(FoodNamesChangedEvent.removed(principalDetails.getWriter().getId()));
+        } else {
+            eventPublisher.publishEvent(FoodNamesChangedEvent.added(principalDetails.getWriter().getId(), newFoodNames));
+        }
+        return results;
+    }
+
+    /**
+     * 차트 갱신 알림용. 바뀌었다고 표시된 값만 담는다.
+     */
+    private DiaryReading makeChangedReading(SecurityDiaryUpdateDTO dto) {
+        return DiaryReading.changed(dto.getDiaryId(),
+                dto.isDiaryDirty() ? dto.getFastingPlasmaGlucose() : null,
+                dto.isBreakFastDirty() ? dto.getBreakFastSugar() : null,
+                dto.isLunchDirty() ? dto.getLunchSugar() : null,
+                dto.isDinnerDirty() ? dto.getDinnerSugar() : null);
+    }
+
+    private Diet findDietInDiary(DiabetesDiary diary, Long dietId) {
+        return diary.getDietList().stream()
+                .filter(diet -> Objects.equals(diet.getDietId(), dietId))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private List<Food> makeFoods(List<SecurityFoodDTO> foods, Diet diet, DiaryIdSequence ids, ResolvedFoodNames foodNames) {
+        return foods.stream()
+                .map(elem -> new Food(ids.nextFoodId(), diet, foodNames.get(elem.getFoodName()), elem.getAmount(), elem.getAmountUnit()))
+                .collect(Collectors.toList());
+    }
+
+    private void collectOldFoodIds(SecurityDiaryUpdateDTO dto, List<Long> oldFoodIds) {
+        dto.getOldBreakFastFoods().forEach(elem -> oldFoodIds.add(elem.getId()));
+        dto.getOldLunchFoods().forEach(elem -> oldFoodIds.add(elem.getId()));
+        dto.getOldDinnerFoods().forEach(elem -> oldFoodIds.add(elem.getId()));
+    }
+
+    private void collectNewFoodNames(SecurityDiaryUpdateDTO dto, List<String> newFoodNames) {
+        dto.getNewBreakFastFoods().forEach(elem -> newFoodNames.add(elem.getFoodName()));
+        dto.getNewLunchFoods().forEach(elem -> newFoodNames.add(elem.getFoodName()));
+        dto.getNewDinnerFoods().forEach(elem -> newFoodNames.add(elem.getFoodName()));
+    }
+
+    /**
+     * 지워진 음식이 있으면 이름 별 횟수를 알 수 없으므로 색인을 버리고, 추가만 있었으면 색인에 더한다.
+     */
+    private void refreshFoodNameIndex(Long writerId, SecurityDiaryUpdateDTO dto) {
+        if (dto.getOldBreakFastFoods().isEmpty() && dto.getOldLunchFoods().isEmpty() && dto.getOldDinnerFoods().isEmpty()) {
+            List<String> newFoodNames = new ArrayList<>();
+            collectNewFoodNames(dto, newFoodNames);
+            eventPublisher.publishEvent(FoodNamesChangedEvent.added(writerId, newFoodNames));
+        } else {
+            eventPublisher.publishEvent(FoodNamesChangedEvent.removed(writerId));
+        }
+    }
+
     @Transactional
     public void deleteDiary(EntityId<Writer, Long> writerEntityId, EntityId<DiabetesDiary, Long> diaryEntityId) {
         logger.info("delete diary");
@@ -172,16 +375,52 @@ public class UpdateDeleteDiaryService {
         checkNotNull(writerEntityId, "writerId must be provided");
         checkNotNull(diaryEntityId, "diaryId must be provided");
 
-        Writer writer = writerRepository.findById(writerEntityId.getId()).orElseThrow(() -> new NoResultException("해당 작성자가 없습니다."));
-
         DiabetesDiary targetDiary = diaryRepository.findOneDiabetesDiaryByIdInWriter(writerEntityId.getId(), diaryEntityId.getId())
                 .orElseThrow(() -> new NoResultException("해당 혈당일지가 존재하지 않습니다."));
 
-        logger.info("association detached");
-        writer.removeDiary(targetDiary);
-
-        logger.info("bulk delete diary");
+        /*
+        작성자의 일지 컬렉션은 이 트랜잭션에서 로딩되지 않으므로 연관 관계를 끊기 위해 작성자를 조회할 필요가 없다.
+        벌크 삭제 후에 남는 것은 영속성 컨텍스트의 targetDiary 뿐인데, 트랜잭션이 바로 끝나므로 문제되지 않는다.
+         */
+        logger.info("bulk delete diary : " + targetDiary.getId());
         diaryRepository.bulkDeleteDiary(diaryEntityId.getId());
+        tombstoneRepository.save(new Tombstone(writerEntityId.getId(), diaryEntityId.getId(), LocalDateTime.now()));
+        eventPublisher.publishEvent(FoodNamesChangedEvent.removed(writerEntityId.getId()));
+        long dataVersion = writerRepository.increaseDataVersion(writerEntityId.getId());
+        eventPublisher.publishEvent(DiaryChangedEvent.deleted(writerEntityId.getId(), dataVersion, Collections.singletonList(diaryEntityId.getId())));
+    }
+
+    /**
+     * 여러 일지를 트랜잭션 하나로 지운다. 일지 수와 상관없이 소유권 확인 한 번과 벌크 삭제로 끝난다.
+     *
+     * @return 요청 순서와 같은 순서의 항목 별 결과. 작성자의 일지가 아니거나 없는 id 는 실패로 남는다.
+     */
+    @Transactional
+    public List<DiaryBatchResult> deleteDiaries(EntityId<Writer, Long> writerEntityId, List<Long> diaryIds) {
+        logger.info("delete diaries. size : " + diaryIds.size());
+        checkNotNull(writerEntityId, "writerId must be provided");
+
+        Set<Long> ownedIds = new HashSet<>(diaryRepository.findDiaryIdsOfWriter(writerEntityId.getId(), diaryIds));
+
+        List<DiaryBatchResult> results = new ArrayList<>(diaryIds.size());
+        for (int i = 0; i < diaryIds.size(); i++) {
+            Long diaryId = diaryIds.get(i);
+            results.add(ownedIds.contains(diaryId) ? DiaryBatchResult.success(i, diaryId)
+                    : DiaryBatchResult.failure(i, diaryId, "해당 혈당일지가 존재하지 않습니다."));
+        }
+
+        if (!ownedIds.isEmpty()) {
+            diaryRepository.bulkDeleteDiaries(new ArrayList<>(ownedIds));
+
+            LocalDateTime deletedAt = LocalDateTime.now();
+            tombstoneRepository.saveAll(ownedIds.stream()
+                    .map(diaryId -> new Tombstone(writerEntityId.getId(), diaryId, deletedAt))
+                    .collect(Collectors.toList()));
+            eventPublisher.publishEvent(FoodNamesChangedEvent.removed(writerEntityId.getId()));
+            long dataVersion = writerRepository.increaseDataVersion(writerEntityId.getId());
+            eventPublisher.publishEvent(DiaryChangedEvent.deleted(writerEntityId.getId(), dataVersion, new ArrayList<>(ownedIds)));
+        }
+        return results;
     }
 
     @Transactional
@@ -0,0 +1,57 @@
+/*
+ * @(#)BloodSugarAverages.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain.vo;
+
+import com.querydsl.core.Tuple;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.List;
+
+/**
+ * 평균 차트 한 번에 필요한 세 가지 평균. 각각 서로 다른 쿼리로 구한다.
+ */
+public class BloodSugarAverages {
+
+    private final Double averageFpg;
+
+    /**
+     * (식사 시간, 평균 식사 혈당)의 튜플
+     */
+    private final List<Tuple> averageGroupByEatTime;
+
+    private final Double averageBloodSugar;
+
+    public BloodSugarAverages(Double averageFpg, List<Tuple> averageGroupByEatTime, Double averageBloodSugar) {
+        this.averageFpg = averageFpg;
+        this.averageGroupByEatTime = averageGroupByEatTime;
+        this.averageBloodSugar = averageBloodSugar;
+    }
+
+    public Double getAverageFpg() {
+        return averageFpg;
+    }
+
+    public List<Tuple> getAverageGroupByEatTime() {
+        return averageGroupByEatTime;
+    }
+
+    public Double getAverageBloodSugar() {
+        return averageBloodSugar;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("averageFpg", averageFpg)
+                .append("averageGroupByEatTime", averageGroupByEatTime)
+                .append("averageBloodSugar", averageBloodSugar)
+                .toString();
+    }
+}
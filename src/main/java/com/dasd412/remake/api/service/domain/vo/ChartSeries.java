@@ -0,0 +1,131 @@
+/*
+ * @(#)ChartSeries.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain.vo;
+
+import com.dasd412.remake.api.domain.diary.diabetesDiary.QDiabetesDiary;
+import com.dasd412.remake.api.domain.diary.diet.EatTime;
+import com.dasd412.remake.api.domain.diary.diet.QDiet;
+import com.querydsl.core.Tuple;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 열(column) 단위로 모은 차트 데이터. 점마다 객체를 만들지 않고 같은 인덱스의 배열 원소끼리 한 점을 이룬다.
+ * 배열은 복사하지 않고 그대로 내보내므로 (여러 요청이 공유할 수 있다) 받은 쪽에서 수정하면 안 된다.
+ */
+public class ChartSeries {
+
+    private static final EatTime[] EAT_TIMES = EatTime.values();
+
+    /**
+     * 점이 속한 일지의 id. 변경 알림(DiaryChangedEvent)을 받은 화면이 바뀐 점을 찾는 데 쓴다.
+     */
+    private final long[] diaryIds;
+
+    /**
+     * x - 축. 작성 시간의 epoch millis. LocalDateTime 은 서버의 기본 시간대로 해석한다. (db 접속 시간대와 같다.)
+     */
+    private final long[] timestamps;
+
+    /**
+     * y - 축. 공복 혈당 또는 식사 혈당
+     */
+    private final int[] values;
+
+    /**
+     * 식사 시간의 EatTime.ordinal(). 공복 혈당이면 null
+     */
+    private final int[] eatTimes;
+
+    private ChartSeries(long[] diaryIds, long[] timestamps, int[] values, int[] eatTimes) {
+        this.diaryIds = diaryIds;
+        this.timestamps = timestamps;
+        this.values = values;
+        this.eatTimes = eatTimes;
+    }
+
+    /**
+     * @param rows (일지 id, 작성 시간, 공복 혈당) 튜플
+     */
+    public static ChartSeries fromFpgRows(List<Tuple> rows) {
+        long[] diaryIds = new long[rows.size()];
+        long[] timestamps = new long[rows.size()];
+        int[] values = new int[rows.size()];
+
+        ZoneId zone = ZoneId.systemDefault();
+        for (int i = 0; i < rows.size(); i++) {
+            Tuple row = rows.get(i);
+            diaryIds[i] = Objects.requireNonNull(row.get(QDiabetesDiary.diabetesDiary.diaryId));
+            timestamps[i] = toEpochMillis(row.get(QDiabetesDiary.diabetesDiary.writtenTime), zone);
+            values[i] = Objects.requireNonNull(row.get(QDiabetesDiary.diabetesDiary.fastingPlasmaGlucose));
+        }
+        return new ChartSeries(diaryIds, timestamps, values, null);
+    }
+
+    /**
+     * @param rows (일지 id, 작성 시간, 식사 시간, 식사 혈당) 튜플
+     */
+    public static ChartSeries fromBloodSugarRows(List<Tuple> rows) {
+        long[] diaryIds = new long[rows.size()];
+        long[] timestamps = new long[rows.size()];
+        int[] values = new int[rows.size()];
+        int[] eatTimes = new int[rows.size()];
+
+        ZoneId zone = ZoneId.systemDefault();
+        for (int i = 0; i < rows.size(); i++) {
+            Tuple row = rows.get(i);
+            diaryIds[i] = Objects.requireNonNull(row.get(QDiet.diet.diary.diaryId));
+            timestamps[i] = toEpochMillis(row.get(QDiet.diet.diary.writtenTime), zone);
+            values[i] = Objects.requireNonNull(row.get(QDiet.diet.bloodSugar));
+            eatTimes[i] = Objects.requireNonNull(row.get(QDiet.diet.eatTime)).ordinal();
+        }
+        return new ChartSeries(diaryIds, timestamps, values, eatTimes);
+    }
+
+    static long toEpochMillis(LocalDateTime writtenTime, ZoneId zone) {
+        return Objects.requireNonNull(writtenTime).atZone(zone).toInstant().toEpochMilli();
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public long[] getDiaryIds() {
+        return diaryIds;
+    }
+
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    public int[] getValues() {
+        return values;
+    }
+
+    public int[] getEatTimes() {
+        return eatTimes;
+    }
+
+    public EatTime getEatTime(int index) {
+        return eatTimes == null ? null : EAT_TIMES[eatTimes[index]];
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("size", size())
+                .append("hasEatTimes", eatTimes != null)
+                .toString();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * @(#)DiaryBatchResult.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain.vo;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 일지 일괄 작성, 수정, 삭제의 항목 별 결과
+ */
+public class DiaryBatchResult {
+
+    /**
+     * 요청 목록 상의 위치 (0부터 시작)
+     */
+    private final int index;
+
+    /**
+     * 처리된 일지 id. 실패했으면 요청에 있던 id (작성 요청이면 null)
+     */
+    private final Long diaryId;
+
+    private final boolean success;
+
+    private final String error;
+
+    private DiaryBatchResult(int index, Long diaryId, boolean success, String error) {
+        this.index = index;
+        this.diaryId = diaryId;
+        this.success = success;
+        this.error = error;
+    }
+
+    public static DiaryBatchResult success(int index, Long diaryId) {
+        return new DiaryBatchResult(index, diaryId, true, null);
+    }
+
+    public static DiaryBatchResult failure(int index, Long diaryId, String error) {
+        return new DiaryBatchResult(index, diaryId, false, error);
+    }
+
+    public static DiaryBatchResult failure(int index, String error) {
+        return failure(index, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Long getDiaryId() {
+        return diaryId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("index", index)
+                .append("diaryId", diaryId)
+                .append("success", success)
+                .append("error", error)
+                .toString();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * @(#)DiaryChangedEvent.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain.vo;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * 작성자의 일지가 바뀌었다는 알림. SaveDiaryService, UpdateDeleteDiaryService 가 발행하고 커밋된 뒤에 ChartUpdateBroadcaster 가 열려 있는 차트 화면으로 보낸다.
+ * 차트 전체를 다시 보내지 않고 바뀐 일지의 값만 담는다. 가져오기처럼 한꺼번에 많이 바뀌면 reload 만 true 로 보내 화면이 다시 조회하게 한다.
+ */
+public class DiaryChangedEvent {
+
+    private final Long writerId;
+
+    /**
+     * 이 변경으로 올라간 작성자의 데이터 버전
+     */
+    private final long dataVersion;
+
+    private final List<DiaryReading> saved;
+
+    private final List<DiaryReading> updated;
+
+    private final List<Long> deleted;
+
+    private final boolean reload;
+
+    private DiaryChangedEvent(Long writerId, long dataVersion, List<DiaryReading> saved, List<DiaryReading> updated, List<Long> deleted, boolean reload) {
+        this.writerId = checkNotNull(writerId, "writerId must be provided");
+        this.dataVersion = dataVersion;
+        this.saved = saved;
+        this.updated = updated;
+        this.deleted = deleted;
+        this.reload = reload;
+    }
+
+    public static DiaryChangedEvent saved(Long writerId, long dataVersion, List<DiaryReading> saved) {
+        return new DiaryChangedEvent(writerId, dataVersion, saved, Collections.emptyList(), Collections.emptyList(), false);
+    }
+
+    public static DiaryChangedEvent updated(Long writerId, long dataVersion, List<DiaryReading> updated) {
+        return new DiaryChangedEvent(writerId, dataVersion, Collections.emptyList(), updated, Collections.emptyList(), false);
+    }
+
+    public static DiaryChangedEvent deleted(Long writerId, long dataVersion, List<Long> deleted) {
+        return new DiaryChangedEvent(writerId, dataVersion, Collections.emptyList(), Collections.emptyList(), deleted, false);
+    }
+
+    public static DiaryChangedEvent reload(Long writerId, long dataVersion) {
+        return new DiaryChangedEvent(writerId, dataVersion, Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), true);
+    }
+
+    /**
+     * 받는 쪽은 자기 자신의 알림만 받으므로 내보내지 않는다.
+     */
+    @JsonIgnore
+    public Long getWriterId() {
+        return writerId;
+    }
+
+    @JsonIgnore
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    public List<DiaryReading> getSaved() {
+        return saved;
+    }
+
+    public List<DiaryReading> getUpdated() {
+        return updated;
+    }
+
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public boolean isReload() {
+        return reload;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("writerId", writerId)
+                .append("dataVersion", dataVersion)
+                .append("saved", saved.size())
+                .append("updated", updated.size())
+                .append("deleted", deleted.size())
+                .append("reload", reload)
+                .toString();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * @(#)DiaryChanges.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain.vo;
+
+import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 변경 내역 조회 결과. 일지는 식단, 음식까지 fetch join 되어 있다.
+ */
+public class DiaryChanges {
+
+    /**
+     * 다음 조회 때 since 로 보낼 값
+     */
+    private final LocalDateTime until;
+
+    private final List<DiabetesDiary> changedDiaries;
+
+    private final List<Long> deletedDiaryIds;
+
+    /**
+     * 변경된 일지가 한도를 넘었으면 true. 이 경우 changedDiaries 는 일부이므로 전체 내보내기로 다시 맞춰야 한다.
+     */
+    private final boolean truncated;
+
+    public DiaryChanges(LocalDateTime until, List<DiabetesDiary> changedDiaries, List<Long> deletedDiaryIds, boolean truncated) {
+        this.until = until;
+        this.changedDiaries = changedDiaries;
+        this.deletedDiaryIds = deletedDiaryIds;
+        this.truncated = truncated;
+    }
+
+    public LocalDateTime getUntil() {
+        return until;
+    }
+
+    public List<DiabetesDiary> getChangedDiaries() {
+        return changedDiaries;
+    }
+
+    public List<Long> getDeletedDiaryIds() {
+        return deletedDiaryIds;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("until", until)
+                .append("changed", changedDiaries.size())
+                .append("deleted", deletedDiaryIds.size())
+                .append("truncated", truncated)
+                .toString();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * @(#)DiaryFileFormat.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain.vo;
+
+/**
+ * 일지 가져오기, 내보내기 파일 형식. 두 형식 모두 한 줄이 일지 하나(DiaryImportRow)이다.
+ */
+public enum DiaryFileFormat {
+
+    CSV("csv", "text/csv"),
+
+    NDJSON("ndjson", "application/x-ndjson");
+
+    private final String extension;
+
+    private final String contentType;
+
+    DiaryFileFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * 파일 이름의 확장자로 형식을 고른다. 알 수 없으면 CSV 로 본다.
+     */
+    public static DiaryFileFormat fromFileName(String fileName) {
+        if (fileName != null && (fileName.toLowerCase().endsWith(".ndjson") || fileName.toLowerCase().endsWith(".jsonl"))) {
+            return NDJSON;
+        }
+        return CSV;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * @(#)DiaryImportProgress.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain.vo;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 가져오기 진행 상황. 가져오는 스레드가 갱신하고, 진행 상황 조회 요청 스레드가 읽는다.
+ */
+public class DiaryImportProgress {
+
+    /**
+     * 응답이 너무 커지지 않도록 오류 메시지는 이 개수까지만 보관한다. 실패 건수(failed)는 모두 센다.
+     */
+    private static final int MAX_ERRORS = 100;
+
+    private final AtomicInteger processed = new AtomicInteger();
+
+    private final AtomicInteger imported = new AtomicInteger();
+
+    private final AtomicInteger failed = new AtomicInteger();
+
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile boolean done = false;
+
+    public void addImported(int count) {
+        processed.addAndGet(count);
+        imported.addAndGet(count);
+    }
+
+    public void addFailure(int lineNumber, String message) {
+        processed.incrementAndGet();
+        failed.incrementAndGet();
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("line " + lineNumber + " : " + message);
+        }
+    }
+
+    public void finish() {
+        this.done = true;
+    }
+
+    public int getProcessed() {
+        return processed.get();
+    }
+
+    public int getImported() {
+        return imported.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("processed", processed)
+                .append("imported", imported)
+                .append("failed", failed)
+                .append("done", done)
+                .toString();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * @(#)DiaryImportRow.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain.vo;
+
+import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityFoodDTO;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 가져오기(import) 파일의 한 줄. 일지 하나와 아침, 점심, 저녁 식단에 해당한다.
+ * NDJSON 은 한 줄을 그대로 역직렬화하고, CSV 는 DiaryImportReader 가 헤더 이름에 맞춰 채운다.
+ * 값의 범위 검증은 여기서 하지 않는다. 엔티티 생성자의 규칙을 그대로 따르기 위해 저장 시점에 엔티티를 만들면서 검증한다.
+ */
+@Getter
+@NoArgsConstructor /* <- NDJSON 역직렬화용 */
+public class DiaryImportRow {
+
+    /**
+     * 파일 상의 줄 번호 (1부터 시작). 오류 보고에 쓰인다.
+     */
+    @JsonIgnore
+    private int lineNumber;
+
+    /**
+     * yyyy-MM-dd HH:mm:ss
+     */
+    private String writtenTime;
+
+    private int fastingPlasmaGlucose;
+
+    private String remark = "";
+
+    private int breakFastSugar;
+
+    private int lunchSugar;
+
+    private int dinnerSugar;
+
+    private List<SecurityFoodDTO> breakFastFoods = new ArrayList<>();
+
+    private List<SecurityFoodDTO> lunchFoods = new ArrayList<>();
+
+    private List<SecurityFoodDTO> dinnerFoods = new ArrayList<>();
+
+    public DiaryImportRow(int lineNumber, String writtenTime, int fastingPlasmaGlucose, String remark,
+                          int breakFastSugar, int lunchSugar, int dinnerSugar,
+                          List<SecurityFoodDTO> breakFastFoods, List<SecurityFoodDTO> lunchFoods, List<SecurityFoodDTO> dinnerFoods) {
+        this.lineNumber = lineNumber;
+        this.writtenTime = writtenTime;
+        this.fastingPlasmaGlucose = fastingPlasmaGlucose;
+        this.remark = remark;
+        this.breakFastSugar = breakFastSugar;
+        this.lunchSugar = lunchSugar;
+        this.dinnerSugar = dinnerSugar;
+        this.breakFastFoods = breakFastFoods;
+        this.lunchFoods = lunchFoods;
+        this.dinnerFoods = dinnerFoods;
+    }
+
+    public void setLineNumber(int lineNumber) {
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("lineNumber", lineNumber)
+                .append("writtenTime", writtenTime)
+                .append("fastingPlasmaGlucose", fastingPlasmaGlucose)
+                .append("remark", remark)
+                .append("breakFastSugar", breakFastSugar)
+                .append("lunchSugar", lunchSugar)
+                .append("dinnerSugar", dinnerSugar)
+                .append("breakFastFoods", breakFastFoods)
+                .append("lunchFoods", lunchFoods)
+                .append("dinnerFoods", dinnerFoods)
+                .toString();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * @(#)DiaryReading.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain.vo;
+
+import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
+import com.dasd412.remake.api.domain.diary.diet.Diet;
+import com.dasd412.remake.api.domain.diary.diet.EatTime;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.time.ZoneId;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * 차트 갱신 알림에 담기는 일지 하나의 혈당 값. 값이 null 이면 바뀌지 않았다는 뜻이다.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DiaryReading {
+
+    private final Long diaryId;
+
+    /**
+     * 작성 시간의 epoch millis (ChartSeries 와 같은 기준). 수정 알림에서는 작성 시간이 바뀌지 않으므로 null 이다.
+     */
+    private final Long timestamp;
+
+    private final Integer fastingPlasmaGlucose;
+
+    private final Integer breakFastSugar;
+
+    private final Integer lunchSugar;
+
+    private final Integer dinnerSugar;
+
+    private DiaryReading(Long diaryId, Long timestamp, Integer fastingPlasmaGlucose, Integer breakFastSugar, Integer lunchSugar, Integer dinnerSugar) {
+        this.diaryId = checkNotNull(diaryId, "diaryId must be provided");
+        this.timestamp = timestamp;
+        this.fastingPlasmaGlucose = fastingPlasmaGlucose;
+        this.breakFastSugar = breakFastSugar;
+        this.lunchSugar = lunchSugar;
+        this.dinnerSugar = dinnerSugar;
+    }
+
+    /**
+     * 새로 작성된 일지. 식단은 일지에 이미 붙어 있어야 한다. (추가 조회를 하지 않는다.)
+     */
+    public static DiaryReading of(DiabetesDiary diary) {
+        Integer[] sugars = new Integer[EatTime.values().length];
+        for (Diet diet : diary.getDietList()) {
+            sugars[diet.getEatTime().ordinal()] = diet.getBloodSugar();
+        }
+        return new DiaryReading(diary.getId(), ChartSeries.toEpochMillis(diary.getWrittenTime(), ZoneId.systemDefault()), diary.getFastingPlasmaGlucose(),
+                sugars[EatTime.BreakFast.ordinal()], sugars[EatTime.Lunch.ordinal()], sugars[EatTime.Dinner.ordinal()]);
+    }
+
+    /**
+     * 수정된 일지. 바뀐 값만 넣고 나머지는 null 로 둔다.
+     */
+    public static DiaryReading changed(Long diaryId, Integer fastingPlasmaGlucose, Integer breakFastSugar, Integer lunchSugar, Integer dinnerSugar) {
+        return new DiaryReading(diaryId, null, fastingPlasmaGlucose, breakFastSugar, lunchSugar, dinnerSugar);
+    }
+
+    public Long getDiaryId() {
+        return diaryId;
+    }
+
+    public Long getTimestamp() {
+        return timestamp;
+    }
+
+    public Integer getFastingPlasmaGlucose() {
+        return fastingPlasmaGlucose;
+    }
+
+    public Integer getBreakFastSugar() {
+        return breakFastSugar;
+    }
+
+    public Integer getLunchSugar() {
+        return lunchSugar;
+    }
+
+    public Integer getDinnerSugar() {
+        return dinnerSugar;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("diaryId", diaryId)
+                .append("timestamp", timestamp)
+                .append("fastingPlasmaGlucose", fastingPlasmaGlucose)
+                .append("breakFastSugar", breakFastSugar)
+                .append("lunchSugar", lunchSugar)
+                .append("dinnerSugar", dinnerSugar)
+                .toString();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * @(#)EstimatedHbA1cSeries.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain.vo;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 날짜 별 최근 n 일 평균 혈당(eAG)과 추정 당화혈색소. ChartSeries 처럼 열 단위로 모은다.
+ * i 번째 날은 timestamps[i] 이고, 기간 w 의 평균은 averageGlucose[w][i] 이다.
+ * 배열은 복사하지 않고 그대로 내보내므로 받은 쪽에서 수정하면 안 된다.
+ */
+public class EstimatedHbA1cSeries {
+
+    /**
+     * ADAG 식 eAG(mg/dL) = 28.7 * HbA1c(%) - 46.7 의 계수
+     */
+    private static final double ADAG_SLOPE = 28.7;
+
+    private static final double ADAG_INTERCEPT = 46.7;
+
+    /**
+     * 평균 낸 기간(일)
+     */
+    private final int[] windowDays;
+
+    /**
+     * 날짜의 0 시 epoch millis. 서버의 기본 시간대로 해석한다.
+     */
+    private final long[] timestamps;
+
+    /**
+     * [기간][날짜] 평균 혈당. 기간 안에 기록이 없으면 null
+     */
+    private final Double[][] averageGlucose;
+
+    public EstimatedHbA1cSeries(int[] windowDays, long[] timestamps, Double[][] averageGlucose) {
+        this.windowDays = windowDays;
+        this.timestamps = timestamps;
+        this.averageGlucose = averageGlucose;
+    }
+
+    /**
+     * 평균 혈당으로 추정한 당화혈색소(%)
+     */
+    public static double toHbA1c(double averageGlucose) {
+        return (averageGlucose + ADAG_INTERCEPT) / ADAG_SLOPE;
+    }
+
+    public int[] getWindowDays() {
+        return windowDays;
+    }
+
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    public Double[] getAverageGlucose(int window) {
+        return averageGlucose[window];
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("windowDays", windowDays)
+                .append("days", timestamps.length)
+                .toString();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * @(#)FoodImpact.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain.vo;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 음식 하나가 식사 혈당에 주는 영향. 그 음식을 먹은 식단과 먹지 않은 식단의 평균 식사 혈당을 비교한다.
+ * 같은 식단의 다른 음식, 식사 시간 등을 통제하지 않은 단순 비교이므로 인과가 아니라 경향으로 읽어야 한다.
+ */
+@Getter
+public class FoodImpact {
+
+    private final String foodName;
+
+    /**
+     * 이 음식이 들어간 식단 수. 한 식단에 여러 번 적혀 있어도 한 번으로 센다.
+     */
+    private final long occurrence;
+
+    /**
+     * 이 음식이 들어간 식단의 평균 식사 혈당
+     */
+    private final double meanWith;
+
+    /**
+     * 이 음식이 들어가지 않은 식단(음식이 없는 식단 포함)의 평균 식사 혈당
+     */
+    private final double meanWithout;
+
+    /**
+     * meanWith - meanWithout. 클수록 혈당을 많이 올린 음식이다.
+     */
+    private final double difference;
+
+    /**
+     * difference 의 95% 신뢰 구간 (Welch)
+     */
+    private final double lowerBound;
+
+    private final double upperBound;
+
+    @Builder
+    private FoodImpact(String foodName, long occurrence, double meanWith, double meanWithout, double lowerBound, double upperBound) {
+        this.foodName = foodName;
+        this.occurrence = occurrence;
+        this.meanWith = meanWith;
+        this.meanWithout = meanWithout;
+        this.difference = meanWith - meanWithout;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("foodName", foodName)
+                .append("occurrence", occurrence)
+                .append("difference", difference)
+                .append("lowerBound", lowerBound)
+                .append("upperBound", upperBound)
+                .toString();
+    }
+}
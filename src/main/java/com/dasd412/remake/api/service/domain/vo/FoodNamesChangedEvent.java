@@ -0,0 +1,65 @@
+/*
+ * @(#)FoodNamesChangedEvent.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain.vo;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * 작성자의 음식 이름이 바뀌었다는 알림. SaveDiaryService, UpdateDeleteDiaryService 가 발행하고 커밋된 뒤에 FoodNameIndex 가 색인에 반영한다.
+ * 음식이 추가되기만 했으면 추가된 이름을 담고, 음식이나 일지가 지워졌거나 한꺼번에 많이 들어왔으면 removed 만 true 로 보내 색인을 버리게 한다.
+ */
+public class FoodNamesChangedEvent {
+
+    private final Long writerId;
+
+    private final Collection<String> added;
+
+    private final boolean removed;
+
+    private FoodNamesChangedEvent(Long writerId, Collection<String> added, boolean removed) {
+        this.writerId = checkNotNull(writerId, "writerId must be provided");
+        this.added = added;
+        this.removed = removed;
+    }
+
+    public static FoodNamesChangedEvent added(Long writerId, Collection<String> added) {
+        return new FoodNamesChangedEvent(writerId, checkNotNull(added, "added must be provided"), false);
+    }
+
+    public static FoodNamesChangedEvent removed(Long writerId) {
+        return new FoodNamesChangedEvent(writerId, Collections.emptyList(), true);
+    }
+
+    public Long getWriterId() {
+        return writerId;
+    }
+
+    public Collection<String> getAdded() {
+        return added;
+    }
+
+    public boolean isRemoved() {
+        return removed;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("writerId", writerId)
+                .append("added", added.size())
+                .append("removed", removed)
+                .toString();
+    }
+}
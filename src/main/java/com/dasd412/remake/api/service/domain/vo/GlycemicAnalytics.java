@@ -0,0 +1,69 @@
+/*
+ * @(#)GlycemicAnalytics.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain.vo;
+
+import com.dasd412.remake.api.domain.diary.diet.EatTime;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * 작성자의 혈당 변동성 분석 결과. 전체(공복과 식후를 시간 순으로 이은 것), 공복, 식후, 식사 시간 별로 나눈다.
+ */
+public class GlycemicAnalytics {
+
+    private final GlycemicVariability overall;
+
+    private final GlycemicVariability fasting;
+
+    private final GlycemicVariability postMeal;
+
+    private final Map<EatTime, GlycemicVariability> byEatTime;
+
+    public GlycemicAnalytics(GlycemicVariability overall, GlycemicVariability fasting, GlycemicVariability postMeal, Map<EatTime, GlycemicVariability> byEatTime) {
+        this.overall = checkNotNull(overall, "overall must be provided");
+        this.fasting = checkNotNull(fasting, "fasting must be provided");
+        this.postMeal = checkNotNull(postMeal, "postMeal must be provided");
+        this.byEatTime = Collections.unmodifiableMap(new EnumMap<>(checkNotNull(byEatTime, "byEatTime must be provided")));
+    }
+
+    public GlycemicVariability getOverall() {
+        return overall;
+    }
+
+    public GlycemicVariability getFasting() {
+        return fasting;
+    }
+
+    public GlycemicVariability getPostMeal() {
+        return postMeal;
+    }
+
+    /**
+     * @return 해당 식사 시간의 요약. 기록이 없으면 GlycemicVariability.empty()
+     */
+    public GlycemicVariability ofEatTime(EatTime eatTime) {
+        return byEatTime.getOrDefault(eatTime, GlycemicVariability.empty());
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("overall", overall)
+                .append("fasting", fasting)
+                .append("postMeal", postMeal)
+                .append("byEatTime", byEatTime)
+                .toString();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * @(#)GlycemicVariability.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain.vo;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 혈당 값 묶음 하나(공복, 식후, 아침 등)의 변동성 요약. GlycemicAccumulator 가 만든다.
+ * 값이 없으면 count 만 0 이고 나머지는 null 이다.
+ */
+@Getter
+public class GlycemicVariability {
+
+    private final long count;
+
+    private final Double mean;
+
+    /**
+     * 표본 표준 편차 (mg/dL)
+     */
+    private final Double standardDeviation;
+
+    /**
+     * 변동 계수 (%). 표준 편차 / 평균
+     */
+    private final Double coefficientOfVariation;
+
+    /**
+     * 목표 범위보다 낮은 값의 비율 (%)
+     */
+    private final Double percentBelowRange;
+
+    private final Double percentInRange;
+
+    private final Double percentAboveRange;
+
+    /**
+     * 평균 혈당 변동 폭 (mg/dL). 표준 편차보다 큰 오르내림이 없으면 null
+     */
+    private final Double mage;
+
+    @Builder
+    private GlycemicVariability(long count, Double mean, Double standardDeviation, Double coefficientOfVariation,
+                                Double percentBelowRange, Double percentInRange, Double percentAboveRange, Double mage) {
+        this.count = count;
+        this.mean = mean;
+        this.standardDeviation = standardDeviation;
+        this.coefficientOfVariation = coefficientOfVariation;
+        this.percentBelowRange = percentBelowRange;
+        this.percentInRange = percentInRange;
+        this.percentAboveRange = percentAboveRange;
+        this.mage = mage;
+    }
+
+    public static GlycemicVariability empty() {
+        return GlycemicVariability.builder().count(0).build();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("count", count)
+                .append("mean", mean)
+                .append("standardDeviation", standardDeviation)
+                .append("coefficientOfVariation", coefficientOfVariation)
+                .append("percentBelowRange", percentBelowRange)
+                .append("percentInRange", percentInRange)
+                .append("percentAboveRange", percentAboveRange)
+                .append("mage", mage)
+                .toString();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * @(#)QuantileSummary.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.domain.vo;
+
+import com.dasd412.remake.api.service.domain.QuantileSketch;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 혈당 분포 요약. 값이 없으면 count 만 0 이고 나머지는 null 이다.
+ */
+public class QuantileSummary {
+
+    private final long count;
+
+    private final Double median;
+
+    /**
+     * 90 번째 백분위수. 열 번 중 한 번은 이보다 높았다는 뜻이다.
+     */
+    private final Double percentile90;
+
+    private QuantileSummary(long count, Double median, Double percentile90) {
+        this.count = count;
+        this.median = median;
+        this.percentile90 = percentile90;
+    }
+
+    public static QuantileSummary of(QuantileSketch sketch) {
+        if (sketch.isEmpty()) {
+            return new QuantileSummary(0, null, null);
+        }
+        return new QuantileSummary(sketch.getCount(), sketch.quantile(0.5), sketch.quantile(0.9));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Double getMedian() {
+        return median;
+    }
+
+    public Double getPercentile90() {
+        return percentile90;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("count", count)
+                .append("median", median)
+                .append("percentile90", percentile90)
+                .toString();
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * @(#)WriterExistenceFilter.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.service.security;
+
+import com.dasd412.remake.api.domain.diary.writer.QWriter;
+import com.dasd412.remake.api.domain.diary.writer.WriterRepository;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * 회원 가입 폼의 이름, 이메일 중복 미리 확인(/signup/user/duplicate)에서 db 조회 전에 걸러주는 블룸 필터.
+ * mightContain 이 false 이면 이 인스턴스가 아는 범위에서 "없음" 이므로 쿼리를 생략할 수 있다. true 인 경우에는 오탐일 수 있으므로 db 로 다시 확인해야 한다.
+ * <p>
+ * (주의) 필터는 인스턴스마다 따로 존재한다. 다른 인스턴스(real1, real2)에서 가입한 작성자는 다음 재구성(diary.writer-filter.rebuild-minutes) 전까지 반영되지 않는다.
+ * 그래서 "없음" 은 미리 확인용 힌트로만 쓰고, 실제 가입은 필터와 상관없이 항상 db 로 확인한다.
+ * <p>
+ * 재구성은 요청 스레드가 아니라 전용 스레드에서 한다. 훑는 동안 커밋된 가입은 새 필터에도 넣으므로 교체할 때 빠지지 않는다.
+ */
+@Component
+public class WriterExistenceFilter {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * 오탐률. 1% 이면 작성자 100만 명 기준 필터 하나 당 약 1.2MB 정도다.
+     */
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    /**
+     * 재구성 시점의 작성자 수에 더해 여유분으로 잡아두는 삽입 수
+     */
+    private static final int MIN_EXPECTED_INSERTIONS = 10_000;
+
+    /**
+     * 블룸 필터는 원소 삭제가 불가능하다. 회원 탈퇴가 이 횟수만큼 쌓이면 필터를 새로 만든다.
+     */
+    private static final int REBUILD_THRESHOLD_OF_REMOVAL = 1_000;
+
+    private final WriterRepository writerRepository;
+
+    /**
+     * 쓰기 트랜잭션으로 훑어서 복제본(ReplicationRoutingDataSource)이 아니라 원본 db 를 읽는다. 복제 지연 때문에 방금 커밋된 가입을 놓치지 않기 위함이다.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    private final long rebuildMinutes;
+
+    private final ScheduledExecutorService rebuilder;
+
+    /**
+     * 지금 쓰는 필터. 아직 만들어지지 않았으면 null 이고, 이 때는 모든 조회가 "있을 수도 있음"으로 취급된다.
+     */
+    private volatile Filters current;
+
+    /**
+     * 재구성 중인 필터. 훑는 동안 커밋된 가입도 여기에 넣는다. 재구성 중이 아니면 null
+     */
+    private volatile Filters building;
+
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    private final AtomicInteger removedCount = new AtomicInteger();
+
+    public WriterExistenceFilter(WriterRepository writerRepository, PlatformTransactionManager transactionManager,
+                                 @Value("${diary.writer-filter.rebuild-minutes:60}") long rebuildMinutes) {
+        checkArgument(rebuildMinutes > 0, "rebuild minutes should be positive");
+        this.writerRepository = writerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildMinutes = rebuildMinutes;
+        this.rebuilder = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("writer-filter-rebuilder-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    /**
+     * 어플리케이션 시작 직후 한 번 만들고, 이후 rebuildMinutes 마다 다시 만들어 다른 인스턴스의 가입을 반영한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuilder.scheduleWithFixedDelay(this::requestRebuild, 0, rebuildMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * 재구성을 전용 스레드에 맡기고 바로 돌아온다. 이미 대기 중인 재구성이 있으면 그것으로 충분하므로 또 넣지 않는다.
+     */
+    public void requestRebuild() {
+        if (!rebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuilder.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException exception) {
+                    logger.warn("failed to rebuild writer existence filter : " + exception.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            rebuildQueued.set(false);
+        }
+    }
+
+    /**
+     * 작성자 테이블을 앞에서부터 한 번 훑어서 필터를 새로 만든 뒤 교체한다.
+     * 훑기 전에 building 을 먼저 공개하므로, 그 뒤에 커밋된 가입은 put()이 building 에도 넣는다. 그 전에 커밋된 가입은 훑을 때 읽힌다.
+     */
+    void rebuild() {
+        long writerCount = writerRepository.count();
+        int expectedInsertions = (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_EXPECTED_INSERTIONS, writerCount * 2));
+
+        Filters next = new Filters(expectedInsertions);
+        building = next;
+        try {
+            /* 커서가 트랜잭션 안에서 열려야 한다. */
+            transactionTemplate.execute(status -> {
+                try (CloseableIterator<Tuple> iterator = writerRepository.iterateNameAndEmail()) {
+                    while (iterator.hasNext()) {
+                        Tuple tuple = iterator.next();
+                        next.put(tuple.get(QWriter.writer.name), tuple.get(QWriter.writer.email), tuple.get(QWriter.writer.provider));
+                    }
+                }
+                return null;
+            });
+            current = next;
+            removedCount.set(0);
+        } finally {
+            building = null;
+        }
+
+        logger.info("writer existence filter rebuilt. writer count : " + writerCount);
+    }
+
+    /**
+     * @return false 이면 이 인스턴스가 아는 범위에서는 해당 이름이 없다.
+     */
+    public boolean mightContainName(String name) {
+        Filters filters = current;
+        return filters == null || filters.names.mightContain(name);
+    }
+
+    /**
+     * WriterRepository.existsEmail()과 동일한 규칙을 따른다.
+     * provider 가 null 이면 이메일만, null 이 아니면 provider 와 이메일 쌍을 확인한다.
+     *
+     * @return false 이면 이 인스턴스가 아는 범위에서는 해당 이메일이 없다.
+     */
+    public boolean mightContainEmail(String email, String provider) {
+        Filters filters = current;
+        return filters == null || filters.emails.mightContain(makeEmailKey(email, provider));
+    }
+
+    /**
+     * 회원 가입 시 호출한다. 트랜잭션 안이면 커밋된 뒤에 넣는다. (롤백된 가입은 넣지 않고, 재구성과의 순서도 커밋 기준으로 맞춘다.)
+     */
+    public void put(String name, String email, String provider) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    putNow(name, email, provider);
+                }
+            });
+            return;
+        }
+        putNow(name, email, provider);
+    }
+
+    /**
+     * building 을 current 보다 먼저 읽어야 한다. rebuild()는 current 를 바꾼 뒤에 building 을 비우므로,
+     * building 이 비어 있었다면 이어서 읽는 current 는 이 가입을 이미 훑은 필터이거나 재구성 전의 필터다.
+     */
+    private void putNow(String name, String email, String provider) {
+        Filters next = building;
+        Filters filters = current;
+        if (next != null) {
+            next.put(name, email, provider);
+        }
+        if (filters != null && filters != next) {
+            filters.put(name, email, provider);
+        }
+    }
+
+    /**
+     * 회원 탈퇴 시 호출한다. 필터에서 지울 수는 없으므로 오탐만 늘어날 뿐 정확성에는 문제가 없다.
+     * 탈퇴가 충분히 쌓이면 재구성을 요청한다. 재구성은 전용 스레드에서 하므로 탈퇴 요청을 붙잡지 않는다.
+     */
+    public void notifyRemoved() {
+        if (removedCount.incrementAndGet() >= REBUILD_THRESHOLD_OF_REMOVAL) {
+            requestRebuild();
+        }
+    }
+
+    private static String makeEmailKey(String email, String provider) {
+        return provider == null ? email : provider + "|" + email;
+    }
+
+    /**
+     * 이름 필터와 이메일 필터 한 쌍. 교체할 때 둘이 같이 바뀌도록 묶어둔다.
+     * BloomFilter.put()은 여러 스레드가 동시에 호출해도 된다.
+     */
+    private static final class Filters {
+
+        private final BloomFilter<CharSequence> names;
+
+        /**
+         * 이메일 필터에는 (이메일) 과 (provider + 이메일) 두 개의 키가 들어간다.
+         */
+        private final BloomFilter<CharSequence> emails;
+
+        private Filters(int expectedInsertions) {
+            this.names = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, FALSE_POSITIVE_PROBABILITY);
+            this.emails = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions * 2L, FALSE_POSITIVE_PROBABILITY);
+        }
+
+        private void put(String name, String email, String provider) {
+            if (name != null) {
+                names.put(name);
+            }
+            if (email != null) {
+                emails.put(makeEmailKey(email, null));
+                if (provider != null) {
+                    emails.put(makeEmailKey(email, provider));
+                }
+            }
+        }
+    }
+}
@@ -14,7 +14,11 @@ import com.dasd412.remake.api.controller.exception.DuplicateUserNameException;
 import com.dasd412.remake.api.domain.diary.EntityId;
 import com.dasd412.remake.api.domain.diary.writer.Writer;
 import com.dasd412.remake.api.domain.diary.writer.WriterRepository;
+import com.dasd412.remake.api.service.domain.BloodSugarSketchIndex;
+import com.dasd412.remake.api.service.domain.FoodImpactService;
+import com.dasd412.remake.api.service.domain.FoodNameIndex;
 import com.dasd412.remake.api.service.security.vo.AuthenticationVO;
+import com.dasd412.remake.api.service.security.vo.OAuth2UserVO;
 import com.dasd412.remake.api.util.RegexChecker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,9 +45,22 @@ public class WriterService {
 
     private final BCryptPasswordEncoder bCryptPasswordEncoder;
 
-    public WriterService(WriterRepository writerRepository, BCryptPasswordEncoder bCryptPasswordEncoder) {
+    private final WriterExistenceFilter writerExistenceFilter;
+
+    private final FoodNameIndex foodNameIndex;
+
+    private final BloodSugarSketchIndex bloodSugarSketchIndex;
+
+    private final FoodImpactService foodImpactService;
+
+    public WriterService(WriterRepository writerRepository, BCryptPasswordEncoder bCryptPasswordEncoder, WriterExistenceFilter writerExistenceFilter,
+                         FoodNameIndex foodNameIndex, BloodSugarSketchIndex bloodSugarSketchIndex, FoodImpactService foodImpactService) {
         this.writerRepository = writerRepository;
         this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.writerExistenceFilter = writerExistenceFilter;
+        this.foodNameIndex = foodNameIndex;
+        this.bloodSugarSketchIndex = bloodSugarSketchIndex;
+        this.foodImpactService = foodImpactService;
     }
 
     private EntityId<Writer, Long> getNextIdOfWriter() {
@@ -62,11 +79,11 @@ public class WriterService {
     public Writer saveWriterWithSecurity(AuthenticationVO vo) throws DuplicateException {
         logger.info("join writer with security");
 
-        if (writerRepository.existsName(vo.getName()) == Boolean.TRUE) {
+        if (existsName(vo.getName())) {
             throw new DuplicateUserNameException("이미 존재하는 회원 이름입니다.");
         }
 
-        if (writerRepository.existsEmail(vo.getEmail(), vo.getProvider()) == Boolean.TRUE) {
+        if (existsEmail(vo.getEmail(), vo.getProvider())) {
             throw new DuplicateEmailException("이미 존재하는 이메일입니다.");
         }
 
@@ -74,15 +91,72 @@ public class WriterService {
 
         writerRepository.save(writer);
 
+        writerExistenceFilter.put(writer.getName(), writer.getEmail(), writer.getProvider());
+
         return writer;
     }
 
+    /**
+     * OAuth 최초 로그인 시의 회원 가입.
+     * 이름이 provider_providerId 로 만들어지고 (provider, providerId)에 유니크 제약이 있으므로 existsName, existsEmail 확인을 하지 않는다.
+     * 같은 작성자가 동시에 최초 로그인하면 한 쪽은 제약 위반(DataIntegrityViolationException)으로 실패하는데,
+     * 호출하는 쪽에서 다시 조회하면 되도록 반드시 별도 트랜잭션으로 호출해야 한다.
+     */
+    @Transactional
+    public Writer saveOAuthWriter(OAuth2UserVO vo) {
+        logger.info("join oauth writer");
+        checkNotNull(vo.getProvider(), "provider must be provided");
+        checkNotNull(vo.getProviderId(), "providerId must be provided");
+
+        Writer writer = vo.makeEntityWithPasswordEncode(getNextIdOfWriter(), bCryptPasswordEncoder);
+
+        writerRepository.saveAndFlush(writer);
+
+        writerExistenceFilter.put(writer.getName(), writer.getEmail(), writer.getProvider());
+
+        return writer;
+    }
+
+    /**
+     * Writer.email 에는 유니크 제약이 없고 블룸 필터는 다른 인스턴스의 가입을 모를 수 있으므로, 가입 시의 확인은 항상 db 로 한다.
+     */
+    @Transactional(readOnly = true)
+    public boolean existsName(String name) {
+        return writerRepository.existsName(name) == Boolean.TRUE;
+    }
+
+    @Transactional(readOnly = true)
+    public boolean existsEmail(String email, String provider) {
+        return writerRepository.existsEmail(email, provider) == Boolean.TRUE;
+    }
+
+    /**
+     * 가입 폼 입력 중 미리 확인용. 블룸 필터가 "없음"이라고 답하면 db 를 조회하지 않고, "있을 수도 있음"일 때만 쿼리를 날린다.
+     * 다른 인스턴스에서 방금 가입한 이름은 놓칠 수 있지만, 그 경우에도 실제 가입은 existsName()에서 걸러진다.
+     */
+    @Transactional(readOnly = true)
+    public boolean existsNameForPreCheck(String name) {
+        return writerExistenceFilter.mightContainName(name) && existsName(name);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean existsEmailForPreCheck(String email, String provider) {
+        return writerExistenceFilter.mightContainEmail(email, provider) && existsEmail(email, provider);
+    }
+
 
     @Transactional
     public void withdrawWriter(EntityId<Writer, Long> writerId) {
         logger.info("withdraw writer !!");
         checkNotNull(writerId, "writerId must be provided");
         writerRepository.bulkDeleteWriter(writerId.getId());
+
+        /* 작성자 id 는 max + 1 로 다시 쓰일 수 있다. */
+        foodNameIndex.invalidate(writerId.getId());
+        bloodSugarSketchIndex.invalidate(writerId.getId());
+        foodImpactService.invalidate(writerId.getId());
+
+        writerExistenceFilter.notifyRemoved();
     }
 
     @Transactional
@@ -0,0 +1,82 @@
+/*
+ * @(#)HangulJamo.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 한글 음절을 자모로 풀어 쓴다. 입력 중인 글자로도 접두사 검색이 되게 하기 위함이다.
+ * 예) "김치찌개" -> "ㄱㅣㅁㅊㅣㅉㅣㄱㅐ" 이므로 "김치ㅉ" 는 "김치찌개"의 접두사가 된다.
+ * 다음 글자의 초성이 받침으로 잠깐 붙은 입력 중 상태 "김칮"("ㄱㅣㅁㅊㅣㅈ") 도 "김치전"의 접두사가 된다.
+ * 겹모음(ㅘ), 겹받침(ㄺ)도 두 글자로 나누어 "고" 로 "과자"를 찾을 수 있게 한다. 된소리(ㄲ)는 한 번에 입력되므로 나누지 않는다.
+ */
+public class HangulJamo {
+
+    private static final char SYLLABLE_START = '가';
+
+    private static final char SYLLABLE_END = '힣';
+
+    private static final int MEDIAL_COUNT = 21;
+
+    private static final int FINAL_COUNT = 28;
+
+    private static final String[] INITIALS = {
+            "ㄱ", "ㄲ", "ㄴ", "ㄷ", "ㄸ", "ㄹ", "ㅁ", "ㅂ", "ㅃ", "ㅅ", "ㅆ", "ㅇ", "ㅈ", "ㅉ", "ㅊ", "ㅋ", "ㅌ", "ㅍ", "ㅎ"
+    };
+
+    private static final String[] MEDIALS = {
+            "ㅏ", "ㅐ", "ㅑ", "ㅒ", "ㅓ", "ㅔ", "ㅕ", "ㅖ", "ㅗ", "ㅗㅏ", "ㅗㅐ", "ㅗㅣ", "ㅛ", "ㅜ", "ㅜㅓ", "ㅜㅔ", "ㅜㅣ", "ㅠ", "ㅡ", "ㅡㅣ", "ㅣ"
+    };
+
+    private static final String[] FINALS = {
+            "", "ㄱ", "ㄲ", "ㄱㅅ", "ㄴ", "ㄴㅈ", "ㄴㅎ", "ㄷ", "ㄹ", "ㄹㄱ", "ㄹㅁ", "ㄹㅂ", "ㄹㅅ", "ㄹㅌ", "ㄹㅍ", "ㄹㅎ",
+            "ㅁ", "ㅂ", "ㅂㅅ", "ㅅ", "ㅆ", "ㅇ", "ㅈ", "ㅊ", "ㅋ", "ㅌ", "ㅍ", "ㅎ"
+    };
+
+    /**
+     * 낱자로 입력된 겹모음, 겹받침 (ㅘ, ㄳ 등)
+     */
+    private static final Map<Character, String> COMPOUND_JAMO = new HashMap<>();
+
+    static {
+        String compounds = "ㅘㅙㅚㅝㅞㅟㅢㄳㄵㄶㄺㄻㄼㄽㄾㄿㅀㅄ";
+        String[] splits = {"ㅗㅏ", "ㅗㅐ", "ㅗㅣ", "ㅜㅓ", "ㅜㅔ", "ㅜㅣ", "ㅡㅣ", "ㄱㅅ", "ㄴㅈ", "ㄴㅎ", "ㄹㄱ", "ㄹㅁ", "ㄹㅂ", "ㄹㅅ", "ㄹㅌ", "ㄹㅍ", "ㄹㅎ", "ㅂㅅ"};
+        for (int i = 0; i < splits.length; i++) {
+            COMPOUND_JAMO.put(compounds.charAt(i), splits[i]);
+        }
+    }
+
+    private HangulJamo() {
+    }
+
+    /**
+     * 한글 음절은 자모로, 영문은 소문자로 바꾸고 공백은 지운다. ("김치 찌개" 와 "김치찌개"는 같은 키가 된다.)
+     */
+    public static String decompose(String text) {
+        StringBuilder builder = new StringBuilder(text.length() * 3);
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                continue;
+            }
+            if (ch >= SYLLABLE_START && ch <= SYLLABLE_END) {
+                int offset = ch - SYLLABLE_START;
+                builder.append(INITIALS[offset / (MEDIAL_COUNT * FINAL_COUNT)])
+                        .append(MEDIALS[(offset % (MEDIAL_COUNT * FINAL_COUNT)) / FINAL_COUNT])
+                        .append(FINALS[offset % FINAL_COUNT]);
+            } else if (COMPOUND_JAMO.containsKey(ch)) {
+                builder.append(COMPOUND_JAMO.get(ch));
+            } else {
+                builder.append(Character.toLowerCase(ch));
+            }
+        }
+        return builder.toString();
+    }
+}
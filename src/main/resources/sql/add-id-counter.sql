@@ -0,0 +1,22 @@
+-- 일지, 식단, 음식 식별자 카운터 도입 (max + 1 대신 카운터에서 구간을 배정받는다.)
+-- 운영 db(MySQL) 에 한 번만 실행한다. 카운터는 배정할 때마다 테이블의 최댓값과 비교하므로 실행 중에 일지가 저장되어도 된다.
+
+CREATE TABLE id_counter
+(
+    name    VARCHAR(32) NOT NULL,
+    next_id BIGINT      NOT NULL,
+    PRIMARY KEY (name)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4;
+
+INSERT INTO id_counter (name, next_id)
+SELECT 'diary', COALESCE(MAX(diary_id), 0) + 1
+FROM diabetes_diary;
+
+INSERT INTO id_counter (name, next_id)
+SELECT 'diet', COALESCE(MAX(diet_id), 0) + 1
+FROM diet;
+
+INSERT INTO id_counter (name, next_id)
+SELECT 'food', COALESCE(MAX(food_id), 0) + 1
+FROM food;
@@ -0,0 +1,5 @@
+-- 작성자 데이터 버전 도입 (조회 응답의 ETag, If-None-Match -> 304)
+-- 운영 db(MySQL) 에 한 번만 실행한다. 기존 작성자는 0 부터 시작한다.
+
+ALTER TABLE writer
+    ADD COLUMN data_version BIGINT NOT NULL DEFAULT 0;
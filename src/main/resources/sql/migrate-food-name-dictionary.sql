@@ -0,0 +1,26 @@
+-- 음식 이름 사전 도입 (Food.food_name varchar -> Food.food_name_id int)
+-- 운영 db(MySQL) 에 한 번만 실행한다. 실행 중에는 일지 작성, 수정을 막아야 한다.
+-- 사전의 name 은 대소문자, 악센트를 구분해야 하므로(rice, Rice 는 다른 이름) 반드시 binary collation 을 쓴다.
+
+CREATE TABLE food_name
+(
+    food_name_id INT         NOT NULL AUTO_INCREMENT,
+    name         VARCHAR(50) NOT NULL COLLATE utf8mb4_bin,
+    PRIMARY KEY (food_name_id),
+    CONSTRAINT uk_food_name_name UNIQUE (name)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4;
+
+INSERT INTO food_name (name)
+SELECT DISTINCT food_name COLLATE utf8mb4_bin
+FROM food;
+
+ALTER TABLE food
+    ADD COLUMN food_name_id INT NULL;
+
+UPDATE food f
+    JOIN food_name n ON n.name = f.food_name COLLATE utf8mb4_bin
+SET f.food_name_id = n.food_name_id;
+
+ALTER TABLE food
+    DROP COLUMN food_name;
@@ -59,11 +59,39 @@ const config = {
     }
 };
 
+/**
+ * 열 단위 응답(timestamps, values, eatTimes 배열)을 받기 위한 Accept 헤더 값
+ */
+const COLUMNAR_JSON = 'application/vnd.diary.columnar+json';
+
+/**
+ * 식사 시간 이름 -> 데이터셋 라벨
+ */
+const LABEL_OF_EAT_TIME = {
+    BreakFast: '아침 혈당',
+    Lunch: '점심 혈당',
+    Dinner: '저녁 혈당'
+};
+
+/**
+ * 데이터셋 라벨 -> 일지 변경 알림(DiaryReading) 의 필드 이름
+ */
+const READING_FIELD_OF_LABEL = {
+    '아침 혈당': 'breakFastSugar',
+    '점심 혈당': 'lunchSugar',
+    '저녁 혈당': 'dinnerSugar'
+};
+
 const myChartBloodSugar = new Chart(
     document.getElementById('myChartBloodSugar'),
     config
 );
 
+/**
+ * 지금 차트에 보이는 기간. 일지 변경 알림을 받았을 때 새 점을 넣을지 정하는 데 쓴다. 아직 조회하지 않았으면 null
+ */
+let shownRange = null;
+
 const bloodSugarFinder = {
 
     /**
@@ -98,9 +126,12 @@ const bloodSugarFinder = {
      * 전체 기간 식사 혈당 조회 요청
      */
     findAllBloodSugar: function () {
+        shownRange = ChartUpdates.ALL;
         $.ajax({
             type: 'GET',
             url: "/chart-menu/blood-sugar/all",
+            dataType: 'json',
+            headers: {Accept: COLUMNAR_JSON},
             contentType: 'application/json; charset=utf-8'
         }).done(function (apiResult) {
             updateChartForBloodSugar(apiResult);
@@ -122,10 +153,12 @@ const bloodSugarFinder = {
             return;
         }
 
+        shownRange = ChartUpdates.rangeOf(convertedDate.betweenDate);
         $.ajax({
             type: 'GET',
             url: '/chart-menu/blood-sugar/between',
             dataType: 'json',
+            headers: {Accept: COLUMNAR_JSON},
             contentType: 'application/x-www-form-urlencoded; charset=UTF-8;',
             data: convertedDate.betweenDate
         }).done(function (apiResult) {
@@ -153,34 +186,17 @@ function updateChartForBloodSugar(apiResult) {
         return;
     }
 
-    for (let i = 0; i < apiResult.response.length; i++) {
-        const dateTime = apiResult.response[i].dateTime;
-        const bloodSugar = apiResult.response[i].bloodSugar;
-        const eatTime = apiResult.response[i].eatTime;
-
-        switch (eatTime) {
-            case "BreakFast":
-                myChartBloodSugar.data.datasets.forEach((dataset) => {
-                    if (dataset.label === '아침 혈당') {
-                        dataset.data.push({x: moment(dateTime), y: bloodSugar});
-                    }
-                });
-                break;
-            case "Lunch":
-                myChartBloodSugar.data.datasets.forEach((dataset) => {
-                    if (dataset.label === '점심 혈당') {
-                        dataset.data.push({x: moment(dateTime), y: bloodSugar});
-                    }
-                });
-                break;
-            case "Dinner":
-                myChartBloodSugar.data.datasets.forEach((dataset) => {
-                    if (dataset.label === '저녁 혈당') {
-                        dataset.data.push({x: moment(dateTime), y: bloodSugar});
-                    }
-                });
-                break;
+    const columns = apiResult.response;
+    for (let i = 0; i < columns.timestamps.length; i++) {
+        const label = LABEL_OF_EAT_TIME[columns.eatTimeNames[columns.eatTimes[i]]];
+        if (label === undefined) {
+            continue;
         }
+        myChartBloodSugar.data.datasets.forEach((dataset) => {
+            if (dataset.label === label) {
+                dataset.data.push({x: moment(columns.timestamps[i]), y: columns.values[i], diaryId: columns.diaryIds[i]});
+            }
+        });
     }
     myChartBloodSugar.update();
 }
@@ -198,4 +214,13 @@ $(document).ready(function () {
     });
 
     bloodSugarFinder.init();
+
+    /**
+     * 다른 탭이나 기기에서 일지를 쓰면 다시 조회하지 않고 바뀐 점만 반영한다.
+     */
+    ChartUpdates.subscribe(myChartBloodSugar, {
+        shownRange: () => shownRange,
+        valueOf: (reading, dataset) => reading[READING_FIELD_OF_LABEL[dataset.label]],
+        reload: () => bloodSugarFinder.find()
+    });
 });
\ No newline at end of file
@@ -0,0 +1,91 @@
+/*
+ * @(#)chartUpdates.js
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, JavaScript, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+/**
+ * 차트 화면이 열려 있는 동안 /chart-menu/updates 로 일지 변경분을 받아 차트에 반영하는 js
+ * 점마다 diaryId 를 들고 있어야 수정, 삭제를 반영할 수 있다.
+ */
+const ChartUpdates = {
+
+    /**
+     * @param chart chart.js 객체
+     * @param options {
+     *     shownRange: 지금 차트에 보이는 기간 {start, end} (epoch millis) 을 리턴하는 함수. 아직 조회하지 않았으면 null,
+     *     valueOf: (reading, dataset) => 그 데이터셋에 들어갈 값. 없거나 바뀌지 않았으면 null 또는 undefined,
+     *     reload: 가져오기처럼 한꺼번에 바뀌었을 때 다시 조회하는 함수
+     * }
+     */
+    subscribe: function (chart, options) {
+        if (typeof EventSource === 'undefined') {
+            return;
+        }
+
+        const source = new EventSource('/chart-menu/updates');
+
+        source.addEventListener('diary-changed', function (event) {
+            const range = options.shownRange();
+            if (range === null) {
+                return;
+            }
+
+            const change = JSON.parse(event.data);
+            if (change.reload === true) {
+                options.reload();
+                return;
+            }
+
+            chart.data.datasets.forEach((dataset) => {
+                change.deleted.forEach((diaryId) => removePoint(dataset, diaryId));
+
+                change.updated.forEach((reading) => {
+                    const value = options.valueOf(reading, dataset);
+                    if (value === null || value === undefined) {
+                        return;
+                    }
+                    const point = dataset.data.find((p) => p.diaryId === reading.diaryId);
+                    if (point !== undefined) {
+                        point.y = value;
+                    }
+                });
+
+                change.saved.forEach((reading) => {
+                    const value = options.valueOf(reading, dataset);
+                    if (value === null || value === undefined || reading.timestamp < range.start || reading.timestamp > range.end) {
+                        return;
+                    }
+                    removePoint(dataset, reading.diaryId);
+                    dataset.data.push({x: moment(reading.timestamp), y: value, diaryId: reading.diaryId});
+                    dataset.data.sort((a, b) => a.x - b.x);
+                });
+            });
+
+            chart.update();
+        });
+
+        function removePoint(dataset, diaryId) {
+            dataset.data = dataset.data.filter((point) => point.diaryId !== diaryId);
+        }
+    },
+
+    /**
+     * 조회한 기간을 차트 갱신에 쓰는 {start, end} 로 바꾼다. 끝 날짜는 그 날 0시까지이다. (DateStringConverter 와 같은 기준)
+     *
+     * @param betweenDate DateConverter.convertStringToLocalDateTime 의 betweenDate
+     */
+    rangeOf: function (betweenDate) {
+        return {
+            start: new Date(betweenDate.startYear, betweenDate.startMonth - 1, betweenDate.startDay).getTime(),
+            end: new Date(betweenDate.endYear, betweenDate.endMonth - 1, betweenDate.endDay).getTime()
+        };
+    },
+
+    /**
+     * 전체 기간을 조회했을 때의 범위
+     */
+    ALL: {start: -Infinity, end: Infinity}
+};
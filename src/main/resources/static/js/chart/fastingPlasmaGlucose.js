@@ -43,11 +43,21 @@ const config = {
     }
 };
 
+/**
+ * 열 단위 응답(timestamps, values 배열)을 받기 위한 Accept 헤더 값
+ */
+const COLUMNAR_JSON = 'application/vnd.diary.columnar+json';
+
 const myChart = new Chart(
     document.getElementById('myChart'),
     config
 );
 
+/**
+ * 지금 차트에 보이는 기간. 일지 변경 알림을 받았을 때 새 점을 넣을지 정하는 데 쓴다. 아직 조회하지 않았으면 null
+ */
+let shownRange = null;
+
 const FpgFinder = {
 
     /**
@@ -85,9 +95,12 @@ const FpgFinder = {
      * 전체 기간 공복 혈당 조회 요청
      */
     findAll: function () {
+        shownRange = ChartUpdates.ALL;
         $.ajax({
             type: 'GET',
             url: "/chart-menu/fasting-plasma-glucose/all",
+            dataType: 'json',
+            headers: {Accept: COLUMNAR_JSON},
             contentType: 'application/json; charset=utf-8'
         }).done(function (apiResult) {
             updateChart(apiResult);
@@ -109,10 +122,12 @@ const FpgFinder = {
             return;
         }
 
+        shownRange = ChartUpdates.rangeOf(convertedDate.betweenDate);
         $.ajax({
             type: 'GET',
             url: '/chart-menu/fasting-plasma-glucose/between',
             dataType: 'json',
+            headers: {Accept: COLUMNAR_JSON},
             contentType: 'application/x-www-form-urlencoded; charset=UTF-8;',
             data: convertedDate.betweenDate
         }).done(function (apiResult) {
@@ -131,14 +146,15 @@ function updateChart(apiResult) {
     if (apiResult.success === false) {
         return;
     }
-    //{x:timeStamp,y:fpg}
-    for (let i = 0; i < apiResult.response.length; i++) {
-        const timeStamp = apiResult.response[i].timeByTimeStamp;
-        const fpg = apiResult.response[i].fastingPlasmaGlucose;
-        myChart.data.datasets.forEach((dataset) => {
-            dataset.data[i] = {x: moment(timeStamp), y: fpg};
-        });
-    }
+    //{x:timestamps[i],y:values[i],diaryId:diaryIds[i]}
+    const diaryIds = apiResult.response.diaryIds;
+    const timestamps = apiResult.response.timestamps;
+    const values = apiResult.response.values;
+    myChart.data.datasets.forEach((dataset) => {
+        for (let i = 0; i < timestamps.length; i++) {
+            dataset.data[i] = {x: moment(timestamps[i]), y: values[i], diaryId: diaryIds[i]};
+        }
+    });
     myChart.update();
 }
 
@@ -164,4 +180,13 @@ $(document).ready(function () {
     });
 
     FpgFinder.init();
+
+    /**
+     * 다른 탭이나 기기에서 일지를 쓰면 다시 조회하지 않고 바뀐 점만 반영한다.
+     */
+    ChartUpdates.subscribe(myChart, {
+        shownRange: () => shownRange,
+        valueOf: (reading) => reading.fastingPlasmaGlucose,
+        reload: () => FpgFinder.find()
+    });
 });
\ No newline at end of file
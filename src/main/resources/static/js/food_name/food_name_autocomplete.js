@@ -0,0 +1,51 @@
+/*
+ * @(#)food_name_autocomplete.js
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, JavaScript, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+/**
+ * 일지 작성, 수정 폼의 음식 이름 자동 완성을 담당
+ * 예전에 먹었던 음식 이름을 보여주어 같은 음식이 여러 철자로 저장되는 것을 줄인다.
+ */
+const FoodNameAutocomplete = {
+
+    /**
+     * 키 입력 후 요청을 보내기까지 기다리는 시간(ms)
+     */
+    delay: 150,
+
+    limit: 10,
+
+    init: function () {
+        const _this = this;
+        ["#breakFastFoodName", "#lunchFoodName", "#dinnerFoodName"].forEach(function (inputId) {
+            $(inputId).autocomplete({
+                minLength: 1,
+                delay: _this.delay,
+                source: function (request, response) {
+                    _this.suggest(request.term, response);
+                }
+            });
+        });
+    },
+
+    suggest: function (term, response) {
+        $.ajax({
+            type: 'GET',
+            url: '/api/diary/user/food-names',
+            dataType: 'json',
+            data: {prefix: term, limit: this.limit}
+        }).done(function (data) {
+            response(data['response']);
+        }).fail(function () {
+            response([]);
+        });
+    }
+};
+
+$(document).ready(function () {
+    FoodNameAutocomplete.init();
+});
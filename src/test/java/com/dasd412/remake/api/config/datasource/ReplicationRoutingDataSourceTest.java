@@ -0,0 +1,126 @@
+package com.dasd412.remake.api.config.datasource;
+
+import com.dasd412.remake.api.domain.diary.writer.WriterRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "diary.datasource.replica.url=jdbc:h2:~/test",
+        "diary.datasource.replica.username=sa",
+        "diary.datasource.replica.password=",
+        "diary.datasource.replica.lag-query=SELECT 0"
+})
+public class ReplicationRoutingDataSourceTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WriterRepository writerRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @After
+    public void clean() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void readOnlyTransactionGoesToReplica() {
+        double before = routeCount("replica", "read-only");
+
+        inTransaction(true);
+
+        assertThat(routeCount("replica", "read-only")).isEqualTo(before + 1);
+    }
+
+    @Test
+    public void readWriteTransactionGoesToPrimary() {
+        double before = routeCount("primary", "read-write");
+
+        inTransaction(false);
+
+        assertThat(routeCount("primary", "read-write")).isEqualTo(before + 1);
+    }
+
+    @Test
+    public void readAfterWriteSticksToPrimary() {
+        MockHttpServletResponse postResponse = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("POST", "/api/diary/user/diabetes-diary"), postResponse));
+
+        inTransaction(false);
+
+        Cookie cookie = postResponse.getCookie(ReadYourWritesCookie.COOKIE_NAME);
+        assertThat(cookie).isNotNull();
+
+        MockHttpServletRequest getRequest = new MockHttpServletRequest("GET", "/api/diary/user/diabetes-diary/1");
+        getRequest.setCookies(cookie);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(getRequest, new MockHttpServletResponse()));
+        double before = routeCount("primary", "recent-write");
+
+        inTransaction(true);
+
+        assertThat(routeCount("primary", "recent-write")).isEqualTo(before + 1);
+    }
+
+    @Test
+    public void writeDuringGetDoesNotSetCookie() {
+        MockHttpServletResponse getResponse = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("GET", "/chart-menu"), getResponse));
+
+        inTransaction(false);
+
+        assertThat(getResponse.getCookie(ReadYourWritesCookie.COOKIE_NAME)).isNull();
+    }
+
+    @Test
+    public void laggingReplicaIsNotAvailable() {
+        ReplicaLagMonitor lagging = new ReplicaLagMonitor(replicaDataSource, "SELECT 100", 5, 5);
+        lagging.checkLag();
+        assertThat(lagging.isReplicaAvailable()).isFalse();
+
+        ReplicaLagMonitor upToDate = new ReplicaLagMonitor(replicaDataSource, "SELECT 0", 5, 5);
+        upToDate.checkLag();
+        assertThat(upToDate.isReplicaAvailable()).isTrue();
+    }
+
+    private void inTransaction(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        transactionTemplate.execute(status -> writerRepository.count());
+    }
+
+    private double routeCount(String target, String reason) {
+        Counter counter = meterRegistry.find(ReplicationRoutingDataSource.ROUTE_METRIC)
+                .tag("target", target)
+                .tag("reason", reason)
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
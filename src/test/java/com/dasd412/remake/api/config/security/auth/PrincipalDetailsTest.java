@@ -0,0 +1,101 @@
+package com.dasd412.remake.api.config.security.auth;
+
+import com.dasd412.remake.api.config.session.CompactSessionAttributeSerializer;
+import com.dasd412.remake.api.domain.diary.EntityId;
+import com.dasd412.remake.api.domain.diary.writer.Role;
+import com.dasd412.remake.api.domain.diary.writer.Writer;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PrincipalDetailsTest {
+
+    Writer writer;
+
+    @Before
+    public void setUp() {
+        writer = Writer.builder()
+                .writerEntityId(EntityId.of(Writer.class, 1L))
+                .name("me")
+                .email("me@naver.com")
+                .password("password")
+                .role(Role.User)
+                .provider("google")
+                .providerId("1")
+                .build();
+    }
+
+    @Test
+    public void makeSnapshotOfWriter() {
+        PrincipalDetails principalDetails = new PrincipalDetails(writer);
+
+        assertThat(principalDetails.getWriter().getId()).isEqualTo(1L);
+        assertThat(principalDetails.getWriter().getName()).isEqualTo("me");
+        assertThat(principalDetails.getWriter().getEmail()).isEqualTo("me@naver.com");
+        assertThat(principalDetails.getWriter().getRole()).isEqualTo(Role.User);
+        assertThat(principalDetails.getWriter().getProvider()).isEqualTo("google");
+        assertThat(principalDetails.getUsername()).isEqualTo("me");
+        assertThat(principalDetails.getPassword()).isEqualTo("password");
+    }
+
+    @Test
+    public void eraseCredentials() {
+        PrincipalDetails principalDetails = new PrincipalDetails(writer);
+
+        principalDetails.eraseCredentials();
+
+        assertThat(principalDetails.getPassword()).isNull();
+        assertThat(principalDetails.getAuthorities()).extracting("authority").containsExactly("User");
+    }
+
+    @Test
+    public void serializeWithoutOAuthAttributes() throws IOException, ClassNotFoundException {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("sub", "1");
+        PrincipalDetails principalDetails = new PrincipalDetails(writer, attributes);
+        principalDetails.eraseCredentials();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(principalDetails);
+        }
+
+        PrincipalDetails restored;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored = (PrincipalDetails) in.readObject();
+        }
+
+        assertThat(restored.getWriter()).isEqualTo(principalDetails.getWriter());
+        assertThat(restored.getWriter().getEmail()).isEqualTo("me@naver.com");
+        assertThat(restored.getWriter().getProvider()).isEqualTo("google");
+        assertThat(restored.getWriter().getRole()).isEqualTo(Role.User);
+        assertThat(restored.getPassword()).isNull();
+        assertThat(restored.getAttributes()).isEmpty();
+    }
+
+    @Test
+    public void storeSecurityContextWithCompactSerializer() {
+        PrincipalDetails principalDetails = new PrincipalDetails(writer);
+        principalDetails.eraseCredentials();
+        SecurityContext context = new SecurityContextImpl(new UsernamePasswordAuthenticationToken(principalDetails, null, principalDetails.getAuthorities()));
+
+        CompactSessionAttributeSerializer serializer = new CompactSessionAttributeSerializer(getClass().getClassLoader());
+        SecurityContext restored = (SecurityContext) serializer.deserialize(serializer.serialize(context));
+
+        PrincipalDetails restoredPrincipal = (PrincipalDetails) restored.getAuthentication().getPrincipal();
+        assertThat(restoredPrincipal.getWriter()).isEqualTo(principalDetails.getWriter());
+        assertThat(restored.getAuthentication().getAuthorities()).extracting("authority").containsExactly("User");
+    }
+}
@@ -0,0 +1,125 @@
+package com.dasd412.remake.api.config.singleflight;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SingleFlightAspectTest {
+
+    public static class SlowQuery {
+
+        private final AtomicInteger executions = new AtomicInteger();
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Coalesced
+        public Double average(Long writerId) throws InterruptedException {
+            executions.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            if (writerId < 0) {
+                throw new IllegalArgumentException("writerId must be positive");
+            }
+            return writerId * 10.0;
+        }
+    }
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SingleFlightAspect aspect;
+
+    private SlowQuery target;
+
+    private SlowQuery proxy;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        aspect = new SingleFlightAspect(meterRegistry);
+        target = new SlowQuery();
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        proxy = factory.getProxy();
+
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void clean() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentIdenticalCallsShareOneExecution() throws Exception {
+        Future<Double> leader = executor.submit(() -> proxy.average(1L));
+        waitUntil(() -> aspect.inFlightCount() == 1);
+
+        Future<Double> follower = executor.submit(() -> proxy.average(1L));
+        waitUntil(() -> count("coalesced") == 1);
+
+        target.release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(10.0);
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(10.0);
+        assertThat(target.executions.get()).isEqualTo(1);
+        assertThat(count("executed")).isEqualTo(1);
+        assertThat(aspect.inFlightCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void differentArgumentsAreNotCoalesced() throws Exception {
+        target.release.countDown();
+
+        assertThat(proxy.average(1L)).isEqualTo(10.0);
+        assertThat(proxy.average(2L)).isEqualTo(20.0);
+        assertThat(proxy.average(1L)).isEqualTo(10.0);
+
+        assertThat(target.executions.get()).isEqualTo(3);
+        assertThat(count("coalesced")).isEqualTo(0);
+    }
+
+    @Test
+    public void followerReceivesExceptionOfLeader() throws Exception {
+        Future<Double> leader = executor.submit(() -> proxy.average(-1L));
+        waitUntil(() -> aspect.inFlightCount() == 1);
+
+        Future<Double> follower = executor.submit(() -> proxy.average(-1L));
+        waitUntil(() -> count("coalesced") == 1);
+
+        target.release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(target.executions.get()).isEqualTo(1);
+    }
+
+    private double count(String result) {
+        Counter counter = meterRegistry.find(SingleFlightAspect.METRIC).tag("result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
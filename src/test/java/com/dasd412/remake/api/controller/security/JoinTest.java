@@ -9,6 +9,8 @@
 package com.dasd412.remake.api.controller.security;
 
 import com.dasd412.remake.api.controller.security.join.UserJoinRequestDTO;
+import com.dasd412.remake.api.domain.diary.EntityId;
+import com.dasd412.remake.api.domain.diary.writer.Role;
 import com.dasd412.remake.api.domain.diary.writer.Writer;
 import com.dasd412.remake.api.domain.diary.writer.WriterRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -30,6 +32,7 @@ import org.springframework.web.context.WebApplicationContext;
 import javax.persistence.NoResultException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -128,6 +131,51 @@ public class JoinTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.error.message").value("duplicateEmail"));
     }
 
+    /**
+     * 다른 인스턴스에서 가입한 작성자는 이 인스턴스의 블룸 필터에 없다. 그래도 가입은 db 로 확인하므로 중복으로 걸러져야 한다.
+     */
+    @Test
+    public void duplicateEmailOfWriterJoinedOnOtherInstance() throws Exception {
+        //given
+        saveWriterBypassingService("other", "other@naver.com");
+        UserJoinRequestDTO dto = new UserJoinRequestDTO("testEmail", "other", "other@naver.com");
+
+        //when and then
+        mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(new ObjectMapper().writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.success").value("false"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.error.message").value("duplicateEmail"));
+    }
+
+    @Test
+    public void duplicateNameOfWriterJoinedOnOtherInstance() throws Exception {
+        //given
+        saveWriterBypassingService("other", "other@naver.com");
+        UserJoinRequestDTO dto = new UserJoinRequestDTO("other", "other", "another@naver.com");
+
+        //when and then
+        mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(new ObjectMapper().writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.success").value("false"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.error.message").value("duplicateName"));
+    }
+
+    private void saveWriterBypassingService(String name, String email) {
+        writerRepository.save(Writer.builder()
+                .writerEntityId(EntityId.of(Writer.class, 100L))
+                .name(name)
+                .email(email)
+                .password("other")
+                .role(Role.User)
+                .build());
+    }
+
     @Test
     public void emptyName() throws Exception {
         //given
@@ -175,5 +223,33 @@ public class JoinTest {
                 .andDo(print())
                 .andExpect(status().isBadRequest());
     }
-}
 
+    @Test
+    public void checkDuplicateNameBeforeSignUp() throws Exception {
+        //when and then
+        mockMvc.perform(get("/signup/user/duplicate").param("name", "before"))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.success").value("false"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.error.message").value("duplicateName"));
+    }
+
+    @Test
+    public void checkDuplicateEmailBeforeSignUp() throws Exception {
+        //when and then
+        mockMvc.perform(get("/signup/user/duplicate").param("email", "before@naver.com"))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.success").value("false"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.error.message").value("duplicateEmail"));
+    }
+
+    @Test
+    public void checkAvailableNameAndEmail() throws Exception {
+        //when and then
+        mockMvc.perform(get("/signup/user/duplicate").param("name", "fresh").param("email", "fresh@naver.com"))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.success").value("true"));
+    }
+}
@@ -8,14 +8,23 @@
 
 package com.dasd412.remake.api.controller.security.domain_rest;
 
+import com.dasd412.remake.api.config.codec.BinaryCodecConfiguration;
 import com.dasd412.remake.api.config.security.auth.PrincipalDetails;
 import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityDiaryPostRequestDTO;
 import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityFoodDTO;
 import com.dasd412.remake.api.domain.diary.EntityId;
+import com.dasd412.remake.api.domain.diary.diet.EatTime;
+import com.dasd412.remake.api.domain.diary.idCounter.IdCounterRepository;
 import com.dasd412.remake.api.domain.diary.writer.Role;
 import com.dasd412.remake.api.domain.diary.writer.Writer;
 import com.dasd412.remake.api.domain.diary.writer.WriterRepository;
+import com.dasd412.remake.api.service.domain.BloodSugarSketchIndex;
+import com.dasd412.remake.api.service.domain.FoodImpactService;
+import com.dasd412.remake.api.service.domain.FoodNameIndex;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -24,31 +33,49 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static com.dasd412.remake.api.controller.security.domain_rest.SqlCountHelper.assertStatementCount;
+import static com.dasd412.remake.api.controller.security.domain_rest.SqlCountHelper.assertStatementCountAtMost;
+import static com.dasd412.remake.api.controller.security.domain_rest.SqlCountHelper.countStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
-@TestPropertySource(locations = "classpath:application-test.properties")
+@TestPropertySource(locations = "classpath:application-test.properties", properties = "diary.food-impact.min-occurrence=2")
 public class SecurityChartRestControllerTest {
 
     @Autowired
@@ -57,6 +84,18 @@ public class SecurityChartRestControllerTest {
     @Autowired
     private WriterRepository writerRepository;
 
+    @Autowired
+    private IdCounterRepository idCounterRepository;
+
+    @Autowired
+    private BloodSugarSketchIndex bloodSugarSketchIndex;
+
+    @Autowired
+    private FoodImpactService foodImpactService;
+
+    @Autowired
+    private FoodNameIndex foodNameIndex;
+
     private final TestUserDetailsService testUserDetailsService = new TestUserDetailsService();
 
     private PrincipalDetails principalDetails;
@@ -69,6 +108,9 @@ public class SecurityChartRestControllerTest {
     public void setup() throws Exception {
         logger.info("set up");
 
+        /* 테스트들이 일지 id 1 부터 저장된다고 가정하므로, 앞선 테스트가 배정받은 식별자 카운터를 지운다. (첫 배정 때 다시 만들어진다.) */
+        idCounterRepository.deleteAll();
+
         applySpringSecurity();
 
         Writer entity = makeWriter();
@@ -155,6 +197,10 @@ public class SecurityChartRestControllerTest {
     public void clean() {
         logger.info("clean\n");
         writerRepository.deleteAll();
+        /* 다음 테스트의 작성자도 id 가 1 이고 데이터 버전이 같게 시작하므로 작성자 별 캐시를 비운다. */
+        bloodSugarSketchIndex.invalidate(1L);
+        foodImpactService.invalidate(1L);
+        foodNameIndex.invalidate(1L);
     }
 
     @Test
@@ -171,6 +217,99 @@ public class SecurityChartRestControllerTest {
 
     }
 
+    /**
+     * 일지가 늘어나도 sql 개수가 그대로여야 한다. (N+1 이 없어야 한다.)
+     */
+    @Test
+    public void findAllFpgWithoutNPlusOne() throws Exception {
+        //given
+        String url = "/chart-menu/fasting-plasma-glucose/all";
+        int countOfTwoDiaries = countStatements(() -> mockMvc.perform(get(url).with(user(principalDetails)).contentType(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk()));
+
+        SecurityDiaryPostRequestDTO dto = SecurityDiaryPostRequestDTO.builder().fastingPlasmaGlucose(120).remark("test")
+                .year("2022").month("02").day("01").hour("00").minute("00").second("00")
+                .breakFastSugar(110).lunchSugar(120).dinnerSugar(130)
+                .breakFastFoods(new ArrayList<>()).lunchFoods(new ArrayList<>()).dinnerFoods(new ArrayList<>()).build();
+
+        mockMvc.perform(post("/api/diary/user/diabetes-diary").with(user(principalDetails))
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(new ObjectMapper().writeValueAsString(dto)))
+                .andExpect(status().isOk());
+
+        //when and then
+        assertStatementCount(countOfTwoDiaries, () -> mockMvc.perform(get(url).with(user(principalDetails)).contentType(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.response").value(hasSize(3))));
+    }
+
+    /**
+     * 동기적으로 sql 을 실행하는 조회 api 전부. 일지가 늘어나도 sql 개수가 늘어나지 않아야 한다.
+     * 평균(/chart-menu/average/**)은 AsyncChartService 의 작업 스레드에서 실행되어 요청 단위로 세어지지 않고,
+     * 내보내기(/api/diary/user/export)와 갱신 알림(/chart-menu/updates)은 비동기 응답이라 여기서 뺀다.
+     */
+    @Test
+    public void readEndpointsWithoutNPlusOne() throws Exception {
+        //given
+        List<MockHttpServletRequestBuilder> requests = makeReadRequests();
+        List<Integer> countsOfTwoDiaries = new ArrayList<>();
+        for (MockHttpServletRequestBuilder request : requests) {
+            countsOfTwoDiaries.add(countStatements(() -> mockMvc.perform(request).andExpect(status().isOk())));
+        }
+
+        List<SecurityFoodDTO> foods = IntStream.rangeClosed(1, 5).mapToObj(i -> new SecurityFoodDTO("snack" + i, i))
+                .collect(Collectors.toList());
+        SecurityDiaryPostRequestDTO dto = SecurityDiaryPostRequestDTO.builder().fastingPlasmaGlucose(120).remark("test")
+                .year("2022").month("02").day("01").hour("00").minute("00").second("00")
+                .breakFastSugar(140).lunchSugar(150).dinnerSugar(160)
+                .breakFastFoods(foods).lunchFoods(foods).dinnerFoods(foods).build();
+
+        mockMvc.perform(post("/api/diary/user/diabetes-diary").with(user(principalDetails))
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(new ObjectMapper().writeValueAsString(dto)))
+                .andExpect(status().isOk());
+
+        //when and then
+        requests = makeReadRequests();
+        for (int i = 0; i < requests.size(); i++) {
+            MockHttpServletRequestBuilder request = requests.get(i);
+            String description = request.buildRequest(context.getServletContext()).getRequestURI();
+            assertStatementCountAtMost(countsOfTwoDiaries.get(i), description, () -> mockMvc.perform(request).andExpect(status().isOk()));
+        }
+    }
+
+    private List<MockHttpServletRequestBuilder> makeReadRequests() {
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("startYear", "2022");
+        params.add("startMonth", "01");
+        params.add("startDay", "01");
+
+        params.add("endYear", "2022");
+        params.add("endMonth", "02");
+        params.add("endDay", "28");
+
+        List<MockHttpServletRequestBuilder> requests = new ArrayList<>();
+        requests.add(get("/chart-menu/fasting-plasma-glucose/all"));
+        requests.add(get("/chart-menu/fasting-plasma-glucose/between").params(params));
+        requests.add(get("/chart-menu/blood-sugar/all"));
+        requests.add(get("/chart-menu/blood-sugar/between").params(params));
+        requests.add(get("/chart-menu/fasting-plasma-glucose/all").accept(SecurityChartRestController.COLUMNAR_JSON_VALUE));
+        requests.add(get("/chart-menu/fasting-plasma-glucose/between").params(params).accept(SecurityChartRestController.COLUMNAR_JSON_VALUE));
+        requests.add(get("/chart-menu/blood-sugar/all").accept(SecurityChartRestController.COLUMNAR_JSON_VALUE));
+        requests.add(get("/chart-menu/blood-sugar/between").params(params).accept(SecurityChartRestController.COLUMNAR_JSON_VALUE));
+        requests.add(get("/chart-menu/analytics/all"));
+        requests.add(get("/chart-menu/analytics/between").params(params));
+        requests.add(get("/chart-menu/percentile/all"));
+        requests.add(get("/chart-menu/percentile/between").params(params));
+        requests.add(get("/chart-menu/hba1c/between").params(params));
+        requests.add(get("/chart-menu/food-impact"));
+        requests.add(get("/api/diary/user/diabetes-diary/list").param("year", "2022").param("month", "1").param("startDay", "1").param("endDay", "31"));
+        requests.add(get("/api/diary/user/food-names").param("prefix", "lunch"));
+        requests.add(get("/api/diary/user/changes").param("since", LocalDateTime.of(2000, 1, 1, 0, 0).toString()));
+
+        return requests.stream().map(request -> request.with(user(principalDetails))).collect(Collectors.toList());
+    }
+
     @Test
     public void findFpgBetweenTime() throws Exception {
         String url = "/chart-menu/fasting-plasma-glucose/between";
@@ -204,6 +343,86 @@ public class SecurityChartRestControllerTest {
                 .andExpect(jsonPath("$.response").value(hasSize(6)));
     }
 
+    @Test
+    public void findAllFpgNotModified() throws Exception {
+        //given
+        String url = "/chart-menu/fasting-plasma-glucose/all";
+        String eTag = mockMvc.perform(get(url).with(user(principalDetails)))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        //when and then
+        assertStatementCount(1, () -> mockMvc.perform(get(url).with(user(principalDetails)).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string("")));
+
+        /* 같은 데이터라도 url 이나 Accept 가 다르면 다른 응답이다. */
+        mockMvc.perform(get("/chart-menu/blood-sugar/all").with(user(principalDetails)).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(url).with(user(principalDetails)).accept(SecurityChartRestController.COLUMNAR_JSON_VALUE).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void findAllFpgModifiedAfterPost() throws Exception {
+        //given
+        String url = "/chart-menu/fasting-plasma-glucose/all";
+        String eTag = mockMvc.perform(get(url).with(user(principalDetails)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        SecurityDiaryPostRequestDTO dto = SecurityDiaryPostRequestDTO.builder().fastingPlasmaGlucose(105).remark("test")
+                .year("2022").month("01").day("30").hour("00").minute("00").second("00")
+                .breakFastSugar(100).lunchSugar(125).dinnerSugar(140)
+                .breakFastFoods(new ArrayList<>()).lunchFoods(new ArrayList<>()).dinnerFoods(new ArrayList<>()).build();
+        mockMvc.perform(post("/api/diary/user/diabetes-diary").with(user(principalDetails))
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(new ObjectMapper().writeValueAsString(dto)))
+                .andExpect(status().isOk());
+
+        //when and then
+        mockMvc.perform(get(url).with(user(principalDetails)).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$.response").value(hasSize(3)));
+    }
+
+    @Test
+    public void findAllBloodSugarAsCbor() throws Exception {
+        //given
+        String url = "/chart-menu/blood-sugar/all";
+
+        //when
+        MvcResult result = mockMvc.perform(get(url).with(user(principalDetails)).accept(BinaryCodecConfiguration.CBOR_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(BinaryCodecConfiguration.CBOR_VALUE))
+                .andReturn();
+
+        //then
+        JsonNode body = new ObjectMapper(new CBORFactory()).readTree(result.getResponse().getContentAsByteArray());
+        assertThat(body.get("success").asBoolean()).isTrue();
+        assertThat(body.get("response").size()).isEqualTo(6);
+    }
+
+    @Test
+    public void findAllFpgAsSmile() throws Exception {
+        //given
+        String url = "/chart-menu/fasting-plasma-glucose/all";
+
+        //when
+        MvcResult result = mockMvc.perform(get(url).with(user(principalDetails)).accept(BinaryCodecConfiguration.SMILE_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(BinaryCodecConfiguration.SMILE_VALUE))
+                .andReturn();
+
+        //then
+        JsonNode body = new ObjectMapper(new SmileFactory()).readTree(result.getResponse().getContentAsByteArray());
+        assertThat(body.get("success").asBoolean()).isTrue();
+        assertThat(body.get("response").size()).isEqualTo(2);
+        assertThat(body.get("response").get(0).get("fastingPlasmaGlucose").asInt()).isEqualTo(100);
+    }
+
     @Test
     public void findBloodSugarBetween() throws Exception {
         //given
@@ -225,13 +444,340 @@ public class SecurityChartRestControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.response").value(hasSize(3)));
     }
 
+    @Test
+    public void findAllFpgColumnar() throws Exception {
+        //given
+        String url = "/chart-menu/fasting-plasma-glucose/all";
+        long firstTimestamp = LocalDateTime.of(2022, 1, 29, 0, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        //when and then
+        mockMvc.perform(get(url).with(user(principalDetails)).accept(SecurityChartRestController.COLUMNAR_JSON_VALUE))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SecurityChartRestController.COLUMNAR_JSON_VALUE))
+                .andExpect(jsonPath("$.success").value("true"))
+                .andExpect(jsonPath("$.response.timestamps").value(hasSize(2)))
+                .andExpect(jsonPath("$.response.timestamps[0]").value(firstTimestamp))
+                .andExpect(jsonPath("$.response.diaryIds").value(contains(1, 2)))
+                .andExpect(jsonPath("$.response.values").value(contains(100, 110)))
+                .andExpect(jsonPath("$.response.eatTimes").doesNotExist());
+    }
+
+    @Test
+    public void findBloodSugarBetweenColumnar() throws Exception {
+        //given
+        String url = "/chart-menu/blood-sugar/between";
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("startYear", "2022");
+        params.add("startMonth", "01");
+        params.add("startDay", "28");
+
+        params.add("endYear", "2022");
+        params.add("endMonth", "01");
+        params.add("endDay", "30");
+
+        //when and then
+        mockMvc.perform(get(url).with(user(principalDetails)).params(params).accept(SecurityChartRestController.COLUMNAR_JSON_VALUE))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value("true"))
+                .andExpect(jsonPath("$.response.timestamps").value(hasSize(3)))
+                .andExpect(jsonPath("$.response.values").value(contains(110, 120, 130)))
+                .andExpect(jsonPath("$.response.eatTimes").value(contains(EatTime.BreakFast.ordinal(), EatTime.Lunch.ordinal(), EatTime.Dinner.ordinal())))
+                .andExpect(jsonPath("$.response.eatTimeNames[0]").value("BreakFast"));
+    }
+
+    @Test
+    public void findGlycemicAnalyticsAll() throws Exception {
+        //given
+        String url = "/chart-menu/analytics/all";
+
+        //when and then
+        mockMvc.perform(get(url).with(user(principalDetails)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value("true"))
+                .andExpect(jsonPath("$.response.overall.count").value(8))
+                .andExpect(jsonPath("$.response.overall.percentInRange").value(100.0))
+                .andExpect(jsonPath("$.response.overall.mage").value(25.0))
+                .andExpect(jsonPath("$.response.fasting.count").value(2))
+                .andExpect(jsonPath("$.response.fasting.mean").value(105.0))
+                .andExpect(jsonPath("$.response.postMeal.count").value(6))
+                .andExpect(jsonPath("$.response.postMeal.mean").value(120.0))
+                .andExpect(jsonPath("$.response.breakFast.standardDeviation").value(0.0))
+                .andExpect(jsonPath("$.response.dinner.mean").value(130.0));
+    }
+
+    @Test
+    public void findGlycemicAnalyticsBetween() throws Exception {
+        //given
+        String url = "/chart-menu/analytics/between";
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("startYear", "2022");
+        params.add("startMonth", "01");
+        params.add("startDay", "28");
+
+        params.add("endYear", "2022");
+        params.add("endMonth", "01");
+        params.add("endDay", "30");
+
+        //when and then
+        mockMvc.perform(get(url).with(user(principalDetails)).params(params))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response.fasting.count").value(1))
+                .andExpect(jsonPath("$.response.fasting.mean").value(100.0))
+                .andExpect(jsonPath("$.response.postMeal.count").value(3))
+                .andExpect(jsonPath("$.response.lunch.mean").value(120.0));
+    }
+
+    @Test
+    public void findBloodSugarPercentileAll() throws Exception {
+        //given
+        String url = "/chart-menu/percentile/all";
+
+        //when and then
+        mockMvc.perform(get(url).with(user(principalDetails)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value("true"))
+                .andExpect(jsonPath("$.response.postMeal.count").value(6))
+                .andExpect(jsonPath("$.response.postMeal.median").value(120.0))
+                .andExpect(jsonPath("$.response.postMeal.percentile90").value(130.0))
+                .andExpect(jsonPath("$.response.breakFast.median").value(110.0))
+                .andExpect(jsonPath("$.response.dinner.count").value(2));
+    }
+
+    /**
+     * 히스토그램을 만든 뒤에 저장한 일지도 다음 조회에 들어가야 한다.
+     */
+    @Test
+    public void findBloodSugarPercentileAllAfterPost() throws Exception {
+        //given
+        String url = "/chart-menu/percentile/all";
+        mockMvc.perform(get(url).with(user(principalDetails)))
+                .andExpect(jsonPath("$.response.postMeal.count").value(6));
+
+        postDiaryOtherForSetUp("/api/diary/user/diabetes-diary");
+
+        //when and then
+        mockMvc.perform(get(url).with(user(principalDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response.postMeal.count").value(9))
+                .andExpect(jsonPath("$.response.lunch.count").value(3))
+                .andExpect(jsonPath("$.response.breakFast.median").value(110.0))
+                .andExpect(jsonPath("$.response.dinner.percentile90").value(138.0));
+    }
+
+    /**
+     * 온전히 들어가는 1월은 월 별 히스토그램에서, 걸친 12월과 2월은 db 에서 센다.
+     */
+    @Test
+    public void findBloodSugarPercentileBetween() throws Exception {
+        //given
+        String url = "/chart-menu/percentile/between";
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("startYear", "2021");
+        params.add("startMonth", "12");
+        params.add("startDay", "15");
+
+        params.add("endYear", "2022");
+        params.add("endMonth", "02");
+        params.add("endDay", "10");
+
+        //when and then
+        mockMvc.perform(get(url).with(user(principalDetails)).params(params))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response.postMeal.count").value(6))
+                .andExpect(jsonPath("$.response.lunch.median").value(120.0));
+
+        params.set("endMonth", "01");
+        params.set("endDay", "30");
+        mockMvc.perform(get(url).with(user(principalDetails)).params(params))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response.postMeal.count").value(3));
+    }
+
+    /**
+     * 1/29 은 (100 + 110 + 120 + 130) / 4, 1/31 은 (110 + 110 + 120 + 130) / 4 이다. 기록이 없는 1/30 은 1/29 까지의 평균이 이어진다.
+     */
+    @Test
+    public void findEstimatedHbA1cBetween() throws Exception {
+        //given
+        String url = "/chart-menu/hba1c/between";
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("startYear", "2022");
+        params.add("startMonth", "01");
+        params.add("startDay", "28");
+
+        params.add("endYear", "2022");
+        params.add("endMonth", "01");
+        params.add("endDay", "31");
+
+        //when and then
+        mockMvc.perform(get(url).with(user(principalDetails)).params(params))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value("true"))
+                .andExpect(jsonPath("$.response.timestamps").value(hasSize(4)))
+                .andExpect(jsonPath("$.response.timestamps[0]").value(LocalDateTime.of(2022, 1, 28, 0, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()))
+                .andExpect(jsonPath("$.response.windows[*].days").value(contains(30, 60, 90)))
+                .andExpect(jsonPath("$.response.windows[0].averageGlucose[0]").value(nullValue()))
+                .andExpect(jsonPath("$.response.windows[0].averageGlucose[1]").value(115.0))
+                .andExpect(jsonPath("$.response.windows[0].averageGlucose[2]").value(115.0))
+                .andExpect(jsonPath("$.response.windows[0].averageGlucose[3]").value(116.25))
+                .andExpect(jsonPath("$.response.windows[0].estimatedHbA1c[1]").value(closeTo(5.634, 0.001)))
+                .andExpect(jsonPath("$.response.windows[2].averageGlucose[3]").value(116.25));
+    }
+
+    /**
+     * 기간의 첫 날보다 앞선 기록도 최근 n 일 평균에 들어가야 한다.
+     */
+    @Test
+    public void findEstimatedHbA1cBetweenAfterReadings() throws Exception {
+        //given
+        String url = "/chart-menu/hba1c/between";
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("startYear", "2022");
+        params.add("startMonth", "02");
+        params.add("startDay", "28");
+
+        params.add("endYear", "2022");
+        params.add("endMonth", "03");
+        params.add("endDay", "02");
+
+        //when and then
+        mockMvc.perform(get(url).with(user(principalDetails)).params(params))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response.timestamps").value(hasSize(3)))
+                .andExpect(jsonPath("$.response.windows[0].averageGlucose[0]").value(117.5))
+                .andExpect(jsonPath("$.response.windows[0].averageGlucose[2]").value(nullValue()))
+                .andExpect(jsonPath("$.response.windows[1].averageGlucose[2]").value(116.25));
+    }
+
+    @Test
+    public void findEstimatedHbA1cBetweenTooLongPeriod() throws Exception {
+        //given
+        String url = "/chart-menu/hba1c/between";
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("startYear", "2000");
+        params.add("startMonth", "01");
+        params.add("startDay", "01");
+
+        params.add("endYear", "2022");
+        params.add("endMonth", "01");
+        params.add("endDay", "31");
+
+        //when and then
+        mockMvc.perform(get(url).with(user(principalDetails)).params(params))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value("false"));
+    }
+
+    /**
+     * 저녁 음식(130)은 나머지 식단(110, 110, 120, 120)보다 15 높고, 아침 음식(110)은 나머지(120, 120, 130, 130)보다 15 낮다.
+     */
+    @Test
+    public void findFoodImpacts() throws Exception {
+        //given
+        String url = "/chart-menu/food-impact";
+
+        //when and then
+        mockMvc.perform(get(url).with(user(principalDetails)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value("true"))
+                .andExpect(jsonPath("$.response").value(hasSize(9)))
+                .andExpect(jsonPath("$.response[0].foodName").value("dinner1"))
+                .andExpect(jsonPath("$.response[0].occurrence").value(2))
+                .andExpect(jsonPath("$.response[0].meanWith").value(130.0))
+                .andExpect(jsonPath("$.response[0].meanWithout").value(115.0))
+                .andExpect(jsonPath("$.response[0].difference").value(15.0))
+                .andExpect(jsonPath("$.response[0].lowerBound").value(greaterThan(0.0)))
+                .andExpect(jsonPath("$.response[3].difference").value(0.0))
+                .andExpect(jsonPath("$.response[8].foodName").value("breakFast3"))
+                .andExpect(jsonPath("$.response[8].difference").value(-15.0));
+
+        mockMvc.perform(get(url).with(user(principalDetails)).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response[*].foodName").value(contains("dinner1", "dinner2")));
+    }
+
+    /**
+     * 분석 결과를 만든 뒤에 일지를 쓰면 데이터 버전이 바뀌므로 다시 만들어야 한다.
+     */
+    @Test
+    public void findFoodImpactsAfterPost() throws Exception {
+        //given
+        String url = "/chart-menu/food-impact";
+        mockMvc.perform(get(url).with(user(principalDetails)))
+                .andExpect(jsonPath("$.response[0].occurrence").value(2));
+
+        List<SecurityFoodDTO> dinner = new ArrayList<>();
+        dinner.add(new SecurityFoodDTO("dinner1", 1));
+        SecurityDiaryPostRequestDTO dto = SecurityDiaryPostRequestDTO.builder().fastingPlasmaGlucose(100).remark("test")
+                .year("2022").month("01").day("30").hour("00").minute("00").second("00")
+                .breakFastSugar(100).lunchSugar(100).dinnerSugar(200)
+                .breakFastFoods(new ArrayList<>()).lunchFoods(new ArrayList<>()).dinnerFoods(dinner).build();
+        mockMvc.perform(post("/api/diary/user/diabetes-diary").with(user(principalDetails))
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(new ObjectMapper().writeValueAsString(dto)))
+                .andExpect(status().isOk());
+
+        //when and then
+        mockMvc.perform(get(url).with(user(principalDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response[0].foodName").value("dinner1"))
+                .andExpect(jsonPath("$.response[0].occurrence").value(3))
+                .andExpect(jsonPath("$.response[0].meanWith").value(closeTo(153.333, 0.001)))
+                .andExpect(jsonPath("$.response[0].meanWithout").value(110.0));
+    }
+
+    @Test
+    public void findFoodImpactsWithInvalidLimit() throws Exception {
+        mockMvc.perform(get("/chart-menu/food-impact").with(user(principalDetails)).param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value("false"));
+    }
+
+    /**
+     * 차트 화면을 연 채로 일지를 쓰면 커밋 뒤에 그 일지의 값이 열린 연결로 온다.
+     */
+    @Test
+    public void subscribeChartUpdatesReceivesSavedDiary() throws Exception {
+        //given
+        MvcResult result = mockMvc.perform(get("/chart-menu/updates").with(user(principalDetails)).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("X-Accel-Buffering", "no"))
+                .andReturn();
+
+        //when
+        postDiaryOtherForSetUp("/api/diary/user/diabetes-diary");
+
+        //then
+        String body = "";
+        for (int i = 0; i < 50 && !body.contains("\"diaryId\":3"); i++) {
+            Thread.sleep(100);
+            body = result.getResponse().getContentAsString();
+        }
+        assertThat(body).contains("event:diary-changed");
+        assertThat(body).contains("\"diaryId\":3").contains("\"fastingPlasmaGlucose\":110").contains("\"dinnerSugar\":130");
+        assertThat(body).doesNotContain("writerId");
+    }
+
     @Test
     public void findAverageAll() throws Exception {
         //given
         String url = "/chart-menu/average/all";
 
-        //when and then
-        mockMvc.perform(get(url).with(user(principalDetails)).contentType(MediaType.APPLICATION_JSON_UTF8))
+        //when
+        MvcResult result = mockMvc.perform(get(url).with(user(principalDetails)).contentType(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value("true"))
@@ -256,8 +802,13 @@ public class SecurityChartRestControllerTest {
         params.add("endMonth", "01");
         params.add("endDay", "30");
 
-        //when and then
-        mockMvc.perform(get(url).with(user(principalDetails)).params(params).contentType(MediaType.APPLICATION_JSON_UTF8))
+        //when
+        MvcResult result = mockMvc.perform(get(url).with(user(principalDetails)).params(params).contentType(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value("true"))
@@ -268,4 +819,28 @@ public class SecurityChartRestControllerTest {
                 .andExpect(jsonPath("$.response.averageBloodSugar").value(120.0))
                 .andReturn();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void findAverageBetweenWhenStartIsAfterEnd() throws Exception {
+        //given
+        String url = "/chart-menu/average/between";
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("startYear", "2022");
+        params.add("startMonth", "01");
+        params.add("startDay", "30");
+
+        params.add("endYear", "2022");
+        params.add("endMonth", "01");
+        params.add("endDay", "28");
+
+        //when
+        MvcResult result = mockMvc.perform(get(url).with(user(principalDetails)).params(params).contentType(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -9,6 +9,8 @@
 package com.dasd412.remake.api.controller.security.domain_rest;
 
 import com.dasd412.remake.api.config.security.auth.PrincipalDetails;
+import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityDiaryBatchPostRequestDTO;
+import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityDiaryBatchUpdateDTO;
 import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityDiaryPostRequestDTO;
 import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityDiaryUpdateDTO;
 import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityFoodDTO;
@@ -19,13 +21,17 @@ import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
 import com.dasd412.remake.api.domain.diary.diabetesDiary.DiaryRepository;
 import com.dasd412.remake.api.domain.diary.diet.Diet;
 import com.dasd412.remake.api.domain.diary.diet.DietRepository;
+import com.dasd412.remake.api.domain.diary.diet.EatTime;
 import com.dasd412.remake.api.domain.diary.food.AmountUnit;
 import com.dasd412.remake.api.domain.diary.food.Food;
 import com.dasd412.remake.api.domain.diary.food.FoodRepository;
+import com.dasd412.remake.api.domain.diary.idCounter.IdCounterRepository;
+import com.dasd412.remake.api.domain.diary.tombstone.TombstoneRepository;
 import com.dasd412.remake.api.domain.diary.writer.Role;
 import com.dasd412.remake.api.domain.diary.writer.Writer;
 import com.dasd412.remake.api.domain.diary.writer.WriterRepository;
 import com.dasd412.remake.api.service.domain.FindDiaryService;
+import com.dasd412.remake.api.service.domain.FoodNameIndex;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.assertj.core.data.Percentage;
 import org.junit.After;
@@ -37,6 +43,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
@@ -44,6 +52,11 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import javax.persistence.NoResultException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -54,7 +67,9 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -77,9 +92,18 @@ public class SecurityDiaryRestControllerTest {
     @Autowired
     private FoodRepository foodRepository;
 
+    @Autowired
+    private TombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private IdCounterRepository idCounterRepository;
+
     @Autowired
     private FindDiaryService findDiaryService;
 
+    @Autowired
+    private FoodNameIndex foodNameIndex;
+
     private final TestUserDetailsService testUserDetailsService = new TestUserDetailsService();
 
     private PrincipalDetails principalDetails;
@@ -92,6 +116,9 @@ public class SecurityDiaryRestControllerTest {
     public void setup() {
         logger.info("set up");
 
+        /* 테스트들이 일지 id 1 부터 저장된다고 가정하므로, 앞선 테스트가 배정받은 식별자 카운터를 지운다. (첫 배정 때 다시 만들어진다.) */
+        idCounterRepository.deleteAll();
+
         applySpringSecurity();
 
         Writer entity = makeWriter();
@@ -129,6 +156,7 @@ public class SecurityDiaryRestControllerTest {
     public void clean() {
         logger.info("clean\n");
         writerRepository.deleteAll();
+        tombstoneRepository.deleteAll();
     }
 
     @Test
@@ -564,4 +592,298 @@ public class SecurityDiaryRestControllerTest {
                 .andExpect(jsonPath("$.response.id").value(order));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void importDiariesFromCsv() throws Exception {
+        //given
+        String csv = "writtenTime,fastingPlasmaGlucose,remark,breakFastSugar,lunchSugar,dinnerSugar,breakFastFoods,lunchFoods,dinnerFoods\n"
+                + "2021-12-01 08:00:00,100,\"first, day\",110,120,130,밥:200:g;김치:30:g,라면,\n"
+                + "2021-12-02 08:00:00,2000,invalid fpg,110,120,130,,,\n"
+                + "2021-12-03 08:00:00,105,,115,125,135,,사과:1:count,\n";
+        MockMultipartFile file = new MockMultipartFile("file", "diaries.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+
+        //when and then
+        mockMvc.perform(multipart("/api/diary/user/diabetes-diary/import").file(file).with(user(principalDetails)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value("true"))
+                .andExpect(jsonPath("$.response.imported").value(2))
+                .andExpect(jsonPath("$.response.failed").value(1))
+                .andExpect(jsonPath("$.response.errors[0]").value("line 3 : fastingPlasmaGlucose must be between 0 and 1000"))
+                .andExpect(jsonPath("$.response.done").value(true));
+
+        assertThat(diaryRepository.count()).isEqualTo(2);
+        assertThat(dietRepository.count()).isEqualTo(6);
+        assertThat(foodRepository.count()).isEqualTo(4);
+
+        DiabetesDiary first = diaryRepository.findDiabetesDiaryWithSubEntitiesOfWriter(1L, 1L).orElseThrow(NoResultException::new);
+        assertThat(first.getRemark()).isEqualTo("first, day");
+    }
+
+    @Test
+    public void importDiariesFromNdjson() throws Exception {
+        //given
+        String ndjson = "{\"writtenTime\":\"2021-12-01 08:00:00\",\"fastingPlasmaGlucose\":100,\"breakFastSugar\":110,\"lunchSugar\":120,\"dinnerSugar\":130,"
+                + "\"breakFastFoods\":[{\"foodName\":\"밥\",\"amount\":200,\"amountUnit\":\"g\"}]}\n"
+                + "not a json\n"
+                + "{\"writtenTime\":\"2021-12-02 08:00:00\",\"fastingPlasmaGlucose\":105,\"breakFastSugar\":115,\"lunchSugar\":125,\"dinnerSugar\":135}\n";
+        MockMultipartFile file = new MockMultipartFile("file", "diaries.ndjson", "application/x-ndjson", ndjson.getBytes(StandardCharsets.UTF_8));
+
+        //when and then
+        mockMvc.perform(multipart("/api/diary/user/diabetes-diary/import").file(file).with(user(principalDetails)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response.imported").value(2))
+                .andExpect(jsonPath("$.response.failed").value(1));
+
+        mockMvc.perform(get("/api/diary/user/diabetes-diary/import/progress").with(user(principalDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response.processed").value(3))
+                .andExpect(jsonPath("$.response.done").value(true));
+
+        assertThat(diaryRepository.count()).isEqualTo(2);
+        assertThat(foodRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    public void exportDiariesAsCsvWhichCanBeImportedAgain() throws Exception {
+        //given
+        String csv = "writtenTime,fastingPlasmaGlucose,remark,breakFastSugar,lunchSugar,dinnerSugar,breakFastFoods,lunchFoods,dinnerFoods\n"
+                + "2021-12-01 08:00:00,100,\"first, day\",110,120,130,밥:200.0:g;김치:30.0:g,라면:1.0:count,\n"
+                + "2021-12-03 08:00:00,105,,115,125,135,,,사과:1.0:count\n";
+        MockMultipartFile file = new MockMultipartFile("file", "diaries.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+        mockMvc.perform(multipart("/api/diary/user/diabetes-diary/import").file(file).with(user(principalDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response.imported").value(2));
+
+        //when
+        MvcResult result = mockMvc.perform(get("/api/diary/user/export").param("format", "csv").with(user(principalDetails)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"diabetes-diary.csv\""));
+
+        String exported = new String(result.getResponse().getContentAsByteArray(), StandardCharsets.UTF_8);
+        logger.info(exported);
+
+        String[] lines = exported.split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[1]).startsWith("2021-12-01 08:00:00,100,\"first, day\",110,120,130,");
+        assertThat(lines[1]).contains("밥:200.0:g").contains("김치:30.0:g").contains("라면:1.0:count");
+        assertThat(lines[2]).isEqualTo("2021-12-03 08:00:00,105,,115,125,135,,,사과:1.0:count");
+    }
+
+    @Test
+    public void postDiariesInBatch() throws Exception {
+        //given
+        SecurityDiaryPostRequestDTO invalid = SecurityDiaryPostRequestDTO.builder().fastingPlasmaGlucose(2000).remark("invalid")
+                .year("2021").month("12").day("23").hour("00").minute("00").second("00")
+                .breakFastSugar(110).lunchSugar(120).dinnerSugar(130)
+                .breakFastFoods(new ArrayList<>()).lunchFoods(new ArrayList<>()).dinnerFoods(new ArrayList<>()).build();
+
+        SecurityDiaryBatchPostRequestDTO dto = new SecurityDiaryBatchPostRequestDTO(Arrays.asList(makeDtoValid(), invalid, makeDtoForBetweenStartAndEnd("2021", "12", "24")));
+
+        //when and then
+        mockMvc.perform(post("/api/diary/user/diabetes-diary/batch").with(user(principalDetails))
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(new ObjectMapper().writeValueAsString(dto)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response").value(hasSize(3)))
+                .andExpect(jsonPath("$.response[0].success").value(true))
+                .andExpect(jsonPath("$.response[0].diaryId").value(1))
+                .andExpect(jsonPath("$.response[1].success").value(false))
+                .andExpect(jsonPath("$.response[1].error").value("fastingPlasmaGlucose must be between 0 and 1000"))
+                .andExpect(jsonPath("$.response[2].success").value(true));
+
+        assertThat(diaryRepository.count()).isEqualTo(2);
+        assertThat(dietRepository.count()).isEqualTo(6);
+        assertThat(foodRepository.count()).isEqualTo(16);
+    }
+
+    @Test
+    public void updateDiariesInBatch() throws Exception {
+        //given
+        SecurityDiaryBatchPostRequestDTO postDto = new SecurityDiaryBatchPostRequestDTO(Arrays.asList(makeDtoValid(), makeDtoValid()));
+        mockMvc.perform(post("/api/diary/user/diabetes-diary/batch").with(user(principalDetails))
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(new ObjectMapper().writeValueAsString(postDto)))
+                .andExpect(status().isOk());
+
+        SecurityDiaryUpdateDTO valid = makeBatchUpdateDto(1L, 150);
+        SecurityDiaryUpdateDTO outOfRange = makeBatchUpdateDto(2L, 2000);
+        SecurityDiaryUpdateDTO notExists = makeBatchUpdateDto(3L, 150);
+
+        //when and then
+        mockMvc.perform(put("/api/diary/user/diabetes-diary/batch").with(user(principalDetails))
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(new ObjectMapper().writeValueAsString(new SecurityDiaryBatchUpdateDTO(Arrays.asList(valid, outOfRange, notExists)))))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response[0].success").value(true))
+                .andExpect(jsonPath("$.response[1].success").value(false))
+                .andExpect(jsonPath("$.response[2].success").value(false))
+                .andExpect(jsonPath("$.response[2].diaryId").value(3));
+
+        DiabetesDiary updated = diaryRepository.findDiabetesDiaryWithSubEntitiesOfWriter(1L, 1L).orElseThrow(NoResultException::new);
+        assertThat(updated.getFastingPlasmaGlucose()).isEqualTo(150);
+        assertThat(updated.getRemark()).isEqualTo("batch");
+        Diet breakFast = updated.getDietList().stream().filter(diet -> diet.getEatTime() == EatTime.BreakFast).findFirst().orElseThrow(NoResultException::new);
+        assertThat(breakFast.getBloodSugar()).isEqualTo(150);
+        assertThat(breakFast.getFoodList()).extracting("foodName").contains("pizza");
+
+        /* 검증에 실패한 항목은 되돌려진다. */
+        DiabetesDiary notUpdated = diaryRepository.findDiabetesDiaryWithSubEntitiesOfWriter(1L, 2L).orElseThrow(NoResultException::new);
+        assertThat(notUpdated.getFastingPlasmaGlucose()).isEqualTo(100);
+        assertThat(notUpdated.getRemark()).isEqualTo("test");
+    }
+
+    private SecurityDiaryUpdateDTO makeBatchUpdateDto(Long diaryId, int sugar) {
+        Long[] dietIds = diaryRepository.findDiabetesDiaryWithSubEntitiesOfWriter(1L, diaryId)
+                .map(diary -> new Long[]{findDietId(diary, EatTime.BreakFast), findDietId(diary, EatTime.Lunch), findDietId(diary, EatTime.Dinner)})
+                .orElse(new Long[]{100L, 101L, 102L});
+
+        return SecurityDiaryUpdateDTO.builder()
+                .diaryId(diaryId).fastingPlasmaGlucose(150).remark("batch").diaryDirty(true)
+                .breakFastId(dietIds[0]).breakFastSugar(sugar).breakFastDirty(true)
+                .lunchId(dietIds[1]).lunchSugar(120).lunchDirty(false)
+                .dinnerId(dietIds[2]).dinnerSugar(130).dinnerDirty(false)
+                .oldBreakFastFoods(new ArrayList<>()).oldLunchFoods(new ArrayList<>()).oldDinnerFoods(new ArrayList<>())
+                .newBreakFastFoods(Arrays.asList(new SecurityFoodDTO("pizza", 100.0))).newLunchFoods(new ArrayList<>()).newDinnerFoods(new ArrayList<>())
+                .build();
+    }
+
+    private Long findDietId(DiabetesDiary diary, EatTime eatTime) {
+        return diary.getDietList().stream().filter(diet -> diet.getEatTime() == eatTime).findFirst().map(Diet::getDietId).orElseThrow(NoResultException::new);
+    }
+
+    /**
+     * 예전 음식 id 는 클라이언트가 보내므로, 수정하는 일지에 없는 음식은 지우지 않아야 한다.
+     */
+    @Test
+    public void updateDiariesInBatchDoesNotDeleteFoodsOfOtherDiary() throws Exception {
+        //given
+        SecurityDiaryBatchPostRequestDTO postDto = new SecurityDiaryBatchPostRequestDTO(Arrays.asList(makeDtoValid(), makeDtoValid()));
+        mockMvc.perform(post("/api/diary/user/diabetes-diary/batch").with(user(principalDetails))
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(new ObjectMapper().writeValueAsString(postDto)))
+                .andExpect(status().isOk());
+
+        DiabetesDiary target = diaryRepository.findDiabetesDiaryWithSubEntitiesOfWriter(1L, 1L).orElseThrow(NoResultException::new);
+        DiabetesDiary other = diaryRepository.findDiabetesDiaryWithSubEntitiesOfWriter(1L, 2L).orElseThrow(NoResultException::new);
+        Long foodIdOfOther = other.getDietList().stream().flatMap(diet -> diet.getFoodList().stream()).findFirst().map(Food::getId).orElseThrow(NoResultException::new);
+
+        SecurityDiaryUpdateDTO dto = SecurityDiaryUpdateDTO.builder()
+                .diaryId(1L).fastingPlasmaGlucose(150).remark("batch").diaryDirty(true)
+                .breakFastId(findDietId(target, EatTime.BreakFast)).breakFastSugar(150).breakFastDirty(false)
+                .lunchId(findDietId(target, EatTime.Lunch)).lunchSugar(120).lunchDirty(false)
+                .dinnerId(findDietId(target, EatTime.Dinner)).dinnerSugar(130).dinnerDirty(false)
+                .oldBreakFastFoods(Arrays.asList(new SecurityFoodForUpdateDTO(foodIdOfOther, "breakFast1", 1, AmountUnit.g)))
+                .oldLunchFoods(new ArrayList<>()).oldDinnerFoods(new ArrayList<>())
+                .newBreakFastFoods(new ArrayList<>()).newLunchFoods(new ArrayList<>()).newDinnerFoods(new ArrayList<>())
+                .build();
+
+        //when
+        mockMvc.perform(put("/api/diary/user/diabetes-diary/batch").with(user(principalDetails))
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(new ObjectMapper().writeValueAsString(new SecurityDiaryBatchUpdateDTO(Collections.singletonList(dto)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response[0].success").value(true));
+
+        //then
+        assertThat(foodRepository.count()).isEqualTo(14);
+        assertThat(foodRepository.findAll()).extracting(Food::getId).contains(foodIdOfOther);
+    }
+
+    @Test
+    public void deleteDiariesInBatch() throws Exception {
+        //given
+        SecurityDiaryBatchPostRequestDTO postDto = new SecurityDiaryBatchPostRequestDTO(Arrays.asList(makeDtoValid(), makeDtoValid(), makeDtoValid()));
+        mockMvc.perform(post("/api/diary/user/diabetes-diary/batch").with(user(principalDetails))
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(new ObjectMapper().writeValueAsString(postDto)))
+                .andExpect(status().isOk());
+
+        //when and then
+        mockMvc.perform(delete("/api/diary/user/diabetes-diary/batch").param("diaryIds", "1", "3", "999").with(user(principalDetails)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response[0].success").value(true))
+                .andExpect(jsonPath("$.response[1].success").value(true))
+                .andExpect(jsonPath("$.response[2].success").value(false));
+
+        assertThat(diaryRepository.count()).isEqualTo(1);
+        assertThat(dietRepository.count()).isEqualTo(3);
+        assertThat(foodRepository.count()).isEqualTo(7);
+    }
+
+    @Test
+    public void getChangesSince() throws Exception {
+        //given
+        LocalDateTime since = LocalDateTime.now().minusMinutes(1);
+        SecurityDiaryBatchPostRequestDTO postDto = new SecurityDiaryBatchPostRequestDTO(Arrays.asList(makeDtoValid(), makeDtoValid(), makeDtoValid()));
+        mockMvc.perform(post("/api/diary/user/diabetes-diary/batch").with(user(principalDetails))
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(new ObjectMapper().writeValueAsString(postDto)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/diary/user/diabetes-diary/batch").param("diaryIds", "2").with(user(principalDetails)))
+                .andExpect(status().isOk());
+
+        //when and then
+        mockMvc.perform(get("/api/diary/user/changes").param("since", since.toString()).with(user(principalDetails)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response.diaries", hasSize(2)))
+                .andExpect(jsonPath("$.response.diaries[0].diets", hasSize(3)))
+                .andExpect(jsonPath("$.response.deletedDiaryIds", hasSize(1)))
+                .andExpect(jsonPath("$.response.deletedDiaryIds[0]").value(2))
+                .andExpect(jsonPath("$.response.truncated").value(false));
+
+        mockMvc.perform(get("/api/diary/user/changes").param("since", LocalDateTime.now().plusMinutes(1).toString()).with(user(principalDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response.diaries", hasSize(0)))
+                .andExpect(jsonPath("$.response.deletedDiaryIds", hasSize(0)));
+    }
+
+    @Test
+    public void suggestFoodNames() throws Exception {
+        //given
+        foodNameIndex.invalidate(principalDetails.getWriter().getId());
+        postDiaryValid("/api/diary/user/diabetes-diary", makeDtoValid());
+
+        //when and then
+        mockMvc.perform(get("/api/diary/user/food-names").param("prefix", "LUNCH").with(user(principalDetails)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response", hasSize(3)))
+                .andExpect(jsonPath("$.response[0]").value("lunch1"));
+
+        /* 색인이 만들어진 뒤에 저장한 이름은 커밋된 뒤 색인에 더해진다. */
+        SecurityDiaryPostRequestDTO dto = SecurityDiaryPostRequestDTO.builder().fastingPlasmaGlucose(100).remark("test")
+                .year("2021").month("12").day("23").hour("00").minute("00").second("00")
+                .breakFastSugar(110).lunchSugar(120).dinnerSugar(130)
+                .breakFastFoods(Arrays.asList(new SecurityFoodDTO("김치찌개", 1), new SecurityFoodDTO("김치전", 1)))
+                .lunchFoods(Arrays.asList(new SecurityFoodDTO("lunch2", 1)))
+                .dinnerFoods(new ArrayList<>()).build();
+        mockMvc.perform(post("/api/diary/user/diabetes-diary").with(user(principalDetails))
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(new ObjectMapper().writeValueAsString(dto)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/diary/user/food-names").param("prefix", "lunch").param("limit", "1").with(user(principalDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response", hasSize(1)))
+                .andExpect(jsonPath("$.response[0]").value("lunch2"));
+
+        mockMvc.perform(get("/api/diary/user/food-names").param("prefix", "김치ㅉ").with(user(principalDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.response", hasSize(1)))
+                .andExpect(jsonPath("$.response[0]").value("김치찌개"));
+
+        mockMvc.perform(get("/api/diary/user/food-names").param("prefix", "김치").param("limit", "100").with(user(principalDetails)))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * @(#)SqlCountHelper.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.controller.security.domain_rest;
+
+import com.dasd412.remake.api.config.metrics.RequestSqlStatistics;
+import com.dasd412.remake.api.config.metrics.SqlStatementRecorder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 컨트롤러 테스트에서 요청 하나가 실행하는 sql 개수를 세기 위한 헬퍼.
+ * MockMvc 는 같은 스레드에서 요청을 처리하므로 바깥에서 기록을 시작해 두면 된다.
+ */
+public final class SqlCountHelper {
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    private SqlCountHelper() {
+    }
+
+    public static int countStatements(Action action) throws Exception {
+        RequestSqlStatistics statistics = SqlStatementRecorder.start();
+        try {
+            action.run();
+        } finally {
+            SqlStatementRecorder.stop();
+        }
+        return statistics.getStatementCount();
+    }
+
+    public static void assertStatementCount(int expected, Action action) throws Exception {
+        assertThat(countStatements(action)).as("sql statement count").isEqualTo(expected);
+    }
+
+    /**
+     * 캐시를 쓰는 조회는 두 번째 요청의 sql 이 더 적을 수 있으므로, 늘어나지만 않았는지 확인한다.
+     */
+    public static void assertStatementCountAtMost(int max, String description, Action action) throws Exception {
+        assertThat(countStatements(action)).as("sql statement count of " + description).isLessThanOrEqualTo(max);
+    }
+}
@@ -3,6 +3,7 @@ package com.dasd412.remake.api.domain.diary.diet;
 import com.dasd412.remake.api.domain.diary.EntityId;
 import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
 import com.dasd412.remake.api.domain.diary.food.Food;
+import com.dasd412.remake.api.domain.diary.food.FoodName;
 import com.dasd412.remake.api.domain.diary.writer.Role;
 import com.dasd412.remake.api.domain.diary.writer.Writer;
 import org.junit.Before;
@@ -69,14 +70,14 @@ public class DietTest {
 
     @Test
     public void addFood() {
-        Food food = new Food(EntityId.of(Food.class, 1L), diet, "cola");
+        Food food = new Food(EntityId.of(Food.class, 1L), diet, new FoodName(1, "cola"));
         diet.addFood(food);
         assertThat(diet.getFoodList().contains(food)).isTrue();
     }
 
     @Test
     public void removeFood() {
-        Food food = new Food(EntityId.of(Food.class, 1L), diet, "cola");
+        Food food = new Food(EntityId.of(Food.class, 1L), diet, new FoodName(1, "cola"));
         diet.addFood(food);
         diet.removeFood(food);
         assertThat(diet.getFoodList().contains(food)).isFalse();
@@ -87,7 +88,7 @@ public class DietTest {
         thrown.expect(IllegalArgumentException.class);
         thrown.expectMessage("this diet dose not have the food");
 
-        Food food = new Food(EntityId.of(Food.class, 1L), diet, "cola");
+        Food food = new Food(EntityId.of(Food.class, 1L), diet, new FoodName(1, "cola"));
         diet.addFood(food);
         diet.removeFood(food);
         diet.removeFood(food);
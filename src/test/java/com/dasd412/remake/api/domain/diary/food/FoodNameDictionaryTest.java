@@ -0,0 +1,95 @@
+package com.dasd412.remake.api.domain.diary.food;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class FoodNameDictionaryTest {
+
+    @Autowired
+    private FoodNameDictionary foodNameDictionary;
+
+    @Autowired
+    private FoodNameConverter foodNameConverter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void sameNameHasSameId() {
+        ResolvedFoodNames resolved = foodNameDictionary.resolve(Arrays.asList("밥", "Rice", "rice"));
+        Integer id = resolved.get(new String("밥")).getId();
+
+        ResolvedFoodNames resolvedAgain = foodNameDictionary.resolve(Collections.singletonList(new String("밥")));
+        assertThat(resolvedAgain.get("밥").getId()).isEqualTo(id);
+        assertThat(foodNameDictionary.idOf(new String("밥"))).isEqualTo(id);
+        assertThat(resolved.get("Rice").getId()).isNotEqualTo(id);
+        assertThat(resolved.get("rice").getId()).isNotEqualTo(resolved.get("Rice").getId());
+    }
+
+    @Test
+    public void nameIsInterned() {
+        foodNameDictionary.resolve(Collections.singletonList("김치찌개"));
+        Integer id = foodNameConverter.convertToDatabaseColumn(new String("김치찌개"));
+
+        String first = foodNameConverter.convertToEntityAttribute(id);
+        String second = foodNameConverter.convertToEntityAttribute(id);
+
+        assertThat(first).isEqualTo("김치찌개");
+        assertThat(second).isSameAs(first);
+        assertThat(foodNameConverter.convertToDatabaseColumn(null)).isNull();
+    }
+
+    @Test
+    public void converterDoesNotCreateName() {
+        assertThatThrownBy(() -> foodNameConverter.convertToDatabaseColumn("resolve 하지 않은 이름"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void resolvedNamesRejectUnresolvedAndInvalidName() {
+        ResolvedFoodNames resolved = foodNameDictionary.resolve(Arrays.asList("된장국", ""));
+
+        assertThat(resolved.get("된장국").getName()).isEqualTo("된장국");
+        assertThatThrownBy(() -> resolved.get("resolve 하지 않은 이름"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> resolved.get(""))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("food name length should be between 1 and 50");
+    }
+
+    /**
+     * 새 이름은 트랜잭션 안에서는 그 트랜잭션에서만 보이고, 롤백되면 캐시에 남지 않는다.
+     */
+    @Test
+    public void createdNameIsCachedOnlyAfterCommit() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        transactionTemplate.execute(status -> {
+            Integer id = foodNameDictionary.resolve(Collections.singletonList("롤백될 이름")).get("롤백될 이름").getId();
+            assertThat(foodNameConverter.convertToEntityAttribute(id)).isEqualTo("롤백될 이름");
+            status.setRollbackOnly();
+            return null;
+        });
+        assertThatThrownBy(() -> foodNameDictionary.idOf("롤백될 이름")).isInstanceOf(IllegalStateException.class);
+
+        Integer committedId = transactionTemplate.execute(status -> {
+            return foodNameDictionary.resolve(Collections.singletonList("커밋될 이름")).get("커밋될 이름").getId();
+        });
+        assertThat(foodNameDictionary.idOf("커밋될 이름")).isEqualTo(committedId);
+    }
+}
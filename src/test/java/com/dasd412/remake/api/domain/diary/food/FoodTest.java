@@ -43,7 +43,7 @@ public class FoodTest {
         writer.addDiary(diary);
         diet = new Diet(EntityId.of(Diet.class, 1L), diary, EatTime.Lunch, 110);
         diary.addDiet(diet);
-        food = new Food(EntityId.of(Food.class, 1L), diet, "Pizza");
+        food = new Food(EntityId.of(Food.class, 1L), diet, new FoodName(1, "Pizza"));
         diet.addFood(food);
     }
 
@@ -58,7 +58,14 @@ public class FoodTest {
         thrown.expectMessage("food name length should be between 1 and 50");
         StringBuilder foodName = new StringBuilder();
         IntStream.range(0, 100).forEach(i -> foodName.append("a"));
-        new Food(EntityId.of(Food.class, 2L), diet, foodName.toString());
+        new Food(EntityId.of(Food.class, 2L), diet, new FoodName(2, foodName.toString()));
+    }
+
+    @Test
+    public void createFoodWithNameNotInDictionary() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("food name must be in the dictionary");
+        new Food(EntityId.of(Food.class, 2L), diet, new FoodName("chicken"));
     }
 
     @Test
@@ -68,14 +75,14 @@ public class FoodTest {
 
     @Test
     public void updateOnlyFoodName() {
-        food.update("chicken");
+        food.update(new FoodName(2, "chicken"));
         assertThat(food.getId()).isEqualTo(1L);
         assertThat(food.getFoodName()).isEqualTo("chicken");
     }
 
     @Test
     public void updateFoodNameAndAmountAndAmountUnit() {
-        food.update("chicken", 1.5, AmountUnit.kg);
+        food.update(new FoodName(2, "chicken"), 1.5, AmountUnit.kg);
         assertThat(food.getId()).isEqualTo(1L);
         assertThat(food.getFoodName()).isEqualTo("chicken");
         assertThat(food.getAmount()).isCloseTo(1.5, Offset.offset(0.05));
@@ -87,14 +94,14 @@ public class FoodTest {
     public void updateInvalidFoodName() {
         thrown.expect(IllegalArgumentException.class);
         thrown.expectMessage("food name length should be between 1 and 50");
-        food.update("");
+        food.update(new FoodName(3, ""));
     }
 
     @Test
     public void testEqualsTrue() {
         assertThat(food.equals(food)).isTrue();
 
-        Food sameId = new Food(EntityId.of(Food.class, 1L), diet, "Pizza");
+        Food sameId = new Food(EntityId.of(Food.class, 1L), diet, new FoodName(1, "Pizza"));
         assertThat(food.equals(sameId)).isTrue();
     }
 
@@ -0,0 +1,55 @@
+/*
+ * @(#)LatencyRecorder.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * 시나리오 별 응답 시간 기록기. 부하 테스트가 끝난 뒤 정렬해서 백분위 수를 구한다.
+ */
+class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+
+    private int size;
+
+    private int errors;
+
+    synchronized void record(long nanos, boolean success) {
+        if (size == latencies.length) {
+            latencies = Arrays.copyOf(latencies, size * 2);
+        }
+        latencies[size++] = nanos;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    synchronized int count() {
+        return size;
+    }
+
+    synchronized int errors() {
+        return errors;
+    }
+
+    /**
+     * @param percentile 0 ~ 100
+     * @return 밀리초 단위 응답 시간
+     */
+    synchronized double percentileMillis(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))] / 1_000_000.0;
+    }
+}
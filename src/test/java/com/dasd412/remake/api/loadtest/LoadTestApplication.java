@@ -0,0 +1,55 @@
+/*
+ * @(#)LoadTestApplication.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.loadtest;
+
+import com.dasd412.remake.api.Application;
+import com.dasd412.remake.api.domain.diary.food.FoodNameDictionary;
+import com.dasd412.remake.api.loadtest.SyntheticDataGenerator.GeneratedWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+/**
+ * 부하 테스트 실행용 main. loadtest 프로파일(H2 MySQL 모드)로 내장 서버를 띄우고, 가상 데이터를 넣은 뒤 하네스를 돌린다.
+ * 일반 테스트(mvn test)에는 포함되지 않는다.
+ * <p>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dasd412.remake.api.loadtest.LoadTestApplication
+ * -Dloadtest.writers=20 -Dloadtest.years=3 -Dloadtest.threads=16 -Dloadtest.seconds=60
+ */
+public class LoadTestApplication {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestApplication.class);
+
+    public static void main(String[] args) throws InterruptedException {
+        int writers = Integer.getInteger("loadtest.writers", 20);
+        int years = Integer.getInteger("loadtest.years", 3);
+        int threads = Integer.getInteger("loadtest.threads", 16);
+        int seconds = Integer.getInteger("loadtest.seconds", 60);
+        long seed = Long.getLong("loadtest.seed", 42L);
+
+        SpringApplication application = new SpringApplication(Application.class);
+        application.setAdditionalProfiles("loadtest");
+
+        try (ConfigurableApplicationContext context = application.run(args)) {
+            SyntheticDataGenerator generator = new SyntheticDataGenerator(context.getBean(EntityManagerFactory.class), context.getBean(FoodNameDictionary.class), seed);
+            List<GeneratedWriter> generated = generator.generate(writers, years);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadTestReport report = new LoadTestHarness(port, generated).run(threads, seconds, seed);
+
+            logger.info("load test finished. writers : " + writers + ", years : " + years + ", threads : " + threads + ", seconds : " + seconds
+                    + System.lineSeparator() + report);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * @(#)LoadTestHarness.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.loadtest;
+
+import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityDiaryPostRequestDTO;
+import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityDiaryUpdateDTO;
+import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityFoodDTO;
+import com.dasd412.remake.api.loadtest.SyntheticDataGenerator.GeneratedWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 내장 서버를 대상으로 실제 사용 비율에 가까운 요청을 보내는 부하 테스트 하네스.
+ * 스레드 하나가 가상 사용자 한 명이며, 시작할 때 Form Login 으로 세션을 얻은 뒤 정해진 시간 동안 시나리오를 가중치에 따라 뽑아 실행한다.
+ */
+public class LoadTestHarness {
+
+    /**
+     * 시나리오와 가중치. 달력, 차트 조회가 대부분이고 쓰기는 적다.
+     */
+    enum Scenario {
+        CALENDAR(30),
+        CHART_FPG_ALL(10),
+        CHART_BLOOD_SUGAR_BETWEEN(15),
+        CHART_AVERAGE_ALL(10),
+        FOOD_BOARD(20),
+        POST_DIARY(10),
+        UPDATE_DIARY(5);
+
+        private final int weight;
+
+        Scenario(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private final String baseUrl;
+
+    private final List<GeneratedWriter> writers;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<Scenario, LatencyRecorder> recorders = new EnumMap<>(Scenario.class);
+
+    public LoadTestHarness(int port, List<GeneratedWriter> writers) {
+        this.baseUrl = "http://localhost:" + port;
+        this.writers = writers;
+        Arrays.stream(Scenario.values()).forEach(scenario -> recorders.put(scenario, new LatencyRecorder()));
+    }
+
+    public LoadTestReport run(int threads, int seconds, long seed) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long start = System.nanoTime();
+
+        for (int t = 0; t < threads; t++) {
+            GeneratedWriter writer = writers.get(t % writers.size());
+            Random random = new Random(seed + t);
+            executor.execute(() -> runVirtualUser(writer, random, deadline));
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+
+        return new LoadTestReport(recorders, System.nanoTime() - start);
+    }
+
+    private void runVirtualUser(GeneratedWriter writer, Random random, long deadline) {
+        String cookie;
+        try {
+            cookie = login(writer.getName());
+        } catch (IOException e) {
+            throw new IllegalStateException("login failed : " + writer.getName(), e);
+        }
+
+        while (System.nanoTime() < deadline) {
+            Scenario scenario = pickScenario(random);
+            long begin = System.nanoTime();
+            boolean success;
+            try {
+                success = execute(scenario, writer, cookie, random) < 400;
+            } catch (IOException e) {
+                success = false;
+            }
+            recorders.get(scenario).record(System.nanoTime() - begin, success);
+        }
+    }
+
+    private Scenario pickScenario(Random random) {
+        int total = Arrays.stream(Scenario.values()).mapToInt(scenario -> scenario.weight).sum();
+        int target = random.nextInt(total);
+        for (Scenario scenario : Scenario.values()) {
+            target -= scenario.weight;
+            if (target < 0) {
+                return scenario;
+            }
+        }
+        return Scenario.CALENDAR;
+    }
+
+    private int execute(Scenario scenario, GeneratedWriter writer, String cookie, Random random) throws IOException {
+        LocalDate day = randomDay(writer, random);
+        switch (scenario) {
+            case CALENDAR:
+                return send("GET", "/api/diary/user/diabetes-diary/list?year=" + day.getYear() + "&month=" + day.getMonthValue()
+                        + "&startDay=1&endDay=" + day.lengthOfMonth(), cookie, null, null);
+            case CHART_FPG_ALL:
+                return send("GET", "/chart-menu/fasting-plasma-glucose/all", cookie, null, null);
+            case CHART_BLOOD_SUGAR_BETWEEN:
+                LocalDate monthAgo = day.minusMonths(1);
+                return send("GET", "/chart-menu/blood-sugar/between?startYear=" + monthAgo.getYear() + "&startMonth=" + monthAgo.getMonthValue()
+                        + "&startDay=" + monthAgo.getDayOfMonth() + "&endYear=" + day.getYear() + "&endMonth=" + day.getMonthValue()
+                        + "&endDay=" + day.getDayOfMonth(), cookie, null, null);
+            case CHART_AVERAGE_ALL:
+                return send("GET", "/chart-menu/average/all", cookie, null, null);
+            case FOOD_BOARD:
+                return send("GET", "/chart-menu/chart/food-board/list?page=" + (1 + random.nextInt(20)), cookie, null, null);
+            case POST_DIARY:
+                return send("POST", "/api/diary/user/diabetes-diary", cookie, "application/json", objectMapper.writeValueAsBytes(makePostDTO(day, random)));
+            case UPDATE_DIARY:
+                long[] ids = writer.getDiaries().get(random.nextInt(writer.getDiaries().size()));
+                return send("PUT", "/api/diary/user/diabetes-diary", cookie, "application/json", objectMapper.writeValueAsBytes(makeUpdateDTO(ids, random)));
+            default:
+                throw new IllegalStateException("unknown scenario : " + scenario);
+        }
+    }
+
+    private LocalDate randomDay(GeneratedWriter writer, Random random) {
+        return LocalDate.now().minusDays(random.nextInt(Math.max(1, writer.getDiaries().size())));
+    }
+
+    private SecurityDiaryPostRequestDTO makePostDTO(LocalDate day, Random random) {
+        List<SecurityFoodDTO> foods = Collections.singletonList(new SecurityFoodDTO("밥", 1 + random.nextInt(300)));
+        return SecurityDiaryPostRequestDTO.builder()
+                .fastingPlasmaGlucose(90 + random.nextInt(60)).remark("load test")
+                .year(String.valueOf(day.getYear())).month(String.format("%02d", day.getMonthValue())).day(String.format("%02d", day.getDayOfMonth()))
+                .hour("08").minute("00").second("00")
+                .breakFastSugar(100 + random.nextInt(100)).lunchSugar(100 + random.nextInt(100)).dinnerSugar(100 + random.nextInt(100))
+                .breakFastFoods(foods).lunchFoods(foods).dinnerFoods(foods)
+                .build();
+    }
+
+    private SecurityDiaryUpdateDTO makeUpdateDTO(long[] ids, Random random) {
+        return SecurityDiaryUpdateDTO.builder()
+                .diaryId(ids[0]).fastingPlasmaGlucose(90 + random.nextInt(60)).remark("updated").diaryDirty(true)
+                .breakFastId(ids[1]).breakFastSugar(100 + random.nextInt(100)).breakFastDirty(true)
+                .lunchId(ids[2]).lunchSugar(100 + random.nextInt(100)).lunchDirty(random.nextBoolean())
+                .dinnerId(ids[3]).dinnerSugar(100 + random.nextInt(100)).dinnerDirty(random.nextBoolean())
+                .oldBreakFastFoods(new ArrayList<>()).oldLunchFoods(new ArrayList<>()).oldDinnerFoods(new ArrayList<>())
+                .newBreakFastFoods(new ArrayList<>()).newLunchFoods(new ArrayList<>()).newDinnerFoods(new ArrayList<>())
+                .build();
+    }
+
+    /**
+     * @return 세션 쿠키 (이름=값)
+     */
+    private String login(String name) throws IOException {
+        byte[] body = ("username=" + name + "&password=" + SyntheticDataGenerator.PASSWORD).getBytes(StandardCharsets.UTF_8);
+        HttpURLConnection connection = open("POST", "/login", null, "application/x-www-form-urlencoded", body);
+        try {
+            String location = connection.getHeaderField("Location");
+            String setCookie = connection.getHeaderField("Set-Cookie");
+            if (location == null || location.contains("error") || setCookie == null) {
+                throw new IOException("unexpected login response. location : " + location);
+            }
+            return setCookie.split(";", 2)[0];
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private int send(String method, String path, String cookie, String contentType, byte[] body) throws IOException {
+        HttpURLConnection connection = open(method, path, cookie, contentType, body);
+        try {
+            int status = connection.getResponseCode();
+            /* 응답 본문까지 다 읽어야 실제 응답 시간이 된다. */
+            try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (in != null) {
+                    byte[] buffer = new byte[8192];
+                    while (in.read(buffer) != -1) {
+                        /* 버린다. */
+                    }
+                }
+            }
+            return status;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(String method, String path, String cookie, String contentType, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setInstanceFollowRedirects(false);
+        if (cookie != null) {
+            connection.setRequestProperty("Cookie", cookie);
+        }
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", contentType);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+        }
+        connection.getResponseCode();
+        return connection;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * @(#)LoadTestReport.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.loadtest;
+
+import com.dasd412.remake.api.loadtest.LoadTestHarness.Scenario;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 시나리오 별 처리량, 오류 수, 응답 시간 백분위 수를 표 형태로 보여준다.
+ */
+public class LoadTestReport {
+
+    private final Map<Scenario, LatencyRecorder> recorders;
+
+    private final long elapsedNanos;
+
+    LoadTestReport(Map<Scenario, LatencyRecorder> recorders, long elapsedNanos) {
+        this.recorders = recorders;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-26s %8s %7s %9s %9s %9s %9s %9s%n", "scenario", "count", "errors", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)"));
+
+        int totalCount = 0;
+        int totalErrors = 0;
+        for (Map.Entry<Scenario, LatencyRecorder> entry : recorders.entrySet()) {
+            LatencyRecorder recorder = entry.getValue();
+            totalCount += recorder.count();
+            totalErrors += recorder.errors();
+            builder.append(String.format("%-26s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(), recorder.count(), recorder.errors(),
+                    recorder.count() / seconds, recorder.percentileMillis(50), recorder.percentileMillis(90),
+                    recorder.percentileMillis(99), recorder.percentileMillis(100)));
+        }
+        builder.append(String.format("%-26s %8d %7d %9.1f%n", "TOTAL", totalCount, totalErrors, totalCount / seconds));
+        return builder.toString();
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * @(#)SyntheticDataGenerator.java
+ *
+ * Copyright (c) 2022 YoungJun Yang.
+ * ComputerScience, ProgrammingLanguage, Java, Pocheon-si, KOREA
+ * All rights reserved.
+ */
+
+package com.dasd412.remake.api.loadtest;
+
+import com.dasd412.remake.api.domain.diary.EntityId;
+import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
+import com.dasd412.remake.api.domain.diary.diet.Diet;
+import com.dasd412.remake.api.domain.diary.diet.EatTime;
+import com.dasd412.remake.api.domain.diary.food.AmountUnit;
+import com.dasd412.remake.api.domain.diary.food.Food;
+import com.dasd412.remake.api.domain.diary.food.FoodNameDictionary;
+import com.dasd412.remake.api.domain.diary.food.ResolvedFoodNames;
+import com.dasd412.remake.api.domain.diary.writer.Role;
+import com.dasd412.remake.api.domain.diary.writer.Writer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 부하 테스트용 가상 데이터 생성기.
+ * 작성자마다 하루 한 건의 일지, 일지마다 아침, 점심, 저녁 식단, 식단마다 1 ~ 4개의 음식을 만든다.
+ * 1. 공복 혈당은 평균 110, 식후 혈당은 평균 150 인 정규 분포를 따른다.
+ * 2. 음식 이름은 자주 먹는 음식이 훨씬 많이 나오도록 지프(Zipf) 분포를 따른다.
+ * 서비스 로직(max(id) + 1)을 거치면 너무 느리므로 id 를 직접 매기고 EntityManager.persist()로 일정 개수마다 flush, clear 한다.
+ * 음식 이름은 미리 사전(FoodNameDictionary)에 넣어 둔다.
+ */
+public class SyntheticDataGenerator {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    public static final String PASSWORD = "loadtest";
+
+    private static final int FLUSH_INTERVAL_OF_DIARY = 200;
+
+    private static final String[] FOOD_NAMES = {
+            "밥", "김치", "현미밥", "된장찌개", "계란", "김", "우유", "바나나", "사과", "닭가슴살",
+            "고구마", "두부", "미역국", "샐러드", "라면", "빵", "커피", "요거트", "불고기", "잡곡밥",
+            "김치찌개", "제육볶음", "비빔밥", "떡볶이", "짜장면", "짬뽕", "돈까스", "삼겹살", "치킨", "피자",
+            "햄버거", "감자", "옥수수", "토마토", "오이", "당근", "귤", "포도", "딸기", "수박",
+            "국수", "냉면", "칼국수", "만두", "순두부찌개", "갈비탕", "삼계탕", "연어", "고등어", "멸치볶음",
+            "시금치나물", "콩나물", "어묵", "소시지", "치즈", "견과류", "오트밀", "시리얼", "주스", "아이스크림"
+    };
+
+    private static final EatTime[] EAT_TIMES = {EatTime.BreakFast, EatTime.Lunch, EatTime.Dinner};
+
+    private static final AmountUnit[] AMOUNT_UNITS = {AmountUnit.count, AmountUnit.g, AmountUnit.mL, AmountUnit.NONE};
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final FoodNameDictionary foodNameDictionary;
+
+    private final Random random;
+
+    /**
+     * 지프 분포의 누적 확률. 음식 이름 인덱스를 뽑을 때 쓰인다.
+     */
+    private final double[] cumulativeFoodWeights;
+
+    private long diaryId = 0L;
+
+    private long dietId = 0L;
+
+    private long foodId = 0L;
+
+    /**
+     * generate() 시작 시 사전에서 정한 음식 이름들
+     */
+    private ResolvedFoodNames foodNames;
+
+    public SyntheticDataGenerator(EntityManagerFactory entityManagerFactory, FoodNameDictionary foodNameDictionary, long seed) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.foodNameDictionary = foodNameDictionary;
+        this.random = new Random(seed);
+        this.cumulativeFoodWeights = makeCumulativeZipfWeights(FOOD_NAMES.length, 1.1);
+    }
+
+    /**
+     * @param writerCount 작성자 수
+     * @param years       작성자 한 명이 매일 기록한 기간 (년)
+     * @return 부하 테스트에서 로그인과 수정 요청에 쓰일 작성자 정보
+     */
+    public List<GeneratedWriter> generate(int writerCount, int years) {
+        String encodedPassword = new BCryptPasswordEncoder().encode(PASSWORD);
+        LocalDate firstDay = LocalDate.now().minusYears(years);
+        int days = (int) (LocalDate.now().toEpochDay() - firstDay.toEpochDay());
+
+        List<GeneratedWriter> generated = new ArrayList<>(writerCount);
+        long start = System.currentTimeMillis();
+
+        foodNames = foodNameDictionary.resolve(Arrays.asList(FOOD_NAMES));
+
+        for (int w = 1; w <= writerCount; w++) {
+            generated.add(generateWriter(w, encodedPassword, firstDay, days));
+        }
+
+        logger.info("generated " + writerCount + " writers, " + diaryId + " diaries, " + dietId + " diets, " + foodId + " foods in "
+                + (System.currentTimeMillis() - start) + "ms");
+        return generated;
+    }
+
+    private GeneratedWriter generateWriter(long writerId, String encodedPassword, LocalDate firstDay, int days) {
+        String name = "loadtest" + writerId;
+        GeneratedWriter generated = new GeneratedWriter(name, days);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        EntityTransaction transaction = entityManager.getTransaction();
+        try {
+            transaction.begin();
+
+            Writer writer = Writer.builder()
+                    .writerEntityId(EntityId.of(Writer.class, writerId))
+                    .name(name)
+                    .email(name + "@loadtest.com")
+                    .password(encodedPassword)
+                    .role(Role.User)
+                    .build();
+            entityManager.persist(writer);
+
+            for (int day = 0; day < days; day++) {
+                LocalDateTime writtenTime = firstDay.plusDays(day).atTime(7 + random.nextInt(3), random.nextInt(60));
+                generated.addDiary(generateDiary(entityManager, writer, writtenTime));
+
+                if ((day + 1) % FLUSH_INTERVAL_OF_DIARY == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    writer = entityManager.getReference(Writer.class, writerId);
+                }
+            }
+
+            transaction.commit();
+        } catch (RuntimeException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        } finally {
+            entityManager.close();
+        }
+        return generated;
+    }
+
+    private long[] generateDiary(EntityManager entityManager, Writer writer, LocalDateTime writtenTime) {
+        DiabetesDiary diary = new DiabetesDiary(EntityId.of(DiabetesDiary.class, ++diaryId), writer, gaussian(110, 20), "", writtenTime);
+
+        long[] ids = new long[1 + EAT_TIMES.length];
+        ids[0] = diaryId;
+
+        for (int i = 0; i < EAT_TIMES.length; i++) {
+            Diet diet = new Diet(EntityId.of(Diet.class, ++dietId), diary, EAT_TIMES[i], gaussian(150, 35));
+            diary.addDiet(diet);
+            ids[i + 1] = dietId;
+
+            int foodCount = 1 + random.nextInt(4);
+            for (int f = 0; f < foodCount; f++) {
+                Food food = new Food(EntityId.of(Food.class, ++foodId), diet, foodNames.get(pickFoodName()), 1 + random.nextInt(300),
+                        AMOUNT_UNITS[random.nextInt(AMOUNT_UNITS.length)]);
+                diet.addFood(food);
+            }
+        }
+
+        /* 식단, 음식까지 cascade 된다. */
+        entityManager.persist(diary);
+        return ids;
+    }
+
+    private int gaussian(double mean, double deviation) {
+        int value = (int) Math.round(mean + random.nextGaussian() * deviation);
+        return Math.max(40, Math.min(600, value));
+    }
+
+    private String pickFoodName() {
+        double target = random.nextDouble();
+        for (int i = 0; i < cumulativeFoodWeights.length; i++) {
+            if (target <= cumulativeFoodWeights[i]) {
+                return FOOD_NAMES[i];
+            }
+        }
+        return FOOD_NAMES[FOOD_NAMES.length - 1];
+    }
+
+    private static double[] makeCumulativeZipfWeights(int size, double exponent) {
+        double[] weights = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            weights[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            weights[i] /= sum;
+        }
+        return weights;
+    }
+
+    /**
+     * 생성된 작성자의 로그인 정보와 일지 식별자들. 수정 요청을 만들 때 쓰인다.
+     */
+    public static class GeneratedWriter {
+
+        private final String name;
+
+        /**
+         * (일지 id, 아침 id, 점심 id, 저녁 id)
+         */
+        private final List<long[]> diaries;
+
+        GeneratedWriter(String name, int expectedDiaries) {
+            this.name = name;
+            this.diaries = new ArrayList<>(expectedDiaries);
+        }
+
+        void addDiary(long[] ids) {
+            diaries.add(ids);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<long[]> getDiaries() {
+            return diaries;
+        }
+    }
+}
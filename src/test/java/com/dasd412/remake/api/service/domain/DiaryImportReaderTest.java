@@ -0,0 +1,40 @@
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.service.domain.vo.DiaryFileFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DiaryImportReaderTest {
+
+    private static final String HEADER = "writtenTime,fastingPlasmaGlucose,breakFastSugar,lunchSugar,dinnerSugar\n";
+
+    @Test
+    public void hasNextDoesNotParseMalformedLine() throws IOException {
+        DiaryImportReader reader = new DiaryImportReader(new StringReader(HEADER + "\n2022-01-01 00:00:00,abc,110,120,130\n"),
+                DiaryFileFormat.CSV, new ObjectMapper());
+
+        assertThat(reader.hasNext()).isTrue();
+        assertThat(reader.hasNext()).isTrue();
+        assertThat(reader.getLineNumber()).isEqualTo(3);
+
+        assertThatThrownBy(reader::next).isInstanceOf(IllegalArgumentException.class);
+        assertThat(reader.hasNext()).isFalse();
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    public void nextAfterHasNextReturnsSameLine() throws IOException {
+        DiaryImportReader reader = new DiaryImportReader(new StringReader(HEADER + "2022-01-01 00:00:00,100,110,120,130\n"),
+                DiaryFileFormat.CSV, new ObjectMapper());
+
+        assertThat(reader.hasNext()).isTrue();
+        assertThat(reader.next().getFastingPlasmaGlucose()).isEqualTo(100);
+        assertThat(reader.hasNext()).isFalse();
+    }
+}
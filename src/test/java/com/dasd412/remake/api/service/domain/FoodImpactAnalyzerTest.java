@@ -0,0 +1,112 @@
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.service.domain.vo.FoodImpact;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+public class FoodImpactAnalyzerTest {
+
+    private static ForkJoinPool singlePool;
+
+    private static ForkJoinPool parallelPool;
+
+    @BeforeClass
+    public static void setUpPools() {
+        singlePool = new ForkJoinPool(1);
+        parallelPool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void shutdownPools() {
+        singlePool.shutdown();
+        parallelPool.shutdown();
+    }
+
+    /**
+     * 밥 : (150, 170) vs (100, 110, 120), 샐러드 : (100, 120) vs (150, 170, 110)
+     */
+    private FoodImpactAnalyzer makeAnalyzer() {
+        return FoodImpactAnalyzer.builder()
+                .add(1L, 150, "밥")
+                .add(2L, 170, "밥")
+                .add(2L, 170, "밥")
+                .add(3L, 100, "샐러드")
+                .add(4L, 110, null)
+                .add(5L, 120, "샐러드")
+                .build();
+    }
+
+    @Test
+    public void compareMeansWithAndWithoutFood() {
+        List<FoodImpact> impacts = makeAnalyzer().analyze(parallelPool, 2);
+
+        assertThat(impacts).extracting(FoodImpact::getFoodName).containsExactly("밥", "샐러드");
+
+        FoodImpact rice = impacts.get(0);
+        assertThat(rice.getOccurrence()).isEqualTo(2);
+        assertThat(rice.getMeanWith()).isEqualTo(160.0);
+        assertThat(rice.getMeanWithout()).isEqualTo(110.0);
+        assertThat(rice.getDifference()).isEqualTo(50.0);
+
+        /* 자유도가 2 보다 작으므로 t(1) 을 쓴다. */
+        double standardError = Math.sqrt(200.0 / 2 + 100.0 / 3);
+        assertThat(rice.getLowerBound()).isCloseTo(50.0 - 12.7062 * standardError, offset(1e-3));
+        assertThat(rice.getUpperBound()).isCloseTo(50.0 + 12.7062 * standardError, offset(1e-3));
+
+        assertThat(impacts.get(1).getDifference()).isCloseTo(110.0 - 430.0 / 3, offset(1e-9));
+    }
+
+    @Test
+    public void foodsBelowMinOccurrenceAreExcluded() {
+        assertThat(makeAnalyzer().analyze(parallelPool, 3)).isEmpty();
+        assertThatThrownBy(() -> makeAnalyzer().analyze(parallelPool, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * 나눠서 더한 결과는 한 스레드로 더한 결과와 같아야 한다.
+     */
+    @Test
+    public void parallelEqualsSingleThread() {
+        Random random = new Random(50);
+        FoodImpactAnalyzer.Builder builder = FoodImpactAnalyzer.builder();
+        for (long dietId = 1; dietId <= 100_000; dietId++) {
+            int bloodSugar = 80 + random.nextInt(150);
+            int foodCount = random.nextInt(4);
+            for (int i = 0; i < foodCount; i++) {
+                builder.add(dietId, bloodSugar, "food" + (i * 50 + random.nextInt(50)));
+            }
+            if (foodCount == 0) {
+                builder.add(dietId, bloodSugar, null);
+            }
+        }
+        FoodImpactAnalyzer analyzer = builder.build();
+
+        List<FoodImpact> single = analyzer.analyze(singlePool, 5);
+        List<FoodImpact> parallel = analyzer.analyze(parallelPool, 5);
+
+        assertThat(analyzer.getDietCount()).isEqualTo(100_000);
+        assertThat(parallel).hasSameSizeAs(single);
+        for (int i = 0; i < single.size(); i++) {
+            assertThat(parallel.get(i).getFoodName()).isEqualTo(single.get(i).getFoodName());
+            assertThat(parallel.get(i).getOccurrence()).isEqualTo(single.get(i).getOccurrence());
+            assertThat(parallel.get(i).getDifference()).isEqualTo(single.get(i).getDifference());
+            assertThat(parallel.get(i).getLowerBound()).isEqualTo(single.get(i).getLowerBound());
+        }
+    }
+
+    @Test
+    public void tQuantileApproximation() {
+        assertThat(FoodImpactAnalyzer.tQuantile975(4)).isCloseTo(2.776, offset(1e-3));
+        assertThat(FoodImpactAnalyzer.tQuantile975(30)).isCloseTo(2.042, offset(1e-3));
+        assertThat(FoodImpactAnalyzer.tQuantile975(1.5)).isCloseTo(12.706, offset(1e-3));
+    }
+}
@@ -0,0 +1,69 @@
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.util.HangulJamo;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FoodNameIndexTest {
+
+    private FoodNameIndex.WriterFoodNames makeNames() {
+        Map<String, Long> counts = new HashMap<>();
+        counts.put("김치찌개", 3L);
+        counts.put("김치전", 5L);
+        counts.put("김밥", 1L);
+        counts.put("과자", 2L);
+        counts.put("Apple Pie", 1L);
+        return FoodNameIndex.WriterFoodNames.of(counts);
+    }
+
+    @Test
+    public void decomposeHangul() {
+        assertThat(HangulJamo.decompose("김치찌개")).isEqualTo("ㄱㅣㅁㅊㅣㅉㅣㄱㅐ");
+        assertThat(HangulJamo.decompose("과 자")).isEqualTo("ㄱㅗㅏㅈㅏ");
+        assertThat(HangulJamo.decompose("닭")).isEqualTo("ㄷㅏㄹㄱ");
+        assertThat(HangulJamo.decompose("Apple")).isEqualTo("apple");
+    }
+
+    @Test
+    public void suggestOrderedByCount() {
+        FoodNameIndex.WriterFoodNames names = makeNames();
+
+        assertThat(names.suggest(HangulJamo.decompose("김치"), 10)).containsExactly("김치전", "김치찌개");
+        assertThat(names.suggest(HangulJamo.decompose("김"), 2)).containsExactly("김치전", "김치찌개");
+        assertThat(names.suggest(HangulJamo.decompose("라면"), 10)).isEmpty();
+    }
+
+    @Test
+    public void suggestWithSyllableBeingTyped() {
+        FoodNameIndex.WriterFoodNames names = makeNames();
+
+        assertThat(names.suggest(HangulJamo.decompose("김치ㅉ"), 10)).containsExactly("김치찌개");
+        /* 다음 글자의 초성이 받침으로 붙은 입력 중 상태 */
+        assertThat(names.suggest(HangulJamo.decompose("김칮"), 10)).containsExactly("김치전");
+        assertThat(names.suggest(HangulJamo.decompose("고"), 10)).containsExactly("과자");
+        assertThat(names.suggest(HangulJamo.decompose("apple p"), 10)).containsExactly("Apple Pie");
+    }
+
+    @Test
+    public void addNamesChangesRanking() {
+        FoodNameIndex.WriterFoodNames names = makeNames().withAdded(Arrays.asList("김치찌개", "김치찌개", "김치찌개", "김치볶음밥"));
+
+        assertThat(names.suggest(HangulJamo.decompose("김치"), 10)).containsExactly("김치찌개", "김치전", "김치볶음밥");
+    }
+
+    @Test
+    public void addingNamesDoesNotExtendLifetime() {
+        long now = System.currentTimeMillis();
+        FoodNameIndex.WriterFoodNames names = makeNames();
+        FoodNameIndex.WriterFoodNames added = names.withAdded(Arrays.asList("라면"));
+
+        assertThat(added.isExpired(now + TimeUnit.MINUTES.toMillis(29))).isFalse();
+        assertThat(added.isExpired(now + TimeUnit.MINUTES.toMillis(31))).isTrue();
+    }
+}
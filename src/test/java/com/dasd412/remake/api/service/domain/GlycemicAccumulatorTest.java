@@ -0,0 +1,91 @@
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.service.domain.vo.GlycemicVariability;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+public class GlycemicAccumulatorTest {
+
+    private GlycemicVariability accumulate(int... values) {
+        GlycemicAccumulator accumulator = new GlycemicAccumulator(70, 180);
+        for (int value : values) {
+            accumulator.accept(value);
+        }
+        return accumulator.result();
+    }
+
+    @Test
+    public void empty() {
+        GlycemicVariability result = new GlycemicAccumulator(70, 180).result();
+
+        assertThat(result.getCount()).isEqualTo(0);
+        assertThat(result.getMean()).isNull();
+        assertThat(result.getStandardDeviation()).isNull();
+        assertThat(result.getMage()).isNull();
+    }
+
+    @Test
+    public void statisticsAndTimeInRange() {
+        GlycemicVariability result = accumulate(60, 100, 150, 200);
+
+        assertThat(result.getCount()).isEqualTo(4);
+        assertThat(result.getMean()).isCloseTo(127.5, offset(1e-9));
+        assertThat(result.getStandardDeviation()).isCloseTo(60.76, offset(0.01));
+        assertThat(result.getCoefficientOfVariation()).isCloseTo(47.65, offset(0.01));
+        assertThat(result.getPercentBelowRange()).isEqualTo(25.0);
+        assertThat(result.getPercentInRange()).isEqualTo(50.0);
+        assertThat(result.getPercentAboveRange()).isEqualTo(25.0);
+    }
+
+    /**
+     * 값을 모두 모아 두 번 읽어서 구한 표준 편차와 같아야 한다.
+     */
+    @Test
+    public void standardDeviationEqualsTwoPass() {
+        Random random = new Random(42);
+        int[] values = new int[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 60 + random.nextInt(240);
+        }
+
+        double sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        double mean = sum / values.length;
+        double squaredDistance = 0;
+        for (int value : values) {
+            squaredDistance += (value - mean) * (value - mean);
+        }
+
+        GlycemicVariability result = accumulate(values);
+
+        assertThat(result.getMean()).isCloseTo(mean, offset(1e-9));
+        assertThat(result.getStandardDeviation()).isCloseTo(Math.sqrt(squaredDistance / (values.length - 1)), offset(1e-9));
+    }
+
+    /**
+     * 처음 기준을 넘은 상승 방향의 오르내림만 센다.
+     */
+    @Test
+    public void mageCountsExcursionsInFirstDirection() {
+        assertThat(accumulate(100, 200, 100, 200, 100).getMage()).isEqualTo(100.0);
+    }
+
+    /**
+     * 표준 편차보다 작은 하락은 상승을 쪼개지 않는다.
+     */
+    @Test
+    public void mageIgnoresSmallReversal() {
+        assertThat(accumulate(100, 200, 195, 300).getMage()).isEqualTo(200.0);
+    }
+
+    @Test
+    public void mageIsNullWithoutExcursion() {
+        assertThat(accumulate(120, 120, 120).getMage()).isNull();
+    }
+}
@@ -7,6 +7,8 @@ import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
 import com.dasd412.remake.api.domain.diary.diet.Diet;
 import com.dasd412.remake.api.domain.diary.diet.EatTime;
 import com.dasd412.remake.api.domain.diary.food.Food;
+import com.dasd412.remake.api.domain.diary.food.FoodNameDictionary;
+import com.dasd412.remake.api.domain.diary.food.ResolvedFoodNames;
 import com.dasd412.remake.api.domain.diary.writer.Writer;
 import com.dasd412.remake.api.domain.diary.writer.WriterRepository;
 import org.junit.After;
@@ -20,6 +22,7 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -35,6 +38,9 @@ public class PagingTest {
     @Autowired
     private WriterRepository writerRepository;
 
+    @Autowired
+    private FoodNameDictionary foodNameDictionary;
+
     Writer me;
 
     @Before
@@ -61,27 +67,29 @@ public class PagingTest {
         Diet diet4 = new Diet(EntityId.of(Diet.class, 4L), diary, EatTime.BreakFast, 200);
         diary.addDiet(diet4);
 
+        ResolvedFoodNames foodNames = foodNameDictionary.resolve(Arrays.asList("test1", "test2", "test3", "test4"));
+
         LongStream.range(0, 50)
                 .forEach(i -> {
-                    Food food = new Food(EntityId.of(Food.class, i), diet1, "test1", i * 1.0);
+                    Food food = new Food(EntityId.of(Food.class, i), diet1, foodNames.get("test1"), i * 1.0);
                     diet1.addFood(food);
                 });
 
         LongStream.range(0, 50)
                 .forEach(i -> {
-                    Food food = new Food(EntityId.of(Food.class, i + 50), diet2, "test2", (i + 50) * 1.0);
+                    Food food = new Food(EntityId.of(Food.class, i + 50), diet2, foodNames.get("test2"), (i + 50) * 1.0);
                     diet2.addFood(food);
                 });
 
         LongStream.range(0, 50)
                 .forEach(i -> {
-                    Food food = new Food(EntityId.of(Food.class, i + 100), diet3, "test3", (i + 100) * 1.0);
+                    Food food = new Food(EntityId.of(Food.class, i + 100), diet3, foodNames.get("test3"), (i + 100) * 1.0);
                     diet3.addFood(food);
                 });
 
         LongStream.range(0, 50)
                 .forEach(i -> {
-                    Food food = new Food(EntityId.of(Food.class, i + 150), diet4, "test4", (i + 150) * 1.0);
+                    Food food = new Food(EntityId.of(Food.class, i + 150), diet4, foodNames.get("test4"), (i + 150) * 1.0);
                     diet4.addFood(food);
                 });
 
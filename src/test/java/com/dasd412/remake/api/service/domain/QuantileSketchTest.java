@@ -0,0 +1,50 @@
+package com.dasd412.remake.api.service.domain;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+public class QuantileSketchTest {
+
+    @Test
+    public void quantileInterpolatesBetweenRanks() {
+        QuantileSketch sketch = QuantileSketch.of(4, 1, 3, 2);
+
+        assertThat(sketch.getCount()).isEqualTo(4);
+        assertThat(sketch.quantile(0)).isEqualTo(1.0);
+        assertThat(sketch.quantile(0.5)).isEqualTo(2.5);
+        assertThat(sketch.quantile(0.9)).isCloseTo(3.7, offset(1e-9));
+        assertThat(sketch.quantile(1)).isEqualTo(4.0);
+    }
+
+    @Test
+    public void quantileWithRepeatedValues() {
+        QuantileSketch sketch = QuantileSketch.builder().add(100, 3).add(200, 1).build();
+
+        assertThat(sketch.quantile(0.5)).isEqualTo(100.0);
+        assertThat(sketch.quantile(0.9)).isCloseTo(170.0, offset(1e-9));
+    }
+
+    /**
+     * 합친 결과는 값을 한꺼번에 넣은 것과 같아야 한다.
+     */
+    @Test
+    public void mergeEqualsBuildingAtOnce() {
+        QuantileSketch merged = QuantileSketch.of(1, 3, 7).merge(QuantileSketch.of(3, 5)).merge(QuantileSketch.empty());
+        QuantileSketch atOnce = QuantileSketch.of(1, 3, 7, 3, 5);
+
+        assertThat(merged.getCount()).isEqualTo(atOnce.getCount());
+        for (double q = 0; q <= 1; q += 0.05) {
+            assertThat(merged.quantile(q)).isEqualTo(atOnce.quantile(q));
+        }
+    }
+
+    @Test
+    public void quantileOfEmptySketch() {
+        assertThat(QuantileSketch.empty().isEmpty()).isTrue();
+        assertThatThrownBy(() -> QuantileSketch.empty().quantile(0.5)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> QuantileSketch.of(1).quantile(1.5)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
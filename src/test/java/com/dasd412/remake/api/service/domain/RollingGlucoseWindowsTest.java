@@ -0,0 +1,89 @@
+package com.dasd412.remake.api.service.domain;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+public class RollingGlucoseWindowsTest {
+
+    @Test
+    public void averageOfEmptyWindowIsNull() {
+        RollingGlucoseWindows windows = new RollingGlucoseWindows(3);
+
+        assertThat(windows.average(0)).isNull();
+
+        windows.accept(100);
+        windows.nextDay();
+        windows.nextDay();
+        assertThat(windows.average(0)).isEqualTo(100.0);
+
+        windows.nextDay();
+        assertThat(windows.average(0)).isNull();
+    }
+
+    @Test
+    public void windowsSlideIndependently() {
+        RollingGlucoseWindows windows = new RollingGlucoseWindows(1, 2);
+
+        windows.accept(100);
+        windows.accept(200);
+        windows.nextDay();
+        windows.accept(90);
+
+        assertThat(windows.average(0)).isEqualTo(90.0);
+        assertThat(windows.average(1)).isEqualTo(130.0);
+    }
+
+    /**
+     * 빠지는 날만 빼면서 구한 평균은 날마다 기간을 다시 더한 평균과 같아야 한다.
+     */
+    @Test
+    public void slidingEqualsRecomputing() {
+        int[] windowDays = {30, 60, 90};
+        RollingGlucoseWindows windows = new RollingGlucoseWindows(windowDays);
+        List<List<Integer>> days = new ArrayList<>();
+        Random random = new Random(49);
+
+        for (int day = 0; day < 400; day++) {
+            List<Integer> readings = new ArrayList<>();
+            /* 기록이 없는 날도 섞는다. */
+            int count = random.nextInt(5) == 0 ? 0 : random.nextInt(4) + 1;
+            for (int i = 0; i < count; i++) {
+                int bloodSugar = 60 + random.nextInt(200);
+                readings.add(bloodSugar);
+                windows.accept(bloodSugar);
+            }
+            days.add(readings);
+
+            for (int window = 0; window < windowDays.length; window++) {
+                long sum = 0;
+                long total = 0;
+                for (int past = Math.max(0, day - windowDays[window] + 1); past <= day; past++) {
+                    for (int bloodSugar : days.get(past)) {
+                        sum += bloodSugar;
+                        total++;
+                    }
+                }
+
+                if (total == 0) {
+                    assertThat(windows.average(window)).isNull();
+                } else {
+                    assertThat(windows.average(window)).isCloseTo((double) sum / total, offset(1e-9));
+                }
+            }
+            windows.nextDay();
+        }
+    }
+
+    @Test
+    public void windowMustBePositive() {
+        assertThatThrownBy(RollingGlucoseWindows::new).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RollingGlucoseWindows(30, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
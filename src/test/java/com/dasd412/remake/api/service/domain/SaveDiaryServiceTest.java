@@ -0,0 +1,140 @@
+package com.dasd412.remake.api.service.domain;
+
+import com.dasd412.remake.api.config.security.auth.PrincipalDetails;
+import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityDiaryPostRequestDTO;
+import com.dasd412.remake.api.controller.security.domain_rest.dto.diary.SecurityFoodDTO;
+import com.dasd412.remake.api.domain.diary.EntityId;
+import com.dasd412.remake.api.domain.diary.diabetesDiary.DiabetesDiary;
+import com.dasd412.remake.api.domain.diary.diabetesDiary.DiaryRepository;
+import com.dasd412.remake.api.domain.diary.diet.Diet;
+import com.dasd412.remake.api.domain.diary.diet.DietRepository;
+import com.dasd412.remake.api.domain.diary.food.Food;
+import com.dasd412.remake.api.domain.diary.food.FoodRepository;
+import com.dasd412.remake.api.domain.diary.writer.Role;
+import com.dasd412.remake.api.domain.diary.writer.Writer;
+import com.dasd412.remake.api.domain.diary.writer.WriterRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest()
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class SaveDiaryServiceTest {
+
+    @Autowired
+    private SaveDiaryService saveDiaryService;
+
+    @Autowired
+    private WriterRepository writerRepository;
+
+    @Autowired
+    private DiaryRepository diaryRepository;
+
+    @Autowired
+    private DietRepository dietRepository;
+
+    @Autowired
+    private FoodRepository foodRepository;
+
+    @Autowired
+    private DiaryIdAllocator diaryIdAllocator;
+
+    private PrincipalDetails principalDetails;
+
+    @Before
+    public void setUp() {
+        Writer me = Writer.builder()
+                .writerEntityId(EntityId.of(Writer.class, 1L))
+                .name("test")
+                .email("test@test.com")
+                .password("test")
+                .role(Role.User)
+                .build();
+
+        writerRepository.save(me);
+        principalDetails = new PrincipalDetails(me);
+    }
+
+    @After
+    public void clean() {
+        writerRepository.deleteAll();
+    }
+
+    /**
+     * 일지를 맨 끝에 한 번만 저장하므로, 식단과 음식의 식별자가 겹치면 해시 셋에서 합쳐져 일부만 저장된다.
+     */
+    @Test
+    public void postDiaryStoresEveryDietAndFood() {
+        //when
+        saveDiaryService.postDiaryWithEntities(principalDetails, makeDto(3, 4, 2));
+        saveDiaryService.postDiaryWithEntities(principalDetails, makeDto(1, 2, 5));
+
+        //then
+        List<DiabetesDiary> diaries = diaryRepository.findAll();
+        assertThat(diaries).hasSize(2);
+
+        List<Diet> diets = dietRepository.findAll();
+        assertThat(diets).hasSize(6);
+        assertThat(diets.stream().map(Diet::getDietId).distinct().count()).isEqualTo(6);
+
+        List<Food> foods = foodRepository.findAll();
+        assertThat(foods).hasSize(17);
+        assertThat(foods.stream().map(Food::getId).distinct().count()).isEqualTo(17);
+        assertThat(foods.stream().map(Food::getFoodName).collect(Collectors.toList()))
+                .contains("breakFast3", "lunch4", "dinner2", "dinner5");
+    }
+
+    /**
+     * 구간을 배정받은 트랜잭션이 아직 저장하지 않았어도 다음 배정은 그 구간을 건너뛴다. (max + 1 이었다면 같은 값이 나온다.)
+     */
+    @Test
+    public void reservedIdsAreNotReservedAgain() {
+        DiaryIdSequence first = diaryIdAllocator.reserve(2, 6, 10);
+        DiaryIdSequence second = diaryIdAllocator.reserve(1, 3, 5);
+
+        Long firstDiaryId = first.nextDiaryId().getId();
+        first.nextDiaryId();
+        assertThat(second.nextDiaryId().getId()).isEqualTo(firstDiaryId + 2);
+
+        /* 일지 저장도 앞서 배정된 구간 뒤에서부터 식별자를 받는다. */
+        Long postedId = saveDiaryService.postDiaryWithEntities(principalDetails, makeDto(1, 1, 1));
+        assertThat(postedId).isEqualTo(firstDiaryId + 3);
+        assertThat(diaryIdAllocator.reserve(1, 0, 0).nextDiaryId().getId()).isEqualTo(postedId + 1);
+    }
+
+    @Test
+    public void reservedIdsAreLimitedToRequestedCount() {
+        DiaryIdSequence ids = diaryIdAllocator.reserve(0, 0, 1);
+        ids.nextFoodId();
+
+        assertThatThrownBy(ids::nextFoodId).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(ids::nextDiaryId).isInstanceOf(IllegalStateException.class);
+    }
+
+    private SecurityDiaryPostRequestDTO makeDto(int breakFastSize, int lunchSize, int dinnerSize) {
+        List<SecurityFoodDTO> breakFast = IntStream.rangeClosed(1, breakFastSize).mapToObj(i -> new SecurityFoodDTO("breakFast" + i, i))
+                .collect(Collectors.toList());
+        List<SecurityFoodDTO> lunch = IntStream.rangeClosed(1, lunchSize).mapToObj(i -> new SecurityFoodDTO("lunch" + i, i))
+                .collect(Collectors.toList());
+        List<SecurityFoodDTO> dinner = IntStream.rangeClosed(1, dinnerSize).mapToObj(i -> new SecurityFoodDTO("dinner" + i, i))
+                .collect(Collectors.toList());
+
+        return SecurityDiaryPostRequestDTO.builder().fastingPlasmaGlucose(100).remark("test")
+                .year("2021").month("12").day("22").hour("00").minute("00").second("00")
+                .breakFastSugar(110).lunchSugar(120).dinnerSugar(130)
+                .breakFastFoods(breakFast).lunchFoods(lunch).dinnerFoods(dinner).build();
+    }
+}
@@ -14,6 +14,7 @@ import com.dasd412.remake.api.domain.diary.EntityId;
 import com.dasd412.remake.api.domain.diary.writer.Role;
 import com.dasd412.remake.api.domain.diary.writer.Writer;
 import com.dasd412.remake.api.domain.diary.writer.WriterRepository;
+import com.dasd412.remake.api.service.security.vo.OAuth2UserVO;
 import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
@@ -295,5 +296,23 @@ public class UserInfoTest {
         assertThat(bCryptPasswordEncoder.matches(newPassword, found.getPassword())).isTrue();
     }
 
+    @Transactional
+    @Test
+    public void findOAuthWriterByProvider() {
+        //given
+        OAuth2UserVO vo = OAuth2UserVO.builder()
+                .name("google_1").email("test@google.com")
+                .password("diabetesdiaryapi").role(Role.User)
+                .provider("google").providerId("1")
+                .build();
+
+        writerService.saveOAuthWriter(vo);
 
+        //when
+        Writer found = writerRepository.findWriterByProvider("google", "1").orElseThrow(IllegalStateException::new);
+
+        //then
+        assertThat(found.getName()).isEqualTo("google_1");
+        assertThat(writerRepository.findWriterByProvider("facebook", "1")).isEmpty();
+    }
 }